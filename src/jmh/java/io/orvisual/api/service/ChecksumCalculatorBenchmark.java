@@ -0,0 +1,85 @@
+package io.orvisual.api.service;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Compares {@link Sha256ChecksumCalculator} with checksum calculation by Guava {@link Hashing#sha256()}, which was
+ * used by {@link MultiPartFileToPictureFileItemConverter} before. Run with {@code ./gradlew jmh}, allocation rate
+ * may be measured with {@code -prof gc} option of benchmark jar.
+ *
+ * @author Artemis A. Sirosh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumCalculatorBenchmark {
+
+    @Param({"102400", "1048576", "10485760"})
+    private int contentLength;
+
+    private final HashFunction sha256Function = Hashing.sha256();
+    private final ChecksumCalculator checksumCalculator = new Sha256ChecksumCalculator();
+
+    private byte[] content;
+    private ByteBuffer directContent;
+
+    @Setup
+    public void setUp() {
+        content = new byte[contentLength];
+        new Random(contentLength).nextBytes(content);
+        directContent = ByteBuffer.allocateDirect(contentLength);
+        directContent.put(content).flip();
+    }
+
+    @Benchmark
+    public String guavaHashBytes() {
+        return sha256Function.hashBytes(content).toString();
+    }
+
+    @Benchmark
+    public String guavaHashingStream() throws IOException {
+        final HashingInputStream stream = new HashingInputStream(sha256Function, new ByteArrayInputStream(content));
+        ByteStreams.exhaust(stream);
+        return stream.hash().toString();
+    }
+
+    @Benchmark
+    public String calculatorStream() throws IOException {
+        return checksumCalculator.calculate(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public String calculatorHeapBuffer() {
+        return checksumCalculator.calculate(ByteBuffer.wrap(content));
+    }
+
+    @Benchmark
+    public String calculatorDirectBuffer() {
+        return checksumCalculator.calculate(directContent);
+    }
+}
@@ -0,0 +1,98 @@
+package io.orvisual.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.orvisual.api.repository.PictureRepository;
+import io.orvisual.api.service.PictureChecksumFilter;
+import io.orvisual.api.service.PictureMetadataCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Configure caching of picture metadata.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Configuration
+public class PictureMetadataConfig {
+
+    private static final long DEFAULT_CACHE_SIZE = 100_000;
+    private static final long DEFAULT_TTL_SECONDS = 3600;
+    private static final long DEFAULT_ABSENCE_TTL_SECONDS = 5;
+    private static final long DEFAULT_FILTER_EXPECTED_PICTURES = 1_000_000;
+    private static final double FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final long DEFAULT_FILTER_REBUILD_MINUTES = 10;
+    private static final long DEFAULT_FILTER_REFRESH_SECONDS = 5;
+
+    /**
+     * Creates filter of existing checksums, if {@literal PICTURE_CHECKSUM_FILTER} variable is {@code true}. Filter
+     * is sized for at least {@literal PICTURE_CHECKSUM_FILTER_EXPECTED} pictures, by default one million, and rebuilt
+     * every {@literal PICTURE_CHECKSUM_FILTER_REBUILD_MINUTES}, by default 10 minutes. Pictures uploaded by other
+     * nodes are put to filter every {@literal PICTURE_CHECKSUM_FILTER_REFRESH_SECONDS}, by default 5 seconds.
+     *
+     * @param environment application environment
+     * @param pictureRepository repository of pictures
+     * @param meterRegistry registry of filter metrics
+     * @return filter of existing checksums
+     */
+    @Bean
+    @ConditionalOnProperty(name = "PICTURE_CHECKSUM_FILTER", havingValue = "true")
+    public PictureChecksumFilter pictureChecksumFilter(
+            Environment environment, PictureRepository pictureRepository, MeterRegistry meterRegistry
+    ) {
+        return new PictureChecksumFilter(
+                pictureRepository,
+                environment.getProperty(
+                        "PICTURE_CHECKSUM_FILTER_EXPECTED", Long.class, DEFAULT_FILTER_EXPECTED_PICTURES
+                ),
+                FILTER_FALSE_POSITIVE_PROBABILITY,
+                Duration.ofMinutes(environment.getProperty(
+                        "PICTURE_CHECKSUM_FILTER_REBUILD_MINUTES", Long.class, DEFAULT_FILTER_REBUILD_MINUTES
+                )),
+                Duration.ofSeconds(environment.getProperty(
+                        "PICTURE_CHECKSUM_FILTER_REFRESH_SECONDS", Long.class, DEFAULT_FILTER_REFRESH_SECONDS
+                )),
+                meterRegistry
+        );
+    }
+
+    /**
+     * Creates cache of picture metadata. Max count of cached pictures may be set with
+     * {@literal PICTURE_METADATA_CACHE_SIZE} variable, by default 100000. Found picture is cached for
+     * {@literal PICTURE_METADATA_TTL_SECONDS}, by default one hour, absence of picture is cached for
+     * {@literal PICTURE_METADATA_ABSENCE_TTL_SECONDS}, by default 5 seconds. If checksum filter is enabled, pictures,
+     * which definitely not exist according to it, are not looked up in database.
+     *
+     * @param environment application environment
+     * @param pictureRepository repository of pictures
+     * @param checksumFilter filter of existing checksums, if it is enabled
+     * @param meterRegistry registry of cache metrics
+     * @return cache of picture metadata
+     */
+    @Bean
+    public PictureMetadataCache pictureMetadataCache(
+            Environment environment,
+            PictureRepository pictureRepository,
+            ObjectProvider<PictureChecksumFilter> checksumFilter,
+            MeterRegistry meterRegistry
+    ) {
+        return new PictureMetadataCache(
+                pictureRepository,
+                checksumFilter.getIfAvailable(),
+                environment.getProperty("PICTURE_METADATA_CACHE_SIZE", Long.class, DEFAULT_CACHE_SIZE),
+                Duration.ofSeconds(environment.getProperty(
+                        "PICTURE_METADATA_TTL_SECONDS", Long.class, DEFAULT_TTL_SECONDS
+                )),
+                Duration.ofSeconds(environment.getProperty(
+                        "PICTURE_METADATA_ABSENCE_TTL_SECONDS", Long.class, DEFAULT_ABSENCE_TTL_SECONDS
+                )),
+                meterRegistry
+        );
+    }
+}
@@ -0,0 +1,59 @@
+package io.orvisual.api.config;
+
+import io.orvisual.api.service.PictureStorageService;
+import io.orvisual.api.service.PictureVariantService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Configure resizing of pictures.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Configuration
+public class PictureVariantConfig {
+
+    private static final String DEFAULT_VARIANT_WIDTHS = "64,128,256,512,1024";
+    private static final long DEFAULT_MAX_PIXELS = 50_000_000;
+
+    /**
+     * Creates service of picture variants. Variants kept in directory set by {@literal PICTURE_VARIANT_DIR}
+     * variable, by default in {@literal orvisual-picture-variants} directory in temporary directory. Allowed
+     * widths may be set with {@literal PICTURE_VARIANT_WIDTHS} as comma separated list. Count of concurrent resizes
+     * may be set with {@literal PICTURE_VARIANT_THREADS}, by default it equals to count of available processors.
+     * Images with more pixels than {@literal PICTURE_VARIANT_MAX_PIXELS}, by default 50 millions, are not resized.
+     *
+     * @param environment application environment
+     * @param storageService storage of original picture files
+     * @return service of picture variants
+     */
+    @Bean
+    public PictureVariantService pictureVariantService(Environment environment, PictureStorageService storageService) {
+        final Set<Integer> widths = StringUtils.commaDelimitedListToSet(
+                environment.getProperty("PICTURE_VARIANT_WIDTHS", DEFAULT_VARIANT_WIDTHS)
+        ).stream().map(String::trim).map(Integer::valueOf).collect(Collectors.toSet());
+
+        return new PictureVariantService(
+                storageService,
+                Paths.get(environment.getProperty(
+                        "PICTURE_VARIANT_DIR",
+                        Paths.get(System.getProperty("java.io.tmpdir"), "orvisual-picture-variants").toString()
+                )),
+                widths,
+                environment.getProperty("PICTURE_VARIANT_MAX_PIXELS", Long.class, DEFAULT_MAX_PIXELS),
+                environment.getProperty(
+                        "PICTURE_VARIANT_THREADS", Integer.class, Runtime.getRuntime().availableProcessors()
+                ),
+                Duration.ofSeconds(10)
+        );
+    }
+}
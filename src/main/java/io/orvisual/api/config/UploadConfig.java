@@ -0,0 +1,142 @@
+package io.orvisual.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.orvisual.api.controller.UploadAdmissionInterceptor;
+import io.orvisual.api.service.ChecksumCalculator;
+import io.orvisual.api.service.PictureUploadService;
+import io.orvisual.api.service.UploadBudget;
+import io.orvisual.api.service.UploadSessionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Configure components for processing of uploaded files.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Configuration
+@EnableScheduling
+public class UploadConfig {
+
+    private static final long DEFAULT_MAX_FILE_SIZE = 10 * 1024 * 1024;
+    private static final long DEFAULT_UPLOAD_BUDGET_SIZE = 256 * 1024 * 1024;
+    private static final String UPLOAD_SESSION_DIRECTORY_NAME = ".upload-sessions";
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadConfig.class);
+
+    /**
+     * Creates bounded executor, which processes files of batch upload in parallel. Size of pool may be set
+     * with {@literal UPLOAD_THREADS} variable, by default it equals to count of available processors. When
+     * executor's queue is full, upload processed by request thread.
+     *
+     * @param environment application environment
+     * @return executor for processing of uploaded files
+     */
+    @Bean
+    public ThreadPoolTaskExecutor uploadTaskExecutor(Environment environment) {
+        final int threadsCount = environment.getProperty(
+                "UPLOAD_THREADS", Integer.class, Runtime.getRuntime().availableProcessors()
+        );
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threadsCount);
+        executor.setMaxPoolSize(threadsCount);
+        executor.setQueueCapacity(threadsCount * 4);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("upload-");
+        return executor;
+    }
+
+    /**
+     * Creates service of chunked uploads. Sessions kept in directory set by {@literal UPLOAD_SESSION_DIR}
+     * variable, by default in {@literal .upload-sessions} directory of local storage root, i.e. of
+     * {@literal PACKED_GALLERY_DIR} or {@literal GALLERY_DIR}, so sessions survive restart of host. Only when
+     * pictures are stored remotely, sessions are kept in temporary directory by default. Max size of
+     * uploaded file may be set with {@literal UPLOAD_SESSION_MAX_SIZE} in bytes, by default 10Mb. Sessions, which
+     * not changed longer than {@literal UPLOAD_SESSION_TTL_HOURS}, by default 24 hours, will be removed.
+     *
+     * @param environment application environment
+     * @param uploadService service for saving of completed uploads
+     * @param checksumCalculator calculator of checksum of uploaded file
+     * @return service of chunked uploads
+     */
+    @Bean
+    public UploadSessionService uploadSessionService(
+            Environment environment,
+            PictureUploadService uploadService,
+            ChecksumCalculator checksumCalculator
+    ) {
+        return new UploadSessionService(
+                resolveUploadSessionPath(environment),
+                environment.getProperty("UPLOAD_SESSION_MAX_SIZE", Long.class, DEFAULT_MAX_FILE_SIZE),
+                Duration.ofHours(environment.getProperty("UPLOAD_SESSION_TTL_HOURS", Long.class, 24L)),
+                uploadService,
+                checksumCalculator
+        );
+    }
+
+    private static Path resolveUploadSessionPath(Environment environment) {
+        final String sessionPathName = environment.getProperty("UPLOAD_SESSION_DIR");
+        if (sessionPathName != null)
+            return Paths.get(sessionPathName);
+
+        final String storagePathName = environment.getProperty(
+                "PACKED_GALLERY_DIR", environment.getProperty("GALLERY_DIR")
+        );
+        if (storagePathName != null)
+            return Paths.get(storagePathName, UPLOAD_SESSION_DIRECTORY_NAME);
+
+        final Path sessionPath = Paths.get(System.getProperty("java.io.tmpdir"), "orvisual-upload-sessions");
+        LOGGER.warn("UPLOAD_SESSION_DIR not set, upload sessions kept in {} may not survive restart", sessionPath);
+        return sessionPath;
+    }
+
+    /**
+     * Creates budget of concurrent uploads. Max total size of uploads may be set with {@literal UPLOAD_BUDGET_SIZE}
+     * in bytes, by default 256Mb. Upload waits for budget up to {@literal UPLOAD_BUDGET_WAIT_MILLIS}, by default
+     * 2 seconds.
+     *
+     * @param environment application environment
+     * @param meterRegistry registry of budget metrics
+     * @return budget of concurrent uploads
+     */
+    @Bean
+    public UploadBudget uploadBudget(Environment environment, MeterRegistry meterRegistry) {
+        return new UploadBudget(
+                environment.getProperty("UPLOAD_BUDGET_SIZE", Long.class, DEFAULT_UPLOAD_BUDGET_SIZE),
+                Duration.ofMillis(environment.getProperty("UPLOAD_BUDGET_WAIT_MILLIS", Long.class, 2000L)),
+                meterRegistry
+        );
+    }
+
+    /**
+     * Registers admission of upload requests within upload budget. Request without declared content length
+     * acquires budget for max size of file.
+     *
+     * @param uploadBudget budget of concurrent uploads
+     * @return configurer of upload admission
+     */
+    @Bean
+    public WebMvcConfigurer uploadAdmissionConfigurer(UploadBudget uploadBudget) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new UploadAdmissionInterceptor(uploadBudget, DEFAULT_MAX_FILE_SIZE))
+                        .addPathPatterns("/files", "/files/batch", "/files/sessions/**");
+            }
+        };
+    }
+}
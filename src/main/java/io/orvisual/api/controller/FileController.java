@@ -1,20 +1,46 @@
 package io.orvisual.api.controller;
 
+import com.google.common.base.Splitter;
+import com.google.common.io.BaseEncoding;
 import io.orvisual.api.model.Picture;
 import io.orvisual.api.model.PictureFileItem;
-import io.orvisual.api.repository.PictureRepository;
+import io.orvisual.api.service.MultiPartFileToPictureFileItemConverter;
 import io.orvisual.api.service.PictureStorageService;
-import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
-import org.springframework.hateoas.Link;
+import io.orvisual.api.service.PictureUploadResult;
+import io.orvisual.api.service.PictureMetadataCache;
+import io.orvisual.api.service.PictureResourceRange;
+import io.orvisual.api.service.PictureUploadService;
+import io.orvisual.api.service.PictureVariant;
+import io.orvisual.api.service.PictureVariantService;
+import io.orvisual.api.service.RangeNotSatisfiableException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartRequest;
+import org.springframework.web.multipart.support.MissingServletRequestPartException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -22,7 +48,31 @@ import java.util.Optional;
  * </p>
  *
  * Operates with {@link Picture} metadata object and image files. Supported operations:
- * {@code POST} for {@code /files}, and {@code GET and POST} for {@code /files/{checksum}}.
+ * {@code POST} for {@code /files} and {@code /files/batch}, and {@code GET and HEAD} for {@code /files/{checksum}}.
+ *
+ * Client, which knows checksum of file, may check it's presence with {@code HEAD} request, or send checksum with
+ * upload request in {@literal Digest} header (RFC 3230), then upload of already existed file completes without
+ * reading of request body.
+ *
+ * Picture file may be requested partially with {@literal Range} header, only single byte range supported. Range,
+ * conditioned by {@literal If-Range} header, is served only if validator matches picture: entity tag is quoted
+ * checksum of picture, date must not precede picture upload. Since picture identified by checksum of content,
+ * file never changes once uploaded.
+ *
+ * For the same reason responses with picture file are cacheable forever: checksum is used as entity tag and upload
+ * time as last modification time. Conditional request, which validators match picture, is answered with
+ * {@code 304} status without access to file storage. If storage provides temporary URL of file, client is redirected
+ * to download it from storage directly, redirect is not cached.
+ *
+ * Content of picture file is written asynchronously by download executor, unless file sent by servlet container
+ * with sendfile, so slow storage or slow client does not hold request thread. Download, which download executor
+ * can not accept, is rejected with {@code 503} status.
+ *
+ * Pictures are looked up by checksum in {@link PictureMetadataCache}, so downloads of known pictures do not query
+ * database.
+ *
+ * Resized variant of picture is requested with {@code w} parameter, which is width of variant in pixels, see
+ * {@link PictureVariantService}. Variant has own entity tag, ranges of variants are not supported.
  *
  * @author Artemis A. Sirosh
  */
@@ -30,56 +80,336 @@ import java.util.Optional;
 @RequestMapping("/files")
 public class FileController {
 
+    private static final String DIGEST_HEADER = "Digest";
+    private static final String SHA_256_ALGORITHM = "sha-256";
+    private static final int SHA_256_LENGTH = 32;
+    private static final String BYTES_UNIT = "bytes";
+
     private final PictureStorageService storageService;
-    private final PictureRepository pictureRepository;
-    private final RepositoryEntityLinks entityLinks;
+    private final PictureUploadService uploadService;
+    private final PictureMetadataCache metadataCache;
+    private final PictureResourceAssembler resourceAssembler;
+    private final MultiPartFileToPictureFileItemConverter multiPartFileConverter;
+    private final Executor uploadExecutor;
+    private final PictureVariantService variantService;
+
+    /**
+     * Extracts checksum from {@literal Digest} header value, see
+     * <a href="https://tools.ietf.org/html/rfc3230#section-4.3.2">RFC 3230</a>. Header may contain several
+     * digests, separated by comma, only {@code SHA-256} digest used.
+     *
+     * @param digest value of {@literal Digest} header
+     * @return hex encoded {@code SHA-256} checksum, or empty if header not contains {@code SHA-256} digest
+     * @throws InvalidDigestException if {@code SHA-256} digest is not valid base64 encoded checksum
+     */
+    private static Optional<String> parseDigestChecksum(final String digest) throws InvalidDigestException {
+        for (String instance : Splitter.on(',').trimResults().omitEmptyStrings().split(digest)) {
+            int separatorIndex = instance.indexOf('=');
+            if (separatorIndex > 0 && SHA_256_ALGORITHM.equalsIgnoreCase(instance.substring(0, separatorIndex))) {
+                try {
+                    byte[] checksum = BaseEncoding.base64().decode(instance.substring(separatorIndex + 1));
+                    if (checksum.length != SHA_256_LENGTH)
+                        throw new InvalidDigestException("Wrong length of SHA-256 digest: " + checksum.length);
+
+                    return Optional.of(BaseEncoding.base16().lowerCase().encode(checksum));
+                } catch (IllegalArgumentException exc) {
+                    throw new InvalidDigestException("SHA-256 digest not valid", exc);
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Extracts byte range from {@literal Range} header. Header is ignored, if it is not valid, contains several
+     * ranges, or if {@literal If-Range} validator not matches picture.
+     *
+     * @param request served request
+     * @param picture requested picture
+     * @return requested range, or empty if whole file should be served
+     */
+    private static Optional<HttpRange> parseRequestedRange(HttpServletRequest request, Picture picture) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null)
+            return Optional.empty();
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !matchesIfRange(request, ifRange, picture))
+            return Optional.empty();
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? Optional.of(ranges.get(0)) : Optional.empty();
+        } catch (IllegalArgumentException exc) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Compares {@literal If-Range} validator with picture strongly, as RFC 7233 requires: weak entity tag never
+     * matches, date matches only if it is exactly the last modification date.
+     */
+    private static boolean matchesIfRange(HttpServletRequest request, String ifRange, Picture picture) {
+        if (ifRange.startsWith("W/"))
+            return false;
+        if (ifRange.startsWith("\""))
+            return ifRange.equals(PictureCaching.eTagOf(picture));
+
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            long lastModified = PictureCaching.lastModifiedOf(picture);
+            return lastModified >= 0 && date == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException exc) {
+            return false;
+        }
+    }
 
     public FileController(
-            PictureStorageService storageService, PictureRepository pictureRepository, RepositoryEntityLinks entityLinks
+            PictureStorageService storageService,
+            PictureUploadService uploadService,
+            PictureMetadataCache metadataCache,
+            PictureResourceAssembler resourceAssembler,
+            MultiPartFileToPictureFileItemConverter multiPartFileConverter,
+            @Qualifier("uploadTaskExecutor") Executor uploadExecutor,
+            PictureVariantService variantService
     ) {
         this.storageService = storageService;
-        this.pictureRepository = pictureRepository;
-        this.entityLinks = entityLinks;
+        this.uploadService = uploadService;
+        this.metadataCache = metadataCache;
+        this.resourceAssembler = resourceAssembler;
+        this.multiPartFileConverter = multiPartFileConverter;
+        this.uploadExecutor = uploadExecutor;
+        this.variantService = variantService;
     }
 
 
     @PostMapping
     public ResponseEntity<Resource<Picture>> savePictureFile(@RequestParam("image") PictureFileItem fileItem) {
-        Optional<Picture> optionalPicture = pictureRepository.findById(fileItem.getPictureItem().getChecksum());
-        if (optionalPicture.isPresent()) {
-            return ResponseEntity.ok(createResource(optionalPicture.get()));
-        } else {
-            storageService.savePictureFileItem(fileItem);
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(createResource(pictureRepository.save(fileItem.getPictureItem())));
+        PictureUploadResult uploadResult = uploadService.savePictureFileItem(fileItem);
+        return ResponseEntity.status(uploadResult.isCreated() ? HttpStatus.CREATED : HttpStatus.OK)
+                .body(resourceAssembler.toResource(uploadResult.getPicture()));
+    }
+
+    /**
+     * Uploads image file, which checksum declared in {@literal Digest} header. If picture with declared checksum
+     * already exists, it returned immediately and multipart request body is not read at all, client should send
+     * {@literal Expect: 100-continue} header to avoid body transmission. Otherwise file uploaded as usual, and
+     * it's checksum must match declared one.
+     *
+     * @param digest value of {@literal Digest} header
+     * @param multipartRequest request, which multipart content resolved lazily
+     * @return picture resource with {@code 200} status if picture exists, or with {@code 201} status if created
+     * @throws InvalidDigestException if header not valid or declared checksum not matches uploaded file
+     */
+    @PostMapping(headers = DIGEST_HEADER)
+    public ResponseEntity<Resource<Picture>> saveDigestedPictureFile(
+            @RequestHeader(DIGEST_HEADER) String digest, MultipartRequest multipartRequest
+    ) throws MissingServletRequestPartException {
+        Optional<String> declaredChecksum = parseDigestChecksum(digest);
+        if (declaredChecksum.isPresent()) {
+            Optional<Picture> optionalPicture = metadataCache.findPicture(declaredChecksum.get());
+            if (optionalPicture.isPresent()) {
+                return ResponseEntity.ok(resourceAssembler.toResource(optionalPicture.get()));
+            }
         }
+
+        MultipartFile multipartFile = multipartRequest.getFile("image");
+        if (multipartFile == null)
+            throw new MissingServletRequestPartException("image");
+
+        PictureFileItem fileItem = multiPartFileConverter.convert(multipartFile);
+        if (declaredChecksum.isPresent() && !declaredChecksum.get().equals(fileItem.getPictureItem().getChecksum()))
+            throw new InvalidDigestException("Checksum of uploaded file not matches SHA-256 digest");
+
+        return savePictureFile(fileItem);
     }
 
-    @GetMapping("/{checksum}")
-    public ResponseEntity<?> findPictureFile(@PathVariable String checksum) {
-        Optional<Picture> optionalPicture = pictureRepository.findById(checksum);
-        return optionalPicture.<ResponseEntity<?>>map(picture -> ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_TYPE, picture.getMimeType())
-                .body(storageService.resolvePictureResource(picture)))
+    /**
+     * Uploads several image files in one request. Files are converted and saved in parallel, failure of one file
+     * does not affect others.
+     *
+     * @param multipartFiles uploaded files, attached to parts with name {@literal images}
+     * @return collection of upload outcomes, in order of uploaded files
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Resources<Resource<PictureUploadItem>>> savePictureFiles(
+            @RequestParam("images") List<MultipartFile> multipartFiles
+    ) {
+        List<CompletableFuture<PictureUploadItem>> uploads = multipartFiles.stream()
+                .map(multipartFile -> CompletableFuture.supplyAsync(() -> uploadFile(multipartFile), uploadExecutor))
+                .collect(Collectors.toList());
+
+        List<Resource<PictureUploadItem>> uploadItems = uploads.stream()
+                .map(CompletableFuture::join)
+                .map(this::createResource)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(new Resources<>(
+                uploadItems, ControllerLinkBuilder.linkTo(FileController.class).slash("batch").withSelfRel()
+        ));
+    }
+
+    /**
+     * Checks whether picture file with given checksum exists, without access to file storage.
+     *
+     * @param checksum picture's checksum
+     * @return response with {@code 200} status and picture's content type, or {@code 404} if picture not exists
+     */
+    @RequestMapping(path = "/{checksum}", method = RequestMethod.HEAD)
+    public ResponseEntity<?> checkPictureFile(@PathVariable String checksum) {
+        return metadataCache.findPicture(checksum)
+                .<ResponseEntity<?>>map(picture -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_TYPE, picture.getMimeType())
+                        .header(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT)
+                        .header(HttpHeaders.CACHE_CONTROL, PictureCaching.CACHE_CONTROL)
+                        .eTag(PictureCaching.eTagOf(picture))
+                        .lastModified(PictureCaching.lastModifiedOf(picture))
+                        .build())
                 .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Serves picture file, or single byte range of it with {@code 206} status, if requested. Conditional request,
+     * which validators match picture, is answered with {@code 304} status. If width given, resized variant of
+     * picture served instead of original file.
+     *
+     * @param checksum picture's checksum
+     * @param width width of requested variant in pixels, optional
+     * @param request served request
+     * @param response response, to which file written
+     * @return body, which asynchronously writes file, or {@code null} if response is complete, or file is sent by
+     * container
+     * @throws IOException if file can not be opened
+     * @throws RangeNotSatisfiableException if requested range starts beyond end of file
+     */
+    @Nullable
+    @GetMapping("/{checksum}")
+    public StreamingResponseBody findPictureFile(
+            @PathVariable String checksum,
+            @RequestParam(name = "w", required = false) Integer width,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
 
+        Optional<Picture> optionalPicture = metadataCache.findPicture(checksum);
+        if (!optionalPicture.isPresent()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return null;
+        }
+
+        Picture picture = optionalPicture.get();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, PictureCaching.CACHE_CONTROL);
+        if (width != null)
+            return findPictureVariant(picture, width, request, response);
+
+        if (new ServletWebRequest(request, response).checkNotModified(
+                PictureCaching.eTagOf(picture), PictureCaching.lastModifiedOf(picture)
+        )) {
+            return null;
+        }
+
+        URL pictureUrl = storageService.resolvePictureUrl(picture);
+        if (pictureUrl != null) {
+            response.setStatus(HttpStatus.FOUND.value());
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.setHeader(HttpHeaders.LOCATION, pictureUrl.toString());
+            return null;
+        }
+
+        Optional<HttpRange> requestedRange = parseRequestedRange(request, picture);
+        if (requestedRange.isPresent()) {
+            PictureResourceRange range = storageService.resolvePictureRange(picture, requestedRange.get());
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setContentType(picture.getMimeType());
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+            response.setHeader(
+                    HttpHeaders.CONTENT_RANGE,
+                    BYTES_UNIT + " " + range.getStart() + "-" + range.getEnd() + "/" + range.getTotalLength()
+            );
+            return PictureResourceWriter.writeRange(range, request, response);
+        }
+
+        response.setContentType(picture.getMimeType());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+        return PictureResourceWriter.writeResource(storageService.resolvePictureResource(picture), request, response);
+    }
+
+    private StreamingResponseBody findPictureVariant(
+            Picture picture, int width, HttpServletRequest request, HttpServletResponse response
+    ) throws IOException {
+
+        if (new ServletWebRequest(request, response).checkNotModified(
+                PictureCaching.eTagOf(picture, width), PictureCaching.lastModifiedOf(picture)
+        )) {
+            return null;
+        }
+
+        PictureVariant variant = variantService.resolveVariant(picture, width);
+        response.setContentType(variant.getMimeType());
+        return PictureResourceWriter.writeResource(variant.getResource(), request, response);
     }
 
     /**
-     * Creates REST resource from {@link Picture} metadata instance.
+     * Handles requested range, which starts beyond end of file.
      *
-     * @param picture metadata object instance
-     * @return picture {@link Resource}
+     * @param exc exception with length of file
+     * @return response with {@code 416} status and {@literal Content-Range} header
      */
-    private Resource<Picture> createResource(Picture picture) {
-        Link pictureLink = entityLinks.linkFor(Picture.class).slash(picture.getChecksum()).withRel("picture");
-        Link selfLink = entityLinks.linkFor(Picture.class).slash(picture.getChecksum()).withSelfRel();
-        Link imageFileLink = ControllerLinkBuilder
-                .linkTo(FileController.class)
-                .slash(picture.getChecksum())
-                .withRel("imageFile");
-
-        return new Resource<>(picture, selfLink, pictureLink, imageFileLink);
+    @ExceptionHandler(RangeNotSatisfiableException.class)
+    public ResponseEntity<?> handleRangeNotSatisfiable(RangeNotSatisfiableException exc) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " */" + exc.getContentLength())
+                .build();
+    }
+
+    /**
+     * Handles download, which is rejected by download executor, since all it's threads are busy and queue is full.
+     *
+     * @param exc exception of executor
+     * @return response with {@code 503} status
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<?> handleDownloadRejected(TaskRejectedException exc) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * Converts and saves single file of batch upload.
+     *
+     * @param multipartFile uploaded file
+     * @return outcome of upload, never {@code null}
+     */
+    private PictureUploadItem uploadFile(MultipartFile multipartFile) {
+        try {
+            PictureUploadResult uploadResult = uploadService.savePictureFileItem(
+                    multiPartFileConverter.convert(multipartFile)
+            );
+
+            return new PictureUploadItem(
+                    multipartFile.getOriginalFilename(),
+                    uploadResult.isCreated() ? PictureUploadItem.Status.CREATED : PictureUploadItem.Status.EXISTING,
+                    uploadResult.getPicture(),
+                    null
+            );
+        } catch (RuntimeException exc) {
+            return new PictureUploadItem(
+                    multipartFile.getOriginalFilename(), PictureUploadItem.Status.FAILED, null, exc.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Creates REST resource from outcome of single file upload, with links to {@link Picture} if upload succeed.
+     *
+     * @param uploadItem outcome of file upload
+     * @return upload item {@link Resource}
+     */
+    private Resource<PictureUploadItem> createResource(PictureUploadItem uploadItem) {
+        if (uploadItem.getPicture() == null)
+            return new Resource<>(uploadItem);
+
+        return new Resource<>(uploadItem, resourceAssembler.toResource(uploadItem.getPicture()).getLinks());
     }
 
 }
@@ -0,0 +1,24 @@
+package io.orvisual.api.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when {@literal Digest} header of upload request can not be parsed, or when
+ * checksum declared by header not matches checksum of uploaded file.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "digest not valid")
+class InvalidDigestException extends IllegalArgumentException {
+
+    InvalidDigestException(String s) {
+        super(s);
+    }
+
+    InvalidDigestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,52 @@
+package io.orvisual.api.controller;
+
+import io.orvisual.api.model.Picture;
+import org.springframework.http.CacheControl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Validators and caching policy of picture resources. Picture is identified by checksum of it's file, so neither
+ * file, nor metadata of picture ever change: checksum is used as strong entity tag, and responses may be cached
+ * for a year without revalidation.
+ *
+ * @author Artemis A. Sirosh
+ */
+final class PictureCaching {
+
+    /**
+     * Value of {@literal Cache-Control} header for picture resources.
+     */
+    static final String CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue()
+            + ", immutable";
+
+    private PictureCaching() {
+    }
+
+    /**
+     * @param picture picture
+     * @return quoted checksum of picture
+     */
+    static String eTagOf(Picture picture) {
+        return "\"" + picture.getChecksum() + "\"";
+    }
+
+    /**
+     * @param picture picture
+     * @param width width of picture variant
+     * @return quoted checksum of picture with width of variant
+     */
+    static String eTagOf(Picture picture, int width) {
+        return "\"" + picture.getChecksum() + "-w" + width + "\"";
+    }
+
+    /**
+     * @param picture picture
+     * @return upload time of picture in milliseconds, or {@code -1} if unknown
+     */
+    static long lastModifiedOf(Picture picture) {
+        return picture.getLoadedAt() != null ? picture.getLoadedAt().toEpochMilli() : -1;
+    }
+}
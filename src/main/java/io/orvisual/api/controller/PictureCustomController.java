@@ -2,17 +2,26 @@ package io.orvisual.api.controller;
 
 import io.orvisual.api.model.Picture;
 import io.orvisual.api.repository.PictureRepository;
+import io.orvisual.api.service.PictureMetadataCache;
 import io.orvisual.api.service.PictureStorageService;
+import io.orvisual.api.service.PictureVariantService;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
 import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 
 /**
  * Created on 31 May, 2018.
  *
- * This controller customize {@literal DELETE} operation of Rest resource {@link Picture}
+ * This controller customize {@literal GET} and {@literal DELETE} operations of Rest resource {@link Picture}.
+ * Picture resource is served with entity tag and caching headers, see {@link PictureCaching}. Deleting of picture
+ * deletes it's file and resized variants. Pictures are looked up with {@link PictureMetadataCache}, which is
+ * invalidated on deletion.
  *
  * @author Artemis A. Sirosh
  */
@@ -20,19 +29,51 @@ import org.springframework.web.bind.annotation.PathVariable;
 public class PictureCustomController {
 
     private final PictureRepository pictureRepository;
+    private final PictureMetadataCache metadataCache;
     private final PictureStorageService storageService;
+    private final PictureVariantService variantService;
 
-    public PictureCustomController(PictureRepository pictureRepository, PictureStorageService storageService) {
+    public PictureCustomController(
+            PictureRepository pictureRepository,
+            PictureMetadataCache metadataCache,
+            PictureStorageService storageService,
+            PictureVariantService variantService
+    ) {
         this.pictureRepository = pictureRepository;
+        this.metadataCache = metadataCache;
         this.storageService = storageService;
+        this.variantService = variantService;
+    }
+
+    /**
+     * Finds picture resource. Conditional request, which validators match picture, is answered with {@code 304}
+     * status.
+     *
+     * @param checksum picture's checksum
+     * @param resourceAssembler assembler of repository resources
+     * @return picture resource with caching headers, or {@code 404} if picture not exists
+     */
+    @GetMapping("/pictures/{checksum}")
+    public ResponseEntity<PersistentEntityResource> findPicture(
+            @PathVariable String checksum, PersistentEntityResourceAssembler resourceAssembler
+    ) {
+        return metadataCache.findPicture(checksum)
+                .map(picture -> ResponseEntity.ok()
+                        .header(HttpHeaders.CACHE_CONTROL, PictureCaching.CACHE_CONTROL)
+                        .eTag(PictureCaching.eTagOf(picture))
+                        .lastModified(PictureCaching.lastModifiedOf(picture))
+                        .body(resourceAssembler.toFullResource(picture)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/pictures/{checksum}")
     public ResponseEntity<Picture> deletePicture(@PathVariable String checksum) {
-        return pictureRepository.findById(checksum)
+        return metadataCache.findPicture(checksum)
                 .<ResponseEntity<Picture>>map(picture -> {
                     pictureRepository.delete(picture);
+                    metadataCache.invalidate(checksum);
                     storageService.deletePictureFile(picture);
+                    variantService.deleteVariants(picture);
                     return ResponseEntity.noContent().build();
                 }).orElse(ResponseEntity.notFound().build());
     }
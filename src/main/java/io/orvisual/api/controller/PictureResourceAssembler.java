@@ -0,0 +1,45 @@
+package io.orvisual.api.controller;
+
+import io.orvisual.api.model.Picture;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.ResourceAssembler;
+import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Creates REST resource from {@link Picture} metadata instance, which is returned by file upload operations. Resource
+ * contains links to {@link Picture} resource and to image file.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Component
+public class PictureResourceAssembler implements ResourceAssembler<Picture, Resource<Picture>> {
+
+    private final RepositoryEntityLinks entityLinks;
+
+    public PictureResourceAssembler(RepositoryEntityLinks entityLinks) {
+        this.entityLinks = entityLinks;
+    }
+
+    /**
+     * Creates REST resource from {@link Picture} metadata instance.
+     *
+     * @param picture metadata object instance
+     * @return picture {@link Resource}
+     */
+    @Override
+    public Resource<Picture> toResource(Picture picture) {
+        Link pictureLink = entityLinks.linkFor(Picture.class).slash(picture.getChecksum()).withRel("picture");
+        Link selfLink = entityLinks.linkFor(Picture.class).slash(picture.getChecksum()).withSelfRel();
+        Link imageFileLink = ControllerLinkBuilder
+                .linkTo(FileController.class)
+                .slash(picture.getChecksum())
+                .withRel("imageFile");
+
+        return new Resource<>(picture, selfLink, pictureLink, imageFileLink);
+    }
+}
@@ -26,7 +26,10 @@ public class PictureResourceProcessor implements ResourceProcessor<Resource<Pict
                 MvcUriComponentsBuilder.fromMethodName(
                         FileController.class,
                         "findPictureFile",
-                        resource.getContent().getChecksum()
+                        resource.getContent().getChecksum(),
+                        null,
+                        null,
+                        null
                 ).toUriString(),
                 "imageFile"
         ));
@@ -0,0 +1,240 @@
+package io.orvisual.api.controller;
+
+import com.google.common.io.ByteStreams;
+import io.orvisual.api.service.OffHeapPictureResource;
+import io.orvisual.api.service.PackedPictureResource;
+import io.orvisual.api.service.PictureResourceRange;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Writes content of picture file to response. Files are served without copying through application buffers: if
+ * servlet container supports sendfile, file transfer delegated to container, otherwise file written by
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. Off-heap cached content is written from it's
+ * buffers by {@link WritableByteChannel} over servlet output stream. Content stored in segment of packed storage is
+ * transferred from segment file. Other resources are copied from stream.
+ *
+ * Except of sendfile, content is written by returned {@link StreamingResponseBody}, which Spring MVC runs
+ * asynchronously on download executor, so request thread is released while content is transferred. Writes are
+ * blocking, download thread is held until client receives content. Closeable resources are closed after writing,
+ * or when asynchronous processing completes before writing started, e.g. download timed out in executor's queue or
+ * was rejected.
+ *
+ * @author Artemis A. Sirosh
+ */
+final class PictureResourceWriter {
+
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private PictureResourceWriter() {
+    }
+
+    /**
+     * Prepares writing of whole resource to response, content length of response set if it is known without
+     * reading of resource.
+     *
+     * @param resource picture file
+     * @param request served request
+     * @param response response, to which content written
+     * @return body, which writes content, or {@code null} if file is sent by container
+     * @throws IOException if file of resource can not be opened
+     */
+    @Nullable
+    static StreamingResponseBody writeResource(
+            Resource resource, HttpServletRequest request, HttpServletResponse response
+    ) throws IOException {
+
+        final long length = lengthOf(resource);
+        if (length >= 0)
+            response.setContentLengthLong(length);
+        return write(resource, 0, length, request);
+    }
+
+    /**
+     * Prepares writing of content of byte range to response and sets content length of response.
+     *
+     * @param range resolved range of picture file
+     * @param request served request
+     * @param response response, to which content written
+     * @return body, which writes content, or {@code null} if file is sent by container
+     * @throws IOException if file of resource can not be opened
+     */
+    @Nullable
+    static StreamingResponseBody writeRange(
+            PictureResourceRange range, HttpServletRequest request, HttpServletResponse response
+    ) throws IOException {
+
+        response.setContentLengthLong(range.getLength());
+        return write(range.getResource(), range.getOffset(), range.getLength(), request);
+    }
+
+    private static long lengthOf(Resource resource) {
+        if (resource instanceof InputStreamResource)
+            return -1;
+
+        try {
+            return resource.contentLength();
+        } catch (IOException exc) {
+            return -1;
+        }
+    }
+
+    private static StreamingResponseBody write(
+            Resource resource, long offset, long length, HttpServletRequest request
+    ) throws IOException {
+
+        if (resource.isFile() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            try {
+                sendFile(resource, offset, length, request);
+            } finally {
+                if (resource instanceof Closeable)
+                    ((Closeable) resource).close();
+            }
+            return null;
+        }
+
+        final ResourceTransfer transfer = new ResourceTransfer(resource, offset, length);
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ResourceTransfer.class.getName(), transfer);
+        return transfer;
+    }
+
+    private static void sendFile(
+            Resource resource, long offset, long length, HttpServletRequest request
+    ) throws IOException {
+
+        final long end = length < 0 ? resource.getFile().length() : offset + length;
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, resource.getFile().getAbsolutePath());
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, offset);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, end);
+    }
+
+    private static void transfer(
+            Resource resource, long offset, long length, OutputStream outputStream
+    ) throws IOException {
+
+        if (resource instanceof OffHeapPictureResource) {
+            try (OffHeapPictureResource offHeapResource = (OffHeapPictureResource) resource) {
+                writeBuffers(
+                        offHeapResource.getBuffers(offset, length < 0 ? Long.MAX_VALUE : length), outputStream
+                );
+            }
+            return;
+        }
+
+        if (resource instanceof PackedPictureResource) {
+            try (PackedPictureResource packedResource = (PackedPictureResource) resource) {
+                packedResource.transferTo(
+                        offset,
+                        length < 0 ? packedResource.contentLength() - offset : length,
+                        Channels.newChannel(outputStream)
+                );
+                outputStream.flush();
+            }
+            return;
+        }
+
+        if (resource.isFile()) {
+            try {
+                writeFile(resource, offset, length, outputStream);
+            } finally {
+                if (resource instanceof Closeable)
+                    ((Closeable) resource).close();
+            }
+            return;
+        }
+
+        try (InputStream stream = resource.getInputStream()) {
+            ByteStreams.skipFully(stream, offset);
+            ByteStreams.copy(length < 0 ? stream : ByteStreams.limit(stream, length), outputStream);
+            outputStream.flush();
+        } finally {
+            if (resource instanceof Closeable)
+                ((Closeable) resource).close();
+        }
+    }
+
+    private static void writeFile(
+            Resource resource, long offset, long length, OutputStream outputStream
+    ) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            final long end = length < 0 ? channel.size() : offset + length;
+            final WritableByteChannel responseChannel = Channels.newChannel(outputStream);
+            long position = offset;
+            while (position < end) {
+                final long transferred = channel.transferTo(position, end - position, responseChannel);
+                if (transferred <= 0)
+                    break;
+                position += transferred;
+            }
+            outputStream.flush();
+        }
+    }
+
+    private static void writeBuffers(ByteBuffer[] buffers, OutputStream outputStream) throws IOException {
+        final WritableByteChannel responseChannel = Channels.newChannel(outputStream);
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                responseChannel.write(buffer);
+            }
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Body, which transfers resource once. Asynchronous processing of request is completed on timeout or error even
+     * if body never run, so resource is closed on completion, unless body has taken it for writing.
+     */
+    private static final class ResourceTransfer implements StreamingResponseBody, CallableProcessingInterceptor {
+
+        private final Resource resource;
+        private final long offset;
+        private final long length;
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        ResourceTransfer(Resource resource, long offset, long length) {
+            this.resource = resource;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+            if (taken.compareAndSet(false, true))
+                transfer(resource, offset, length, outputStream);
+        }
+
+        @Override
+        public <T> void afterCompletion(@NonNull NativeWebRequest request, @NonNull Callable<T> task)
+                throws IOException {
+
+            if (taken.compareAndSet(false, true) && resource instanceof Closeable)
+                ((Closeable) resource).close();
+        }
+    }
+}
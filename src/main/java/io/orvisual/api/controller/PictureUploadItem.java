@@ -0,0 +1,35 @@
+package io.orvisual.api.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import io.orvisual.api.model.Picture;
+import lombok.Value;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Outcome of upload of single file in batch upload. Contains name of uploaded file, upload status and
+ * {@link Picture} metadata if upload was successful, or error message otherwise.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+class PictureUploadItem {
+
+    /**
+     * Status of uploaded file.
+     */
+    enum Status {
+        CREATED, EXISTING, FAILED
+    }
+
+    private final String fileName;
+    private final Status status;
+
+    @JsonUnwrapped
+    private final Picture picture;
+
+    private final String error;
+
+}
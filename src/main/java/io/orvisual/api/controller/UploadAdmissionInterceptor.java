@@ -0,0 +1,82 @@
+package io.orvisual.api.controller;
+
+import io.orvisual.api.service.UploadBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Admits upload requests within {@link UploadBudget}. Budget acquired by declared content length of request before
+ * it's body is read, multipart content resolved lazily for this reason. Request, which not admitted in time, rejected
+ * with {@code 503} status and {@literal Retry-After} header. Acquired budget released when request completes.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class UploadAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadAdmissionInterceptor.class);
+    private static final String PERMIT_ATTRIBUTE = UploadAdmissionInterceptor.class.getName() + ".PERMIT";
+
+    private final UploadBudget uploadBudget;
+    private final long unknownContentLength;
+
+    /**
+     * Creates interceptor.
+     *
+     * @param uploadBudget budget of concurrent uploads
+     * @param unknownContentLength size in bytes, which acquired for request without declared content length
+     */
+    public UploadAdmissionInterceptor(@NonNull UploadBudget uploadBudget, long unknownContentLength) {
+        this.uploadBudget = uploadBudget;
+        this.unknownContentLength = unknownContentLength;
+    }
+
+    @Override
+    public boolean preHandle(
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler
+    ) throws IOException, InterruptedException {
+
+        final long contentLength = request.getContentLengthLong();
+        if (contentLength == 0 || contentLength < 0 && request.getHeader(HttpHeaders.TRANSFER_ENCODING) == null)
+            return true;
+
+        final UploadBudget.Permit permit = uploadBudget.tryAcquire(
+                contentLength > 0 ? contentLength : unknownContentLength
+        );
+        if (permit == null) {
+            LOGGER.warn("Upload of {} bytes rejected, upload budget exhausted", contentLength);
+            response.setHeader(
+                    HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, uploadBudget.getMaxWait().getSeconds()))
+            );
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent uploads");
+            return false;
+        }
+
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler,
+            Exception exc
+    ) {
+        final Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof UploadBudget.Permit) {
+            ((UploadBudget.Permit) permit).close();
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.orvisual.api.controller;
+
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.service.PictureUploadResult;
+import io.orvisual.api.service.UploadOffsetConflictException;
+import io.orvisual.api.service.UploadSession;
+import io.orvisual.api.service.UploadSessionService;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Provides chunked upload of image files, which may be resumed after interruption. Upload protocol:
+ * <ol>
+ *     <li>{@code POST} for {@code /files/sessions} opens upload session, it's URL returned in {@literal Location}
+ *     header</li>
+ *     <li>{@code PATCH} for session URL appends chunk, which offset sent in {@literal Upload-Offset} header</li>
+ *     <li>{@code HEAD} for session URL returns count of received bytes in {@literal Upload-Offset} header, it used
+ *     to resume interrupted upload</li>
+ *     <li>{@code POST} for {@code /files/sessions/{id}/complete} saves uploaded file as {@link Picture}</li>
+ * </ol>
+ *
+ * @author Artemis A. Sirosh
+ */
+@Controller
+@RequestMapping("/files/sessions")
+public class UploadSessionController {
+
+    static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+
+    private final UploadSessionService sessionService;
+    private final PictureResourceAssembler resourceAssembler;
+
+    public UploadSessionController(UploadSessionService sessionService, PictureResourceAssembler resourceAssembler) {
+        this.sessionService = sessionService;
+        this.resourceAssembler = resourceAssembler;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> openSession(@RequestParam("mimeType") String mimeType) {
+        UploadSession session = sessionService.openSession(mimeType);
+        return ResponseEntity
+                .created(ControllerLinkBuilder.linkTo(UploadSessionController.class).slash(session.getId()).toUri())
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.getOffset()))
+                .build();
+    }
+
+    @RequestMapping(path = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<?> findSession(@PathVariable String id) {
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(sessionService.findSession(id).getOffset()))
+                .build();
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> appendChunk(
+            @PathVariable String id, @RequestHeader(UPLOAD_OFFSET_HEADER) long offset, InputStream chunk
+    ) {
+        return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(sessionService.appendChunk(id, offset, chunk).getOffset()))
+                .build();
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Resource<Picture>> completeSession(@PathVariable String id) {
+        PictureUploadResult uploadResult = sessionService.completeSession(id);
+        return ResponseEntity.status(uploadResult.isCreated() ? HttpStatus.CREATED : HttpStatus.OK)
+                .body(resourceAssembler.toResource(uploadResult.getPicture()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteSession(@PathVariable String id) {
+        sessionService.deleteSession(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Responds to chunk with wrong offset, response contains actual offset of session.
+     *
+     * @param exc exception with session's offset
+     * @return response with {@code 409} status and {@literal Upload-Offset} header
+     */
+    @ExceptionHandler(UploadOffsetConflictException.class)
+    public ResponseEntity<?> handleOffsetConflict(UploadOffsetConflictException exc) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(exc.getSessionOffset()))
+                .build();
+    }
+}
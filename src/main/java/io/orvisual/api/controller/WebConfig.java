@@ -1,14 +1,75 @@
 package io.orvisual.api.controller;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * <p>
  * Created on 20.05.2018.
  * </p>
  *
+ * Configures asynchronous writing of downloaded files, see {@link FileController}.
+ *
  * @author Artemis A. Sirosh
  */
 @Configuration
 public class WebConfig {
+
+    private static final int DEFAULT_DOWNLOAD_THREADS = 64;
+    private static final long DEFAULT_DOWNLOAD_TIMEOUT_SECONDS = 600;
+
+    /**
+     * Creates executor, which writes downloaded files to responses. Size of pool may be set with
+     * {@literal DOWNLOAD_THREADS} variable, by default 64 threads. Writes are blocking, so thread is held by slow
+     * client until download completes or times out. When executor's queue is full, download is rejected, request
+     * thread never writes file itself.
+     *
+     * @param environment application environment
+     * @return executor for writing of downloaded files
+     */
+    @Bean
+    public ThreadPoolTaskExecutor downloadTaskExecutor(Environment environment) {
+        final int threadsCount = environment.getProperty("DOWNLOAD_THREADS", Integer.class, DEFAULT_DOWNLOAD_THREADS);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threadsCount);
+        executor.setMaxPoolSize(threadsCount);
+        executor.setQueueCapacity(threadsCount * 16);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("download-");
+        return executor;
+    }
+
+    /**
+     * Runs asynchronous request processing on download executor. Download, which not completed in
+     * {@literal DOWNLOAD_TIMEOUT_SECONDS}, by default 10 minutes, is aborted.
+     *
+     * @param environment application environment
+     * @param downloadExecutor executor for writing of downloaded files
+     * @return configurer of asynchronous request processing
+     */
+    @Bean
+    public WebMvcConfigurer downloadAsyncConfigurer(
+            Environment environment, @Qualifier("downloadTaskExecutor") ThreadPoolTaskExecutor downloadExecutor
+    ) {
+        final Duration timeout = Duration.ofSeconds(environment.getProperty(
+                "DOWNLOAD_TIMEOUT_SECONDS", Long.class, DEFAULT_DOWNLOAD_TIMEOUT_SECONDS
+        ));
+
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(downloadExecutor);
+                configurer.setDefaultTimeout(timeout.toMillis());
+            }
+        };
+    }
 }
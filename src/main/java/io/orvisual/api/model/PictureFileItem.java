@@ -2,6 +2,8 @@ package io.orvisual.api.model;
 
 import lombok.AllArgsConstructor;
 import lombok.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
 
 /**
  * <p>
@@ -11,6 +13,10 @@ import lombok.Value;
  * This interface describes transition item between raw file and {@link Picture} instance. Contains file content from
  * {@link org.springframework.web.multipart.MultipartFile} and file's metadata as {@link Picture}.
  *
+ * File content is not held in memory, it is represented as re-readable {@link InputStreamSource}, which every
+ * invocation of {@link InputStreamSource#getInputStream()} opens a new stream from beginning of content, e.g. spooled
+ * multipart file or file on disk.
+ *
  * @author Artemis A. Sirosh
  */
 @Value
@@ -18,6 +24,17 @@ import lombok.Value;
 public class PictureFileItem {
 
     private final Picture pictureItem;
-    private final byte[] fileContent;
+    private final InputStreamSource fileContent;
+    private final long contentLength;
+
+    /**
+     * Creates item with content held in memory, useful for small files.
+     *
+     * @param pictureItem metadata of file
+     * @param fileContent content of file
+     */
+    public PictureFileItem(Picture pictureItem, byte[] fileContent) {
+        this(pictureItem, new ByteArrayResource(fileContent), fileContent.length);
+    }
 
 }
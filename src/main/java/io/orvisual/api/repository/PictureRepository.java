@@ -1,10 +1,19 @@
 package io.orvisual.api.repository;
 
 import io.orvisual.api.model.Picture;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Created on 10 May, 2018.
@@ -25,4 +34,67 @@ public interface PictureRepository extends PagingAndSortingRepository<Picture, S
     @NonNull
     @Override
     <S extends Picture> Iterable<S> saveAll(@NonNull Iterable<S> entities);
+
+    /**
+     * Inserts {@link Picture} record, if record with same checksum not exists, using single statement. Unlike
+     * {@link #save(Picture)} this method does not select record before insertion.
+     *
+     * @param checksum picture's checksum
+     * @param mimeType picture's MIME type
+     * @param loadedAt picture's upload timestamp
+     * @return count of inserted records, i.e. {@code 0} if picture already exists
+     * @throws org.springframework.dao.DataIntegrityViolationException if record with same checksum has been
+     * inserted by concurrent transaction
+     */
+    @RestResource(exported = false)
+    @Transactional
+    @Modifying
+    @Query(
+            value = "INSERT INTO {h-schema}PICTURES (CHECKSUM, MIME_TYPE, LOADED_AT) " +
+                    "SELECT :checksum, :mimeType, :loadedAt " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM {h-schema}PICTURES WHERE CHECKSUM = :checksum)",
+            nativeQuery = true
+    )
+    int insertIfAbsent(
+            @Param("checksum") String checksum,
+            @Param("mimeType") String mimeType,
+            @Param("loadedAt") Instant loadedAt
+    );
+
+    /**
+     * Finds checksums of pictures, which follow given checksum in lexicographic order. Allows to scan all checksums
+     * by batches, each next batch follows the last checksum of previous one.
+     *
+     * @param checksum checksum, after which batch starts, empty string for the first batch
+     * @param pageable size of batch, page number must be {@code 0}
+     * @return checksums in ascending order
+     */
+    @RestResource(exported = false)
+    @Query("SELECT p.checksum FROM Picture p WHERE p.checksum > :checksum ORDER BY p.checksum")
+    List<String> findChecksumsAfter(@Param("checksum") String checksum, Pageable pageable);
+
+    /**
+     * Finds checksums of pictures uploaded after given instant.
+     *
+     * @param loadedAfter instant, after which pictures are uploaded
+     * @return checksums of pictures
+     */
+    @RestResource(exported = false)
+    @Query("SELECT p.checksum FROM Picture p WHERE p.loadedAt > :loadedAfter")
+    List<String> findChecksumsLoadedAfter(@Param("loadedAfter") Instant loadedAfter);
+
+    /**
+     * Finds checksums of given pictures, which belong to orders not completed yet or completed after given instant.
+     *
+     * @param checksums checksums of pictures, must not be empty
+     * @param completedAfter instant, after which completed orders are selected
+     * @return checksums of pictures of selected orders
+     */
+    @RestResource(exported = false)
+    @Query("SELECT DISTINCT p.checksum FROM Order o JOIN o.pictures p " +
+            "WHERE p.checksum IN :checksums AND (o.completedAt IS NULL OR o.completedAt > :completedAfter)")
+    List<String> findChecksumsOfOrdersCompletedAfter(
+            @Param("checksums") Collection<String> checksums,
+            @Param("completedAfter") Instant completedAfter
+    );
 }
@@ -1,19 +1,55 @@
 package io.orvisual.api.service;
 
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.HttpMethod;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.google.common.cache.Cache;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.orvisual.api.model.Picture;
 import io.orvisual.api.model.PictureFileItem;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
-import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created on 22 Jul, 2018.
@@ -22,19 +58,188 @@ import java.io.InputStream;
  * picture file on Amazon S3 cloud. To instantiate this component use
  * {@link PictureStorageServiceFactoryBean}.
  *
+ * Files larger than multipart threshold are uploaded with {@link TransferManager}
+ * as multipart upload, parts of file-backed content are uploaded in parallel.
+ * Such files are streamed by consecutive ranged {@code GET} requests, next
+ * ranges are requested by separate range threads, while current one is read.
+ * Count of ranges requested in advance is configurable, content of each one
+ * waits in it's connection until it is read. When range threads are busy and
+ * their queue is full, download is rejected with
+ * {@link StorageUnavailableException}, instead of waiting. Requested byte ranges of files are passed through to ranged {@code GET}
+ * requests.
+ *
+ * If lifetime of presigned URLs given, clients are redirected to download
+ * files from S3 directly by presigned {@code GET} URL. Signed URL is reused
+ * for the same file, until it's expiration is close.
+ *
+ * Requests, which read files, including later ranges of streamed files, are
+ * executed by {@link RemoteReadExecutor}: slow requests are hedged, failed ones are retried, and requests are
+ * rejected for a while after several consecutive failures of S3. Client
+ * errors, like missed object, are not retried.
+ *
  * @see PictureStorageServiceFactoryBean
  * @author Artemis A. Sirosh
  */
-class AmazonS3PictureStorageService implements PictureStorageService {
+class AmazonS3PictureStorageService implements PictureStorageService, Closeable {
+
+    // below max size of uploaded file, S3 requires at least 5Mb parts
+    static final long DEFAULT_MULTIPART_THRESHOLD = 5 * 1024 * 1024;
+    static final long DEFAULT_PART_SIZE = 5 * 1024 * 1024;
+    static final int DEFAULT_TRANSFER_THREADS = 4;
+    static final int DEFAULT_READ_AHEAD_RANGES = 1;
+    static final int DEFAULT_RANGE_QUEUE_SIZE = 32;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AmazonS3PictureStorageService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Duration PRESIGNED_URL_RENEWAL_MARGIN = Duration.ofMinutes(1);
+    private static final long MAX_PRESIGNED_URLS = 100_000;
 
     private final AmazonS3 amazonS3Client;
     private final String bucketName;
+    private final long multipartThreshold;
+    private final long partSize;
+    private final ExecutorService transferExecutor;
+    private final ThreadPoolExecutor rangeExecutor;
+    private final int readAheadRanges;
+    private final TransferManager transferManager;
+    private final Duration presignedUrlTtl;
+    private final Cache<String, URL> presignedUrls;
+    private final RemoteReadExecutor readExecutor;
+
+    AmazonS3PictureStorageService(AmazonS3 amazonS3Client, String bucketName, MeterRegistry meterRegistry) {
+        this(
+                amazonS3Client,
+                bucketName,
+                DEFAULT_MULTIPART_THRESHOLD,
+                DEFAULT_PART_SIZE,
+                DEFAULT_TRANSFER_THREADS,
+                meterRegistry
+        );
+    }
+
+    /**
+     * Creates service with given settings of multipart transfers.
+     *
+     * @param amazonS3Client S3 client
+     * @param bucketName name of bucket for picture files
+     * @param multipartThreshold size of file in bytes, above which file transferred by parts
+     * @param partSize size of part in bytes, S3 requires at least 5Mb for multipart upload
+     * @param transferThreads count of threads, which upload parts of files, and count of threads, which request ranges
+     * @param meterRegistry registry of metrics of reads
+     */
+    AmazonS3PictureStorageService(
+            AmazonS3 amazonS3Client,
+            String bucketName,
+            long multipartThreshold,
+            long partSize,
+            int transferThreads,
+            MeterRegistry meterRegistry
+    ) {
+        this(amazonS3Client, bucketName, multipartThreshold, partSize, transferThreads, null, meterRegistry);
+    }
+
+    /**
+     * Creates service with given settings of multipart transfers and presigned URLs.
+     *
+     * @param amazonS3Client S3 client
+     * @param bucketName name of bucket for picture files
+     * @param multipartThreshold size of file in bytes, above which file transferred by parts
+     * @param partSize size of part in bytes, S3 requires at least 5Mb for multipart upload
+     * @param transferThreads count of threads, which upload parts of files, and count of threads, which request ranges
+     * @param presignedUrlTtl lifetime of presigned URLs, or {@code null} if files should be served by application
+     * @param meterRegistry registry of metrics of reads
+     */
+    AmazonS3PictureStorageService(
+            AmazonS3 amazonS3Client,
+            String bucketName,
+            long multipartThreshold,
+            long partSize,
+            int transferThreads,
+            @Nullable Duration presignedUrlTtl,
+            MeterRegistry meterRegistry
+    ) {
+        this(
+                amazonS3Client,
+                bucketName,
+                multipartThreshold,
+                partSize,
+                transferThreads,
+                DEFAULT_READ_AHEAD_RANGES,
+                DEFAULT_RANGE_QUEUE_SIZE,
+                presignedUrlTtl,
+                new RemoteReadExecutor(
+                        bucketName,
+                        true,
+                        RemoteReadExecutor.DEFAULT_MAX_CONCURRENT_REQUESTS,
+                        RemoteReadExecutor.DEFAULT_MAX_RETRIES,
+                        RemoteReadExecutor.DEFAULT_CIRCUIT_FAILURE_THRESHOLD,
+                        RemoteReadExecutor.DEFAULT_CIRCUIT_OPEN_TIME,
+                        meterRegistry
+                )
+        );
+    }
 
-    AmazonS3PictureStorageService(AmazonS3 amazonS3Client, String bucketName) {
+    /**
+     * Creates service with given settings of multipart transfers, presigned URLs and reads.
+     *
+     * @param amazonS3Client S3 client
+     * @param bucketName name of bucket for picture files
+     * @param multipartThreshold size of file in bytes, above which file transferred by parts
+     * @param partSize size of part in bytes, S3 requires at least 5Mb for multipart upload
+     * @param transferThreads count of threads, which upload parts of files, and count of threads, which request ranges
+     * @param readAheadRanges count of ranges of streamed file, which are requested in advance of current one
+     * @param rangeQueueSize max count of range requests waiting for range thread
+     * @param presignedUrlTtl lifetime of presigned URLs, or {@code null} if files should be served by application
+     * @param readExecutor executor of reading requests, it is closed with service
+     */
+    AmazonS3PictureStorageService(
+            AmazonS3 amazonS3Client,
+            String bucketName,
+            long multipartThreshold,
+            long partSize,
+            int transferThreads,
+            int readAheadRanges,
+            int rangeQueueSize,
+            @Nullable Duration presignedUrlTtl,
+            RemoteReadExecutor readExecutor
+    ) {
+        this.readExecutor = readExecutor;
+        this.readAheadRanges = readAheadRanges;
+        this.presignedUrlTtl = presignedUrlTtl;
+        this.presignedUrls = CacheBuilder.newBuilder()
+                .maximumSize(MAX_PRESIGNED_URLS)
+                .expireAfterWrite(presignedUrlReuseMillis(presignedUrlTtl), TimeUnit.MILLISECONDS)
+                .build();
         this.amazonS3Client = amazonS3Client;
         this.bucketName = bucketName;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.transferExecutor = Executors.newFixedThreadPool(transferThreads, runnable -> {
+            Thread thread = new Thread(runnable, "s3-transfer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final AtomicInteger rangeThreadNumber = new AtomicInteger();
+        this.rangeExecutor = new ThreadPoolExecutor(
+                transferThreads,
+                transferThreads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(rangeQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "s3-range-" + rangeThreadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3Client)
+                .withExecutorFactory(() -> transferExecutor)
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .build();
     }
 
     /**
@@ -57,24 +262,126 @@ class AmazonS3PictureStorageService implements PictureStorageService {
     /**
      * {@inheritDoc}
      *
+     * Presigned URL generated locally, without request to S3, and cached until it's expiration is close. Response
+     * to URL has content type of picture.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return presigned {@code GET} URL of object, or {@code null} if lifetime of presigned URLs not set
+     * @throws PictureFileProcessingException if URL can not be signed
+     */
+    @Nullable
+    @Override
+    public URL resolvePictureUrl(@NonNull Picture picture) throws PictureFileProcessingException {
+        if (presignedUrlTtl == null)
+            return null;
+
+        try {
+            return presignedUrls.get(picture.getChecksum(), () -> amazonS3Client.generatePresignedUrl(
+                    new GeneratePresignedUrlRequest(bucketName, picture.getChecksum(), HttpMethod.GET)
+                            .withExpiration(Date.from(Instant.now().plus(presignedUrlTtl)))
+                            .withResponseHeaders(new ResponseHeaderOverrides().withContentType(picture.getMimeType()))
+            ));
+        } catch (ExecutionException | UncheckedExecutionException exc) {
+            LOGGER.error("Error while signing of picture file URL", exc.getCause());
+            throw new PictureFileProcessingException(exc.getCause());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * First range of object up to multipart threshold requested at once. If object is larger, rest of it
+     * requested by ranged requests, while returned stream is read.
+     *
      * @param picture contains information about a file, for searching.
      * @return {@link Resource} from content of
      *         {@link com.amazonaws.services.s3.model.S3Object}.
      *
+     * @throws StorageUnavailableException if queue of range requests is full
      * @throws PictureFileProcessingException if while requesting AWS S3 error
      *         occurs.
      */
     @Override
     @NonNull
     public Resource resolvePictureResource(@NonNull Picture picture) throws PictureFileProcessingException {
+        final S3Object firstRange;
         try {
-            return new InputStreamResource(
-                    amazonS3Client.getObject(bucketName, picture.getChecksum()).getObjectContent()
+            final GetObjectRequest request = new GetObjectRequest(bucketName, picture.getChecksum())
+                    .withRange(0, multipartThreshold - 1);
+            firstRange = readExecutor.execute(
+                    () -> amazonS3Client.getObject(request), AmazonS3PictureStorageService::isBackendFailure
             );
         } catch (SdkClientException exc) {
             LOGGER.error("Error while downloading picture file", exc);
             throw new PictureFileProcessingException(exc);
         }
+
+        final long objectLength = firstRange.getObjectMetadata().getInstanceLength();
+        if (objectLength <= multipartThreshold) {
+            return new InputStreamResource(firstRange.getObjectContent());
+        }
+
+        return downloadByRanges(picture, firstRange, objectLength);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Range requested from S3 by single ranged {@code GET}, length of object taken from response. Only suffix
+     * range, which start depends on length of object, requires preceding request of object metadata.
+     *
+     * @param picture contains information about a file, for searching.
+     * @param range requested byte range
+     * @return {@link PictureResourceRange} with content of range only
+     * @throws RangeNotSatisfiableException if range starts beyond end of object
+     * @throws PictureFileProcessingException if while requesting AWS S3 error
+     *         occurs.
+     */
+    @Override
+    @NonNull
+    public PictureResourceRange resolvePictureRange(@NonNull Picture picture, @NonNull HttpRange range)
+            throws PictureFileProcessingException {
+
+        final GetObjectRequest request = new GetObjectRequest(bucketName, picture.getChecksum());
+        try {
+            // start of suffix range depends on object length, start of other ranges does not
+            if (range.getRangeStart(Long.MAX_VALUE) != range.getRangeStart(Long.MAX_VALUE - 1)) {
+                final long objectLength = requestObjectLength(picture);
+                final long start = range.getRangeStart(objectLength);
+                if (objectLength == 0 || start >= objectLength)
+                    throw new RangeNotSatisfiableException("Range starts beyond end of file: " + range, objectLength);
+
+                request.withRange(start, range.getRangeEnd(objectLength));
+            } else if (range.getRangeEnd(Long.MAX_VALUE) == Long.MAX_VALUE - 1) {
+                request.withRange(range.getRangeStart(Long.MAX_VALUE));
+            } else {
+                request.withRange(range.getRangeStart(Long.MAX_VALUE), range.getRangeEnd(Long.MAX_VALUE));
+            }
+
+            final S3Object object = readExecutor.execute(
+                    () -> amazonS3Client.getObject(request), AmazonS3PictureStorageService::isBackendFailure
+            );
+            final ObjectMetadata metadata = object.getObjectMetadata();
+            final Long[] contentRange = metadata.getContentRange();
+            return new PictureResourceRange(
+                    new InputStreamResource(object.getObjectContent()),
+                    0,
+                    contentRange[0],
+                    contentRange[1],
+                    metadata.getInstanceLength()
+            );
+        } catch (AmazonS3Exception exc) {
+            if (exc.getStatusCode() != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                LOGGER.error("Error while downloading range of picture file", exc);
+                throw new PictureFileProcessingException(exc);
+            }
+            throw new RangeNotSatisfiableException(
+                    "Range starts beyond end of file: " + range, requestObjectLength(picture)
+            );
+        } catch (SdkClientException exc) {
+            LOGGER.error("Error while downloading range of picture file", exc);
+            throw new PictureFileProcessingException(exc);
+        }
     }
 
     /**
@@ -89,10 +396,15 @@ class AmazonS3PictureStorageService implements PictureStorageService {
     public void savePictureFileItem(@NonNull PictureFileItem fileItem) throws PictureFileProcessingException {
 
         final ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentLength(fileItem.getFileContent().length);
+        metadata.setContentLength(fileItem.getContentLength());
         metadata.setContentType(fileItem.getPictureItem().getMimeType());
 
-        try (InputStream stream = new ByteArrayInputStream(fileItem.getFileContent())) {
+        if (fileItem.getContentLength() > multipartThreshold) {
+            uploadByParts(fileItem, metadata);
+            return;
+        }
+
+        try (InputStream stream = fileItem.getFileContent().getInputStream()) {
 
             amazonS3Client.putObject(bucketName, fileItem.getPictureItem().getChecksum(), stream, metadata);
         } catch (IOException | SdkClientException exc) {
@@ -101,4 +413,236 @@ class AmazonS3PictureStorageService implements PictureStorageService {
         }
 
     }
+
+    /**
+     * Stops transfer and read threads, S3 client is not closed.
+     */
+    @Override
+    public void close() {
+        transferManager.shutdownNow(false);
+        rangeExecutor.shutdownNow();
+        readExecutor.close();
+    }
+
+    /**
+     * Uploads file with multipart upload. Parts are uploaded in parallel, if content of file item is a file,
+     * otherwise they uploaded sequentially from content stream.
+     *
+     * @param fileItem uploaded file
+     * @param metadata metadata of S3 object
+     */
+    private void uploadByParts(PictureFileItem fileItem, ObjectMetadata metadata) {
+        final String key = fileItem.getPictureItem().getChecksum();
+        InputStream stream = null;
+        try {
+            final PutObjectRequest request;
+            final InputStreamSource content = fileItem.getFileContent();
+            if (content instanceof Resource && ((Resource) content).isFile()) {
+                request = new PutObjectRequest(bucketName, key, ((Resource) content).getFile()).withMetadata(metadata);
+            } else {
+                stream = content.getInputStream();
+                request = new PutObjectRequest(bucketName, key, stream, metadata);
+            }
+
+            transferManager.upload(request).waitForCompletion();
+            LOGGER.debug("Picture file '{}' uploaded by parts", key);
+        } catch (IOException | SdkClientException exc) {
+            LOGGER.error("Error while picture file uploading.", exc);
+            throw new PictureFileProcessingException(exc);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new PictureFileProcessingException("Upload of picture file interrupted", exc);
+        } finally {
+            closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Downloads rest of object by ranged requests in order of ranges. Next ranges are requested by range threads,
+     * while current one is read, so object is streamed without buffering whole of it.
+     *
+     * @param picture downloaded picture
+     * @param firstRange already requested first range of object
+     * @param objectLength whole length of object
+     * @return resource with object content
+     */
+    private Resource downloadByRanges(Picture picture, S3Object firstRange, long objectLength) {
+        LOGGER.debug("Picture file '{}' downloaded by ranges", picture.getChecksum());
+        return new InputStreamResource(new RangedObjectInputStream(picture.getChecksum(), firstRange, objectLength));
+    }
+
+    private long requestObjectLength(Picture picture) {
+        try {
+            return amazonS3Client.getObjectMetadata(bucketName, picture.getChecksum()).getContentLength();
+        } catch (SdkClientException exc) {
+            LOGGER.error("Error while requesting picture file metadata", exc);
+            throw new PictureFileProcessingException(exc);
+        }
+    }
+
+    /**
+     * S3 is responsible for server errors, throttling and failures of connection, but not for client errors, like
+     * missed object or unsatisfiable range, and not for timeout of waiting for free connection of local pool, which
+     * means that application is busy.
+     */
+    private static boolean isBackendFailure(RuntimeException exc) {
+        if (exc instanceof AmazonServiceException) {
+            final int statusCode = ((AmazonServiceException) exc).getStatusCode();
+            return statusCode >= 500 || statusCode == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return exc instanceof SdkClientException &&
+                Throwables.getCausalChain(exc).stream().noneMatch(ConnectionPoolTimeoutException.class::isInstance);
+    }
+
+    private static long presignedUrlReuseMillis(Duration presignedUrlTtl) {
+        if (presignedUrlTtl == null)
+            return 0;
+
+        // URL is handed out with at least renewal margin, or half of lifetime for short lifetimes, before expiration
+        final Duration margin = presignedUrlTtl.compareTo(PRESIGNED_URL_RENEWAL_MARGIN.multipliedBy(2)) < 0
+                ? presignedUrlTtl.dividedBy(2)
+                : PRESIGNED_URL_RENEWAL_MARGIN;
+        return presignedUrlTtl.minus(margin).toMillis();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+
+        try {
+            closeable.close();
+        } catch (IOException exc) {
+            LOGGER.warn("Closing of stream failed", exc);
+        }
+    }
+
+    /**
+     * Stream of object, which reads ranges one by one. Requests of next ranges are sent, when reading of current one
+     * starts, so at most one connection more than count of ranges read ahead is held. Unread ranges are aborted,
+     * when stream closed.
+     */
+    private class RangedObjectInputStream extends InputStream {
+
+        private final String key;
+        private final long objectLength;
+        private final Deque<Future<S3Object>> nextRanges = new ArrayDeque<>();
+        private long nextRangeStart = multipartThreshold;
+        private S3Object currentRange;
+        private volatile boolean closed;
+
+        /**
+         * @throws StorageUnavailableException if queue of range requests is full
+         */
+        RangedObjectInputStream(String key, S3Object firstRange, long objectLength) {
+            this.key = key;
+            this.objectLength = objectLength;
+            this.currentRange = firstRange;
+            try {
+                requestNextRanges();
+            } catch (StorageUnavailableException exc) {
+                close();
+                throw exc;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] buffer = new byte[1];
+            final int count = read(buffer, 0, 1);
+            return count == -1 ? -1 : buffer[0] & 0xFF;
+        }
+
+        @Override
+        public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+            if (closed)
+                throw new IOException("Stream closed");
+            if (length == 0)
+                return 0;
+
+            while (currentRange != null) {
+                final int count = currentRange.getObjectContent().read(buffer, offset, length);
+                if (count != -1)
+                    return count;
+
+                currentRange.close();
+                currentRange = awaitNextRange();
+                try {
+                    requestNextRanges();
+                } catch (StorageUnavailableException exc) {
+                    throw new IOException("Download of range of picture file rejected", exc);
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            abort(currentRange);
+            currentRange = null;
+            Future<S3Object> nextRange;
+            while ((nextRange = nextRanges.poll()) != null) {
+                if (nextRange.cancel(true))
+                    continue;
+
+                try {
+                    abort(nextRange.get());
+                } catch (InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException exc) {
+                    LOGGER.debug("Request of unread range failed", exc.getCause());
+                }
+            }
+        }
+
+        private void requestNextRanges() {
+            while (nextRanges.size() < readAheadRanges && nextRangeStart < objectLength) {
+                final GetObjectRequest request = new GetObjectRequest(bucketName, key)
+                        .withRange(nextRangeStart, Math.min(nextRangeStart + partSize, objectLength) - 1);
+                try {
+                    nextRanges.add(rangeExecutor.submit(() -> {
+                        final S3Object range = readExecutor.execute(
+                                () -> amazonS3Client.getObject(request), AmazonS3PictureStorageService::isBackendFailure
+                        );
+                        // stream closed while range was requested, nobody will read it
+                        if (closed)
+                            abort(range);
+                        return range;
+                    }));
+                } catch (RejectedExecutionException exc) {
+                    LOGGER.warn("Request of range of picture file '{}' rejected, range threads are busy", key);
+                    throw new StorageUnavailableException("Queue of range requests is full");
+                }
+                nextRangeStart += partSize;
+            }
+        }
+
+        @Nullable
+        private S3Object awaitNextRange() throws IOException {
+            final Future<S3Object> nextRange = nextRanges.poll();
+            if (nextRange == null)
+                return null;
+
+            try {
+                return nextRange.get();
+            } catch (InterruptedException exc) {
+                // range is aborted, when stream closed
+                nextRanges.addFirst(nextRange);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Download of picture file interrupted");
+            } catch (ExecutionException exc) {
+                LOGGER.error("Error while downloading picture file", exc.getCause());
+                throw new IOException("Download of range of picture file failed", exc.getCause());
+            }
+        }
+
+        private void abort(@Nullable S3Object range) {
+            if (range == null)
+                return;
+
+            // unread content is dropped with connection instead of reading it to the end
+            range.getObjectContent().abort();
+            closeQuietly(range);
+        }
+    }
 }
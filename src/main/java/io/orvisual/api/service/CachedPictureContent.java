@@ -0,0 +1,38 @@
+package io.orvisual.api.service;
+
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Content of picture file kept by {@link CachingPictureStorageService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+interface CachedPictureContent {
+
+    /**
+     * @return length of content in bytes
+     */
+    long getLength();
+
+    /**
+     * @return size of memory occupied by content in bytes
+     */
+    int getWeight();
+
+    /**
+     * Opens content for reading.
+     *
+     * @return resource with content, or {@code null} if content has been released already
+     */
+    @Nullable
+    Resource open();
+
+    /**
+     * Releases content, when it is removed from cache. Memory of content may be reused, when all resources opened
+     * before are closed.
+     */
+    void release();
+}
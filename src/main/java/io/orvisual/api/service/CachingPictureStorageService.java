@@ -0,0 +1,315 @@
+package io.orvisual.api.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.io.ByteStreams;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URL;
+import java.util.Iterator;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Decorator of {@link PictureStorageService}, which keeps content of recently requested picture files in memory.
+ * Cache is bounded by total size of cached files, approximately least recently used files are evicted first. Files larger than
+ * max object size are never cached, they are served from decorated storage as is.
+ *
+ * Files are cached either in heap, or in {@link OffHeapMemory}, which allows to cache more files than heap allows
+ * without growth of garbage collection pauses. Off-heap content is returned as {@link OffHeapPictureResource},
+ * which must be closed after use. Pages of evicted file are freed, when it's last reader closes resource, so part
+ * of slab is left out of cache weight for such files. If slab is full nevertheless, cached files are evicted until
+ * new file fits.
+ *
+ * Only whole files are cached. Range of cached file is served from memory, other ranges are requested from
+ * decorated storage. Hit, miss and eviction counts are published as metrics of {@code pictures} cache. To
+ * instantiate this component use {@link PictureStorageServiceFactoryBean}.
+ *
+ * @author Artemis A. Sirosh
+ */
+class CachingPictureStorageService implements PictureStorageService, Closeable {
+
+    static final String CACHE_NAME = "pictures";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingPictureStorageService.class);
+    // share of off-heap slab, which cached files may occupy, rest is left for evicted files still being read
+    private static final double OFF_HEAP_CACHE_SHARE = 0.9;
+
+    private final PictureStorageService storageService;
+    private final int maxObjectSize;
+    private final OffHeapMemory offHeapMemory;
+    private final Cache<String, CachedPictureContent> cache;
+
+    /**
+     * Creates cache in heap and registers it's metrics.
+     *
+     * @param storageService decorated storage
+     * @param maxSize max total size of cached files in bytes
+     * @param maxObjectSize max size of cached file in bytes
+     * @param meterRegistry registry of metrics
+     */
+    CachingPictureStorageService(
+            @NonNull PictureStorageService storageService,
+            long maxSize,
+            long maxObjectSize,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this(storageService, maxSize, maxObjectSize, null, meterRegistry);
+    }
+
+    /**
+     * Creates cache and registers it's metrics.
+     *
+     * @param storageService decorated storage
+     * @param maxSize max total size of cached files in bytes, ignored if off-heap memory given
+     * @param maxObjectSize max size of cached file in bytes
+     * @param offHeapMemory memory for cached files, or {@code null} to cache files in heap
+     * @param meterRegistry registry of metrics
+     */
+    CachingPictureStorageService(
+            @NonNull PictureStorageService storageService,
+            long maxSize,
+            long maxObjectSize,
+            @Nullable OffHeapMemory offHeapMemory,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.storageService = storageService;
+        this.maxObjectSize = (int) Math.min(maxObjectSize, Integer.MAX_VALUE - 8);
+        this.offHeapMemory = offHeapMemory;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(
+                        offHeapMemory != null ? (long) (offHeapMemory.getCapacity() * OFF_HEAP_CACHE_SHARE) : maxSize
+                )
+                .<String, CachedPictureContent>weigher((checksum, content) -> content.getWeight())
+                .removalListener((RemovalListener<String, CachedPictureContent>) removal -> removal.getValue().release())
+                .recordStats()
+                .build();
+
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        if (offHeapMemory != null) {
+            Gauge.builder("orvisual.cache.offheap.used", offHeapMemory, OffHeapMemory::getUsedBytes)
+                    .description("Off-heap memory occupied by cached picture files")
+                    .baseUnit("bytes")
+                    .tag("cache", CACHE_NAME)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Removes picture file from cache and from decorated storage.
+     *
+     * @param picture contains information of a file, which will be removed.
+     * @throws PictureFileProcessingException if while file deleting error occurs
+     */
+    @Override
+    public void deletePictureFile(@NonNull Picture picture) throws PictureFileProcessingException {
+        cache.invalidate(picture.getChecksum());
+        storageService.deletePictureFile(picture);
+    }
+
+    /**
+     * Returns cached content of picture file, or resolves it in decorated storage. Resolved file is cached, if it
+     * is not larger than max object size.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return {@link Resource} with picture file content
+     * @throws PictureFileProcessingException if file can not be resolved
+     */
+    @NonNull
+    @Override
+    public Resource resolvePictureResource(@NonNull Picture picture) throws PictureFileProcessingException {
+        final Resource cachedResource = openCached(picture);
+        if (cachedResource != null)
+            return cachedResource;
+
+        final Resource resource = storageService.resolvePictureResource(picture);
+        final long knownLength = lengthOf(resource);
+        if (knownLength > maxObjectSize) {
+            LOGGER.debug("Picture file '{}' is too large for caching", picture.getChecksum());
+            return resource;
+        }
+
+        InputStream stream = null;
+        try {
+            stream = resource.getInputStream();
+            final byte[] content = ByteStreams.toByteArray(ByteStreams.limit(stream, maxObjectSize + 1L));
+            if (content.length > maxObjectSize) {
+                LOGGER.debug("Picture file '{}' is too large for caching", picture.getChecksum());
+                return new InputStreamResource(new SequenceInputStream(new ByteArrayInputStream(content), stream));
+            }
+
+            stream.close();
+            final CachedPictureContent cachedContent = offHeapMemory != null
+                    ? storeOffHeap(content)
+                    : new HeapPictureContent(content);
+            if (cachedContent != null) {
+                cache.put(picture.getChecksum(), cachedContent);
+            } else {
+                LOGGER.debug("No free off-heap memory for picture file '{}'", picture.getChecksum());
+            }
+            return new ByteArrayResource(content);
+        } catch (IOException exc) {
+            closeQuietly(stream);
+            LOGGER.warn("Reading of picture file failed", exc);
+            throw new PictureFileProcessingException("Reading of picture file failed", exc);
+        }
+    }
+
+    /**
+     * Resolves range of cached picture file, or requests range from decorated storage.
+     *
+     * @param picture contains information about a file, for searching.
+     * @param range requested byte range
+     * @return {@link PictureResourceRange} with content of range
+     * @throws RangeNotSatisfiableException if range starts beyond end of file
+     * @throws PictureFileProcessingException if file can not be resolved
+     */
+    @NonNull
+    @Override
+    public PictureResourceRange resolvePictureRange(@NonNull Picture picture, @NonNull HttpRange range)
+            throws PictureFileProcessingException {
+
+        final Resource cachedResource = openCached(picture);
+        if (cachedResource == null)
+            return storageService.resolvePictureRange(picture, range);
+
+        try {
+            return PictureResourceRange.of(cachedResource, range);
+        } catch (RuntimeException exc) {
+            if (cachedResource instanceof Closeable)
+                closeQuietly((Closeable) cachedResource);
+            throw exc;
+        }
+    }
+
+    /**
+     * Resolves URL of picture file in decorated storage. Client, which downloads file by URL, bypasses cache.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return temporary URL of picture file, or {@code null} if file should be served by application
+     * @throws PictureFileProcessingException if an error occurs while URL resolving
+     */
+    @Nullable
+    @Override
+    public URL resolvePictureUrl(@NonNull Picture picture) throws PictureFileProcessingException {
+        return storageService.resolvePictureUrl(picture);
+    }
+
+    @Override
+    public void savePictureFileItem(@NonNull PictureFileItem fileItem) throws PictureFileProcessingException {
+        storageService.savePictureFileItem(fileItem);
+    }
+
+    /**
+     * Drops cached files and closes decorated storage, if it closeable.
+     */
+    @Override
+    public void close() throws IOException {
+        cache.invalidateAll();
+        if (storageService instanceof Closeable) {
+            ((Closeable) storageService).close();
+        }
+    }
+
+    /**
+     * Copies content to off-heap memory. If there is no free pages, pending evictions are completed, then cached
+     * files are evicted in order of cache's iteration until freed pages are enough for content. Pages of evicted
+     * file, which is being read, are freed later, so content may still not fit.
+     */
+    @Nullable
+    private OffHeapPictureContent storeOffHeap(byte[] content) {
+        OffHeapPictureContent storedContent = OffHeapPictureContent.store(offHeapMemory, content);
+        if (storedContent != null)
+            return storedContent;
+
+        cache.cleanUp();
+        storedContent = OffHeapPictureContent.store(offHeapMemory, content);
+        if (storedContent != null)
+            return storedContent;
+
+        long evictedWeight = 0;
+        final Iterator<CachedPictureContent> iterator = cache.asMap().values().iterator();
+        while (evictedWeight < content.length && iterator.hasNext()) {
+            evictedWeight += iterator.next().getWeight();
+            iterator.remove();
+        }
+        return OffHeapPictureContent.store(offHeapMemory, content);
+    }
+
+    @Nullable
+    private Resource openCached(Picture picture) {
+        final CachedPictureContent cachedContent = cache.getIfPresent(picture.getChecksum());
+        return cachedContent != null ? cachedContent.open() : null;
+    }
+
+    private static long lengthOf(Resource resource) {
+        if (resource instanceof InputStreamResource)
+            return -1;
+
+        try {
+            return resource.contentLength();
+        } catch (IOException exc) {
+            return -1;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+
+        try {
+            closeable.close();
+        } catch (IOException exc) {
+            LOGGER.warn("Closing of stream failed", exc);
+        }
+    }
+
+    /**
+     * Content of picture file cached in heap.
+     */
+    private static final class HeapPictureContent implements CachedPictureContent {
+
+        private final byte[] content;
+
+        private HeapPictureContent(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public long getLength() {
+            return content.length;
+        }
+
+        @Override
+        public int getWeight() {
+            return content.length;
+        }
+
+        @Override
+        public Resource open() {
+            return new ByteArrayResource(content);
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+}
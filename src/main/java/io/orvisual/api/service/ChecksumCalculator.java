@@ -0,0 +1,56 @@
+package io.orvisual.api.service;
+
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Calculates checksum of picture file content, which identifies picture. Checksum is represented as lowercase
+ * hexadecimal string. Implementations must be thread safe.
+ *
+ * @author Artemis A. Sirosh
+ */
+public interface ChecksumCalculator {
+
+    /**
+     * Calculates checksum of stream content, stream is read to the end, but not closed.
+     *
+     * @param stream content stream
+     * @return hexadecimal checksum
+     * @throws IOException if stream can not be read
+     */
+    @NonNull
+    String calculate(@NonNull InputStream stream) throws IOException;
+
+    /**
+     * Calculates checksum of remaining bytes of buffer. Position of buffer is not changed.
+     *
+     * @param buffer content buffer, may be direct
+     * @return hexadecimal checksum
+     */
+    @NonNull
+    String calculate(@NonNull ByteBuffer buffer);
+
+    /**
+     * Creates digest of checksum algorithm for incremental calculation, e.g. of content received by chunks. Digest is
+     * not shared, so it may be kept by caller. Calculated digest is encoded with {@link #encode(byte[])}.
+     *
+     * @return new digest
+     */
+    @NonNull
+    MessageDigest createDigest();
+
+    /**
+     * Encodes calculated digest as checksum string.
+     *
+     * @param digest digest bytes
+     * @return hexadecimal checksum
+     */
+    @NonNull
+    String encode(@NonNull byte[] digest);
+}
@@ -0,0 +1,103 @@
+package io.orvisual.api.service;
+
+import com.google.common.base.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Circuit breaker of remote backend. Breaker opens after given count of consecutive failures, and rejects requests
+ * while it is open. When open time passes, breaker lets single trial request through: it's success closes breaker,
+ * it's failure opens breaker again.
+ *
+ * @author Artemis A. Sirosh
+ */
+class CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * State of breaker, ordinal is published as metric.
+     */
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String backend;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Ticker ticker;
+    // guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInProgress;
+
+    /**
+     * @param backend name of backend for logging
+     * @param failureThreshold count of consecutive failures, which opens breaker
+     * @param openTime time, for which breaker rejects requests after opening
+     * @param ticker source of time
+     */
+    CircuitBreaker(@NonNull String backend, int failureThreshold, @NonNull Duration openTime, @NonNull Ticker ticker) {
+        this.backend = backend;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openTime.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Checks, whether request may be sent to backend. Outcome of permitted request must be recorded.
+     *
+     * @return {@code false} if request should be rejected
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && ticker.read() - openedAt >= openNanos)
+            state = State.HALF_OPEN;
+
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialInProgress)
+                    return false;
+                trialInProgress = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Records successful request, or failed one, for which backend is not responsible.
+     */
+    synchronized void recordSuccess() {
+        if (state != State.CLOSED)
+            LOGGER.info("Circuit of backend '{}' closed", backend);
+
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInProgress = false;
+    }
+
+    /**
+     * Records request failed due to backend.
+     */
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInProgress = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            LOGGER.warn("Circuit of backend '{}' opened after {} failures", backend, consecutiveFailures);
+            state = State.OPEN;
+            openedAt = ticker.read();
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
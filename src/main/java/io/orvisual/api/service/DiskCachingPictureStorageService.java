@@ -0,0 +1,372 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.PathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Decorator of {@link PictureStorageService}, which keeps copies of remote picture files on local disk. Requested
+ * file is downloaded from decorated storage to cache directory once, and then served from disk. Files are placed
+ * into subdirectories by first four characters of checksum, like in {@link FileSystemPictureStorageService}.
+ *
+ * Cache is bounded by total size of files, least recently used files are evicted first. Evicted and deleted files
+ * are removed from disk after retention time, so reader, which has resolved file, but not opened it yet, e.g.
+ * deferred sendfile, still finds it. Concurrent requests of the same missed file wait for single download. Files found in cache directory on creation are cached again, in order
+ * of their modification time. Ranges of missed files are requested from decorated storage without caching.
+ *
+ * Hits and misses are published as {@code orvisual.cache.disk.gets} metric, size of cached files as
+ * {@code orvisual.cache.disk.used}. To instantiate this component use {@link PictureStorageServiceFactoryBean}.
+ *
+ * @author Artemis A. Sirosh
+ */
+class DiskCachingPictureStorageService implements PictureStorageService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskCachingPictureStorageService.class);
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final PictureStorageService remoteStorage;
+    private final Path cachePath;
+    private final long maxSize;
+    private final Duration evictedFileRetention;
+    private final ScheduledExecutorService cleanupExecutor;
+    private final Map<String, Long> cachedFiles = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private long cachedSize;
+
+    /**
+     * Creates cache, which takes files remaining in cache directory, and registers it's metrics.
+     *
+     * @param remoteStorage decorated storage
+     * @param cachePath directory for cached files, it will be created if not exists
+     * @param maxSize max total size of cached files in bytes, files kept for retention time are not counted
+     * @param evictedFileRetention time, for which evicted or deleted file is kept on disk
+     * @param meterRegistry registry of metrics
+     * @throws PictureFileProcessingException if cache directory can not be read
+     */
+    DiskCachingPictureStorageService(
+            @NonNull PictureStorageService remoteStorage,
+            @NonNull Path cachePath,
+            long maxSize,
+            @NonNull Duration evictedFileRetention,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.remoteStorage = remoteStorage;
+        this.cachePath = cachePath;
+        this.maxSize = maxSize;
+        this.evictedFileRetention = evictedFileRetention;
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "disk-cache-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Files.createDirectories(cachePath);
+            loadCachedFiles();
+        } catch (IOException exc) {
+            throw new PictureFileProcessingException("Loading of disk cache failed", exc);
+        }
+
+        Gauge.builder("orvisual.cache.disk.used", this, DiskCachingPictureStorageService::getCachedSize)
+                .description("Size of picture files cached on local disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("orvisual.cache.disk.gets")
+                .description("Count of picture files requested from local disk cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("orvisual.cache.disk.gets")
+                .description("Count of picture files requested from local disk cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes cached copy of picture file and deletes file from decorated storage.
+     *
+     * @param picture contains information of a file, which will be removed.
+     * @throws PictureFileProcessingException if while file deleting error occurs
+     */
+    @Override
+    public void deletePictureFile(@NonNull Picture picture) throws PictureFileProcessingException {
+        synchronized (cachedFiles) {
+            final Long size = cachedFiles.remove(picture.getChecksum());
+            if (size != null)
+                cachedSize -= size;
+        }
+        scheduleDeletion(picture.getChecksum());
+        remoteStorage.deletePictureFile(picture);
+    }
+
+    /**
+     * Resolves cached copy of picture file. Missed file is downloaded from decorated storage to cache first.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return {@link Resource} with picture file content
+     * @throws PictureFileProcessingException if file can not be resolved or downloaded
+     */
+    @NonNull
+    @Override
+    public Resource resolvePictureResource(@NonNull Picture picture) throws PictureFileProcessingException {
+        final Path cachedFilePath = lookupCachedFile(picture.getChecksum());
+        if (cachedFilePath != null) {
+            hitCounter.increment();
+            return new PathResource(cachedFilePath);
+        }
+
+        missCounter.increment();
+        return new PathResource(download(picture));
+    }
+
+    /**
+     * Resolves range of cached copy of picture file, or requests range from decorated storage, if file is not
+     * cached.
+     *
+     * @param picture contains information about a file, for searching.
+     * @param range requested byte range
+     * @return {@link PictureResourceRange} with content of range
+     * @throws RangeNotSatisfiableException if range starts beyond end of file
+     * @throws PictureFileProcessingException if file can not be resolved
+     */
+    @NonNull
+    @Override
+    public PictureResourceRange resolvePictureRange(@NonNull Picture picture, @NonNull HttpRange range)
+            throws PictureFileProcessingException {
+
+        final Path cachedFilePath = lookupCachedFile(picture.getChecksum());
+        if (cachedFilePath != null) {
+            hitCounter.increment();
+            return PictureResourceRange.of(new PathResource(cachedFilePath), range);
+        }
+
+        missCounter.increment();
+        return remoteStorage.resolvePictureRange(picture, range);
+    }
+
+    /**
+     * Resolves URL of picture file in decorated storage. Client, which downloads file by URL, bypasses cache.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return temporary URL of picture file, or {@code null} if file should be served by application
+     * @throws PictureFileProcessingException if an error occurs while URL resolving
+     */
+    @Nullable
+    @Override
+    public URL resolvePictureUrl(@NonNull Picture picture) throws PictureFileProcessingException {
+        return remoteStorage.resolvePictureUrl(picture);
+    }
+
+    @Override
+    public void savePictureFileItem(@NonNull PictureFileItem fileItem) throws PictureFileProcessingException {
+        remoteStorage.savePictureFileItem(fileItem);
+    }
+
+    /**
+     * Closes decorated storage, if it closeable. Cached files remain on disk for next instance, as well as evicted
+     * files, which retention not expired yet.
+     */
+    @Override
+    public void close() throws IOException {
+        cleanupExecutor.shutdownNow();
+        if (remoteStorage instanceof Closeable) {
+            ((Closeable) remoteStorage).close();
+        }
+    }
+
+    /**
+     * @return total size of cached files in bytes
+     */
+    long getCachedSize() {
+        synchronized (cachedFiles) {
+            return cachedSize;
+        }
+    }
+
+    private Path lookupCachedFile(String checksum) {
+        // getting of entry moves it to tail of access order
+        synchronized (cachedFiles) {
+            if (cachedFiles.get(checksum) == null)
+                return null;
+        }
+
+        final Path cachedFilePath = resolveCachedFilePath(checksum);
+        return Files.exists(cachedFilePath) ? cachedFilePath : null;
+    }
+
+    private Path download(Picture picture) {
+        final CompletableFuture<Path> download = new CompletableFuture<>();
+        final CompletableFuture<Path> existingDownload = downloads.putIfAbsent(picture.getChecksum(), download);
+        if (existingDownload != null) {
+            LOGGER.debug("Waiting for download of picture file '{}'", picture.getChecksum());
+            return await(existingDownload);
+        }
+
+        try {
+            download.complete(downloadFile(picture));
+        } catch (RuntimeException exc) {
+            download.completeExceptionally(exc);
+        } finally {
+            downloads.remove(picture.getChecksum(), download);
+        }
+        return await(download);
+    }
+
+    private Path downloadFile(Picture picture) {
+        final String checksum = picture.getChecksum();
+        final Path cachedFilePath = resolveCachedFilePath(checksum);
+        Path temporaryFilePath = null;
+        try {
+            Files.createDirectories(cachedFilePath.getParent());
+            temporaryFilePath = Files.createTempFile(cachedFilePath.getParent(), checksum, TEMPORARY_FILE_SUFFIX);
+
+            try (InputStream contentStream = remoteStorage.resolvePictureResource(picture).getInputStream();
+                 OutputStream fileStream = Files.newOutputStream(temporaryFilePath)) {
+
+                StreamUtils.copy(contentStream, fileStream);
+            }
+
+            // file is moved under lock, so deletion of it's evicted copy never removes it
+            synchronized (cachedFiles) {
+                Files.move(temporaryFilePath, cachedFilePath, StandardCopyOption.ATOMIC_MOVE);
+                recordCachedFile(checksum, Files.size(cachedFilePath));
+            }
+            LOGGER.debug("Picture file '{}' cached on disk", checksum);
+            return cachedFilePath;
+        } catch (IOException exc) {
+            LOGGER.warn("Caching of picture file on disk failed", exc);
+            throw new PictureFileProcessingException("Caching of picture file on disk failed", exc);
+        } finally {
+            deleteCachedFile(temporaryFilePath);
+        }
+    }
+
+    private void recordCachedFile(String checksum, long size) {
+        synchronized (cachedFiles) {
+            final Long previousSize = cachedFiles.put(checksum, size);
+            cachedSize += size - (previousSize != null ? previousSize : 0);
+
+            // recorded file is the most recently used one, it is never evicted by itself
+            final Iterator<Map.Entry<String, Long>> iterator = cachedFiles.entrySet().iterator();
+            while (cachedSize > maxSize && cachedFiles.size() > 1) {
+                final Map.Entry<String, Long> eldest = iterator.next();
+                iterator.remove();
+                cachedSize -= eldest.getValue();
+                scheduleDeletion(eldest.getKey());
+                LOGGER.debug("Picture file '{}' evicted from disk cache", eldest.getKey());
+            }
+        }
+    }
+
+    private void scheduleDeletion(String checksum) {
+        try {
+            cleanupExecutor.schedule(
+                    () -> deleteEvictedFile(checksum), evictedFileRetention.toMillis(), TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException exc) {
+            LOGGER.debug("Evicted picture file '{}' left until restart", checksum);
+        }
+    }
+
+    /**
+     * Deletes file of evicted picture, unless picture has been cached again.
+     */
+    private void deleteEvictedFile(String checksum) {
+        synchronized (cachedFiles) {
+            if (!cachedFiles.containsKey(checksum))
+                deleteCachedFile(resolveCachedFilePath(checksum));
+        }
+    }
+
+    private void loadCachedFiles() throws IOException {
+        try (Stream<Path> paths = Files.find(cachePath, 2, (path, attributes) -> attributes.isRegularFile())) {
+            paths.map(DiskCachingPictureStorageService::readAttributes)
+                    .filter(entry -> entry.getValue() != null)
+                    .sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+                    .forEach(entry -> {
+                        final Path path = entry.getKey();
+                        final String fileName = path.getFileName().toString();
+                        if (fileName.endsWith(TEMPORARY_FILE_SUFFIX)) {
+                            deleteCachedFile(path);
+                        } else if (path.equals(resolveCachedFilePath(fileName))) {
+                            recordCachedFile(fileName, entry.getValue().size());
+                        }
+                    });
+        }
+        LOGGER.info("Disk cache loaded, {} files of {} bytes", cachedFiles.size(), cachedSize);
+    }
+
+    private Path resolveCachedFilePath(String checksum) {
+        return cachePath.resolve(checksum.substring(0, Math.min(4, checksum.length()))).resolve(checksum);
+    }
+
+    private static Map.Entry<Path, BasicFileAttributes> readAttributes(Path path) {
+        try {
+            return new AbstractMap.SimpleImmutableEntry<>(
+                    path, Files.readAttributes(path, BasicFileAttributes.class)
+            );
+        } catch (IOException exc) {
+            LOGGER.warn("Reading of cached file attributes failed", exc);
+            return new AbstractMap.SimpleImmutableEntry<>(path, null);
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> download) {
+        try {
+            return download.join();
+        } catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException)
+                throw (RuntimeException) exc.getCause();
+            throw exc;
+        }
+    }
+
+    private static void deleteCachedFile(Path path) {
+        if (path == null)
+            return;
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of cached file failed", exc);
+        }
+    }
+}
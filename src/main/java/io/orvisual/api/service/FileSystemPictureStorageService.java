@@ -1,20 +1,38 @@
 package io.orvisual.api.service;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.RateLimiter;
 import io.orvisual.api.model.Picture;
 import io.orvisual.api.model.PictureFileItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.PathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * <p>
@@ -25,20 +43,26 @@ import java.util.Optional;
  * ({@link Picture}). For instantiate use
  * {@link PictureStorageServiceFactoryBean}.
  *
+ * Picture files are placed into directories by {@link ShardLayout}. When layout
+ * is changed, storage may be re-sharded online: files are saved with new layout,
+ * read and deleted with both layouts, while background task moves files of
+ * previous layout at limited rate. File not moved yet is resolved as resource,
+ * which opens file with previous layout, or with new one, if file has been moved
+ * meanwhile. Directories of previous layout are deleted, when they become empty.
+ *
  * @see PictureStorageServiceFactoryBean
  * @author Artemis A. Sirosh
  */
-class FileSystemPictureStorageService implements PictureStorageService {
+class FileSystemPictureStorageService implements PictureStorageService, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemPictureStorageService.class);
-    private static final Map<String, String> MIME_TYPES_MAP = ImmutableMap.of(
-            MediaType.IMAGE_JPEG_VALUE, "jpg",
-            MediaType.IMAGE_PNG_VALUE, "png",
-            MediaType.IMAGE_GIF_VALUE, "gif",
-            "image/bmp", "bmp"
-    );
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final int MAX_CREATION_ATTEMPTS = 3;
 
     private final Path rootPath;
+    private final ShardLayout layout;
+    private final ShardLayout previousLayout;
+    private final ExecutorService reshardingExecutor;
 
     /**
      * This method returns file extension for MIME type given as hint. Look about MIME type on
@@ -57,83 +81,373 @@ class FileSystemPictureStorageService implements PictureStorageService {
      */
     private static String lookupFileExtension(final String hint) throws PictureFileProcessingException {
         return Optional
-                .ofNullable(MIME_TYPES_MAP.get(hint))
+                .ofNullable(ImageFormat.forMimeType(hint))
+                .map(ImageFormat::getFileExtension)
                 .orElseThrow(() -> new PictureFileProcessingException("Unsupported media type: " + hint));
     }
 
     FileSystemPictureStorageService(@NonNull Path rootPath) {
+        this(rootPath, ShardLayout.DEFAULT, null, 0);
+    }
+
+    /**
+     * Creates storage with given layout of directories. If previous layout given, it's files are moved to new
+     * layout in background.
+     *
+     * @param rootPath root directory of storage
+     * @param layout layout of directories
+     * @param previousLayout layout of directories before re-sharding, or {@code null} if layout not changed
+     * @param movedFilesPerSecond max count of files moved per second while re-sharding
+     */
+    FileSystemPictureStorageService(
+            @NonNull Path rootPath,
+            @NonNull ShardLayout layout,
+            @Nullable ShardLayout previousLayout,
+            double movedFilesPerSecond
+    ) {
         this.rootPath = rootPath;
+        this.layout = layout;
+        this.previousLayout = layout.equals(previousLayout) ? null : previousLayout;
+
+        if (this.previousLayout == null) {
+            this.reshardingExecutor = null;
+            return;
+        }
+
+        this.reshardingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gallery-resharding");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final RateLimiter rateLimiter = RateLimiter.create(movedFilesPerSecond);
+        reshardingExecutor.execute(() -> reshard(rateLimiter));
     }
 
     /**
-     * Saves image transport object. First this method saves file, second persist {@link Picture} instance.
+     * Saves image transport object. Content is written to temporary file in picture's directory first, which then
+     * atomically moved to picture file path, so concurrent reader never sees partly written picture file.
      * @param fileItem image transport object, must not be {@code null}
      * @throws PictureFileProcessingException in case of error during IO operations
      */
     @Override
     public void savePictureFileItem(@NonNull PictureFileItem fileItem) {
-
-        Path pictureDirectoryPath;
+        final Path temporaryFilePath = createTemporaryFile(fileItem.getPictureItem());
         try {
 
-            pictureDirectoryPath = this.rootPath.resolve(fileItem.getPictureItem().getChecksum().substring(0,4));
-            if (!Files.exists(pictureDirectoryPath))
-                Files.createDirectories(pictureDirectoryPath);
+            try (InputStream contentStream = fileItem.getFileContent().getInputStream();
+                 OutputStream fileStream = Files.newOutputStream(temporaryFilePath)) {
 
-            LOGGER.debug("Directory for new picture file item: {}", pictureDirectoryPath);
+                StreamUtils.copy(contentStream, fileStream);
+            }
+
+            commitTemporaryFile(temporaryFilePath, fileItem.getPictureItem());
         } catch (IOException exc) {
-            LOGGER.warn("Creation of directory failed", exc);
-            throw new PictureFileProcessingException("Creation of directory failed", exc);
+            LOGGER.warn("Recording of picture file failed", exc);
+            throw new PictureFileProcessingException("Recording of picture file failed", exc);
+        } finally {
+            deleteTemporaryFile(temporaryFilePath);
         }
 
-        Path pictureFilePath = pictureDirectoryPath.resolve(
-                fileItem.getPictureItem().getChecksum()
-                        + "."
-                        + lookupFileExtension(fileItem.getPictureItem().getMimeType())
-        );
+    }
 
-        try {
+    /**
+     * Creates temporary file in picture's directory, into which content of picture is written before
+     * {@link #commitTemporaryFile(Path, Picture)}.
+     * @param picture metadata object instance
+     * @return path to empty temporary file
+     * @throws PictureFileProcessingException if type of picture not supported, or directory or file can not be
+     * created
+     */
+    @NonNull
+    private Path createTemporaryFile(@NonNull Picture picture) {
 
-            Files.write(pictureFilePath, fileItem.getFileContent());
-            LOGGER.debug("Picture file recorded as: {}", pictureFilePath);
-        } catch (IOException exc) {
-            LOGGER.warn("Recording of picture file failed", exc);
-            throw new PictureFileProcessingException("Recording of picture file failed", exc);
+        final Path pictureDirectoryPath = resolvePictureFilePath(layout, picture).getParent();
+        for (int attempt = 1; ; attempt++) {
+            try {
+
+                if (!Files.exists(pictureDirectoryPath))
+                    Files.createDirectories(pictureDirectoryPath);
+
+                LOGGER.debug("Directory for new picture file item: {}", pictureDirectoryPath);
+            } catch (IOException exc) {
+                LOGGER.warn("Creation of directory failed", exc);
+                throw new PictureFileProcessingException("Creation of directory failed", exc);
+            }
+
+            try {
+                return Files.createTempFile(pictureDirectoryPath, picture.getChecksum(), TEMPORARY_FILE_SUFFIX);
+            } catch (NoSuchFileException exc) {
+                // empty directory deleted by re-sharding, since it is shared with previous layout
+                if (attempt >= MAX_CREATION_ATTEMPTS) {
+                    LOGGER.warn("Creation of temporary file failed", exc);
+                    throw new PictureFileProcessingException("Creation of temporary file failed", exc);
+                }
+            } catch (IOException exc) {
+                LOGGER.warn("Creation of temporary file failed", exc);
+                throw new PictureFileProcessingException("Creation of temporary file failed", exc);
+            }
         }
+    }
 
+    /**
+     * Atomically moves written temporary file to picture file path.
+     * @param temporaryFilePath path to temporary file, created by {@link #createTemporaryFile(Picture)}
+     * @param picture metadata object instance
+     * @throws IOException if file can not be moved
+     */
+    private void commitTemporaryFile(@NonNull Path temporaryFilePath, @NonNull Picture picture) throws IOException {
+        final Path pictureFilePath = resolvePictureFilePath(layout, picture);
+        Files.move(temporaryFilePath, pictureFilePath, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.debug("Picture file recorded as: {}", pictureFilePath);
     }
 
     /**
-     * Resolves pictures {@link Resource} using metadata from {@link Picture} instance
+     * Removes temporary file, which left after failed recording of picture file.
+     * @param temporaryFilePath path to temporary file, may be {@code null}
+     */
+    private static void deleteTemporaryFile(@Nullable Path temporaryFilePath) {
+        if (temporaryFilePath == null)
+            return;
+
+        try {
+            Files.deleteIfExists(temporaryFilePath);
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of temporary file failed", exc);
+        }
+    }
+
+    /**
+     * Resolves pictures {@link Resource} using metadata from {@link Picture} instance. While re-sharding file, which
+     * has not been moved yet, is resolved as {@link MovingFileResource}, which is read from stream, since file may be
+     * moved before it is opened.
      * @param picture metadata object instance
      * @return {@link Resource} instance
      */
     @Override
     @NonNull
     public Resource resolvePictureResource(@NonNull Picture picture) {
-        return new PathResource(
-                this.rootPath.resolve(picture.getChecksum().substring(0, 4))
-                        .resolve(picture.getChecksum() + "." + lookupFileExtension(picture.getMimeType()))
-        );
+        final Path pictureFilePath = resolvePictureFilePath(layout, picture);
+        if (previousLayout != null && !Files.exists(pictureFilePath)) {
+            final Path previousFilePath = resolvePictureFilePath(previousLayout, picture);
+            if (Files.exists(previousFilePath))
+                return new MovingFileResource(previousFilePath, pictureFilePath);
+        }
+        return new PathResource(pictureFilePath);
     }
 
     /**
-     * Determines path to picture file using {@link Picture} and deletes it from file system.
+     * Determines path to picture file using {@link Picture} and deletes it from file system. While re-sharding file
+     * is deleted with previous layout first, so it can not be moved to new layout after deletion.
      * @param picture metadata object instance of picture file
      * @throws PictureFileProcessingException in case of error while file deleting
      */
     @Override
     public void deletePictureFile(@NonNull Picture picture) {
         try {
-            Files.delete(
-                    this.rootPath.resolve(picture.getChecksum().substring(0, 4)).resolve(
-                            picture.getChecksum() + "." + lookupFileExtension(picture.getMimeType())
-                    )
-            );
+            final boolean previousDeleted = previousLayout != null &&
+                    Files.deleteIfExists(resolvePictureFilePath(previousLayout, picture));
+            final Path pictureFilePath = resolvePictureFilePath(layout, picture);
+            if (!Files.deleteIfExists(pictureFilePath) && !previousDeleted)
+                throw new NoSuchFileException(pictureFilePath.toString());
+
             LOGGER.debug("Picture file '{}' has been deleted.", picture.getChecksum());
         } catch (IOException exc) {
             LOGGER.warn("File deleting failed", exc);
             throw new PictureFileProcessingException("Deleting of file failed", exc);
         }
     }
+
+    /**
+     * Lists picture files of storage, including files of previous layout, which have not been moved yet.
+     *
+     * @return attributes of picture files, e.g. size and times of last access and modification, by their checksums
+     * @throws IOException if storage directory can not be read
+     */
+    @NonNull
+    Map<String, BasicFileAttributes> listPictureFiles() throws IOException {
+        final int maxDepth = Math.max(layout.getDepth(), previousLayout != null ? previousLayout.getDepth() : 0) + 1;
+        final Map<String, BasicFileAttributes> pictureFiles = new HashMap<>();
+        try (Stream<Path> paths = Files.find(rootPath, maxDepth, (path, attributes) -> attributes.isRegularFile())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                final String fileName = path.getFileName().toString();
+                final int extensionIndex = fileName.lastIndexOf('.');
+                if (fileName.endsWith(TEMPORARY_FILE_SUFFIX) || extensionIndex <= 0)
+                    continue;
+
+                try {
+                    pictureFiles.put(
+                            fileName.substring(0, extensionIndex), Files.readAttributes(path, BasicFileAttributes.class)
+                    );
+                } catch (NoSuchFileException exc) {
+                    LOGGER.debug("File '{}' deleted while listing", path);
+                }
+            }
+        }
+        return pictureFiles;
+    }
+
+    /**
+     * Stops moving of files, if storage is being re-sharded.
+     */
+    @Override
+    public void close() {
+        if (reshardingExecutor == null)
+            return;
+
+        reshardingExecutor.shutdownNow();
+        try {
+            if (!reshardingExecutor.awaitTermination(10, TimeUnit.SECONDS))
+                LOGGER.warn("Re-sharding not stopped in time");
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Path resolvePictureFilePath(ShardLayout shardLayout, Picture picture) {
+        return shardLayout.resolveDirectory(this.rootPath, picture.getChecksum())
+                .resolve(picture.getChecksum() + "." + lookupFileExtension(picture.getMimeType()));
+    }
+
+    /**
+     * Moves files of previous layout to current layout, then deletes empty directories of previous layout. Files are
+     * moved as they are found, without listing of all files first. File, which exists in both layouts, is just
+     * deleted from previous one, as it has the same content.
+     */
+    private void reshard(RateLimiter rateLimiter) {
+        LOGGER.info("Re-sharding of gallery from layout {} to {} started", previousLayout, layout);
+        long movedCount = 0;
+        try (Stream<Path> paths = Files.walk(rootPath, previousLayout.getDepth() + 1)) {
+            final Iterator<Path> previousFilePaths = paths.filter(this::isPreviousLayoutFile).iterator();
+            while (previousFilePaths.hasNext()) {
+                if (Thread.currentThread().isInterrupted())
+                    return;
+
+                rateLimiter.acquire();
+                if (moveToLayout(previousFilePaths.next()))
+                    movedCount++;
+            }
+        } catch (IOException | UncheckedIOException exc) {
+            LOGGER.warn("Listing of gallery files failed, re-sharding stopped", exc);
+            return;
+        }
+
+        deleteEmptyDirectories();
+        LOGGER.info("Re-sharding of gallery completed, {} files moved", movedCount);
+    }
+
+    private boolean moveToLayout(Path previousFilePath) {
+        final String fileName = previousFilePath.getFileName().toString();
+        final Path pictureFilePath = layout.resolveDirectory(rootPath, fileName).resolve(fileName);
+        try {
+            Files.createDirectories(pictureFilePath.getParent());
+            Files.move(previousFilePath, pictureFilePath, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException exc) {
+            deletePreviousLayoutFile(previousFilePath);
+        } catch (NoSuchFileException exc) {
+            LOGGER.debug("File '{}' deleted while re-sharding", previousFilePath);
+        } catch (IOException exc) {
+            LOGGER.warn("Moving of file '{}' failed", previousFilePath, exc);
+        }
+        return false;
+    }
+
+    /**
+     * Removes file of previous layout, which has been saved with current layout already.
+     */
+    private static void deletePreviousLayoutFile(Path previousFilePath) {
+        try {
+            Files.deleteIfExists(previousFilePath);
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of file '{}' of previous layout failed", previousFilePath, exc);
+        }
+    }
+
+    private boolean isPreviousLayoutFile(Path path) {
+        final String fileName = path.getFileName().toString();
+        if (rootPath.relativize(path).getNameCount() != previousLayout.getDepth() + 1 ||
+                fileName.endsWith(TEMPORARY_FILE_SUFFIX) || !Files.isRegularFile(path))
+            return false;
+
+        try {
+            return previousLayout.resolveDirectory(rootPath, fileName).equals(path.getParent());
+        } catch (IndexOutOfBoundsException exc) {
+            return false;
+        }
+    }
+
+    /**
+     * Deletes empty directories of previous layout, deepest first. Other directories under root, e.g. of upload
+     * sessions, are not touched.
+     */
+    private void deleteEmptyDirectories() {
+        try (Stream<Path> paths = Files.walk(rootPath, previousLayout.getDepth())) {
+            paths.filter(path -> !path.equals(rootPath))
+                    .filter(path -> previousLayout.isDirectory(rootPath.relativize(path)))
+                    .filter(Files::isDirectory)
+                    .sorted(Comparator.comparing(Path::getNameCount).reversed())
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (DirectoryNotEmptyException exc) {
+                            // directory used by current layout
+                        } catch (IOException exc) {
+                            LOGGER.warn("Deleting of directory '{}' failed", path, exc);
+                        }
+                    });
+        } catch (IOException | UncheckedIOException exc) {
+            LOGGER.warn("Deleting of empty directories failed", exc);
+        }
+    }
+
+    /**
+     * File of previous layout, which may be moved to current layout by re-sharding. File is opened with previous
+     * layout, and with current layout, if it has been moved already, so move between resolving and reading is not
+     * noticed by reader. Opened file is read completely even if it is moved while reading.
+     */
+    private static final class MovingFileResource extends AbstractResource {
+
+        private final Path previousFilePath;
+        private final Path pictureFilePath;
+
+        private MovingFileResource(Path previousFilePath, Path pictureFilePath) {
+            this.previousFilePath = previousFilePath;
+            this.pictureFilePath = pictureFilePath;
+        }
+
+        @Override
+        public boolean exists() {
+            return Files.exists(previousFilePath) || Files.exists(pictureFilePath);
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            try {
+                return Files.size(previousFilePath);
+            } catch (NoSuchFileException exc) {
+                return Files.size(pictureFilePath);
+            }
+        }
+
+        @NonNull
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return Files.newInputStream(previousFilePath);
+            } catch (NoSuchFileException exc) {
+                return Files.newInputStream(pictureFilePath);
+            }
+        }
+
+        @Override
+        public String getFilename() {
+            return pictureFilePath.getFileName().toString();
+        }
+
+        @NonNull
+        @Override
+        public String getDescription() {
+            return "Picture file [" + previousFilePath + "], being moved to [" + pictureFilePath + "]";
+        }
+    }
 }
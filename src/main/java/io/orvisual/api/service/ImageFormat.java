@@ -0,0 +1,100 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Supported formats of image files. Format may be detected from leading bytes of file content by
+ * {@link #detect(byte[], int)}, which compares them with file signatures ("magic bytes") of formats.
+ *
+ * @author Artemis A. Sirosh
+ */
+enum ImageFormat {
+
+    JPEG(MediaType.IMAGE_JPEG_VALUE, "jpg", new byte[][]{{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}}),
+    PNG(MediaType.IMAGE_PNG_VALUE, "png", new byte[][]{
+            {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}
+    }),
+    GIF(MediaType.IMAGE_GIF_VALUE, "gif", new byte[][]{
+            {'G', 'I', 'F', '8', '7', 'a'},
+            {'G', 'I', 'F', '8', '9', 'a'}
+    }),
+    BMP("image/bmp", "bmp", new byte[][]{{'B', 'M'}});
+
+    /**
+     * Count of leading bytes of file, which is enough for format detection.
+     */
+    static final int HEADER_LENGTH = 8;
+
+    private static final ImageFormat[] FORMATS = values();
+
+    private final String mimeType;
+    private final String fileExtension;
+    private final byte[][] signatures;
+
+    ImageFormat(String mimeType, String fileExtension, byte[][] signatures) {
+        this.mimeType = mimeType;
+        this.fileExtension = fileExtension;
+        this.signatures = signatures;
+    }
+
+    String getMimeType() {
+        return mimeType;
+    }
+
+    String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Detects format of image file by it's leading bytes. Method does not allocate memory.
+     *
+     * @param header leading bytes of file
+     * @param length count of bytes in header, may be less than {@link #HEADER_LENGTH} for short files
+     * @return detected format, or {@code null} if header not matches any supported format
+     */
+    @Nullable
+    static ImageFormat detect(byte[] header, int length) {
+        for (ImageFormat format : FORMATS) {
+            for (byte[] signature : format.signatures) {
+                if (startsWith(header, length, signature))
+                    return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds format by MIME type, case insensitive.
+     *
+     * @param mimeType MIME type
+     * @return format with given MIME type, or {@code null} if MIME type not supported
+     */
+    @Nullable
+    static ImageFormat forMimeType(@Nullable String mimeType) {
+        if (mimeType == null)
+            return null;
+
+        final String normalizedType = mimeType.trim().toLowerCase(Locale.ROOT);
+        for (ImageFormat format : FORMATS) {
+            if (format.mimeType.equals(normalizedType))
+                return format;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] signature) {
+        if (length < signature.length)
+            return false;
+
+        for (int i = 0; i < signature.length; i++) {
+            if (header[i] != signature[i])
+                return false;
+        }
+        return true;
+    }
+}
@@ -1,21 +1,20 @@
 package io.orvisual.api.service;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import io.orvisual.api.model.Picture;
 import io.orvisual.api.model.PictureFileItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.convert.converter.Converter;
-import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.SequenceInputStream;
 import java.time.Instant;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -23,20 +22,22 @@ import java.util.Optional;
  * Created on 20.05.2018.
  * </p>
  *
- * Converts {@link MultipartFile} to {@link PictureFileItem}, use {@link com.google.common.hash.Hashing} to calculate
- * {@link MultipartFile}'s data checksum using {@code SHA-256}.
+ * Converts {@link MultipartFile} to {@link PictureFileItem}, use {@link ChecksumCalculator} to calculate
+ * {@link MultipartFile}'s data checksum.
+ *
+ * Checksum calculated incrementally while multipart's content is read from stream, so content never loaded in memory
+ * at whole. Resulting {@link PictureFileItem} refers to {@link MultipartFile} itself as to re-readable content source,
+ * which spooled by servlet container to temporary file.
+ *
+ * MIME type of file is detected from leading bytes of content, MIME type declared in multipart is ignored. File,
+ * which content matches no supported format, is rejected.
  *
  * @author Artemis A. Sirosh
  */
 @Component
 public class MultiPartFileToPictureFileItemConverter implements Converter<MultipartFile, PictureFileItem> {
 
-    private static final List<String> MIME_TYPES = ImmutableList.of(
-            MediaType.IMAGE_JPEG_VALUE,
-            MediaType.IMAGE_PNG_VALUE,
-            MediaType.IMAGE_GIF_VALUE,
-            "image/bmp"
-    );
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiPartFileToPictureFileItemConverter.class);
 
     /**
      * This method return MIME type of MultiPart content or throw exception
@@ -54,24 +55,59 @@ public class MultiPartFileToPictureFileItemConverter implements Converter<Multip
      * @return MIME type string
      * @throws MultiPartFileProcessingException in case of unsupported type was given
      */
-    private static String checkMimeType(final String type) throws MultiPartFileProcessingException {
-        return MIME_TYPES.stream().filter(t -> t.equalsIgnoreCase(type))
-                .findFirst()
+    static String checkMimeType(final String type) throws MultiPartFileProcessingException {
+        return Optional.ofNullable(ImageFormat.forMimeType(type))
+                .map(ImageFormat::getMimeType)
                 .orElseThrow(() -> new MultiPartFileProcessingException("Unsupported media type: " + type));
     }
 
-    private final HashFunction sha256HashFunction = Hashing.sha256();
+    /**
+     * Determines MIME type of uploaded file by it's leading bytes. Declared MIME type is never trusted, so
+     * mislabeled files are stored with their real type, and files of other formats are rejected.
+     *
+     * @param declaredType MIME type declared by client
+     * @param header leading bytes of file
+     * @param length count of bytes in header
+     * @return detected MIME type
+     * @throws UnsupportedMediaTypeException if leading bytes match no supported format
+     */
+    static String resolveMimeType(final String declaredType, final byte[] header, final int length)
+            throws UnsupportedMediaTypeException {
+
+        final ImageFormat detectedFormat = ImageFormat.detect(header, length);
+        if (detectedFormat == null)
+            throw new UnsupportedMediaTypeException("Content of file declared as '" + declaredType +
+                    "' matches no supported image format");
+
+        if (!detectedFormat.getMimeType().equalsIgnoreCase(declaredType)) {
+            LOGGER.debug("Declared type '{}' corrected to '{}'", declaredType, detectedFormat.getMimeType());
+        }
+        return detectedFormat.getMimeType();
+    }
+
+    private final ChecksumCalculator checksumCalculator;
+
+    public MultiPartFileToPictureFileItemConverter(ChecksumCalculator checksumCalculator) {
+        this.checksumCalculator = checksumCalculator;
+    }
 
     @Override
     public PictureFileItem convert(final @NonNull MultipartFile source) {
         if (!source.isEmpty()) {
-            try {
-                final byte[] multipartContent = source.getBytes();
-                final String checksum = sha256HashFunction.hashBytes(multipartContent).toString();
+            try (CountingInputStream stream = new CountingInputStream(source.getInputStream())) {
+                final byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+                final int headerLength = ByteStreams.read(stream, header, 0, header.length);
+                final String mimeType = resolveMimeType(source.getContentType(), header, headerLength);
+
+                final String checksum = checksumCalculator.calculate(
+                        new SequenceInputStream(new ByteArrayInputStream(header, 0, headerLength), stream)
+                );
+                final long contentLength = stream.getCount();
 
                 return new PictureFileItem(
-                        new Picture(checksum, checkMimeType(source.getContentType()), Instant.now()),
-                        multipartContent
+                        new Picture(checksum, mimeType, Instant.now()),
+                        source,
+                        contentLength
                 );
 
             } catch (IOException exc) {
@@ -0,0 +1,103 @@
+package io.orvisual.api.service;
+
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Slab of direct memory, divided into pages of fixed size. Slab allocated once, when instance created, and is split
+ * into regions up to 1Gb, since size of {@link ByteBuffer} is limited. Content is stored in set of pages, which not
+ * need to be adjacent, so slab is never fragmented. Memory is outside of Java heap and not scanned by garbage
+ * collector, it's size is limited by {@literal -XX:MaxDirectMemorySize} JVM option.
+ *
+ * @author Artemis A. Sirosh
+ */
+class OffHeapMemory {
+
+    static final int DEFAULT_PAGE_SIZE = 16 * 1024;
+
+    private static final int MAX_REGION_SIZE = 1 << 30;
+
+    private final int pageSize;
+    private final int pagesPerRegion;
+    private final ByteBuffer[] regions;
+    private final int[] freePages;
+    private int freePageCount;
+
+    /**
+     * Allocates slab of direct memory.
+     *
+     * @param capacity size of slab in bytes, rounded down to page size
+     * @param pageSize size of page in bytes
+     */
+    OffHeapMemory(long capacity, int pageSize) {
+        final int pageCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, capacity / pageSize));
+        this.pageSize = pageSize;
+        this.pagesPerRegion = MAX_REGION_SIZE / pageSize;
+        this.regions = new ByteBuffer[(pageCount + pagesPerRegion - 1) / pagesPerRegion];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = ByteBuffer.allocateDirect(Math.min(pagesPerRegion, pageCount - i * pagesPerRegion) * pageSize);
+        }
+
+        this.freePages = new int[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            freePages[i] = pageCount - 1 - i;
+        }
+        this.freePageCount = pageCount;
+    }
+
+    /**
+     * Allocates pages for content of given length.
+     *
+     * @param length length of content in bytes
+     * @return numbers of allocated pages, or {@code null} if there is not enough free pages
+     */
+    @Nullable
+    synchronized int[] allocate(long length) {
+        final long pageCount = (length + pageSize - 1) / pageSize;
+        if (pageCount > freePageCount)
+            return null;
+
+        final int[] pages = new int[(int) pageCount];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = freePages[--freePageCount];
+        }
+        return pages;
+    }
+
+    /**
+     * Returns pages to slab. Pages must not be accessed after that.
+     *
+     * @param pages numbers of pages, allocated by {@link #allocate(long)}
+     */
+    synchronized void free(int[] pages) {
+        for (int page : pages) {
+            freePages[freePageCount++] = page;
+        }
+    }
+
+    /**
+     * @param page number of page
+     * @return buffer, which shares content of page, with independent position and limit
+     */
+    ByteBuffer page(int page) {
+        final ByteBuffer region = regions[page / pagesPerRegion].duplicate();
+        final int position = (page % pagesPerRegion) * pageSize;
+        region.limit(position + pageSize).position(position);
+        return region.slice();
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    long getCapacity() {
+        return (long) freePages.length * pageSize;
+    }
+
+    synchronized long getUsedBytes() {
+        return (long) (freePages.length - freePageCount) * pageSize;
+    }
+}
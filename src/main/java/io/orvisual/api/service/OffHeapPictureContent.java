@@ -0,0 +1,107 @@
+package io.orvisual.api.service;
+
+import org.springframework.core.io.Resource;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Content of picture file stored in pages of {@link OffHeapMemory}. Content is reference counted: cache holds one
+ * reference, each opened {@link OffHeapPictureResource} holds another one until it closed, so pages are never
+ * reused while they are being read.
+ *
+ * @author Artemis A. Sirosh
+ */
+class OffHeapPictureContent implements CachedPictureContent {
+
+    private final OffHeapMemory memory;
+    private final int[] pages;
+    private final long length;
+    private final AtomicInteger referenceCount = new AtomicInteger(1);
+
+    private OffHeapPictureContent(OffHeapMemory memory, int[] pages, long length) {
+        this.memory = memory;
+        this.pages = pages;
+        this.length = length;
+    }
+
+    /**
+     * Copies content to off-heap memory.
+     *
+     * @param memory off-heap memory
+     * @param content content of picture file
+     * @return stored content, or {@code null} if there is not enough free memory
+     */
+    @Nullable
+    static OffHeapPictureContent store(@NonNull OffHeapMemory memory, @NonNull byte[] content) {
+        final int[] pages = memory.allocate(content.length);
+        if (pages == null)
+            return null;
+
+        int position = 0;
+        for (int page : pages) {
+            final int count = Math.min(memory.getPageSize(), content.length - position);
+            memory.page(page).put(content, position, count);
+            position += count;
+        }
+        return new OffHeapPictureContent(memory, pages, content.length);
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public int getWeight() {
+        return pages.length * memory.getPageSize();
+    }
+
+    @Nullable
+    @Override
+    public Resource open() {
+        int count;
+        do {
+            count = referenceCount.get();
+            if (count == 0)
+                return null;
+        } while (!referenceCount.compareAndSet(count, count + 1));
+
+        return new OffHeapPictureResource(this);
+    }
+
+    @Override
+    public void release() {
+        if (referenceCount.decrementAndGet() == 0) {
+            memory.free(pages);
+        }
+    }
+
+    /**
+     * Returns buffers, which share content in given range of positions. Content must be opened.
+     *
+     * @param offset position of first byte
+     * @param count count of bytes
+     * @return read-only buffers with content
+     */
+    ByteBuffer[] buffers(long offset, long count) {
+        final int pageSize = memory.getPageSize();
+        final int firstPage = (int) (offset / pageSize);
+        final int lastPage = (int) ((offset + count - 1) / pageSize);
+        final ByteBuffer[] buffers = new ByteBuffer[count > 0 ? lastPage - firstPage + 1 : 0];
+
+        for (int i = 0; i < buffers.length; i++) {
+            final int page = firstPage + i;
+            final ByteBuffer buffer = memory.page(pages[page]).asReadOnlyBuffer();
+            final long pageStart = (long) page * pageSize;
+            buffer.limit((int) (Math.min(offset + count, pageStart + pageSize) - pageStart));
+            buffer.position((int) (Math.max(offset, pageStart) - pageStart));
+            buffers[i] = buffer;
+        }
+        return buffers;
+    }
+}
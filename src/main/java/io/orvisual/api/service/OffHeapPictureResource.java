@@ -0,0 +1,115 @@
+package io.orvisual.api.service;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.lang.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Content of picture file cached in off-heap memory. Content may be written to response directly from buffers
+ * returned by {@link #getBuffers(long, long)}, without copying to heap.
+ *
+ * Resource holds cached content until it closed, memory of content is not reused while resource is open. Resource
+ * closed by closing of it's input stream, or by {@link #close()}. Content can not be read after resource is closed.
+ *
+ * @author Artemis A. Sirosh
+ */
+public final class OffHeapPictureResource extends AbstractResource implements Closeable {
+
+    private final OffHeapPictureContent content;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    OffHeapPictureResource(OffHeapPictureContent content) {
+        this.content = content;
+    }
+
+    /**
+     * Returns buffers, which share content of resource in given range of positions.
+     *
+     * @param offset position of first byte
+     * @param count count of bytes
+     * @return read-only buffers with content, in order
+     * @throws IllegalStateException if resource is closed
+     */
+    @NonNull
+    public ByteBuffer[] getBuffers(long offset, long count) {
+        if (closed.get())
+            throw new IllegalStateException("Resource is closed");
+
+        return content.buffers(offset, Math.min(count, content.getLength() - offset));
+    }
+
+    @Override
+    public boolean exists() {
+        return !closed.get();
+    }
+
+    @Override
+    public long contentLength() {
+        return content.getLength();
+    }
+
+    @NonNull
+    @Override
+    public String getDescription() {
+        return "Off-heap picture content";
+    }
+
+    @NonNull
+    @Override
+    public InputStream getInputStream() {
+        final ByteBuffer[] buffers = getBuffers(0, content.getLength());
+        return new InputStream() {
+
+            private int index;
+
+            @Override
+            public int read() {
+                final ByteBuffer buffer = currentBuffer();
+                return buffer != null ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(@NonNull byte[] bytes, int offset, int length) {
+                if (length == 0)
+                    return 0;
+
+                final ByteBuffer buffer = currentBuffer();
+                if (buffer == null)
+                    return -1;
+
+                final int count = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, count);
+                return count;
+            }
+
+            @Override
+            public void close() {
+                OffHeapPictureResource.this.close();
+            }
+
+            private ByteBuffer currentBuffer() {
+                while (index < buffers.length && !buffers[index].hasRemaining()) {
+                    index++;
+                }
+                return index < buffers.length ? buffers[index] : null;
+            }
+        };
+    }
+
+    /**
+     * Releases cached content, repeated closing has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            content.release();
+        }
+    }
+}
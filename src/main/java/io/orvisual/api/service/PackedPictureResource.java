@@ -0,0 +1,132 @@
+package io.orvisual.api.service;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.lang.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Content of picture file stored in segment of {@link PackedPictureStorageService}. Content may be written to channel
+ * directly from segment file by {@link #transferTo(long, long, WritableByteChannel)}, without copying through
+ * application buffers.
+ *
+ * Resource holds segment until it closed, segment is not deleted by compaction while resource is open. Resource
+ * closed by closing of it's input stream, or by {@link #close()}. Content can not be read after resource is closed.
+ *
+ * @author Artemis A. Sirosh
+ */
+public final class PackedPictureResource extends AbstractResource implements Closeable {
+
+    private final PackedSegment segment;
+    private final long contentOffset;
+    private final long length;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    PackedPictureResource(PackedSegment segment, long contentOffset, long length) {
+        this.segment = segment;
+        this.contentOffset = contentOffset;
+        this.length = length;
+    }
+
+    /**
+     * Transfers content of resource in given range of positions to channel.
+     *
+     * @param offset position of first byte
+     * @param count count of bytes
+     * @param target channel, to which content written
+     * @throws IOException if content can not be read or written
+     * @throws IllegalStateException if resource is closed
+     */
+    public void transferTo(long offset, long count, @NonNull WritableByteChannel target) throws IOException {
+        if (closed.get())
+            throw new IllegalStateException("Resource is closed");
+
+        long position = contentOffset + offset;
+        final long end = contentOffset + Math.min(offset + count, length);
+        while (position < end) {
+            final long transferred = segment.getChannel().transferTo(position, end - position, target);
+            if (transferred <= 0)
+                throw new IOException("Segment " + segment.getId() + " truncated");
+            position += transferred;
+        }
+    }
+
+    @Override
+    public boolean exists() {
+        return !closed.get();
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @NonNull
+    @Override
+    public String getDescription() {
+        return "Picture content in segment " + segment.getId() + " at " + contentOffset;
+    }
+
+    @NonNull
+    @Override
+    public InputStream getInputStream() {
+        if (closed.get())
+            throw new IllegalStateException("Resource is closed");
+
+        return new InputStream() {
+
+            private long position;
+
+            @Override
+            public int read() throws IOException {
+                final byte[] bytes = new byte[1];
+                return read(bytes, 0, 1) < 0 ? -1 : bytes[0] & 0xFF;
+            }
+
+            @Override
+            public int read(@NonNull byte[] bytes, int offset, int count) throws IOException {
+                if (count == 0)
+                    return 0;
+                if (position >= length)
+                    return -1;
+
+                final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, (int) Math.min(count, length - position));
+                final int read = segment.getChannel().read(buffer, contentOffset + position);
+                if (read < 0)
+                    throw new IOException("Segment " + segment.getId() + " truncated");
+                position += read;
+                return read;
+            }
+
+            @Override
+            public long skip(long count) {
+                final long skipped = Math.max(0, Math.min(count, length - position));
+                position += skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(length - position, Integer.MAX_VALUE);
+            }
+
+            @Override
+            public void close() {
+                PackedPictureResource.this.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true))
+            segment.release();
+    }
+}
@@ -0,0 +1,667 @@
+package io.orvisual.api.service;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Storage, which appends picture files into large segment files instead of keeping file per picture, so millions of
+ * small pictures do not exhaust inodes of file system and backups copy few large files. Every record of segment
+ * starts with header, which contains record type, checksum of picture and length of content.
+ *
+ * Location of every picture is kept in memory index, so picture is read with single positional read of segment
+ * without file system lookup. Index is persisted to {@literal index.dat} file on close and after compaction, together
+ * with position of the last indexed record. At startup index is loaded and records appended after this position are
+ * replayed, their content verified by checksum, so torn records of interrupted writes are skipped. Without index file
+ * all segments are replayed.
+ *
+ * Space of record is reserved and it's header is written under lock, content is written outside of it, so concurrent
+ * uploads do not wait for each other, and every reserved record has header, which tells replay how to skip it.
+ * Deletion appends tombstone record. Segments, in which share of deleted records exceeds compaction threshold, are
+ * compacted in background: live records are copied to the end of active segment, copies are synced to disk, index is
+ * persisted, and then old segment is deleted, when resources read from it are closed. Tombstones of compacted segment
+ * are copied too, while older segments, which may contain deleted records, exist, so replay does not restore deleted
+ * pictures. For instantiate use {@link PictureStorageServiceFactoryBean}.
+ *
+ * @author Artemis A. Sirosh
+ */
+class PackedPictureStorageService implements PictureStorageService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedPictureStorageService.class);
+
+    private static final int RECORD_MAGIC = 0x4F525650;
+    private static final int INDEX_MAGIC = 0x4F525649;
+    private static final byte PICTURE_RECORD = 1;
+    private static final byte TOMBSTONE_RECORD = 2;
+    private static final byte ABORTED_RECORD = 3;
+    private static final int FIXED_HEADER_SIZE = 4 + 1 + 2 + 8;
+    private static final int TYPE_OFFSET = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String INDEX_FILE_NAME = "index.dat";
+    private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("segment-(\\d{8})\\.dat");
+
+    private final Path rootPath;
+    private final long maxSegmentSize;
+    private final double compactionThreshold;
+    private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, PackedSegment> segments = new ConcurrentSkipListMap<>();
+    private final Lock appendLock = new ReentrantLock();
+    private final Condition writesCompleted = appendLock.newCondition();
+    private final Multiset<String> checksumsInWrite = HashMultiset.create();
+    private final ScheduledExecutorService compactionExecutor;
+    private PackedSegment activeSegment;
+    private int writesInProgress;
+    private volatile boolean closed;
+
+    /**
+     * Opens storage, loads index and schedules compaction.
+     *
+     * @param rootPath directory of segments, it will be created if not exists
+     * @param maxSegmentSize size of segment in bytes, after which new segment is started
+     * @param compactionThreshold share of deleted records in segment, after which segment is compacted
+     * @param compactionInterval delay between checks of segments for compaction
+     * @throws PictureFileProcessingException if segments or index can not be read
+     */
+    PackedPictureStorageService(
+            @NonNull Path rootPath, long maxSegmentSize, double compactionThreshold, @NonNull Duration compactionInterval
+    ) {
+        this.rootPath = rootPath;
+        this.maxSegmentSize = maxSegmentSize;
+        this.compactionThreshold = compactionThreshold;
+
+        try {
+            Files.createDirectories(rootPath);
+            openSegments();
+            loadIndex();
+        } catch (IOException exc) {
+            closeSegments();
+            throw new PictureFileProcessingException("Opening of packed storage failed", exc);
+        }
+
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "segment-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactionExecutor = executor;
+        executor.scheduleWithFixedDelay(
+                this::compact, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Appends picture file to active segment, if picture is not stored yet.
+     *
+     * @param fileItem image transport object, must not be {@code null}
+     * @throws PictureFileProcessingException in case of error during IO operations
+     */
+    @Override
+    public void savePictureFileItem(@NonNull PictureFileItem fileItem) {
+        final String checksum = fileItem.getPictureItem().getChecksum();
+        if (index.containsKey(checksum))
+            return;
+
+        final Location location = reserve(
+                checksum, createHeader(PICTURE_RECORD, checksum, fileItem.getContentLength()),
+                fileItem.getContentLength()
+        );
+        try {
+            try (InputStream contentStream = fileItem.getFileContent().getInputStream()) {
+                writeContent(contentStream, location);
+            }
+
+            if (index.putIfAbsent(checksum, location) == null) {
+                location.segment.addLiveBytes(location.getRecordSize());
+                LOGGER.debug("Picture '{}' appended to segment {}", checksum, location.segment.getId());
+            } else {
+                markAborted(location);
+            }
+        } catch (IOException exc) {
+            markAborted(location);
+            LOGGER.warn("Recording of picture file failed", exc);
+            throw new PictureFileProcessingException("Recording of picture file failed", exc);
+        } finally {
+            completeWrite(checksum, location);
+        }
+    }
+
+    /**
+     * Resolves content of picture in segment. Returned {@link PackedPictureResource} must be closed after use.
+     *
+     * @param picture metadata object instance
+     * @return {@link PackedPictureResource} with content of picture
+     * @throws PictureFileProcessingException if picture is not stored, or storage is closed
+     */
+    @NonNull
+    @Override
+    public Resource resolvePictureResource(@NonNull Picture picture) {
+        while (true) {
+            if (closed)
+                throw new PictureFileProcessingException("Packed storage is closed");
+
+            final Location location = index.get(picture.getChecksum());
+            if (location == null)
+                throw new PictureFileProcessingException("Picture file not found: " + picture.getChecksum());
+
+            // segment may be retired by compaction, then index refers to copy of record already
+            if (location.segment.retain())
+                return new PackedPictureResource(location.segment, location.getContentOffset(), location.length);
+        }
+    }
+
+    /**
+     * Removes picture from index and appends tombstone record, space of picture is reclaimed by compaction.
+     *
+     * @param picture metadata object instance of picture file
+     * @throws PictureFileProcessingException if picture is not stored, or tombstone can not be written
+     */
+    @Override
+    public void deletePictureFile(@NonNull Picture picture) {
+        final Location location = index.remove(picture.getChecksum());
+        if (location == null)
+            throw new PictureFileProcessingException("Picture file not found: " + picture.getChecksum());
+        location.segment.addLiveBytes(-location.getRecordSize());
+
+        final Location tombstone = reserve(
+                picture.getChecksum(), createHeader(TOMBSTONE_RECORD, picture.getChecksum(), 0), 0
+        );
+        completeWrite(picture.getChecksum(), tombstone);
+        LOGGER.debug("Picture file '{}' has been deleted.", picture.getChecksum());
+    }
+
+    /**
+     * Stops compaction, persists index and closes segments.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        compactionExecutor.shutdownNow();
+        try {
+            if (!compactionExecutor.awaitTermination(10, TimeUnit.SECONDS))
+                LOGGER.warn("Compaction not stopped in time");
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            for (PackedSegment segment : segments.values()) {
+                segment.getChannel().force(false);
+            }
+            saveIndex();
+        } catch (IOException exc) {
+            LOGGER.warn("Saving of segment index failed", exc);
+        }
+        closeSegments();
+    }
+
+    /**
+     * Compacts segments, in which share of deleted records exceeds threshold. Live records are copied to active
+     * segment, index is persisted, then old segment deleted.
+     */
+    void compact() {
+        final List<PackedSegment> compactedSegments = segments.values().stream()
+                .filter(segment -> segment != currentActiveSegment())
+                .filter(segment -> segment.getSize() > 0)
+                .filter(segment -> segment.getSize() - segment.getLiveBytes() >= segment.getSize() * compactionThreshold)
+                .collect(Collectors.toList());
+
+        for (PackedSegment segment : compactedSegments) {
+            try {
+                compactSegment(segment);
+            } catch (IOException | RuntimeException exc) {
+                LOGGER.warn("Compaction of segment {} failed", segment.getId(), exc);
+                return;
+            }
+        }
+    }
+
+    private void compactSegment(PackedSegment segment) throws IOException {
+        final List<Map.Entry<String, Location>> liveEntries = index.entrySet().stream()
+                .filter(entry -> entry.getValue().segment == segment)
+                .collect(Collectors.toList());
+
+        final Set<PackedSegment> targetSegments = new HashSet<>();
+        long copiedBytes = 0;
+        for (Map.Entry<String, Location> entry : liveEntries) {
+            final Location oldLocation = entry.getValue();
+            final ByteBuffer header = ByteBuffer.allocate(oldLocation.headerSize);
+            segment.readFully(header, oldLocation.recordOffset);
+
+            final Location newLocation = reserve(entry.getKey(), header.array(), oldLocation.length);
+            targetSegments.add(newLocation.segment);
+            try {
+                copyContent(segment, oldLocation, newLocation);
+
+                if (index.replace(entry.getKey(), oldLocation, newLocation)) {
+                    newLocation.segment.addLiveBytes(newLocation.getRecordSize());
+                    copiedBytes += newLocation.getRecordSize();
+                } else {
+                    markAborted(newLocation);
+                }
+            } catch (IOException exc) {
+                markAborted(newLocation);
+                throw exc;
+            } finally {
+                completeWrite(entry.getKey(), newLocation);
+            }
+        }
+
+        int copiedTombstones = 0;
+        if (!segments.headMap(segment.getId()).isEmpty()) {
+            for (String checksum : tombstonesOf(segment)) {
+                final Location tombstone = copyTombstone(checksum);
+                if (tombstone != null) {
+                    targetSegments.add(tombstone.segment);
+                    copiedTombstones++;
+                }
+            }
+        }
+
+        for (PackedSegment targetSegment : targetSegments) {
+            targetSegment.getChannel().force(true);
+        }
+        saveIndex();
+        segments.remove(segment.getId());
+        segment.retire();
+        LOGGER.info(
+                "Segment {} compacted, {} bytes of {} records and {} tombstones copied",
+                segment.getId(), copiedBytes, liveEntries.size(), copiedTombstones
+        );
+    }
+
+    /**
+     * Collects checksums of tombstone records of segment.
+     */
+    private List<String> tombstonesOf(PackedSegment segment) throws IOException {
+        final List<String> checksums = new ArrayList<>();
+        scanRecords(segment, 0, (type, checksum, location) -> {
+            if (type == TOMBSTONE_RECORD)
+                checksums.add(checksum);
+        });
+        return checksums;
+    }
+
+    /**
+     * Appends copy of tombstone, unless picture is stored again, or is being written. Check and reservation are done
+     * under append lock, so picture written later is appended after the copy.
+     *
+     * @return location of copied tombstone, or {@code null} if tombstone is not needed anymore
+     */
+    private Location copyTombstone(String checksum) {
+        final Location tombstone;
+        appendLock.lock();
+        try {
+            if (index.containsKey(checksum) || checksumsInWrite.contains(checksum))
+                return null;
+
+            tombstone = reserve(checksum, createHeader(TOMBSTONE_RECORD, checksum, 0), 0);
+        } finally {
+            appendLock.unlock();
+        }
+        completeWrite(checksum, tombstone);
+        return tombstone;
+    }
+
+    private void copyContent(PackedSegment source, Location from, Location to) throws IOException {
+        long copied = 0;
+        while (copied < from.length) {
+            final long transferred = to.segment.getChannel().transferFrom(
+                    source.getChannel().position(from.getContentOffset() + copied),
+                    to.getContentOffset() + copied,
+                    from.length - copied
+            );
+            if (transferred <= 0)
+                throw new IOException("Segment " + source.getId() + " truncated");
+            copied += transferred;
+        }
+    }
+
+    private void writeContent(InputStream contentStream, Location location) throws IOException {
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long written = 0;
+        int read;
+        while ((read = contentStream.read(bytes)) != -1) {
+            if (written + read > location.length)
+                throw new IOException("Content of picture is longer than declared");
+
+            buffer.clear();
+            buffer.limit(read);
+            location.segment.writeFully(buffer, location.getContentOffset() + written);
+            written += read;
+        }
+
+        if (written != location.length)
+            throw new IOException("Content of picture is shorter than declared");
+    }
+
+    /**
+     * Reserves space for record in active segment and writes it's header, new segment started if record not fits
+     * into active one. Header is written before space is reserved, so failed write reserves nothing, and crash never
+     * leaves reserved record without header. Write to reserved space must be completed with
+     * {@link #completeWrite(String, Location)}.
+     */
+    private Location reserve(String checksum, byte[] header, long contentLength) {
+        final long recordSize = header.length + contentLength;
+        appendLock.lock();
+        try {
+            if (activeSegment.getSize() > 0 && activeSegment.getSize() + recordSize > maxSegmentSize)
+                activeSegment = createSegment(activeSegment.getId() + 1);
+
+            activeSegment.writeFully(ByteBuffer.wrap(header), activeSegment.getSize());
+            activeSegment.retain();
+            writesInProgress++;
+            checksumsInWrite.add(checksum);
+            return new Location(activeSegment, activeSegment.reserve(recordSize), header.length, contentLength);
+        } catch (IOException exc) {
+            LOGGER.warn("Reservation of record failed", exc);
+            throw new PictureFileProcessingException("Reservation of record failed", exc);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void completeWrite(String checksum, Location location) {
+        location.segment.release();
+        appendLock.lock();
+        try {
+            checksumsInWrite.remove(checksum);
+            if (--writesInProgress == 0)
+                writesCompleted.signalAll();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void markAborted(Location location) {
+        try {
+            location.segment.writeFully(
+                    ByteBuffer.wrap(new byte[]{ABORTED_RECORD}), location.recordOffset + TYPE_OFFSET
+            );
+        } catch (IOException exc) {
+            LOGGER.warn("Marking of aborted record failed", exc);
+        }
+    }
+
+    private PackedSegment currentActiveSegment() {
+        appendLock.lock();
+        try {
+            return activeSegment;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private PackedSegment createSegment(int id) throws IOException {
+        final PackedSegment segment = new PackedSegment(
+                id, rootPath.resolve(String.format("segment-%08d.dat", id))
+        );
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void openSegments() throws IOException {
+        try (Stream<Path> paths = Files.list(rootPath)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                final Matcher matcher = SEGMENT_FILE_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches())
+                    createSegment(Integer.parseInt(matcher.group(1)));
+            }
+        }
+
+        this.activeSegment = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+    }
+
+    private void closeSegments() {
+        segments.values().forEach(PackedSegment::release);
+        segments.clear();
+    }
+
+    /**
+     * Persists index with position of the last indexed record. Index is written to temporary file, which is synced
+     * to disk and then atomically replaces previous index.
+     */
+    private void saveIndex() throws IOException {
+        final int indexedSegmentId;
+        final long indexedPosition;
+        appendLock.lock();
+        try {
+            while (writesInProgress > 0) {
+                writesCompleted.awaitUninterruptibly();
+            }
+            indexedSegmentId = activeSegment.getId();
+            indexedPosition = activeSegment.getSize();
+        } finally {
+            appendLock.unlock();
+        }
+
+        final Path temporaryIndexPath = rootPath.resolve(INDEX_FILE_NAME + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporaryIndexPath), BUFFER_SIZE
+        ))) {
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(indexedSegmentId);
+            output.writeLong(indexedPosition);
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                output.writeBoolean(true);
+                output.writeUTF(entry.getKey());
+                output.writeInt(entry.getValue().segment.getId());
+                output.writeLong(entry.getValue().recordOffset);
+                output.writeLong(entry.getValue().length);
+            }
+            output.writeBoolean(false);
+        }
+        try (FileChannel indexChannel = FileChannel.open(temporaryIndexPath, StandardOpenOption.WRITE)) {
+            indexChannel.force(true);
+        }
+        Files.move(
+                temporaryIndexPath,
+                rootPath.resolve(INDEX_FILE_NAME),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+        );
+    }
+
+    /**
+     * Loads persisted index and replays records appended after it.
+     */
+    private void loadIndex() throws IOException {
+        int indexedSegmentId = 0;
+        long indexedPosition = 0;
+
+        final Path indexPath = rootPath.resolve(INDEX_FILE_NAME);
+        if (Files.exists(indexPath)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(indexPath), BUFFER_SIZE
+            ))) {
+                if (input.readInt() != INDEX_MAGIC)
+                    throw new IOException("Unknown format of index file");
+
+                indexedSegmentId = input.readInt();
+                indexedPosition = input.readLong();
+                while (input.readBoolean()) {
+                    final String checksum = input.readUTF();
+                    final PackedSegment segment = segments.get(input.readInt());
+                    final long recordOffset = input.readLong();
+                    final long length = input.readLong();
+                    if (segment != null)
+                        index.put(checksum, new Location(segment, recordOffset, headerSizeOf(checksum), length));
+                }
+            } catch (IOException exc) {
+                LOGGER.warn("Index file of packed storage is corrupted, all segments will be replayed", exc);
+                index.clear();
+                indexedSegmentId = 0;
+                indexedPosition = 0;
+            }
+        }
+
+        for (PackedSegment segment : segments.tailMap(indexedSegmentId, true).values()) {
+            replaySegment(segment, segment.getId() == indexedSegmentId ? indexedPosition : 0);
+        }
+
+        index.values().forEach(location -> location.segment.addLiveBytes(location.getRecordSize()));
+        LOGGER.info("Packed storage opened with {} pictures in {} segments", index.size(), segments.size());
+    }
+
+    private void replaySegment(PackedSegment segment, long startPosition) throws IOException {
+        final long position = scanRecords(segment, startPosition, (type, checksum, location) -> {
+            if (type == PICTURE_RECORD && checksum.equals(contentChecksum(location)))
+                index.put(checksum, location);
+            else if (type == TOMBSTONE_RECORD)
+                index.remove(checksum);
+        });
+
+        if (position < segment.getSize()) {
+            LOGGER.warn("Segment {} truncated from {} to {} bytes", segment.getId(), segment.getSize(), position);
+            segment.truncate(position);
+        }
+    }
+
+    /**
+     * Reads headers of records starting from given position, until the end of segment or invalid header.
+     *
+     * @return position after the last valid record
+     */
+    private static long scanRecords(PackedSegment segment, long startPosition, RecordVisitor visitor)
+            throws IOException {
+
+        final long size = segment.getSize();
+        long position = startPosition;
+        while (size - position >= FIXED_HEADER_SIZE) {
+            final ByteBuffer fixedHeader = ByteBuffer.allocate(TYPE_OFFSET + 1 + 2);
+            segment.readFully(fixedHeader, position);
+            fixedHeader.flip();
+            if (fixedHeader.getInt() != RECORD_MAGIC)
+                break;
+
+            final byte type = fixedHeader.get();
+            final int checksumLength = fixedHeader.getShort() & 0xFFFF;
+            final int headerSize = FIXED_HEADER_SIZE + checksumLength;
+            if (size - position < headerSize)
+                break;
+
+            final ByteBuffer variableHeader = ByteBuffer.allocate(checksumLength + 8);
+            segment.readFully(variableHeader, position + TYPE_OFFSET + 1 + 2);
+            variableHeader.flip();
+            final byte[] checksumBytes = new byte[checksumLength];
+            variableHeader.get(checksumBytes);
+            final String checksum = new String(checksumBytes, StandardCharsets.US_ASCII);
+            final long length = variableHeader.getLong();
+            if (length < 0 || size - position - headerSize < length)
+                break;
+
+            visitor.visit(type, checksum, new Location(segment, position, headerSize, length));
+            position += headerSize + length;
+        }
+        return position;
+    }
+
+    private static String contentChecksum(Location location) throws IOException {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = location.getContentOffset();
+        final long end = position + location.length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, end - position));
+            location.segment.readFully(buffer, position);
+            buffer.flip();
+            hasher.putBytes(buffer);
+            position += buffer.limit();
+        }
+        return hasher.hash().toString();
+    }
+
+    private static byte[] createHeader(byte type, String checksum, long length) {
+        final byte[] checksumBytes = checksum.getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(FIXED_HEADER_SIZE + checksumBytes.length)
+                .putInt(RECORD_MAGIC)
+                .put(type)
+                .putShort((short) checksumBytes.length)
+                .put(checksumBytes)
+                .putLong(length)
+                .array();
+    }
+
+    private static int headerSizeOf(String checksum) {
+        return FIXED_HEADER_SIZE + checksum.length();
+    }
+
+    /**
+     * Receives records found by scan of segment.
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+
+        void visit(byte type, String checksum, Location location) throws IOException;
+    }
+
+    /**
+     * Position of record in segment.
+     */
+    private static final class Location {
+
+        private final PackedSegment segment;
+        private final long recordOffset;
+        private final int headerSize;
+        private final long length;
+
+        private Location(PackedSegment segment, long recordOffset, int headerSize, long length) {
+            this.segment = segment;
+            this.recordOffset = recordOffset;
+            this.headerSize = headerSize;
+            this.length = length;
+        }
+
+        private long getContentOffset() {
+            return recordOffset + headerSize;
+        }
+
+        private long getRecordSize() {
+            return headerSize + length;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package io.orvisual.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Segment file of {@link PackedPictureStorageService}, which contains appended records of pictures. Records are read
+ * and written with positional I/O, so segment channel is shared by concurrent readers and writers.
+ *
+ * Segment is reference counted: storage holds one reference while segment is in use, every open resource holds
+ * another one. Segment retired by compaction is closed and deleted, when the last resource is released.
+ *
+ * @author Artemis A. Sirosh
+ */
+class PackedSegment {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedSegment.class);
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final AtomicLong liveBytes = new AtomicLong();
+    private volatile long size;
+    private int references = 1;
+    private boolean retired;
+
+    PackedSegment(int id, Path path) throws IOException {
+        this.id = id;
+        this.path = path;
+        this.channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        );
+        this.size = channel.size();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return size of segment including reserved, but not yet written records
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Reserves space for record at the end of segment, invoked under append lock of storage.
+     *
+     * @param recordSize size of record
+     * @return position of reserved record
+     */
+    long reserve(long recordSize) {
+        final long position = size;
+        size += recordSize;
+        return position;
+    }
+
+    /**
+     * Cuts off invalid records at the end of segment.
+     *
+     * @param newSize size of valid records
+     * @throws IOException if file can not be truncated
+     */
+    void truncate(long newSize) throws IOException {
+        channel.truncate(newSize);
+        size = newSize;
+    }
+
+    /**
+     * @return size of records of pictures, which are present in index
+     */
+    long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    void addLiveBytes(long delta) {
+        liveBytes.addAndGet(delta);
+    }
+
+    /**
+     * Reads bytes at given position until buffer is full.
+     *
+     * @param buffer destination buffer
+     * @param position position in segment
+     * @throws IOException if end of segment reached before buffer is full
+     */
+    void readFully(ByteBuffer buffer, long position) throws IOException {
+        long currentPosition = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, currentPosition);
+            if (read < 0)
+                throw new IOException("Unexpected end of segment " + id);
+            currentPosition += read;
+        }
+    }
+
+    /**
+     * Writes whole buffer at given position.
+     *
+     * @param buffer source buffer
+     * @param position position in segment
+     * @throws IOException if write fails
+     */
+    void writeFully(ByteBuffer buffer, long position) throws IOException {
+        long currentPosition = position;
+        while (buffer.hasRemaining()) {
+            currentPosition += channel.write(buffer, currentPosition);
+        }
+    }
+
+    /**
+     * Acquires reference to segment for reading.
+     *
+     * @return {@code false} if segment is retired and closed already
+     */
+    synchronized boolean retain() {
+        if (references == 0)
+            return false;
+
+        references++;
+        return true;
+    }
+
+    /**
+     * Releases reference to segment, closes segment when the last reference released. Retired segment is deleted.
+     */
+    synchronized void release() {
+        if (--references > 0)
+            return;
+
+        try {
+            channel.close();
+            if (retired)
+                Files.deleteIfExists(path);
+        } catch (IOException exc) {
+            LOGGER.warn("Closing of segment {} failed", id, exc);
+        }
+    }
+
+    /**
+     * Marks segment for deletion and releases reference of storage.
+     */
+    synchronized void retire() {
+        retired = true;
+        release();
+    }
+}
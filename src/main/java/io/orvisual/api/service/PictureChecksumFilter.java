@@ -0,0 +1,203 @@
+package io.orvisual.api.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.orvisual.api.repository.PictureRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.NonNull;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Bloom filter of checksums of all stored pictures. Filter answers, that picture was not stored, when filter was
+ * built, without access to database. Positive answer means only, that picture may exist.
+ *
+ * Filter is built by background scan of all checksums, by batches in order of checksum, at startup and then
+ * periodically. Until first build completes, every picture may exist. Inserted pictures must be put to filter, so
+ * picture uploaded by this node is known immediately. Pictures uploaded by other nodes are put to filter by frequent
+ * refresh, which selects pictures uploaded since previous refresh or build. Upload time is assigned by uploading node
+ * and record is committed some time after it, so refresh selects pictures uploaded up to a minute before previous
+ * refresh too. Deleted pictures can not be removed from Bloom filter, they remain possibly existing until next
+ * rebuild. Filter is sized for twice as many checksums as scanned, so it's false
+ * positive probability stays bounded while new pictures are put between rebuilds.
+ *
+ * Count of checksums, which are not in filter, is published as {@code orvisual.checksum.filter.misses} metric,
+ * expected false positive probability as {@code orvisual.checksum.filter.fpp}.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class PictureChecksumFilter implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PictureChecksumFilter.class);
+    private static final int SCAN_BATCH_SIZE = 10_000;
+    // clock skew between nodes and delay of commit after upload time is assigned
+    private static final Duration UPLOAD_TIME_OVERLAP = Duration.ofMinutes(1);
+
+    private final PictureRepository pictureRepository;
+    private final long minExpectedPictures;
+    private final double falsePositiveProbability;
+    private final ScheduledExecutorService rebuildExecutor;
+    private final Counter missCounter;
+
+    private volatile BloomFilter<CharSequence> filter;
+    private List<String> checksumsPutWhileRebuild;
+    // accessed by rebuild thread only
+    private Instant refreshedAt;
+
+    /**
+     * Creates filter and schedules it's builds.
+     *
+     * @param pictureRepository repository of pictures
+     * @param minExpectedPictures min count of checksums, for which filter is sized
+     * @param falsePositiveProbability desired probability of false positive answer
+     * @param rebuildInterval delay between rebuilds of filter
+     * @param refreshInterval delay between refreshes of filter with pictures uploaded by other nodes
+     * @param meterRegistry registry of metrics
+     */
+    public PictureChecksumFilter(
+            @NonNull PictureRepository pictureRepository,
+            long minExpectedPictures,
+            double falsePositiveProbability,
+            @NonNull Duration rebuildInterval,
+            @NonNull Duration refreshInterval,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.pictureRepository = pictureRepository;
+        this.minExpectedPictures = minExpectedPictures;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.missCounter = Counter.builder("orvisual.checksum.filter.misses")
+                .description("Lookups of checksums, which are not in filter")
+                .register(meterRegistry);
+        Gauge.builder("orvisual.checksum.filter.fpp", this, PictureChecksumFilter::expectedFpp)
+                .description("Expected false positive probability of checksum filter")
+                .register(meterRegistry);
+
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "checksum-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rebuildExecutor = executor;
+        executor.scheduleWithFixedDelay(this::rebuild, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(
+                this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Checks whether picture may exist.
+     *
+     * @param checksum picture's checksum
+     * @return {@code false} if picture not existed, when filter was built, and not put since, {@code true} if it may
+     * exist
+     */
+    public boolean mightContain(@NonNull String checksum) {
+        final BloomFilter<CharSequence> currentFilter = filter;
+        if (currentFilter == null || currentFilter.mightContain(checksum))
+            return true;
+
+        missCounter.increment();
+        return false;
+    }
+
+    /**
+     * Marks picture as possibly existing, should be invoked after insertion of picture.
+     *
+     * @param checksum picture's checksum
+     */
+    public synchronized void put(@NonNull String checksum) {
+        if (filter != null)
+            filter.put(checksum);
+        if (checksumsPutWhileRebuild != null)
+            checksumsPutWhileRebuild.add(checksum);
+    }
+
+    /**
+     * Builds new filter from checksums stored in repository and replaces current filter with it. Checksums put
+     * while rebuild is in progress are added to new filter too.
+     */
+    void rebuild() {
+        synchronized (this) {
+            checksumsPutWhileRebuild = new ArrayList<>();
+        }
+
+        try {
+            final Instant scanStartedAt = Instant.now();
+            final long expectedPictures = Math.max(minExpectedPictures, pictureRepository.count() * 2);
+            final BloomFilter<CharSequence> newFilter = BloomFilter.create(
+                    Funnels.stringFunnel(StandardCharsets.US_ASCII), expectedPictures, falsePositiveProbability
+            );
+
+            long count = 0;
+            String lastChecksum = "";
+            List<String> checksums;
+            do {
+                checksums = pictureRepository.findChecksumsAfter(lastChecksum, PageRequest.of(0, SCAN_BATCH_SIZE));
+                checksums.forEach(newFilter::put);
+                count += checksums.size();
+                if (!checksums.isEmpty())
+                    lastChecksum = checksums.get(checksums.size() - 1);
+            } while (checksums.size() == SCAN_BATCH_SIZE);
+
+            synchronized (this) {
+                checksumsPutWhileRebuild.forEach(newFilter::put);
+                filter = newFilter;
+            }
+            refreshedAt = scanStartedAt;
+            LOGGER.info("Checksum filter built from {} pictures", count);
+        } catch (RuntimeException exc) {
+            LOGGER.warn("Build of checksum filter failed", exc);
+        } finally {
+            synchronized (this) {
+                checksumsPutWhileRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Puts checksums of pictures uploaded since previous refresh or build, e.g. by other nodes, to filter.
+     */
+    void refresh() {
+        if (refreshedAt == null)
+            return;
+
+        try {
+            final Instant refreshStartedAt = Instant.now();
+            final List<String> checksums = pictureRepository.findChecksumsLoadedAfter(
+                    refreshedAt.minus(UPLOAD_TIME_OVERLAP)
+            );
+            synchronized (this) {
+                checksums.forEach(filter::put);
+            }
+            refreshedAt = refreshStartedAt;
+            LOGGER.debug("Checksum filter refreshed with {} pictures", checksums.size());
+        } catch (RuntimeException exc) {
+            LOGGER.warn("Refresh of checksum filter failed", exc);
+        }
+    }
+
+    @Override
+    public void close() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private double expectedFpp() {
+        final BloomFilter<CharSequence> currentFilter = filter;
+        return currentFilter != null ? currentFilter.expectedFpp() : 1.0;
+    }
+}
@@ -0,0 +1,160 @@
+package io.orvisual.api.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.repository.PictureRepository;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Keeps {@link Picture} metadata found by checksum, so repeated lookups of the same picture do not query database.
+ * Picture records are never changed after insertion, so found picture is cached until eviction, deletion, or expiry
+ * of it's time to live, after which picture deleted by another node is not found anymore. Absence of picture is
+ * cached too, but only for short time, because picture may be uploaded by another node.
+ *
+ * Cache does not observe database, every component, which inserts or deletes pictures, must invalidate cached
+ * checksum. Lookup, which started before invalidation of the same checksum, does not put it's result to cache,
+ * lookups of other checksums are not affected. Hit, miss and eviction counts are published as metrics of
+ * {@code picture-metadata} and {@code picture-absence} caches.
+ *
+ * If {@link PictureChecksumFilter} given, picture, which definitely not exists according to filter, is not looked up
+ * in database. Picture uploaded by another node is not found, until filter is refreshed. Invalidated checksum is put
+ * to filter, as picture may have been inserted.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class PictureMetadataCache {
+
+    static final String CACHE_NAME = "picture-metadata";
+    static final String ABSENCE_CACHE_NAME = "picture-absence";
+
+    private final PictureRepository pictureRepository;
+    private final PictureChecksumFilter checksumFilter;
+    private final Cache<String, Picture> pictures;
+    private final Cache<String, Boolean> absentPictures;
+    private final ConcurrentMap<String, Object> pendingLookups = new ConcurrentHashMap<>();
+
+    /**
+     * Creates cache and registers it's metrics.
+     *
+     * @param pictureRepository repository of pictures
+     * @param maxSize max count of cached pictures, the same count of absent pictures may be cached additionally
+     * @param pictureTtl time, during which found picture is cached
+     * @param absenceTtl time, during which absence of picture is cached
+     * @param meterRegistry registry of metrics
+     */
+    public PictureMetadataCache(
+            @NonNull PictureRepository pictureRepository,
+            long maxSize,
+            @NonNull Duration pictureTtl,
+            @NonNull Duration absenceTtl,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this(pictureRepository, null, maxSize, pictureTtl, absenceTtl, meterRegistry);
+    }
+
+    /**
+     * Creates cache, which keeps filter of existing checksums up to date, and registers it's metrics.
+     *
+     * @param pictureRepository repository of pictures
+     * @param checksumFilter filter of existing checksums, or {@code null} if every picture may exist
+     * @param maxSize max count of cached pictures, the same count of absent pictures may be cached additionally
+     * @param pictureTtl time, during which found picture is cached
+     * @param absenceTtl time, during which absence of picture is cached
+     * @param meterRegistry registry of metrics
+     */
+    public PictureMetadataCache(
+            @NonNull PictureRepository pictureRepository,
+            @Nullable PictureChecksumFilter checksumFilter,
+            long maxSize,
+            @NonNull Duration pictureTtl,
+            @NonNull Duration absenceTtl,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.pictureRepository = pictureRepository;
+        this.checksumFilter = checksumFilter;
+        this.pictures = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(pictureTtl.toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.absentPictures = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(absenceTtl.toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        GuavaCacheMetrics.monitor(meterRegistry, pictures, CACHE_NAME);
+        GuavaCacheMetrics.monitor(meterRegistry, absentPictures, ABSENCE_CACHE_NAME);
+    }
+
+    /**
+     * Finds picture in cache, or in repository if it not cached.
+     *
+     * @param checksum picture's checksum
+     * @return found picture, or empty if picture not exists
+     */
+    @NonNull
+    public Optional<Picture> findPicture(@NonNull String checksum) {
+        final Picture cachedPicture = pictures.getIfPresent(checksum);
+        if (cachedPicture != null)
+            return Optional.of(cachedPicture);
+
+        if (absentPictures.getIfPresent(checksum) != null)
+            return Optional.empty();
+
+        if (checksumFilter != null && !checksumFilter.mightContain(checksum))
+            return Optional.empty();
+
+        final Object lookup = new Object();
+        pendingLookups.put(checksum, lookup);
+        final Optional<Picture> optionalPicture = pictureRepository.findById(checksum);
+
+        pendingLookups.computeIfPresent(checksum, (key, pendingLookup) -> {
+            if (pendingLookup != lookup)
+                return pendingLookup;
+
+            if (optionalPicture.isPresent())
+                pictures.put(checksum, optionalPicture.get());
+            else
+                absentPictures.put(checksum, Boolean.TRUE);
+            return null;
+        });
+        return optionalPicture;
+    }
+
+    /**
+     * Removes cached picture or it's absence, should be invoked after insertion or deletion of picture.
+     *
+     * @param checksum picture's checksum
+     */
+    public void invalidate(@NonNull String checksum) {
+        if (checksumFilter != null)
+            checksumFilter.put(checksum);
+        pendingLookups.compute(checksum, (key, pendingLookup) -> {
+            pictures.invalidate(checksum);
+            absentPictures.invalidate(checksum);
+            return null;
+        });
+    }
+
+    /**
+     * Removes all cached pictures and absences.
+     */
+    public void invalidateAll() {
+        pendingLookups.clear();
+        pictures.invalidateAll();
+        absentPictures.invalidateAll();
+    }
+}
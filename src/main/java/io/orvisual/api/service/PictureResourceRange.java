@@ -0,0 +1,73 @@
+package io.orvisual.api.service;
+
+import lombok.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Byte range of picture file, resolved by {@link PictureStorageService#resolvePictureRange(
+ * io.orvisual.api.model.Picture, HttpRange)}. Content of range starts at {@link #getOffset()} of {@link #getResource()},
+ * so resource may either be whole file, or contain requested range only.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Value
+public class PictureResourceRange {
+
+    private final Resource resource;
+    private final long offset;
+    private final long start;
+    private final long end;
+    private final long totalLength;
+
+    /**
+     * Resolves range of resource, which length is known without reading of it's content, e.g. file.
+     *
+     * @param resource whole picture file
+     * @param range requested range
+     * @return range, which content starts at range start position of resource
+     * @throws RangeNotSatisfiableException if range starts beyond end of file
+     * @throws PictureFileProcessingException if length of resource can not be determined
+     */
+    @NonNull
+    public static PictureResourceRange of(@NonNull Resource resource, @NonNull HttpRange range) {
+        final long totalLength;
+        try {
+            totalLength = resource.contentLength();
+        } catch (IOException exc) {
+            throw new PictureFileProcessingException("Length of picture file can not be determined", exc);
+        }
+
+        return of(resource, range, totalLength);
+    }
+
+    /**
+     * Resolves range of whole resource with given length.
+     *
+     * @param resource whole picture file
+     * @param range requested range
+     * @param totalLength length of resource
+     * @return range, which content starts at range start position of resource
+     * @throws RangeNotSatisfiableException if range starts beyond end of file
+     */
+    @NonNull
+    static PictureResourceRange of(@NonNull Resource resource, @NonNull HttpRange range, long totalLength) {
+        final long start = range.getRangeStart(totalLength);
+        if (totalLength == 0 || start >= totalLength)
+            throw new RangeNotSatisfiableException("Range starts beyond end of file: " + range, totalLength);
+
+        return new PictureResourceRange(resource, start, start, range.getRangeEnd(totalLength), totalLength);
+    }
+
+    /**
+     * @return count of bytes in range
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+}
@@ -3,7 +3,11 @@ package io.orvisual.api.service;
 import io.orvisual.api.model.Picture;
 import io.orvisual.api.model.PictureFileItem;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.net.URL;
 
 /**
  * Created on 22 Jul, 2018.
@@ -33,6 +37,38 @@ public interface PictureStorageService {
      */
     @NonNull Resource resolvePictureResource(@NonNull Picture picture) throws PictureFileProcessingException;
 
+    /**
+     * Try to find byte range of picture file on storage. By default whole file resolved with
+     * {@link #resolvePictureResource(Picture)}, implementations, which resources has no known length, should
+     * request the range only.
+     *
+     * @param picture contains information about a file, for searching.
+     * @param range requested byte range
+     * @return {@link PictureResourceRange} with content of range
+     * @throws RangeNotSatisfiableException if range starts beyond end of file
+     * @throws PictureFileProcessingException if file not found, or an error
+     * occurs while file searching
+     */
+    @NonNull
+    default PictureResourceRange resolvePictureRange(@NonNull Picture picture, @NonNull HttpRange range)
+            throws PictureFileProcessingException {
+
+        return PictureResourceRange.of(resolvePictureResource(picture), range);
+    }
+
+    /**
+     * Resolves URL, from which client may download picture file directly, bypassing application. URL is valid for
+     * limited time only. By default storage provides no such URL.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return temporary URL of picture file, or {@code null} if file should be served by application
+     * @throws PictureFileProcessingException if an error occurs while URL resolving
+     */
+    @Nullable
+    default URL resolvePictureUrl(@NonNull Picture picture) throws PictureFileProcessingException {
+        return null;
+    }
+
     /**
      * Save on storage content of {@link PictureFileItem}.
      *
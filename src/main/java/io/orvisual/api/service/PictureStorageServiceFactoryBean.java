@@ -1,21 +1,30 @@
 package io.orvisual.api.service;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.Region;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.orvisual.api.repository.PictureRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.AbstractFactoryBean;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.core.env.Environment;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 /**
@@ -27,6 +36,10 @@ import static com.google.common.base.Preconditions.checkState;
  *     implementation by inspecting environment variables presence.
  *     <li>
  *         <ul>
+ *             If {@literal PACKED_GALLERY_DIR} variable presents, creates a
+ *             new instance of {@link PackedPictureStorageService}.
+ *         </ul>
+ *         <ul>
  *             If {@literal GALLERY_DIR} variable presents, creates a new
  *             instance of {@link FileSystemPictureStorageService}.
  *         </ul>
@@ -39,6 +52,28 @@ import static com.google.common.base.Preconditions.checkState;
  *         </ul>
  *     </li>
  * </p>
+ * <p>
+ *     If {@literal PICTURE_DISK_CACHE_DIR} variable presents, Amazon S3
+ *     storage is wrapped with {@link DiskCachingPictureStorageService},
+ *     which keeps copies of requested files on local disk.
+ * </p>
+ * <p>
+ *     If {@literal HOT_GALLERY_DIR} variable presents, created service is
+ *     used as cold tier of {@link TieredPictureStorageService}, which keeps
+ *     hot pictures in this directory.
+ * </p>
+ * <p>
+ *     If {@literal STAGING_DIR} variable presents, created service is
+ *     wrapped with {@link WriteBehindPictureStorageService}, which stages
+ *     uploaded files in this directory and saves them to storage in
+ *     background.
+ * </p>
+ * <p>
+ *     If {@literal PICTURE_CACHE_SIZE} variable presents, created service is
+ *     wrapped with {@link CachingPictureStorageService}, which keeps
+ *     recently requested files in memory. If {@literal PICTURE_CACHE_OFF_HEAP}
+ *     is {@literal true}, files are cached in direct memory out of heap.
+ * </p>
  *
  * @author Artemis A. Sirosh
  */
@@ -46,7 +81,28 @@ import static com.google.common.base.Preconditions.checkState;
 public class PictureStorageServiceFactoryBean extends
         AbstractFactoryBean<PictureStorageService> implements EnvironmentAware {
 
+    private static final int DEFAULT_STAGING_UPLOAD_THREADS = 2;
+    private static final int DEFAULT_REQUEST_THREADS = 200;
+    private static final Duration STAGING_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final int DEFAULT_STAGING_MAX_UPLOAD_ATTEMPTS = 20;
+    private static final long DEFAULT_STAGING_RETENTION_SECONDS = 600;
+    private static final long DEFAULT_PICTURE_CACHE_MAX_OBJECT_SIZE = 1024 * 1024;
+    private static final long DEFAULT_PICTURE_DISK_CACHE_SIZE = 10L * 1024 * 1024 * 1024;
+    private static final long DEFAULT_PICTURE_DISK_CACHE_RETENTION_SECONDS = 600;
+    private static final long DEFAULT_PACKED_SEGMENT_SIZE = 1024L * 1024 * 1024;
+    private static final double DEFAULT_PACKED_COMPACTION_THRESHOLD = 0.5;
+    private static final long DEFAULT_PACKED_COMPACTION_INTERVAL_MINUTES = 10;
+    private static final double DEFAULT_GALLERY_RESHARDING_FILES_PER_SECOND = 100;
+    private static final long DEFAULT_HOT_GALLERY_SIZE = 10L * 1024 * 1024 * 1024;
+    private static final long DEFAULT_HOT_GALLERY_AGE_DAYS = 7;
+    private static final int DEFAULT_HOT_PROMOTION_ACCESSES = 3;
+    private static final double DEFAULT_HOT_MIGRATION_BYTES_PER_SECOND = 16 * 1024 * 1024;
+    private static final long DEFAULT_HOT_MIGRATION_INTERVAL_MINUTES = 10;
+    private static final long DEFAULT_HOT_GALLERY_RETENTION_SECONDS = 600;
+
     private Environment environment;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+    private PictureRepository pictureRepository;
 
     @Override
     public Class<?> getObjectType() {
@@ -56,15 +112,66 @@ public class PictureStorageServiceFactoryBean extends
     /**
      * {@inheritDoc}
      *
+     * If {@literal PACKED_GALLERY_DIR} presented in environment, pictures
+     * are appended to segment files in this directory, segment size may be
+     * set with {@literal PACKED_SEGMENT_SIZE} in bytes. Segments, in which
+     * share of deleted pictures exceeds {@literal PACKED_COMPACTION_THRESHOLD},
+     * are compacted every {@literal PACKED_COMPACTION_INTERVAL_MINUTES}.
+     *
      * If {@literal GALLERY_DIR} presented in environment, this should be path
      * to directory and current user should have write permission to this
-     * directory.
+     * directory. Files are placed into directories by layout
+     * {@literal GALLERY_SHARDING}, e.g. {@literal 2/2/2}. If
+     * {@literal GALLERY_PREVIOUS_SHARDING} presented, files of this layout are
+     * moved to new one in background, at most
+     * {@literal GALLERY_RESHARDING_FILES_PER_SECOND} files per second.
      *
      * In case when {@literal GALLERY_DIR} not presented in environment,
      * {@literal AWS_ACCESS_KEY_ID}, {@literal AWS_SECRET_ACCESS_KEY},
      * {@literal AWS_REGION} and {@literal AWS_BUCKET_NAME} should be
      * assigned. Also, {@literal AWS_REGION} should be one of AWS regions ids.
      *
+     * If {@literal HOT_GALLERY_DIR} presented in environment, pictures are
+     * stored on two tiers, up to {@literal HOT_GALLERY_SIZE} bytes of hot
+     * pictures in this directory, and cold ones in storage chosen above.
+     * Pictures remain hot for {@literal HOT_GALLERY_AGE_DAYS} after upload,
+     * read or completion of their order, cold picture is promoted after
+     * {@literal HOT_PROMOTION_ACCESSES} reads. Pictures are moved between
+     * tiers every {@literal HOT_MIGRATION_INTERVAL_MINUTES} at most
+     * {@literal HOT_MIGRATION_BYTES_PER_SECOND}, hot file of moved picture
+     * is kept for {@literal HOT_GALLERY_RETENTION_SECONDS}.
+     *
+     * If {@literal STAGING_DIR} presented in environment, storage works in
+     * write-behind mode, count of background upload threads may be set with
+     * {@literal STAGING_UPLOAD_THREADS}. Upload is attempted at most
+     * {@literal STAGING_MAX_UPLOAD_ATTEMPTS} times until restart, and staged
+     * file is kept for {@literal STAGING_RETENTION_SECONDS} after upload.
+     *
+     * Multipart transfers of Amazon S3 storage may be tuned with
+     * {@literal AWS_S3_MULTIPART_THRESHOLD}, {@literal AWS_S3_PART_SIZE} and
+     * {@literal AWS_S3_TRANSFER_THREADS}. Streamed files are read ahead by
+     * {@literal AWS_S3_READ_AHEAD_RANGES} ranges, and at most
+     * {@literal AWS_S3_RANGE_QUEUE_SIZE} range requests wait for thread.
+     * Connection pool of S3 client sized for current range and ranges read
+     * ahead of every request thread, one more if reads are hedged, and
+     * transfer threads, or by {@literal AWS_S3_MAX_CONNECTIONS}. If
+     * {@literal AWS_S3_PRESIGNED_URL_TTL_SECONDS} presented, downloads are
+     * redirected to presigned URLs with this lifetime. Reads of S3 are
+     * hedged, unless {@literal AWS_S3_HEDGED_READS} is {@literal false},
+     * failed reads are retried {@literal AWS_S3_READ_RETRIES} times, and
+     * after {@literal AWS_S3_CIRCUIT_FAILURES} consecutive failures reads are
+     * rejected for {@literal AWS_S3_CIRCUIT_OPEN_SECONDS}. If
+     * {@literal PICTURE_DISK_CACHE_DIR}
+     * presented, files of Amazon S3 storage are cached in this directory up
+     * to {@literal PICTURE_DISK_CACHE_SIZE} total size in bytes, evicted
+     * files are kept for {@literal PICTURE_DISK_CACHE_RETENTION_SECONDS}.
+     *
+     * If {@literal PICTURE_CACHE_SIZE} presented in environment, recently
+     * requested files are cached in memory up to this total size in bytes,
+     * files larger than {@literal PICTURE_CACHE_MAX_OBJECT_SIZE} are not
+     * cached. Files are cached in direct memory, if
+     * {@literal PICTURE_CACHE_OFF_HEAP} is {@literal true}.
+     *
      * @return instance of {@link PictureStorageService}
      * @throws IllegalStateException if any above condition not satisfied
      * @throws IllegalArgumentException if value {@literal AWS_REGION} not
@@ -74,6 +181,74 @@ public class PictureStorageServiceFactoryBean extends
     @NonNull
     @Override
     protected PictureStorageService createInstance() {
+        PictureStorageService storageService = createStorageService();
+
+        final String hotGalleryPathName = environment.getProperty("HOT_GALLERY_DIR");
+        if (hotGalleryPathName != null) {
+            storageService = createTieredStorageService(storageService, Paths.get(hotGalleryPathName));
+        }
+
+        final String stagingPathName = environment.getProperty("STAGING_DIR");
+        if (stagingPathName != null) {
+            storageService = new WriteBehindPictureStorageService(
+                    storageService,
+                    Paths.get(stagingPathName),
+                    environment.getProperty("STAGING_UPLOAD_THREADS", Integer.class, DEFAULT_STAGING_UPLOAD_THREADS),
+                    STAGING_RETRY_DELAY,
+                    environment.getProperty(
+                            "STAGING_MAX_UPLOAD_ATTEMPTS", Integer.class, DEFAULT_STAGING_MAX_UPLOAD_ATTEMPTS
+                    ),
+                    Duration.ofSeconds(environment.getProperty(
+                            "STAGING_RETENTION_SECONDS", Long.class, DEFAULT_STAGING_RETENTION_SECONDS
+                    ))
+            );
+        }
+
+        final Long pictureCacheSize = environment.getProperty("PICTURE_CACHE_SIZE", Long.class);
+        if (pictureCacheSize != null) {
+            final boolean offHeap = environment.getProperty("PICTURE_CACHE_OFF_HEAP", Boolean.class, false);
+            storageService = new CachingPictureStorageService(
+                    storageService,
+                    pictureCacheSize,
+                    environment.getProperty(
+                            "PICTURE_CACHE_MAX_OBJECT_SIZE", Long.class, DEFAULT_PICTURE_CACHE_MAX_OBJECT_SIZE
+                    ),
+                    offHeap ? new OffHeapMemory(pictureCacheSize, OffHeapMemory.DEFAULT_PAGE_SIZE) : null,
+                    meterRegistry
+            );
+        }
+
+        return storageService;
+    }
+
+    /**
+     * Stops background threads of created storage, if it has any.
+     *
+     * @param instance created storage service
+     * @throws IOException if closing of storage fails
+     */
+    @Override
+    protected void destroyInstance(PictureStorageService instance) throws IOException {
+        if (instance instanceof Closeable) {
+            ((Closeable) instance).close();
+        }
+    }
+
+    private PictureStorageService createStorageService() {
+        final String packedGalleryPathName = environment.getProperty("PACKED_GALLERY_DIR");
+        if (packedGalleryPathName != null) {
+            return new PackedPictureStorageService(
+                    Paths.get(packedGalleryPathName),
+                    environment.getProperty("PACKED_SEGMENT_SIZE", Long.class, DEFAULT_PACKED_SEGMENT_SIZE),
+                    environment.getProperty(
+                            "PACKED_COMPACTION_THRESHOLD", Double.class, DEFAULT_PACKED_COMPACTION_THRESHOLD
+                    ),
+                    Duration.ofMinutes(environment.getProperty(
+                            "PACKED_COMPACTION_INTERVAL_MINUTES", Long.class, DEFAULT_PACKED_COMPACTION_INTERVAL_MINUTES
+                    ))
+            );
+        }
+
         final String galleryPathName = environment.getProperty("GALLERY_DIR");
         if (galleryPathName != null) {
 
@@ -81,7 +256,17 @@ public class PictureStorageServiceFactoryBean extends
             checkState(Files.exists(galleryPath), "Directory '%s' not exists", galleryPath);
             checkState(Files.isDirectory(galleryPath), "File item '%s' not directory", galleryPath);
             checkState(Files.isWritable(galleryPath), "Directory '%s' not writable", galleryPath);
-            return new FileSystemPictureStorageService(galleryPath);
+            final String previousSharding = environment.getProperty("GALLERY_PREVIOUS_SHARDING");
+            return new FileSystemPictureStorageService(
+                    galleryPath,
+                    ShardLayout.parse(environment.getProperty("GALLERY_SHARDING", ShardLayout.DEFAULT.toString())),
+                    previousSharding != null ? ShardLayout.parse(previousSharding) : null,
+                    environment.getProperty(
+                            "GALLERY_RESHARDING_FILES_PER_SECOND",
+                            Double.class,
+                            DEFAULT_GALLERY_RESHARDING_FILES_PER_SECOND
+                    )
+            );
         }
 
         final AWSCredentials credentials = new BasicAWSCredentials(
@@ -91,13 +276,121 @@ public class PictureStorageServiceFactoryBean extends
 
         final Region region = Region.fromValue(environment.getRequiredProperty("AWS_REGION"));
 
+        final int transferThreads = environment.getProperty(
+                "AWS_S3_TRANSFER_THREADS", Integer.class, AmazonS3PictureStorageService.DEFAULT_TRANSFER_THREADS
+        );
+
+        final int requestThreads = environment.getProperty(
+                "server.tomcat.max-threads", Integer.class, DEFAULT_REQUEST_THREADS
+        );
+        final boolean hedgedReads = environment.getProperty("AWS_S3_HEDGED_READS", Boolean.class, true);
+        final int readAheadRanges = environment.getProperty(
+                "AWS_S3_READ_AHEAD_RANGES", Integer.class, AmazonS3PictureStorageService.DEFAULT_READ_AHEAD_RANGES
+        );
+        final int rangeQueueSize = environment.getProperty(
+                "AWS_S3_RANGE_QUEUE_SIZE", Integer.class, AmazonS3PictureStorageService.DEFAULT_RANGE_QUEUE_SIZE
+        );
+        checkArgument(readAheadRanges > 0, "Count of ranges read ahead must be positive: %s", readAheadRanges);
+        checkArgument(rangeQueueSize > 0, "Size of range request queue must be positive: %s", rangeQueueSize);
+        // each request thread may hold connections of current range and ranges read ahead of streamed download, in
+        // addition to transfer threads, and connection of hedged request, which lost, until it is aborted
+        final int maxConnections = environment.getProperty(
+                "AWS_S3_MAX_CONNECTIONS",
+                Integer.class,
+                requestThreads * (1 + readAheadRanges + (hedgedReads ? 1 : 0)) + transferThreads
+        );
+
         final AmazonS3 amazonS3Client = AmazonS3ClientBuilder.standard()
                 .withCredentials(new AWSStaticCredentialsProvider(credentials))
                 .withRegion(region.getFirstRegionId())
+                .withClientConfiguration(new ClientConfiguration().withMaxConnections(maxConnections))
                 .build();
 
-        return new AmazonS3PictureStorageService(
-                amazonS3Client, environment.getRequiredProperty("AWS_BUCKET_NAME")
+        final String bucketName = environment.getRequiredProperty("AWS_BUCKET_NAME");
+        final Long presignedUrlTtl = environment.getProperty("AWS_S3_PRESIGNED_URL_TTL_SECONDS", Long.class);
+        final PictureStorageService amazonS3Storage = new AmazonS3PictureStorageService(
+                amazonS3Client,
+                bucketName,
+                environment.getProperty(
+                        "AWS_S3_MULTIPART_THRESHOLD",
+                        Long.class,
+                        AmazonS3PictureStorageService.DEFAULT_MULTIPART_THRESHOLD
+                ),
+                environment.getProperty(
+                        "AWS_S3_PART_SIZE", Long.class, AmazonS3PictureStorageService.DEFAULT_PART_SIZE
+                ),
+                transferThreads,
+                readAheadRanges,
+                rangeQueueSize,
+                presignedUrlTtl != null ? Duration.ofSeconds(presignedUrlTtl) : null,
+                new RemoteReadExecutor(
+                        bucketName,
+                        hedgedReads,
+                        // request and it's hedge of every request thread
+                        requestThreads * 2,
+                        environment.getProperty(
+                                "AWS_S3_READ_RETRIES", Integer.class, RemoteReadExecutor.DEFAULT_MAX_RETRIES
+                        ),
+                        environment.getProperty(
+                                "AWS_S3_CIRCUIT_FAILURES",
+                                Integer.class,
+                                RemoteReadExecutor.DEFAULT_CIRCUIT_FAILURE_THRESHOLD
+                        ),
+                        Duration.ofSeconds(environment.getProperty(
+                                "AWS_S3_CIRCUIT_OPEN_SECONDS",
+                                Long.class,
+                                RemoteReadExecutor.DEFAULT_CIRCUIT_OPEN_TIME.getSeconds()
+                        )),
+                        meterRegistry
+                )
+        );
+
+        final String diskCachePathName = environment.getProperty("PICTURE_DISK_CACHE_DIR");
+        if (diskCachePathName == null)
+            return amazonS3Storage;
+
+        return new DiskCachingPictureStorageService(
+                amazonS3Storage,
+                Paths.get(diskCachePathName),
+                environment.getProperty("PICTURE_DISK_CACHE_SIZE", Long.class, DEFAULT_PICTURE_DISK_CACHE_SIZE),
+                Duration.ofSeconds(environment.getProperty(
+                        "PICTURE_DISK_CACHE_RETENTION_SECONDS", Long.class, DEFAULT_PICTURE_DISK_CACHE_RETENTION_SECONDS
+                )),
+                meterRegistry
+        );
+    }
+
+    private PictureStorageService createTieredStorageService(PictureStorageService coldStorage, Path hotGalleryPath) {
+        checkState(pictureRepository != null, "Repository of pictures required for tiered storage");
+        try {
+            Files.createDirectories(hotGalleryPath);
+        } catch (IOException exc) {
+            throw new IllegalStateException("Directory '" + hotGalleryPath + "' can not be created", exc);
+        }
+
+        return new TieredPictureStorageService(
+                new FileSystemPictureStorageService(hotGalleryPath),
+                coldStorage,
+                new PictureTieringPolicy(
+                        pictureRepository,
+                        Duration.ofDays(environment.getProperty(
+                                "HOT_GALLERY_AGE_DAYS", Long.class, DEFAULT_HOT_GALLERY_AGE_DAYS
+                        )),
+                        environment.getProperty(
+                                "HOT_PROMOTION_ACCESSES", Integer.class, DEFAULT_HOT_PROMOTION_ACCESSES
+                        )
+                ),
+                environment.getProperty("HOT_GALLERY_SIZE", Long.class, DEFAULT_HOT_GALLERY_SIZE),
+                environment.getProperty(
+                        "HOT_MIGRATION_BYTES_PER_SECOND", Double.class, DEFAULT_HOT_MIGRATION_BYTES_PER_SECOND
+                ),
+                Duration.ofMinutes(environment.getProperty(
+                        "HOT_MIGRATION_INTERVAL_MINUTES", Long.class, DEFAULT_HOT_MIGRATION_INTERVAL_MINUTES
+                )),
+                Duration.ofSeconds(environment.getProperty(
+                        "HOT_GALLERY_RETENTION_SECONDS", Long.class, DEFAULT_HOT_GALLERY_RETENTION_SECONDS
+                )),
+                meterRegistry
         );
     }
 
@@ -105,4 +398,24 @@ public class PictureStorageServiceFactoryBean extends
     public void setEnvironment(@NonNull Environment environment) {
         this.environment = environment;
     }
+
+    /**
+     * Sets registry for metrics of created storage, by default global registry is used.
+     *
+     * @param meterRegistry registry of metrics
+     */
+    @Autowired(required = false)
+    public void setMeterRegistry(@NonNull MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Sets repository of pictures, which is required by tiered storage to decide, which pictures are hot.
+     *
+     * @param pictureRepository repository of pictures
+     */
+    @Autowired(required = false)
+    public void setPictureRepository(@NonNull PictureRepository pictureRepository) {
+        this.pictureRepository = pictureRepository;
+    }
 }
@@ -0,0 +1,93 @@
+package io.orvisual.api.service;
+
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.repository.PictureRepository;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Decides, which pictures of {@link TieredPictureStorageService} are kept on hot tier. Picture is hot, while it is
+ * uploaded, read, or belongs to order, which is not completed or completed, within hot age. Picture of cold tier is
+ * promoted to hot one, when it is read given count of times.
+ *
+ * @author Artemis A. Sirosh
+ */
+class PictureTieringPolicy {
+
+    private final PictureRepository pictureRepository;
+    private final Duration hotAge;
+    private final int promotionAccesses;
+
+    /**
+     * @param pictureRepository repository of pictures and their orders
+     * @param hotAge time, during which picture remains hot after upload, read or completion of order
+     * @param promotionAccesses count of reads of cold picture, after which it is promoted
+     */
+    PictureTieringPolicy(@NonNull PictureRepository pictureRepository, @NonNull Duration hotAge, int promotionAccesses) {
+        this.pictureRepository = pictureRepository;
+        this.hotAge = hotAge;
+        this.promotionAccesses = promotionAccesses;
+    }
+
+    /**
+     * @return time, during which picture remains hot
+     */
+    @NonNull
+    Duration getHotAge() {
+        return hotAge;
+    }
+
+    /**
+     * @param accesses count of reads of cold picture
+     * @return {@code true} if picture should be promoted to hot tier
+     */
+    boolean shouldPromote(long accesses) {
+        return accesses >= promotionAccesses;
+    }
+
+    /**
+     * Selects pictures, which should be moved to cold tier. Pictures unknown to repository are not selected, as they
+     * may be being uploaded.
+     *
+     * @param lastAccesses instants of last reads of hot pictures by their checksums
+     * @param now current instant
+     * @return cold pictures
+     */
+    @NonNull
+    List<Picture> selectColdPictures(@NonNull Map<String, Instant> lastAccesses, @NonNull Instant now) {
+        if (lastAccesses.isEmpty())
+            return Collections.emptyList();
+
+        final Instant hotSince = now.minus(hotAge);
+        final Set<String> orderedChecksums = new HashSet<>(
+                pictureRepository.findChecksumsOfOrdersCompletedAfter(lastAccesses.keySet(), hotSince)
+        );
+        return findPictures(lastAccesses.keySet()).stream()
+                .filter(picture -> picture.getLoadedAt() == null || picture.getLoadedAt().isBefore(hotSince))
+                .filter(picture -> lastAccesses.get(picture.getChecksum()).isBefore(hotSince))
+                .filter(picture -> !orderedChecksums.contains(picture.getChecksum()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param checksums checksums of pictures
+     * @return pictures found in repository, in no particular order
+     */
+    @NonNull
+    List<Picture> findPictures(@NonNull Collection<String> checksums) {
+        return StreamSupport.stream(pictureRepository.findAllById(checksums).spliterator(), false)
+                .collect(Collectors.toList());
+    }
+}
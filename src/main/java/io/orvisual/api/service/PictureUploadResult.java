@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import io.orvisual.api.model.Picture;
+import lombok.Value;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Outcome of {@link PictureUploadService#savePictureFileItem(io.orvisual.api.model.PictureFileItem)}: stored
+ * {@link Picture} and whether it has been created by this upload, or has been existed already.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Value
+public class PictureUploadResult {
+
+    private final Picture picture;
+    private final boolean created;
+
+}
@@ -0,0 +1,119 @@
+package io.orvisual.api.service;
+
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import io.orvisual.api.repository.PictureRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Saves uploaded {@link PictureFileItem}: writes file content with {@link PictureStorageService} and persists
+ * {@link Picture} metadata.
+ *
+ * Concurrent uploads of the same file are coordinated by checksum: only one of them writes file to storage, others
+ * wait for it's result. Metadata inserted with {@link PictureRepository#insertIfAbsent}, so uploads of the same file
+ * on different nodes do not fail on primary key violation. Existence of picture is checked with
+ * {@link PictureMetadataCache}, which is invalidated after insertion.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Service
+public class PictureUploadService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PictureUploadService.class);
+
+    private final PictureStorageService storageService;
+    private final PictureRepository pictureRepository;
+    private final PictureMetadataCache metadataCache;
+    private final ConcurrentMap<String, CompletableFuture<Picture>> inFlightUploads = new ConcurrentHashMap<>();
+
+    public PictureUploadService(
+            PictureStorageService storageService,
+            PictureRepository pictureRepository,
+            PictureMetadataCache metadataCache
+    ) {
+        this.storageService = storageService;
+        this.pictureRepository = pictureRepository;
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * Saves file content and metadata of uploaded picture, if picture with same checksum not exists.
+     *
+     * @param fileItem uploaded picture
+     * @return stored {@link Picture} and flag, whether it has been created by this invocation
+     * @throws PictureFileProcessingException if while file saving an error occurs
+     */
+    @NonNull
+    public PictureUploadResult savePictureFileItem(@NonNull PictureFileItem fileItem) {
+        final String checksum = fileItem.getPictureItem().getChecksum();
+
+        Optional<Picture> optionalPicture = metadataCache.findPicture(checksum);
+        if (optionalPicture.isPresent()) {
+            return new PictureUploadResult(optionalPicture.get(), false);
+        }
+
+        final CompletableFuture<Picture> upload = new CompletableFuture<>();
+        final CompletableFuture<Picture> inFlightUpload = inFlightUploads.putIfAbsent(checksum, upload);
+        if (inFlightUpload != null) {
+            LOGGER.debug("Picture '{}' is being uploaded already, waiting for it", checksum);
+            return new PictureUploadResult(awaitUpload(inFlightUpload), false);
+        }
+
+        try {
+            storageService.savePictureFileItem(fileItem);
+            final boolean created = insertPicture(fileItem.getPictureItem());
+            metadataCache.invalidate(checksum);
+            final Picture picture = created ?
+                    fileItem.getPictureItem() :
+                    metadataCache.findPicture(checksum).orElse(fileItem.getPictureItem());
+
+            upload.complete(picture);
+            return new PictureUploadResult(picture, created);
+        } catch (RuntimeException exc) {
+            upload.completeExceptionally(exc);
+            throw exc;
+        } finally {
+            inFlightUploads.remove(checksum, upload);
+        }
+    }
+
+    /**
+     * Inserts {@link Picture} record, if it absents.
+     *
+     * @param picture metadata object instance
+     * @return {@code true} if record has been inserted, {@code false} if it has been existed already
+     */
+    private boolean insertPicture(Picture picture) {
+        try {
+            return pictureRepository.insertIfAbsent(
+                    picture.getChecksum(), picture.getMimeType(), picture.getLoadedAt()
+            ) > 0;
+        } catch (DataIntegrityViolationException exc) {
+            LOGGER.debug("Picture '{}' has been inserted by concurrent transaction", picture.getChecksum());
+            return false;
+        }
+    }
+
+    private static Picture awaitUpload(CompletableFuture<Picture> upload) {
+        try {
+            return upload.join();
+        } catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exc.getCause();
+            }
+            throw new PictureFileProcessingException(exc.getCause());
+        }
+    }
+}
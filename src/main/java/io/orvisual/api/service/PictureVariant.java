@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import lombok.Value;
+import org.springframework.core.io.Resource;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Resized variant of picture file, resolved by {@link PictureVariantService}: content of variant and it's MIME type,
+ * which may differ from type of original file.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Value
+public class PictureVariant {
+
+    private final Resource resource;
+    private final String mimeType;
+
+}
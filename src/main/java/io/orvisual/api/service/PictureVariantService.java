@@ -0,0 +1,287 @@
+package io.orvisual.api.service;
+
+import io.orvisual.api.model.Picture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.PathResource;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Resizes pictures on demand. Variant of picture is computed once and stored in variants directory, keyed by
+ * checksum and width; subsequent requests are served from stored file. Concurrent requests of the same missing
+ * variant wait for single computation. Only widths from configured set are allowed, so count of variants is bounded.
+ *
+ * Count of concurrent resizes is limited, resize which not started in time is rejected. Dimensions of image are read
+ * from it's header before decoding, image with more pixels than allowed is rejected. Large image is decoded with
+ * subsampling, so decoded image is not much larger than variant. JPEG variants are encoded as JPEG, others as PNG.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class PictureVariantService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PictureVariantService.class);
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final PictureStorageService storageService;
+    private final Path variantsPath;
+    private final Set<Integer> allowedWidths;
+    private final long maxPixels;
+    private final Semaphore resizePermits;
+    private final Duration maxWait;
+    private final ConcurrentMap<String, CompletableFuture<Path>> resizes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates service.
+     *
+     * @param storageService storage of original picture files
+     * @param variantsPath directory for variants, it will be created if not exists
+     * @param allowedWidths widths of variants, which may be requested
+     * @param maxPixels max count of pixels of image, which may be resized
+     * @param maxResizes max count of concurrent resizes
+     * @param maxWait max time, which resize waits for start
+     * @throws PictureFileProcessingException if variants directory can not be created
+     */
+    public PictureVariantService(
+            @NonNull PictureStorageService storageService,
+            @NonNull Path variantsPath,
+            @NonNull Set<Integer> allowedWidths,
+            long maxPixels,
+            int maxResizes,
+            @NonNull Duration maxWait
+    ) {
+        this.storageService = storageService;
+        this.variantsPath = variantsPath;
+        this.allowedWidths = Collections.unmodifiableSet(new TreeSet<>(allowedWidths));
+        this.maxPixels = maxPixels;
+        this.resizePermits = new Semaphore(maxResizes, true);
+        this.maxWait = maxWait;
+
+        try {
+            Files.createDirectories(variantsPath);
+        } catch (IOException exc) {
+            throw new PictureFileProcessingException("Creation of variants directory failed", exc);
+        }
+    }
+
+    /**
+     * Resolves variant of picture with given width, variant is computed if it not exists yet. Image, which is
+     * narrower than requested width, is not enlarged.
+     *
+     * @param picture original picture
+     * @param width width of variant in pixels
+     * @return variant of picture
+     * @throws UnsupportedVariantException if width is not allowed
+     * @throws UnprocessableImageException if image is too large or can not be decoded
+     * @throws ResizeRejectedException if resize not started in time
+     * @throws PictureFileProcessingException if original file can not be read or variant can not be stored
+     */
+    @NonNull
+    public PictureVariant resolveVariant(@NonNull Picture picture, int width) {
+        if (!allowedWidths.contains(width))
+            throw new UnsupportedVariantException("Width of variant not allowed: " + width);
+
+        final VariantFormat format = VariantFormat.of(picture);
+        final Path variantPath = resolveVariantPath(picture.getChecksum(), width, format);
+        if (Files.exists(variantPath))
+            return new PictureVariant(new PathResource(variantPath), format.mimeType);
+
+        final CompletableFuture<Path> resize = new CompletableFuture<>();
+        final CompletableFuture<Path> existingResize = resizes.putIfAbsent(variantPath.toString(), resize);
+        if (existingResize != null)
+            return new PictureVariant(new PathResource(await(existingResize)), format.mimeType);
+
+        try {
+            resize.complete(Files.exists(variantPath) ? variantPath : createVariant(picture, width, format));
+        } catch (RuntimeException exc) {
+            resize.completeExceptionally(exc);
+        } finally {
+            resizes.remove(variantPath.toString(), resize);
+        }
+        return new PictureVariant(new PathResource(await(resize)), format.mimeType);
+    }
+
+    /**
+     * Deletes all stored variants of picture.
+     *
+     * @param picture original picture
+     */
+    public void deleteVariants(@NonNull Picture picture) {
+        final Path directoryPath = variantsPath.resolve(picture.getChecksum().substring(0, 4));
+        if (!Files.isDirectory(directoryPath))
+            return;
+
+        try (Stream<Path> paths = Files.list(directoryPath)) {
+            paths.filter(path -> path.getFileName().toString().startsWith(picture.getChecksum() + "-"))
+                    .forEach(PictureVariantService::deleteFile);
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of picture variants failed", exc);
+        }
+    }
+
+    /**
+     * @return widths of variants, which may be requested, in ascending order
+     */
+    @NonNull
+    public Set<Integer> getAllowedWidths() {
+        return allowedWidths;
+    }
+
+    private Path createVariant(Picture picture, int width, VariantFormat format) {
+        try {
+            if (!resizePermits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS))
+                throw new ResizeRejectedException("Resize of picture not started in time");
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new ResizeRejectedException("Resize of picture interrupted");
+        }
+
+        final Path variantPath = resolveVariantPath(picture.getChecksum(), width, format);
+        Path temporaryFilePath = null;
+        try {
+            final BufferedImage variant;
+            try (InputStream contentStream = storageService.resolvePictureResource(picture).getInputStream()) {
+                variant = resize(contentStream, width, format);
+            }
+
+            Files.createDirectories(variantPath.getParent());
+            temporaryFilePath = Files.createTempFile(
+                    variantPath.getParent(), picture.getChecksum(), TEMPORARY_FILE_SUFFIX
+            );
+            try (OutputStream fileStream = Files.newOutputStream(temporaryFilePath)) {
+                ImageIO.write(variant, format.formatName, fileStream);
+            }
+
+            Files.move(temporaryFilePath, variantPath, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.debug("Variant of picture '{}' with width {} created", picture.getChecksum(), width);
+            return variantPath;
+        } catch (IOException exc) {
+            LOGGER.warn("Creation of picture variant failed", exc);
+            throw new PictureFileProcessingException("Creation of picture variant failed", exc);
+        } finally {
+            resizePermits.release();
+            deleteFile(temporaryFilePath);
+        }
+    }
+
+    private BufferedImage resize(InputStream contentStream, int width, VariantFormat format) throws IOException {
+        try (ImageInputStream imageStream = new MemoryCacheImageInputStream(contentStream)) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext())
+                throw new UnprocessableImageException("Format of image not supported");
+
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                final int sourceWidth = reader.getWidth(0);
+                final int sourceHeight = reader.getHeight(0);
+                if ((long) sourceWidth * sourceHeight > maxPixels)
+                    throw new UnprocessableImageException(
+                            "Image of " + sourceWidth + "x" + sourceHeight + " pixels is too large for resizing"
+                    );
+
+                final int targetWidth = Math.min(width, sourceWidth);
+                final int targetHeight = Math.max(1, (int) ((long) sourceHeight * targetWidth / sourceWidth));
+
+                // subsampling skips pixels while decoding, image decoded at least twice wider than variant
+                final ImageReadParam readParam = reader.getDefaultReadParam();
+                final int subsampling = Math.max(1, sourceWidth / (targetWidth * 2));
+                readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                final BufferedImage source = reader.read(0, readParam);
+
+                final BufferedImage target = new BufferedImage(targetWidth, targetHeight, format.imageType);
+                final Graphics2D graphics = target.createGraphics();
+                try {
+                    graphics.setRenderingHint(
+                            RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                    );
+                    graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                    graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+                } finally {
+                    graphics.dispose();
+                }
+                return target;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Path resolveVariantPath(String checksum, int width, VariantFormat format) {
+        return variantsPath.resolve(checksum.substring(0, 4))
+                .resolve(checksum + "-w" + width + "." + format.formatName);
+    }
+
+    private static Path await(CompletableFuture<Path> resize) {
+        try {
+            return resize.join();
+        } catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException)
+                throw (RuntimeException) exc.getCause();
+            throw exc;
+        }
+    }
+
+    private static void deleteFile(Path path) {
+        if (path == null)
+            return;
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of variant file failed", exc);
+        }
+    }
+
+    /**
+     * Encoding of variants: JPEG pictures are kept in JPEG, which has no transparency, others are encoded as PNG.
+     */
+    private enum VariantFormat {
+
+        JPEG("jpg", MediaType.IMAGE_JPEG_VALUE, BufferedImage.TYPE_INT_RGB),
+        PNG("png", MediaType.IMAGE_PNG_VALUE, BufferedImage.TYPE_INT_ARGB);
+
+        private final String formatName;
+        private final String mimeType;
+        private final int imageType;
+
+        VariantFormat(String formatName, String mimeType, int imageType) {
+            this.formatName = formatName;
+            this.mimeType = mimeType;
+            this.imageType = imageType;
+        }
+
+        static VariantFormat of(Picture picture) {
+            return ImageFormat.forMimeType(picture.getMimeType()) == ImageFormat.JPEG ? JPEG : PNG;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when requested byte range of picture file starts beyond end of file. Length of
+ * file available with {@link #getContentLength()}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, reason = "requested range not satisfiable")
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final long contentLength;
+
+    RangeNotSatisfiableException(String message, long contentLength) {
+        super(message);
+        this.contentLength = contentLength;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+}
@@ -0,0 +1,366 @@
+package io.orvisual.api.service;
+
+import com.google.common.base.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Executes requests, which open content of remote backend, in order to cut tail latency and to stop waiting for
+ * failing backend:
+ * <ul>
+ *     <li>if request is not answered within 95th percentile of recent latencies, the same request is sent again,
+ *     and result of the first answered one is taken, the other one is cancelled and it's result is closed;</li>
+ *     <li>request failed due to backend is retried few times, after random delay, which grows exponentially;</li>
+ *     <li>after several consecutive failures, requests are rejected by {@link CircuitBreaker} for a while.</li>
+ * </ul>
+ *
+ * Requests are sent by bounded pool of threads, request, which finds all of them busy, is sent by caller thread
+ * without hedging, and hedge is not sent, so load of backend is not doubled, when it is slow for every request.
+ *
+ * Hedged requests are published as {@code orvisual.storage.hedges} metric by winner, retries as
+ * {@code orvisual.storage.retries}, rejected requests as {@code orvisual.storage.circuit.rejections} and state of
+ * breaker as {@code orvisual.storage.circuit.state}, all tagged by backend.
+ *
+ * @author Artemis A. Sirosh
+ */
+class RemoteReadExecutor implements Closeable {
+
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 50;
+    static final int DEFAULT_MAX_RETRIES = 2;
+    static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 5;
+    static final Duration DEFAULT_CIRCUIT_OPEN_TIME = Duration.ofSeconds(30);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteReadExecutor.class);
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final int HEDGE_DELAY_UPDATE_INTERVAL = 64;
+    private static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+
+    private final String backend;
+    private final boolean hedging;
+    private final int maxRetries;
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService requestExecutor;
+    private final Counter hedgeWonCounter;
+    private final Counter hedgeLostCounter;
+    private final Counter retryCounter;
+    private final Counter rejectionCounter;
+    // guarded by this
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long latencyCount;
+    private volatile long hedgeDelayNanos = -1;
+
+    /**
+     * @param backend name of backend, used as tag of metrics
+     * @param hedging {@code true} if slow requests should be hedged
+     * @param maxConcurrentRequests count of threads, which send hedged requests, including hedges
+     * @param maxRetries count of retries of failed request
+     * @param circuitFailureThreshold count of consecutive failures, which opens circuit breaker
+     * @param circuitOpenTime time, for which requests are rejected after opening of breaker
+     * @param meterRegistry registry of metrics
+     */
+    RemoteReadExecutor(
+            @NonNull String backend,
+            boolean hedging,
+            int maxConcurrentRequests,
+            int maxRetries,
+            int circuitFailureThreshold,
+            @NonNull Duration circuitOpenTime,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this(
+                backend,
+                hedging,
+                maxConcurrentRequests,
+                maxRetries,
+                circuitFailureThreshold,
+                circuitOpenTime,
+                Ticker.systemTicker(),
+                meterRegistry
+        );
+    }
+
+    RemoteReadExecutor(
+            @NonNull String backend,
+            boolean hedging,
+            int maxConcurrentRequests,
+            int maxRetries,
+            int circuitFailureThreshold,
+            @NonNull Duration circuitOpenTime,
+            @NonNull Ticker ticker,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.backend = backend;
+        this.hedging = hedging;
+        this.maxRetries = maxRetries;
+        this.circuitBreaker = new CircuitBreaker(backend, circuitFailureThreshold, circuitOpenTime, ticker);
+
+        // request is not queued, as waiting in queue adds to latency, which hedging is meant to cut
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.requestExecutor = new ThreadPoolExecutor(
+                0, maxConcurrentRequests, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "remote-read-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+
+        this.hedgeWonCounter = Counter.builder("orvisual.storage.hedges")
+                .description("Count of hedged requests to remote storage")
+                .tag("backend", backend)
+                .tag("winner", "hedge")
+                .register(meterRegistry);
+        this.hedgeLostCounter = Counter.builder("orvisual.storage.hedges")
+                .description("Count of hedged requests to remote storage")
+                .tag("backend", backend)
+                .tag("winner", "primary")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("orvisual.storage.retries")
+                .description("Count of retried requests to remote storage")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        this.rejectionCounter = Counter.builder("orvisual.storage.circuit.rejections")
+                .description("Count of requests to remote storage rejected by open circuit")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("orvisual.storage.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("State of circuit breaker of remote storage: 0 closed, 1 half-open, 2 open")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("orvisual.storage.hedge.delay", this, executor -> Math.max(0, executor.hedgeDelayNanos) / 1e9)
+                .description("Delay, after which request to remote storage is hedged")
+                .tag("backend", backend)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Executes request with hedging, retries and circuit breaker.
+     *
+     * @param request request, which opens content, it may be sent several times
+     * @param backendFailure test of exceptions, for which backend is responsible, only such failures are retried and
+     *                       counted by circuit breaker
+     * @param <T> type of opened content
+     * @return content opened by the first answered request
+     * @throws StorageUnavailableException if circuit is open
+     * @throws PictureFileProcessingException if waiting is interrupted
+     * @throws RuntimeException failure of the last request
+     */
+    @NonNull
+    <T extends Closeable> T execute(@NonNull Supplier<T> request, @NonNull Predicate<RuntimeException> backendFailure) {
+        for (int attempt = 0; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                rejectionCounter.increment();
+                throw new StorageUnavailableException("Circuit of backend '" + backend + "' is open");
+            }
+
+            try {
+                final T result = hedging ? executeHedged(request) : request.get();
+                circuitBreaker.recordSuccess();
+                return result;
+            } catch (RuntimeException exc) {
+                if (!backendFailure.test(exc)) {
+                    circuitBreaker.recordSuccess();
+                    throw exc;
+                }
+
+                circuitBreaker.recordFailure();
+                if (attempt >= maxRetries)
+                    throw exc;
+
+                LOGGER.debug("Request to backend '{}' failed, retrying", backend, exc);
+                retryCounter.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Stops request threads.
+     */
+    @Override
+    public void close() {
+        requestExecutor.shutdownNow();
+    }
+
+    /**
+     * @return state of circuit breaker
+     */
+    CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T extends Closeable> T executeHedged(Supplier<T> request) {
+        final long startedAt = System.nanoTime();
+        final Attempt<T> primary = submit(request);
+        if (primary == null) {
+            LOGGER.debug("Request threads of backend '{}' are busy, request sent without hedging", backend);
+            final T result = request.get();
+            recordLatency(System.nanoTime() - startedAt);
+            return result;
+        }
+
+        final long delayNanos = hedgeDelayNanos;
+        try {
+            final T result = delayNanos < 0
+                    ? primary.answer.get()
+                    : primary.answer.get(delayNanos, TimeUnit.NANOSECONDS);
+            recordLatency(System.nanoTime() - startedAt);
+            return result;
+        } catch (TimeoutException exc) {
+            LOGGER.debug("Request to backend '{}' not answered in {} ns, hedging", backend, delayNanos);
+        } catch (InterruptedException exc) {
+            primary.cancel();
+            Thread.currentThread().interrupt();
+            throw new PictureFileProcessingException("Request to backend interrupted", exc);
+        } catch (ExecutionException exc) {
+            throw unwrap(exc.getCause());
+        }
+
+        final Attempt<T> hedge = submit(request);
+        final List<Attempt<T>> attempts = hedge != null
+                ? Arrays.asList(primary, hedge)
+                : Collections.singletonList(primary);
+        final CompletableFuture<Attempt<T>> firstAnswer = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        for (Attempt<T> attempt : attempts) {
+            attempt.answer.whenComplete((result, exc) -> {
+                if (exc == null) {
+                    // the later answered request is not needed
+                    if (firstAnswer.complete(attempt)) {
+                        attempts.stream().filter(other -> other != attempt).forEach(Attempt::cancel);
+                    }
+                } else if (failures.incrementAndGet() == attempts.size()) {
+                    firstAnswer.completeExceptionally(exc);
+                }
+            });
+        }
+
+        try {
+            final Attempt<T> winner = firstAnswer.get();
+            recordLatency(System.nanoTime() - startedAt);
+            if (hedge != null)
+                (winner == hedge ? hedgeWonCounter : hedgeLostCounter).increment();
+            return winner.answer.join();
+        } catch (InterruptedException exc) {
+            attempts.forEach(Attempt::cancel);
+            Thread.currentThread().interrupt();
+            throw new PictureFileProcessingException("Request to backend interrupted", exc);
+        } catch (ExecutionException exc) {
+            throw unwrap(exc.getCause());
+        }
+    }
+
+    /**
+     * @return sent request, or {@code null} if all request threads are busy
+     */
+    private <T extends Closeable> Attempt<T> submit(Supplier<T> request) {
+        final Attempt<T> attempt = new Attempt<>(request);
+        try {
+            requestExecutor.execute(attempt.task);
+            return attempt;
+        } catch (RejectedExecutionException exc) {
+            return null;
+        }
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        latencies[(int) (latencyCount % LATENCY_SAMPLES)] = latencyNanos;
+        latencyCount++;
+        if (latencyCount % HEDGE_DELAY_UPDATE_INTERVAL != 0)
+            return;
+
+        final long[] sortedLatencies = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+        Arrays.sort(sortedLatencies);
+        final int index = (int) Math.ceil(sortedLatencies.length * HEDGE_PERCENTILE) - 1;
+        hedgeDelayNanos = Math.max(MIN_HEDGE_DELAY_NANOS, sortedLatencies[index]);
+    }
+
+    private static void backOff(int attempt) {
+        // full jitter: random delay up to exponentially growing bound
+        final long bound = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << attempt);
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new PictureFileProcessingException("Retry of request to backend interrupted", exc);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable exc) {
+        final Throwable cause = exc instanceof CompletionException && exc.getCause() != null ? exc.getCause() : exc;
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+        if (cause instanceof Error)
+            throw (Error) cause;
+        return new PictureFileProcessingException(cause);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException exc) {
+            LOGGER.warn("Closing of unused response failed", exc);
+        }
+    }
+
+    /**
+     * Request sent by request thread, and it's answer.
+     */
+    private static final class Attempt<T extends Closeable> {
+
+        private final CompletableFuture<T> answer = new CompletableFuture<>();
+        private final FutureTask<Void> task;
+
+        Attempt(Supplier<T> request) {
+            this.task = new FutureTask<>(() -> {
+                try {
+                    final T result = request.get();
+                    if (!answer.complete(result))
+                        closeQuietly(result);
+                } catch (Throwable exc) {
+                    answer.completeExceptionally(exc);
+                }
+            }, null);
+        }
+
+        /**
+         * Interrupts request thread, so client aborts request, which is not sent or answered yet, and closes answer,
+         * which is received already, so it's connection is released.
+         */
+        void cancel() {
+            task.cancel(true);
+            if (!answer.cancel(false))
+                answer.thenAccept(RemoteReadExecutor::closeQuietly);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when resizing of picture is not started in time, because all resize slots are busy.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "too many concurrent resizes")
+class ResizeRejectedException extends RuntimeException {
+
+    ResizeRejectedException(String s) {
+        super(s);
+    }
+
+}
@@ -0,0 +1,101 @@
+package io.orvisual.api.service;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Calculates {@code SHA-256} checksum of picture file. Instances of {@link MessageDigest}, read buffers and hex
+ * encoding buffers are pooled per thread, so calculation allocates only resulting string.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Component
+class Sha256ChecksumCalculator implements ChecksumCalculator {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final int DIGEST_LENGTH = 32;
+    private static final int BUFFER_SIZE = 32 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(
+            Sha256ChecksumCalculator::newDigest
+    );
+    private static final ThreadLocal<byte[]> DIGEST_BUFFERS = ThreadLocal.withInitial(() -> new byte[DIGEST_LENGTH]);
+    private static final ThreadLocal<byte[]> READ_BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static final ThreadLocal<char[]> HEX_BUFFERS = ThreadLocal.withInitial(() -> new char[DIGEST_LENGTH * 2]);
+
+    @NonNull
+    @Override
+    public String calculate(@NonNull InputStream stream) throws IOException {
+        final MessageDigest digest = resetDigest();
+        final byte[] buffer = READ_BUFFERS.get();
+
+        int count;
+        while ((count = stream.read(buffer)) != -1) {
+            digest.update(buffer, 0, count);
+        }
+        return complete(digest);
+    }
+
+    @NonNull
+    @Override
+    public String calculate(@NonNull ByteBuffer buffer) {
+        final MessageDigest digest = resetDigest();
+        if (buffer.hasArray()) {
+            digest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            digest.update(buffer.duplicate());
+        }
+        return complete(digest);
+    }
+
+    @NonNull
+    @Override
+    public MessageDigest createDigest() {
+        return newDigest();
+    }
+
+    @NonNull
+    @Override
+    public String encode(@NonNull byte[] digest) {
+        final char[] chars = digest.length == DIGEST_LENGTH ? HEX_BUFFERS.get() : new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+        }
+        return new String(chars, 0, digest.length * 2);
+    }
+
+    private String complete(MessageDigest digest) {
+        final byte[] digestBuffer = DIGEST_BUFFERS.get();
+        try {
+            digest.digest(digestBuffer, 0, DIGEST_LENGTH);
+        } catch (DigestException exc) {
+            throw new IllegalStateException("Digest calculation failed", exc);
+        }
+        return encode(digestBuffer);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(ALGORITHM + " is not supported", exc);
+        }
+    }
+
+    private static MessageDigest resetDigest() {
+        final MessageDigest digest = DIGESTS.get();
+        digest.reset();
+        return digest;
+    }
+}
@@ -0,0 +1,120 @@
+package io.orvisual.api.service;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Layout of directories, in which {@link FileSystemPictureStorageService} places picture files. Every level of
+ * directories is named by next characters of picture's checksum, count of characters on each level is width of level.
+ * E.g. layout {@literal 2/2/2} places picture {@literal abcdef...} into directory {@literal ab/cd/ef}, so every
+ * directory contains at most 256 entries.
+ *
+ * @author Artemis A. Sirosh
+ */
+final class ShardLayout {
+
+    static final ShardLayout DEFAULT = parse("4");
+
+    private static final int MAX_TOTAL_WIDTH = 16;
+
+    private final int[] widths;
+
+    private ShardLayout(int[] widths) {
+        this.widths = widths;
+    }
+
+    /**
+     * Parses layout from widths of levels separated by slash, e.g. {@literal 2/2/2}.
+     *
+     * @param layout widths of levels
+     * @return parsed layout
+     * @throws IllegalArgumentException if layout is malformed
+     */
+    @NonNull
+    static ShardLayout parse(@NonNull String layout) {
+        final int[] widths;
+        try {
+            widths = Arrays.stream(layout.split("/")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        } catch (NumberFormatException exc) {
+            throw new IllegalArgumentException("Malformed layout of directories: " + layout, exc);
+        }
+
+        checkArgument(Arrays.stream(widths).allMatch(width -> width > 0), "Width of level must be positive: %s", layout);
+        checkArgument(
+                Arrays.stream(widths).sum() <= MAX_TOTAL_WIDTH,
+                "Total width of levels must not exceed %s: %s", MAX_TOTAL_WIDTH, layout
+        );
+        return new ShardLayout(widths);
+    }
+
+    /**
+     * Resolves directory of picture file.
+     *
+     * @param rootPath root directory of storage
+     * @param checksum picture's checksum
+     * @return directory, which contains picture file
+     */
+    @NonNull
+    Path resolveDirectory(@NonNull Path rootPath, @NonNull String checksum) {
+        Path directoryPath = rootPath;
+        int position = 0;
+        for (int width : widths) {
+            directoryPath = directoryPath.resolve(checksum.substring(position, position + width));
+            position += width;
+        }
+        return directoryPath;
+    }
+
+    /**
+     * Checks whether path may be directory of this layout, or one of it's parents: every name of path consists of
+     * hexadecimal characters, and it's length is width of level.
+     *
+     * @param relativePath path relative to root directory of storage
+     * @return {@code true} if path matches levels of layout
+     */
+    boolean isDirectory(@NonNull Path relativePath) {
+        final int nameCount = relativePath.getNameCount();
+        if (nameCount > widths.length)
+            return false;
+
+        for (int level = 0; level < nameCount; level++) {
+            final String name = relativePath.getName(level).toString();
+            if (name.length() != widths[level] || !name.chars().allMatch(ShardLayout::isHexCharacter))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return count of directory levels
+     */
+    int getDepth() {
+        return widths.length;
+    }
+
+    private static boolean isHexCharacter(int character) {
+        return character >= '0' && character <= '9' || character >= 'a' && character <= 'f';
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ShardLayout && Arrays.equals(widths, ((ShardLayout) other).widths);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(widths);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.stream(widths).mapToObj(String::valueOf).collect(Collectors.joining("/"));
+    }
+}
@@ -0,0 +1,186 @@
+package io.orvisual.api.service;
+
+import com.google.common.base.Splitter;
+import io.orvisual.api.model.Picture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Append-only journal of pictures, which are staged locally and not yet uploaded to remote storage. Each record is a
+ * text line: {@code STAGED <checksum> <mimeType> <loadedAt>} when picture staged, and {@code UPLOADED <checksum>}
+ * when it has been uploaded or deleted. Every record is synced to disk before method returns.
+ *
+ * On opening journal is replayed and compacted, so it contains only pending pictures. Incomplete last line, left
+ * after crash, is ignored. Journal is truncated each time when all pictures are uploaded.
+ *
+ * @author Artemis A. Sirosh
+ */
+class StagingJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StagingJournal.class);
+    private static final String STAGED_RECORD = "STAGED";
+    private static final String UPLOADED_RECORD = "UPLOADED";
+
+    private final FileChannel channel;
+    private final Map<String, Picture> pendingPictures = new LinkedHashMap<>();
+
+    /**
+     * Opens journal, if journal file exists it will be replayed.
+     *
+     * @param journalPath path to journal file
+     * @throws PictureFileProcessingException if journal can not be read or written
+     */
+    StagingJournal(@NonNull Path journalPath) {
+        try {
+            if (Files.exists(journalPath)) {
+                replay(journalPath);
+                compact(journalPath);
+            }
+
+            this.channel = FileChannel.open(
+                    journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+            );
+        } catch (IOException exc) {
+            LOGGER.error("Opening of staging journal failed", exc);
+            throw new PictureFileProcessingException("Opening of staging journal failed", exc);
+        }
+    }
+
+    /**
+     * @return pictures, which have been staged but not uploaded, in order of staging
+     */
+    synchronized Collection<Picture> getPendingPictures() {
+        return new ArrayList<>(pendingPictures.values());
+    }
+
+    /**
+     * Records that picture has been staged.
+     *
+     * @param picture staged picture
+     * @throws PictureFileProcessingException if record can not be written
+     */
+    synchronized void recordStaged(@NonNull Picture picture) {
+        append(stagedRecord(picture));
+        pendingPictures.put(picture.getChecksum(), picture);
+    }
+
+    /**
+     * Records that picture has been uploaded to remote storage, or has been deleted, so it's not pending anymore.
+     *
+     * @param checksum picture's checksum
+     * @throws PictureFileProcessingException if record can not be written
+     */
+    synchronized void recordUploaded(@NonNull String checksum) {
+        if (pendingPictures.remove(checksum) == null)
+            return;
+
+        try {
+            if (pendingPictures.isEmpty()) {
+                channel.truncate(0);
+                channel.force(false);
+            } else {
+                append(String.join(" ", UPLOADED_RECORD, checksum));
+            }
+        } catch (IOException exc) {
+            LOGGER.error("Truncating of staging journal failed", exc);
+            throw new PictureFileProcessingException("Truncating of staging journal failed", exc);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(String record) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((record + '\n').getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException exc) {
+            LOGGER.error("Writing to staging journal failed", exc);
+            throw new PictureFileProcessingException("Writing to staging journal failed", exc);
+        }
+    }
+
+    private void replay(Path journalPath) throws IOException {
+        final Splitter splitter = Splitter.on(' ').omitEmptyStrings();
+        final List<String> lines = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+        final boolean lastLineComplete = Files.size(journalPath) == 0 || endsWithNewLine(journalPath);
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (i == lines.size() - 1 && !lastLineComplete) {
+                LOGGER.warn("Incomplete record of staging journal ignored: {}", lines.get(i));
+                break;
+            }
+
+            List<String> fields = splitter.splitToList(lines.get(i));
+            if (fields.size() == 4 && STAGED_RECORD.equals(fields.get(0)) && isNumber(fields.get(3))) {
+                pendingPictures.put(fields.get(1), new Picture(
+                        fields.get(1), fields.get(2), Instant.ofEpochMilli(Long.parseLong(fields.get(3)))
+                ));
+            } else if (fields.size() == 2 && UPLOADED_RECORD.equals(fields.get(0))) {
+                pendingPictures.remove(fields.get(1));
+            } else if (!fields.isEmpty()) {
+                LOGGER.warn("Unknown record of staging journal ignored: {}", lines.get(i));
+            }
+        }
+    }
+
+    private void compact(Path journalPath) throws IOException {
+        final Path temporaryJournalPath = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryJournalPath, StandardCharsets.UTF_8)) {
+            for (Picture picture : pendingPictures.values()) {
+                writer.write(stagedRecord(picture));
+                writer.write('\n');
+            }
+        }
+        try (FileChannel temporaryChannel = FileChannel.open(temporaryJournalPath, StandardOpenOption.WRITE)) {
+            temporaryChannel.force(false);
+        }
+        Files.move(temporaryJournalPath, journalPath, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String stagedRecord(Picture picture) {
+        return String.join(" ",
+                STAGED_RECORD,
+                picture.getChecksum(),
+                picture.getMimeType(),
+                String.valueOf(picture.getLoadedAt().toEpochMilli())
+        );
+    }
+
+    private static boolean isNumber(String value) {
+        return !value.isEmpty() && value.chars().allMatch(Character::isDigit);
+    }
+
+    private static boolean endsWithNewLine(Path journalPath) throws IOException {
+        try (FileChannel readChannel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            readChannel.read(lastByte, readChannel.size() - 1);
+            return lastByte.get(0) == '\n';
+        }
+    }
+}
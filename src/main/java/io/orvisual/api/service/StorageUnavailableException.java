@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when remote storage of picture files is considered unavailable after recent
+ * failures, or when it's requests can not be queued, and request to it is rejected without trying.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "picture storage is unavailable")
+public class StorageUnavailableException extends PictureFileProcessingException {
+
+    StorageUnavailableException(String message) {
+        super(message);
+    }
+}
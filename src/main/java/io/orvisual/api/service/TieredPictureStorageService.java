@@ -0,0 +1,600 @@
+package io.orvisual.api.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Storage of two tiers: hot pictures are kept on local disk, cold ones in remote storage, e.g. Amazon S3. New
+ * pictures are saved to hot tier, while it has free space, and read from the tier, which holds them. Which pictures
+ * are hot, decides {@link PictureTieringPolicy}.
+ *
+ * Pictures are moved between tiers in background, at limited rate of bytes per second. Every migration round moves
+ * pictures, which became cold, to cold tier. If hot tier is still filled above high watermark, the least read pictures
+ * are moved too, until it is filled below low watermark. Read counts of hot pictures are halved every round, so they
+ * reflect recent reads. Cold picture, which is read often enough, is copied to hot tier, if it has free space. Copy
+ * in cold tier is kept, so promoted picture is moved back by deletion of it's hot copy.
+ *
+ * Hot file of demoted or deleted picture is removed from disk after retention time, so reader, which has resolved
+ * file, but not opened it yet, e.g. deferred sendfile, still finds it. Pictures found on hot tier on creation are hot
+ * since last read or modification of their files, whether they have copy in cold tier is checked on demotion.
+ *
+ * Size of hot tier is published as {@code orvisual.tiering.hot.used} metric, reads as {@code orvisual.tiering.gets}
+ * by tiers, moves as {@code orvisual.tiering.migrations} by directions. To instantiate this component use
+ * {@link PictureStorageServiceFactoryBean}.
+ *
+ * @author Artemis A. Sirosh
+ */
+class TieredPictureStorageService implements PictureStorageService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TieredPictureStorageService.class);
+    private static final int MIGRATION_BATCH_SIZE = 500;
+    private static final double HIGH_WATERMARK = 0.9;
+    private static final double LOW_WATERMARK = 0.8;
+    private static final long MAX_TRACKED_COLD_PICTURES = 100_000;
+
+    private final FileSystemPictureStorageService hotStorage;
+    private final PictureStorageService coldStorage;
+    private final PictureTieringPolicy policy;
+    private final long maxHotSize;
+    private final RateLimiter migrationRateLimiter;
+    private final ConcurrentMap<String, HotPicture> hotPictures = new ConcurrentHashMap<>();
+    private final AtomicLong hotSize = new AtomicLong();
+    private final Cache<String, AtomicLong> coldAccesses;
+    private final Set<String> pendingPromotions = ConcurrentHashMap.newKeySet();
+    private final Duration hotFileRetention;
+    // guards hot file of demoted or deleted picture against deletion after retention, while picture is hot again
+    private final ConcurrentMap<String, Object> pendingDeletions = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor migrationExecutor;
+    // deletes files after retention, separately of migration, which may be slowed down by rate limit
+    private final ScheduledExecutorService cleanupExecutor;
+    private final Counter hotGetCounter;
+    private final Counter coldGetCounter;
+    private final Counter promotionCounter;
+    private final Counter demotionCounter;
+
+    /**
+     * Creates storage, which takes pictures remaining on hot tier, schedules migration and registers it's metrics.
+     *
+     * @param hotStorage storage of hot tier on local disk
+     * @param coldStorage storage of cold tier
+     * @param policy policy of tiering
+     * @param maxHotSize max total size of pictures on hot tier in bytes
+     * @param migrationBytesPerSecond max rate of moving of pictures between tiers
+     * @param migrationInterval delay between migration rounds
+     * @param hotFileRetention time, for which hot file of demoted or deleted picture is kept on disk
+     * @param meterRegistry registry of metrics
+     * @throws PictureFileProcessingException if hot tier can not be read
+     */
+    TieredPictureStorageService(
+            @NonNull FileSystemPictureStorageService hotStorage,
+            @NonNull PictureStorageService coldStorage,
+            @NonNull PictureTieringPolicy policy,
+            long maxHotSize,
+            double migrationBytesPerSecond,
+            @NonNull Duration migrationInterval,
+            @NonNull Duration hotFileRetention,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.hotStorage = hotStorage;
+        this.coldStorage = coldStorage;
+        this.policy = policy;
+        this.maxHotSize = maxHotSize;
+        this.migrationRateLimiter = RateLimiter.create(migrationBytesPerSecond);
+        this.hotFileRetention = hotFileRetention;
+        this.coldAccesses = CacheBuilder.newBuilder()
+                .maximumSize(MAX_TRACKED_COLD_PICTURES)
+                .expireAfterAccess(policy.getHotAge().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+
+        try {
+            // copies in cold tier are unknown, deletion tries both tiers and demotion looks for copy before upload
+            hotStorage.listPictureFiles().forEach((checksum, attributes) -> {
+                hotPictures.put(checksum, new HotPicture(attributes.size(), lastAccessOf(attributes), null));
+                hotSize.addAndGet(attributes.size());
+            });
+        } catch (IOException exc) {
+            throw new PictureFileProcessingException("Loading of hot tier failed", exc);
+        }
+        LOGGER.info("Hot tier loaded, {} files of {} bytes", hotPictures.size(), hotSize.get());
+
+        Gauge.builder("orvisual.tiering.hot.used", hotSize, AtomicLong::get)
+                .description("Size of picture files on hot tier")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.hotGetCounter = Counter.builder("orvisual.tiering.gets")
+                .description("Count of picture files read from storage tiers")
+                .tag("tier", "hot")
+                .register(meterRegistry);
+        this.coldGetCounter = Counter.builder("orvisual.tiering.gets")
+                .description("Count of picture files read from storage tiers")
+                .tag("tier", "cold")
+                .register(meterRegistry);
+        this.promotionCounter = Counter.builder("orvisual.tiering.migrations")
+                .description("Count of picture files moved between storage tiers")
+                .tag("direction", "promotion")
+                .register(meterRegistry);
+        this.demotionCounter = Counter.builder("orvisual.tiering.migrations")
+                .description("Count of picture files moved between storage tiers")
+                .tag("direction", "demotion")
+                .register(meterRegistry);
+
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "storage-tiering");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.migrationExecutor = executor;
+        executor.scheduleWithFixedDelay(
+                this::migrate, migrationInterval.toMillis(), migrationInterval.toMillis(), TimeUnit.MILLISECONDS
+        );
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-tiering-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Deletes picture file from both tiers, hot file is removed after retention time.
+     *
+     * @param picture contains information of a file, which will be removed.
+     * @throws PictureFileProcessingException if while file deleting error occurs
+     */
+    @Override
+    public void deletePictureFile(@NonNull Picture picture) throws PictureFileProcessingException {
+        final HotPicture hotPicture = hotPictures.remove(picture.getChecksum());
+        if (hotPicture == null) {
+            coldStorage.deletePictureFile(picture);
+            return;
+        }
+
+        hotSize.addAndGet(-hotPicture.size);
+        final Boolean coldCopy;
+        synchronized (hotPicture) {
+            coldCopy = hotPicture.coldCopy;
+        }
+
+        scheduleHotFileDeletion(picture);
+        if (Boolean.TRUE.equals(coldCopy)) {
+            coldStorage.deletePictureFile(picture);
+            return;
+        }
+
+        try {
+            coldStorage.deletePictureFile(picture);
+        } catch (PictureFileProcessingException exc) {
+            LOGGER.debug("Picture file '{}' not deleted from cold tier", picture.getChecksum(), exc);
+        }
+    }
+
+    /**
+     * Resolves picture file on tier, which holds it, and counts read of picture.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return {@link Resource} with picture file content
+     * @throws PictureFileProcessingException if file not found, or an error occurs while file searching
+     */
+    @NonNull
+    @Override
+    public Resource resolvePictureResource(@NonNull Picture picture) throws PictureFileProcessingException {
+        final Resource hotResource = resolveHotResource(picture);
+        if (hotResource != null)
+            return hotResource;
+
+        coldGetCounter.increment();
+        recordColdAccess(picture);
+        return coldStorage.resolvePictureResource(picture);
+    }
+
+    /**
+     * Resolves range of picture file on tier, which holds it, and counts read of picture.
+     *
+     * @param picture contains information about a file, for searching.
+     * @param range requested byte range
+     * @return {@link PictureResourceRange} with content of range
+     * @throws RangeNotSatisfiableException if range starts beyond end of file
+     * @throws PictureFileProcessingException if file can not be resolved
+     */
+    @NonNull
+    @Override
+    public PictureResourceRange resolvePictureRange(@NonNull Picture picture, @NonNull HttpRange range)
+            throws PictureFileProcessingException {
+
+        final Resource hotResource = resolveHotResource(picture);
+        if (hotResource != null)
+            return PictureResourceRange.of(hotResource, range);
+
+        coldGetCounter.increment();
+        recordColdAccess(picture);
+        return coldStorage.resolvePictureRange(picture, range);
+    }
+
+    /**
+     * Resolves URL of picture file on cold tier, pictures of hot tier are served by application.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return temporary URL of picture file, or {@code null} if file should be served by application
+     * @throws PictureFileProcessingException if an error occurs while URL resolving
+     */
+    @Nullable
+    @Override
+    public URL resolvePictureUrl(@NonNull Picture picture) throws PictureFileProcessingException {
+        if (hotPictures.containsKey(picture.getChecksum()))
+            return null;
+
+        final URL url = coldStorage.resolvePictureUrl(picture);
+        if (url != null) {
+            coldGetCounter.increment();
+            recordColdAccess(picture);
+        }
+        return url;
+    }
+
+    /**
+     * Saves picture file to hot tier, or to cold tier, if hot one has no free space.
+     *
+     * @param fileItem {@link PictureFileItem} with metadata of file and it's content
+     * @throws PictureFileProcessingException if while file saving an error occurs
+     */
+    @Override
+    public void savePictureFileItem(@NonNull PictureFileItem fileItem) throws PictureFileProcessingException {
+        final String checksum = fileItem.getPictureItem().getChecksum();
+        if (hotPictures.containsKey(checksum)) {
+            hotStorage.savePictureFileItem(fileItem);
+            return;
+        }
+
+        final long size = fileItem.getContentLength();
+        if (!reserveHotSpace(size)) {
+            LOGGER.debug("Hot tier is full, picture file '{}' saved to cold tier", checksum);
+            coldStorage.savePictureFileItem(fileItem);
+            return;
+        }
+
+        // hot file kept after demotion is overwritten, so it is not deleted any more
+        pendingDeletions.remove(checksum);
+        try {
+            hotStorage.savePictureFileItem(fileItem);
+        } catch (RuntimeException exc) {
+            hotSize.addAndGet(-size);
+            scheduleHotFileDeletion(fileItem.getPictureItem());
+            throw exc;
+        }
+
+        if (hotPictures.putIfAbsent(checksum, new HotPicture(size, Instant.now(), false)) != null)
+            hotSize.addAndGet(-size);
+    }
+
+    /**
+     * Stops migration and closes storages of both tiers, if they closeable. Hot files, which retention not expired
+     * yet, remain on disk, and their pictures are hot for next instance.
+     */
+    @Override
+    public void close() throws IOException {
+        migrationExecutor.shutdownNow();
+        cleanupExecutor.shutdownNow();
+        try {
+            if (!migrationExecutor.awaitTermination(10, TimeUnit.SECONDS) ||
+                    !cleanupExecutor.awaitTermination(10, TimeUnit.SECONDS))
+                LOGGER.warn("Migration not stopped in time");
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            hotStorage.close();
+        } finally {
+            if (coldStorage instanceof Closeable) {
+                ((Closeable) coldStorage).close();
+            }
+        }
+    }
+
+    /**
+     * @return total size of pictures on hot tier in bytes
+     */
+    long getHotSize() {
+        return hotSize.get();
+    }
+
+    /**
+     * @param checksum checksum of picture
+     * @return {@code true} if picture is on hot tier
+     */
+    boolean isHot(String checksum) {
+        return hotPictures.containsKey(checksum);
+    }
+
+    /**
+     * Runs migration round: moves cold pictures to cold tier, then the least read pictures, while hot tier is filled
+     * above high watermark.
+     */
+    void migrate() {
+        try {
+            final Instant now = Instant.now();
+            for (List<String> batch : Lists.partition(new ArrayList<>(hotPictures.keySet()), MIGRATION_BATCH_SIZE)) {
+                final Map<String, Instant> lastAccesses = new HashMap<>();
+                for (String checksum : batch) {
+                    final HotPicture hotPicture = hotPictures.get(checksum);
+                    if (hotPicture != null)
+                        lastAccesses.put(checksum, hotPicture.getLastAccess());
+                }
+
+                for (Picture picture : policy.selectColdPictures(lastAccesses, now)) {
+                    if (Thread.currentThread().isInterrupted())
+                        return;
+                    demote(picture);
+                }
+            }
+
+            if (hotSize.get() > maxHotSize * HIGH_WATERMARK)
+                demoteLeastAccessed();
+
+            hotPictures.values().forEach(HotPicture::halveAccesses);
+        } catch (RuntimeException exc) {
+            LOGGER.warn("Migration of pictures between tiers failed", exc);
+        }
+    }
+
+    private Resource resolveHotResource(Picture picture) {
+        final HotPicture hotPicture = hotPictures.get(picture.getChecksum());
+        if (hotPicture == null)
+            return null;
+
+        hotPicture.recordAccess();
+        final Resource resource = hotStorage.resolvePictureResource(picture);
+        if (!resource.exists())
+            return null;
+
+        hotGetCounter.increment();
+        return resource;
+    }
+
+    private void recordColdAccess(Picture picture) {
+        final String checksum = picture.getChecksum();
+        final long accesses = coldAccesses.asMap().computeIfAbsent(checksum, key -> new AtomicLong()).incrementAndGet();
+        if (policy.shouldPromote(accesses) && hotSize.get() < maxHotSize * HIGH_WATERMARK &&
+                pendingPromotions.add(checksum)) {
+
+            migrationExecutor.execute(() -> promote(picture));
+        }
+    }
+
+    private void promote(Picture picture) {
+        final String checksum = picture.getChecksum();
+        boolean promoted = false;
+        try {
+            if (hotPictures.containsKey(checksum))
+                return;
+
+            // length of remote resource may be unknown until it is read, so space is reserved after copying
+            final Resource coldResource = coldStorage.resolvePictureResource(picture);
+            // hot file kept after demotion is overwritten, it is deleted again, unless picture is promoted
+            pendingDeletions.remove(checksum);
+            hotStorage.savePictureFileItem(new PictureFileItem(picture, coldResource, -1));
+            final long size = hotStorage.resolvePictureResource(picture).contentLength();
+            migrationRateLimiter.acquire(permitsOf(size));
+
+            if (!reserveHotSpace(size))
+                return;
+            if (hotPictures.putIfAbsent(checksum, new HotPicture(size, Instant.now(), true)) != null) {
+                hotSize.addAndGet(-size);
+                return;
+            }
+
+            promoted = true;
+            promotionCounter.increment();
+            LOGGER.debug("Picture file '{}' promoted to hot tier", checksum);
+        } catch (IOException | RuntimeException exc) {
+            LOGGER.warn("Promotion of picture file '{}' failed", checksum, exc);
+        } finally {
+            if (!promoted && !hotPictures.containsKey(checksum))
+                scheduleHotFileDeletion(picture);
+            coldAccesses.invalidate(checksum);
+            pendingPromotions.remove(checksum);
+        }
+    }
+
+    private void demoteLeastAccessed() {
+        final long targetSize = (long) (maxHotSize * LOW_WATERMARK);
+        // reads are counted concurrently, so pictures are sorted by snapshot of counts
+        final Map<String, Long> accesses = new HashMap<>();
+        final Map<String, Instant> lastAccesses = new HashMap<>();
+        hotPictures.forEach((checksum, hotPicture) -> {
+            accesses.put(checksum, hotPicture.getAccesses());
+            lastAccesses.put(checksum, hotPicture.getLastAccess());
+        });
+        final List<String> checksums = accesses.keySet().stream()
+                .sorted(Comparator.comparing(accesses::get).thenComparing(lastAccesses::get))
+                .collect(Collectors.toList());
+
+        for (List<String> batch : Lists.partition(checksums, MIGRATION_BATCH_SIZE)) {
+            final Map<String, Picture> pictures = policy.findPictures(batch).stream()
+                    .collect(Collectors.toMap(Picture::getChecksum, Function.identity()));
+
+            for (String checksum : batch) {
+                if (hotSize.get() <= targetSize || Thread.currentThread().isInterrupted())
+                    return;
+
+                final Picture picture = pictures.get(checksum);
+                if (picture != null)
+                    demote(picture);
+            }
+        }
+    }
+
+    private void demote(Picture picture) {
+        final String checksum = picture.getChecksum();
+        final HotPicture hotPicture = hotPictures.get(checksum);
+        if (hotPicture == null)
+            return;
+
+        migrationRateLimiter.acquire(permitsOf(hotPicture.size));
+        try {
+            // deletion waits for upload, so it deletes uploaded copy too
+            synchronized (hotPicture) {
+                if (hotPictures.get(checksum) != hotPicture)
+                    return;
+
+                // picture, which was hot before restart, may have been demoted, but not deleted from hot tier
+                if (hotPicture.coldCopy == null)
+                    hotPicture.coldCopy = hasColdCopy(picture, hotPicture.size);
+                if (!hotPicture.coldCopy) {
+                    coldStorage.savePictureFileItem(new PictureFileItem(
+                            picture, hotStorage.resolvePictureResource(picture), hotPicture.size
+                    ));
+                    hotPicture.coldCopy = true;
+                }
+                if (!hotPictures.remove(checksum, hotPicture))
+                    return;
+            }
+
+            hotSize.addAndGet(-hotPicture.size);
+            scheduleHotFileDeletion(picture);
+            demotionCounter.increment();
+            LOGGER.debug("Picture file '{}' demoted to cold tier", checksum);
+        } catch (RuntimeException exc) {
+            LOGGER.warn("Demotion of picture file '{}' failed", checksum, exc);
+        }
+    }
+
+    /**
+     * Checks, whether cold tier holds complete copy of picture, by reading of it's first byte.
+     */
+    private boolean hasColdCopy(Picture picture, long size) {
+        try {
+            final PictureResourceRange range = coldStorage.resolvePictureRange(picture, HttpRange.createByteRange(0, 0));
+            range.getResource().getInputStream().close();
+            return range.getTotalLength() == size;
+        } catch (IOException | RuntimeException exc) {
+            LOGGER.debug("Copy of picture file '{}' not found on cold tier", picture.getChecksum(), exc);
+            return false;
+        }
+    }
+
+    private void scheduleHotFileDeletion(Picture picture) {
+        final String checksum = picture.getChecksum();
+        final Object token = new Object();
+        pendingDeletions.put(checksum, token);
+        try {
+            cleanupExecutor.schedule(
+                    () -> deleteHotFile(picture, token), hotFileRetention.toMillis(), TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException exc) {
+            LOGGER.debug("Hot picture file '{}' left until restart", checksum);
+        }
+    }
+
+    /**
+     * Deletes hot file of picture, unless picture has been saved to hot tier again since deletion was scheduled.
+     */
+    private void deleteHotFile(Picture picture, Object token) {
+        pendingDeletions.computeIfPresent(picture.getChecksum(), (checksum, pendingToken) -> {
+            if (pendingToken != token)
+                return pendingToken;
+
+            try {
+                if (!hotPictures.containsKey(checksum) && hotStorage.resolvePictureResource(picture).exists())
+                    hotStorage.deletePictureFile(picture);
+            } catch (RuntimeException exc) {
+                LOGGER.warn("Hot picture file '{}' not deleted", checksum, exc);
+            }
+            return null;
+        });
+    }
+
+    private boolean reserveHotSpace(long size) {
+        while (true) {
+            final long usedSize = hotSize.get();
+            if (usedSize + size > maxHotSize)
+                return false;
+            if (hotSize.compareAndSet(usedSize, usedSize + size))
+                return true;
+        }
+    }
+
+    private static int permitsOf(long size) {
+        return (int) Math.max(1, Math.min(size, Integer.MAX_VALUE));
+    }
+
+    private static Instant lastAccessOf(BasicFileAttributes attributes) {
+        // access time is not updated on every read by most mounts, so modification time may be later
+        final FileTime lastAccessTime = attributes.lastAccessTime();
+        final FileTime lastModifiedTime = attributes.lastModifiedTime();
+        return (lastAccessTime.compareTo(lastModifiedTime) > 0 ? lastAccessTime : lastModifiedTime).toInstant();
+    }
+
+    /**
+     * Picture on hot tier, it's size and reads.
+     */
+    private static final class HotPicture {
+
+        private final long size;
+        private final AtomicLong accesses = new AtomicLong();
+        private volatile long lastAccessMillis;
+        // guarded by this, null if unknown
+        private Boolean coldCopy;
+
+        HotPicture(long size, Instant lastAccess, @Nullable Boolean coldCopy) {
+            this.size = size;
+            this.lastAccessMillis = lastAccess.toEpochMilli();
+            this.coldCopy = coldCopy;
+        }
+
+        void recordAccess() {
+            accesses.incrementAndGet();
+            lastAccessMillis = System.currentTimeMillis();
+        }
+
+        long getAccesses() {
+            return accesses.get();
+        }
+
+        Instant getLastAccess() {
+            return Instant.ofEpochMilli(lastAccessMillis);
+        }
+
+        void halveAccesses() {
+            accesses.updateAndGet(count -> count / 2);
+        }
+    }
+}
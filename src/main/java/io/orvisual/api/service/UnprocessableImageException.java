@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when image has more pixels than allowed for resizing, or it can not be decoded.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY, reason = "image can not be resized")
+class UnprocessableImageException extends IllegalArgumentException {
+
+    UnprocessableImageException(String s) {
+        super(s);
+    }
+
+}
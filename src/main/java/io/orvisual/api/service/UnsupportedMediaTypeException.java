@@ -0,0 +1,21 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when content of uploaded file not matches signature of any supported image format,
+ * whatever MIME type was declared by client.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.UNSUPPORTED_MEDIA_TYPE, reason = "content of uploaded file is not supported image")
+class UnsupportedMediaTypeException extends MultiPartFileProcessingException {
+
+    UnsupportedMediaTypeException(String s) {
+        super(s);
+    }
+
+}
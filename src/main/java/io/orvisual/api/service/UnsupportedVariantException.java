@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when requested width of picture variant is not one of allowed widths.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "width of picture variant not supported")
+class UnsupportedVariantException extends IllegalArgumentException {
+
+    UnsupportedVariantException(String s) {
+        super(s);
+    }
+
+}
@@ -0,0 +1,132 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Limits total size of uploads, which are processed concurrently. Each upload acquires part of budget equal to it's
+ * declared content length, and releases it when processing completes. If budget exhausted, upload waits for a
+ * while in fair queue, and then rejected.
+ *
+ * Budget accounted in kilobytes by {@link Semaphore}. Upload larger than whole budget acquires whole budget, so it
+ * processed alone. Size of in-flight uploads, queue depth and count of rejected uploads published as metrics.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class UploadBudget {
+
+    private static final int PERMIT_SIZE = 1024;
+
+    private final Semaphore permits;
+    private final int totalPermits;
+    private final Duration maxWait;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final Counter rejectedCounter;
+
+    /**
+     * Creates budget and registers it's metrics.
+     *
+     * @param budgetSize max total size of concurrent uploads in bytes
+     * @param maxWait max time, which upload waits for budget
+     * @param meterRegistry registry of metrics
+     */
+    public UploadBudget(long budgetSize, @NonNull Duration maxWait, @NonNull MeterRegistry meterRegistry) {
+        this.totalPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, budgetSize / PERMIT_SIZE));
+        this.permits = new Semaphore(totalPermits, true);
+        this.maxWait = maxWait;
+
+        Gauge.builder("orvisual.upload.inflight", this, UploadBudget::getInFlightBytes)
+                .description("Declared size of uploads in processing")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("orvisual.upload.queue", queueDepth, AtomicInteger::get)
+                .description("Count of uploads waiting for budget")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("orvisual.upload.rejected")
+                .description("Count of uploads rejected due to exhausted budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Acquires part of budget for upload, waiting for it up to max wait time.
+     *
+     * @param contentLength declared size of upload in bytes
+     * @return acquired permit, which must be closed when upload completes, or {@code null} if budget not
+     * acquired in time
+     * @throws InterruptedException if thread interrupted while waiting
+     */
+    @Nullable
+    public Permit tryAcquire(long contentLength) throws InterruptedException {
+        final int requiredPermits = (int) Math.min(
+                totalPermits, Math.max(1, (contentLength + PERMIT_SIZE - 1) / PERMIT_SIZE)
+        );
+
+        // timed acquiring respects fairness, unlike untimed one
+        if (permits.tryAcquire(requiredPermits, 0, TimeUnit.MILLISECONDS))
+            return new Permit(requiredPermits);
+
+        queueDepth.incrementAndGet();
+        try {
+            if (permits.tryAcquire(requiredPermits, maxWait.toMillis(), TimeUnit.MILLISECONDS))
+                return new Permit(requiredPermits);
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+
+        rejectedCounter.increment();
+        return null;
+    }
+
+    /**
+     * @return max time, which upload waits for budget
+     */
+    @NonNull
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @return size of budget acquired by uploads in processing, in bytes
+     */
+    public long getInFlightBytes() {
+        return (long) (totalPermits - permits.availablePermits()) * PERMIT_SIZE;
+    }
+
+    /**
+     * @return count of uploads waiting for budget
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Part of budget acquired by upload, it returns to budget on closing. Repeated closing has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final int acquiredPermits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int acquiredPermits) {
+            this.acquiredPermits = acquiredPermits;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release(acquiredPermits);
+            }
+        }
+    }
+}
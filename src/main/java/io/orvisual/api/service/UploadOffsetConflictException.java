@@ -0,0 +1,27 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when offset of uploaded chunk not equals to count of bytes already received by
+ * {@link UploadSession}. Actual offset of session available with {@link #getSessionOffset()}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.CONFLICT, reason = "chunk offset not matches upload session offset")
+public class UploadOffsetConflictException extends RuntimeException {
+
+    private final long sessionOffset;
+
+    UploadOffsetConflictException(String message, long sessionOffset) {
+        super(message);
+        this.sessionOffset = sessionOffset;
+    }
+
+    public long getSessionOffset() {
+        return sessionOffset;
+    }
+}
@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import lombok.Value;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * State of chunked upload, which is managed by {@link UploadSessionService}: identifier of session, declared MIME type
+ * of uploaded file and count of received bytes, i.e. offset of next chunk.
+ *
+ * @author Artemis A. Sirosh
+ */
+@Value
+public class UploadSession {
+
+    private final String id;
+    private final String mimeType;
+    private final long offset;
+
+}
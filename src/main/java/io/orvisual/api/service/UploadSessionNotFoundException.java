@@ -0,0 +1,21 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when {@link UploadSession} with requested identifier not exists, or has been
+ * already completed or expired.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "upload session not found")
+public class UploadSessionNotFoundException extends RuntimeException {
+
+    UploadSessionNotFoundException(String message) {
+        super(message);
+    }
+
+}
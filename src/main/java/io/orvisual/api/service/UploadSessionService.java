@@ -0,0 +1,431 @@
+package io.orvisual.api.service;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Striped;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.PathResource;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Manages chunked uploads. Each {@link UploadSession} has own directory, which contains file with received content
+ * and file with session's state: declared MIME type and count of received bytes. State saved after each chunk, so
+ * session may be resumed after application restart. Checksum of file is calculated while chunks are appended, digest
+ * of each session is kept in memory only. Digest of session resumed after restart, or of session, which chunk has
+ * been interrupted, is recalculated from persisted content once.
+ *
+ * Completed session saved with {@link PictureUploadService}, as usual upload. MIME type of file detected from it's
+ * leading bytes, file of not supported format rejected whatever MIME type declared.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class UploadSessionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadSessionService.class);
+    private static final Pattern SESSION_ID_PATTERN = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+    private static final String CONTENT_FILE_NAME = "content";
+    private static final String STATE_FILE_NAME = "state";
+    private static final int STATE_VERSION = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path sessionsPath;
+    private final long maxFileSize;
+    private final Duration sessionTimeToLive;
+    private final PictureUploadService uploadService;
+    private final ChecksumCalculator checksumCalculator;
+    private final Striped<Lock> sessionLocks = Striped.lock(64);
+    // guarded by session locks
+    private final ConcurrentMap<String, SessionDigest> sessionDigests = new ConcurrentHashMap<>();
+
+    /**
+     * Creates service, which keeps sessions in given directory.
+     *
+     * @param sessionsPath directory for sessions, it will be created if not exists
+     * @param maxFileSize max size of uploaded file
+     * @param sessionTimeToLive time since last chunk, after which session will be removed
+     * @param uploadService service for saving of completed uploads
+     * @param checksumCalculator calculator of checksum of uploaded file
+     * @throws PictureFileProcessingException if directory can not be created
+     */
+    public UploadSessionService(
+            @NonNull Path sessionsPath,
+            long maxFileSize,
+            @NonNull Duration sessionTimeToLive,
+            @NonNull PictureUploadService uploadService,
+            @NonNull ChecksumCalculator checksumCalculator
+    ) {
+        this.sessionsPath = sessionsPath;
+        this.maxFileSize = maxFileSize;
+        this.sessionTimeToLive = sessionTimeToLive;
+        this.uploadService = uploadService;
+        this.checksumCalculator = checksumCalculator;
+
+        try {
+            Files.createDirectories(sessionsPath);
+        } catch (IOException exc) {
+            throw new PictureFileProcessingException("Creation of upload sessions directory failed", exc);
+        }
+    }
+
+    /**
+     * Opens new upload session.
+     *
+     * @param mimeType MIME type of uploaded file
+     * @return new session with zero offset
+     * @throws MultiPartFileProcessingException if MIME type not supported
+     * @throws PictureFileProcessingException if session can not be created
+     */
+    @NonNull
+    public UploadSession openSession(String mimeType) {
+        final String checkedMimeType = MultiPartFileToPictureFileItemConverter.checkMimeType(mimeType);
+        final String id = UUID.randomUUID().toString();
+        final Path sessionPath = sessionsPath.resolve(id);
+
+        try {
+            Files.createDirectory(sessionPath);
+            Files.createFile(sessionPath.resolve(CONTENT_FILE_NAME));
+            writeState(sessionPath, checkedMimeType, 0L);
+        } catch (IOException exc) {
+            LOGGER.warn("Creation of upload session failed", exc);
+            throw new PictureFileProcessingException("Creation of upload session failed", exc);
+        }
+
+        LOGGER.debug("Upload session '{}' opened", id);
+        return new UploadSession(id, checkedMimeType, 0L);
+    }
+
+    /**
+     * Finds upload session.
+     *
+     * @param id session identifier
+     * @return session with current offset
+     * @throws UploadSessionNotFoundException if session not exists
+     */
+    @NonNull
+    public UploadSession findSession(String id) {
+        final Path sessionPath = resolveSessionPath(id);
+        final Lock lock = sessionLocks.get(id);
+        lock.lock();
+        try {
+            SessionState state = readState(sessionPath);
+            return new UploadSession(id, state.mimeType, state.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends chunk to uploaded content. Chunk's offset must be equal to session's offset. If chunk transmission
+     * interrupted, received part of chunk is kept, so client may resume upload from session's offset.
+     *
+     * @param id session identifier
+     * @param offset offset of chunk
+     * @param chunk chunk content
+     * @return session with new offset
+     * @throws UploadSessionNotFoundException if session not exists
+     * @throws UploadOffsetConflictException if chunk's offset not equals to session's offset
+     * @throws UploadSizeExceededException if size of uploaded content exceeds max file size
+     * @throws PictureFileProcessingException if chunk can not be written
+     */
+    @NonNull
+    public UploadSession appendChunk(String id, long offset, InputStream chunk) {
+        final Path sessionPath = resolveSessionPath(id);
+        final Lock lock = sessionLocks.get(id);
+        lock.lock();
+        try {
+            final SessionState state = readState(sessionPath);
+            if (offset != state.length) {
+                throw new UploadOffsetConflictException(
+                        "Chunk offset " + offset + " not matches session offset " + state.length, state.length
+                );
+            }
+
+            final SessionDigest digest = resolveDigest(id, sessionPath, state.length);
+            final long length;
+            try (FileChannel channel = FileChannel.open(
+                    sessionPath.resolve(CONTENT_FILE_NAME), StandardOpenOption.WRITE)) {
+
+                // content may be longer than received data, if previous chunk writing has been interrupted
+                channel.truncate(state.length);
+                channel.position(state.length);
+                try {
+                    writeChunk(channel, chunk, digest);
+                } finally {
+                    channel.force(false);
+                    writeState(sessionPath, state.mimeType, channel.position());
+                }
+                length = channel.position();
+            } catch (IOException exc) {
+                LOGGER.warn("Writing of chunk failed", exc);
+                throw new PictureFileProcessingException("Writing of chunk failed", exc);
+            }
+
+            return new UploadSession(id, state.mimeType, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes upload session: calculates checksum of received file, saves it as {@link Picture} and removes
+     * session.
+     *
+     * @param id session identifier
+     * @return outcome of picture saving
+     * @throws UploadSessionNotFoundException if session not exists
+     * @throws MultiPartFileProcessingException if no content was received
+     * @throws PictureFileProcessingException if while file saving an error occurs
+     */
+    @NonNull
+    public PictureUploadResult completeSession(String id) {
+        final Path sessionPath = resolveSessionPath(id);
+        final Lock lock = sessionLocks.get(id);
+        lock.lock();
+        try {
+            final SessionState state = readState(sessionPath);
+            if (state.length == 0)
+                throw new MultiPartFileProcessingException("Uploaded file has no content.");
+
+            final String mimeType = resolveMimeType(sessionPath, state.mimeType);
+            final String checksum = checksumCalculator.encode(
+                    resolveDigest(id, sessionPath, state.length).digest.digest()
+            );
+            // digest is reset by calculation
+            sessionDigests.remove(id);
+            final PictureUploadResult uploadResult = uploadService.savePictureFileItem(new PictureFileItem(
+                    new Picture(checksum, mimeType, Instant.now()),
+                    new PathResource(sessionPath.resolve(CONTENT_FILE_NAME)),
+                    state.length
+            ));
+
+            deleteSessionDirectory(sessionPath);
+            LOGGER.debug("Upload session '{}' completed", id);
+            return uploadResult;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes upload session with received content.
+     *
+     * @param id session identifier
+     * @throws UploadSessionNotFoundException if session not exists
+     */
+    public void deleteSession(String id) {
+        final Path sessionPath = resolveSessionPath(id);
+        final Lock lock = sessionLocks.get(id);
+        lock.lock();
+        try {
+            sessionDigests.remove(id);
+            deleteSessionDirectory(sessionPath);
+            LOGGER.debug("Upload session '{}' deleted", id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes sessions, which has not been changed longer than session time to live.
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void removeExpiredSessions() {
+        final Instant expirationInstant = Instant.now().minus(sessionTimeToLive);
+        try (Stream<Path> sessionPaths = Files.list(sessionsPath)) {
+            sessionPaths
+                    .filter(sessionPath -> SESSION_ID_PATTERN.matcher(sessionPath.getFileName().toString()).matches())
+                    .filter(sessionPath -> isModifiedBefore(sessionPath.resolve(STATE_FILE_NAME), expirationInstant))
+                    .forEach(sessionPath -> {
+                        LOGGER.info("Upload session '{}' expired", sessionPath.getFileName());
+                        try {
+                            deleteSession(sessionPath.getFileName().toString());
+                        } catch (RuntimeException exc) {
+                            LOGGER.warn("Removing of expired upload session failed", exc);
+                        }
+                    });
+        } catch (IOException exc) {
+            LOGGER.warn("Removing of expired upload sessions failed", exc);
+        }
+    }
+
+    private void writeChunk(FileChannel channel, InputStream chunk, SessionDigest digest) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = chunk.read(buffer)) != -1) {
+            if (channel.position() + count > maxFileSize)
+                throw new UploadSizeExceededException("Uploaded file size exceeds " + maxFileSize + " bytes");
+
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, count);
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+            digest.update(buffer, count);
+        }
+    }
+
+    /**
+     * Resolves digest of received bytes of uploaded file. Digest is recalculated from persisted content, if it's not
+     * kept, e.g. after restart, or if it does not cover all received bytes, e.g. after interrupted chunk.
+     */
+    private SessionDigest resolveDigest(String id, Path sessionPath, long length) {
+        final SessionDigest keptDigest = sessionDigests.get(id);
+        if (keptDigest != null && keptDigest.length == length)
+            return keptDigest;
+
+        final SessionDigest digest = new SessionDigest(checksumCalculator.createDigest());
+        try (InputStream stream = ByteStreams.limit(
+                Files.newInputStream(sessionPath.resolve(CONTENT_FILE_NAME)), length)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                digest.update(buffer, count);
+            }
+        } catch (IOException exc) {
+            LOGGER.warn("Reading of uploaded file failed", exc);
+            throw new PictureFileProcessingException("Reading of uploaded file failed", exc);
+        }
+        sessionDigests.put(id, digest);
+        return digest;
+    }
+
+    private Path resolveSessionPath(String id) {
+        if (id == null || !SESSION_ID_PATTERN.matcher(id).matches())
+            throw new UploadSessionNotFoundException("Upload session not valid: " + id);
+
+        final Path sessionPath = sessionsPath.resolve(id);
+        if (!Files.isDirectory(sessionPath))
+            throw new UploadSessionNotFoundException("Upload session not found: " + id);
+
+        return sessionPath;
+    }
+
+    /**
+     * Detects MIME type of uploaded file by it's leading bytes, MIME type declared on session opening is ignored.
+     */
+    private static String resolveMimeType(Path sessionPath, String declaredType) {
+        try (InputStream stream = Files.newInputStream(sessionPath.resolve(CONTENT_FILE_NAME))) {
+            final byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+            final int headerLength = ByteStreams.read(stream, header, 0, header.length);
+            return MultiPartFileToPictureFileItemConverter.resolveMimeType(declaredType, header, headerLength);
+        } catch (IOException exc) {
+            LOGGER.warn("Reading of uploaded file failed", exc);
+            throw new PictureFileProcessingException("Reading of uploaded file failed", exc);
+        }
+    }
+
+    private static SessionState readState(Path sessionPath) {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(sessionPath.resolve(STATE_FILE_NAME)))) {
+            final int version = input.readInt();
+            if (version != STATE_VERSION)
+                throw new PictureFileProcessingException("Unsupported upload session state version: " + version);
+
+            final String mimeType = input.readUTF();
+            return new SessionState(mimeType, input.readLong());
+        } catch (IOException exc) {
+            LOGGER.warn("Reading of upload session state failed", exc);
+            throw new UploadSessionNotFoundException("Upload session state not readable: " + sessionPath);
+        }
+    }
+
+    private static void writeState(Path sessionPath, String mimeType, long length) throws IOException {
+        final Path temporaryStatePath = sessionPath.resolve(STATE_FILE_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                temporaryStatePath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            DataOutputStream output = new DataOutputStream(Channels.newOutputStream(channel));
+            output.writeInt(STATE_VERSION);
+            output.writeUTF(mimeType);
+            output.writeLong(length);
+            output.flush();
+            channel.force(false);
+        }
+        Files.move(
+                temporaryStatePath,
+                sessionPath.resolve(STATE_FILE_NAME),
+                StandardCopyOption.ATOMIC_MOVE
+        );
+    }
+
+    private static void deleteSessionDirectory(Path sessionPath) {
+        try (Stream<Path> paths = Files.walk(sessionPath)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException exc) {
+                    throw new PictureFileProcessingException("Deleting of upload session failed", exc);
+                }
+            });
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of upload session failed", exc);
+            throw new PictureFileProcessingException("Deleting of upload session failed", exc);
+        }
+    }
+
+    private static boolean isModifiedBefore(Path path, Instant instant) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(instant);
+        } catch (IOException exc) {
+            return false;
+        }
+    }
+
+    /**
+     * Digest of received bytes of upload session.
+     */
+    private static final class SessionDigest {
+
+        private final MessageDigest digest;
+        private long length;
+
+        private SessionDigest(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        private void update(byte[] buffer, int count) {
+            digest.update(buffer, 0, count);
+            length += count;
+        }
+    }
+
+    /**
+     * Saved state of upload session.
+     */
+    private static final class SessionState {
+
+        private final String mimeType;
+        private final long length;
+
+        private SessionState(String mimeType, long length) {
+            this.mimeType = mimeType;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.orvisual.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * This exception will be thrown, when size of file uploaded by chunks exceeds allowed size.
+ *
+ * @author Artemis A. Sirosh
+ */
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE, reason = "uploaded file too large")
+class UploadSizeExceededException extends IllegalArgumentException {
+
+    UploadSizeExceededException(String s) {
+        super(s);
+    }
+
+}
@@ -0,0 +1,384 @@
+package io.orvisual.api.service;
+
+import com.google.common.util.concurrent.Striped;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.PathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Decorator of {@link PictureStorageService}, which saves picture files in write-behind mode. Picture file is synced
+ * to local staging directory and recorded in {@link StagingJournal}, then saving completes. Staged files are
+ * uploaded to remote storage by bounded pool of background threads, failed uploads are retried with exponential
+ * backoff up to limited count of attempts. Until upload completes, picture file is served from staging directory.
+ * Picture, which upload attempts are exhausted, remains staged, and it's upload is resumed after restart.
+ *
+ * Staged file is deleted after retention time since upload or deletion of picture, so reader, which has resolved
+ * staged file, but not opened it yet, e.g. deferred download, still finds it. Files left after restart are deleted,
+ * when service is created.
+ *
+ * Pending uploads are replayed from journal, when service is created, so staged files are not lost after restart.
+ * To instantiate this component use {@link PictureStorageServiceFactoryBean}.
+ *
+ * @author Artemis A. Sirosh
+ */
+class WriteBehindPictureStorageService implements PictureStorageService, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindPictureStorageService.class);
+    private static final String JOURNAL_FILE_NAME = "journal";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(5);
+
+    private final PictureStorageService remoteStorage;
+    private final Path stagingPath;
+    private final Duration retryDelay;
+    private final int maxUploadAttempts;
+    private final Duration fileRetention;
+    private final StagingJournal journal;
+    private final ConcurrentMap<String, Picture> stagedPictures = new ConcurrentHashMap<>();
+    // guards staged file of picture against deletion after retention, while picture is staged again
+    private final Striped<Lock> stagedFileLocks = Striped.lock(64);
+    private final ScheduledExecutorService uploadExecutor;
+    // deletes files after retention, separately of uploads, which may hold all upload threads
+    private final ScheduledExecutorService cleanupExecutor;
+
+    /**
+     * Creates service and schedules upload of pictures, which are pending in staging journal.
+     *
+     * @param remoteStorage storage, to which staged files are uploaded
+     * @param stagingPath directory for staged files and journal, it will be created if not exists
+     * @param uploadThreads count of threads, which upload staged files
+     * @param retryDelay delay before first retry of failed upload, it doubles for each next retry up to 5 minutes
+     * @param maxUploadAttempts count of upload attempts, after which picture remains staged until restart
+     * @param fileRetention time, for which staged file is kept after upload or deletion of picture
+     * @throws PictureFileProcessingException if staging directory or journal can not be opened
+     */
+    WriteBehindPictureStorageService(
+            @NonNull PictureStorageService remoteStorage,
+            @NonNull Path stagingPath,
+            int uploadThreads,
+            @NonNull Duration retryDelay,
+            int maxUploadAttempts,
+            @NonNull Duration fileRetention
+    ) {
+        this.remoteStorage = remoteStorage;
+        this.stagingPath = stagingPath;
+        this.retryDelay = retryDelay;
+        this.maxUploadAttempts = maxUploadAttempts;
+        this.fileRetention = fileRetention;
+
+        try {
+            Files.createDirectories(stagingPath);
+        } catch (IOException exc) {
+            throw new PictureFileProcessingException("Creation of staging directory failed", exc);
+        }
+        this.journal = new StagingJournal(stagingPath.resolve(JOURNAL_FILE_NAME));
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(uploadThreads, runnable -> {
+            Thread thread = new Thread(runnable, "staging-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.uploadExecutor = executor;
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "staging-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Picture picture : journal.getPendingPictures()) {
+            if (Files.exists(resolveStagedFilePath(picture.getChecksum()))) {
+                stagedPictures.put(picture.getChecksum(), picture);
+            } else {
+                LOGGER.warn("Staged file of picture '{}' not found, upload skipped", picture.getChecksum());
+                journal.recordUploaded(picture.getChecksum());
+            }
+        }
+        deleteUnusedFiles();
+
+        for (Picture picture : stagedPictures.values()) {
+            LOGGER.info("Upload of staged picture '{}' resumed", picture.getChecksum());
+            scheduleUpload(picture, 0);
+        }
+    }
+
+    /**
+     * Deletes picture file from staging directory if it has not been uploaded yet, otherwise from remote storage.
+     *
+     * @param picture contains information of a file, which will be removed.
+     * @throws PictureFileProcessingException if while file deleting error occurs
+     */
+    @Override
+    public void deletePictureFile(@NonNull Picture picture) throws PictureFileProcessingException {
+        final Picture stagedPicture = stagedPictures.remove(picture.getChecksum());
+        if (stagedPicture == null) {
+            remoteStorage.deletePictureFile(picture);
+            return;
+        }
+
+        // upload in progress, if any, deletes uploaded file itself
+        journal.recordUploaded(picture.getChecksum());
+        scheduleStagedFileDeletion(picture.getChecksum());
+    }
+
+    /**
+     * Resolves staged picture file, if it has not been uploaded yet, otherwise resolves file in remote storage.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return {@link Resource} with picture file content
+     * @throws PictureFileProcessingException if file can not be resolved
+     */
+    @NonNull
+    @Override
+    public Resource resolvePictureResource(@NonNull Picture picture) throws PictureFileProcessingException {
+        if (stagedPictures.containsKey(picture.getChecksum())) {
+            final Path stagedFilePath = resolveStagedFilePath(picture.getChecksum());
+            if (Files.exists(stagedFilePath)) {
+                return new PathResource(stagedFilePath);
+            }
+        }
+
+        return remoteStorage.resolvePictureResource(picture);
+    }
+
+    /**
+     * Resolves range of staged picture file, if it has not been uploaded yet, otherwise resolves range of file in
+     * remote storage.
+     *
+     * @param picture contains information about a file, for searching.
+     * @param range requested byte range
+     * @return {@link PictureResourceRange} with content of range
+     * @throws RangeNotSatisfiableException if range starts beyond end of file
+     * @throws PictureFileProcessingException if file can not be resolved
+     */
+    @NonNull
+    @Override
+    public PictureResourceRange resolvePictureRange(@NonNull Picture picture, @NonNull HttpRange range)
+            throws PictureFileProcessingException {
+
+        if (stagedPictures.containsKey(picture.getChecksum())) {
+            final Path stagedFilePath = resolveStagedFilePath(picture.getChecksum());
+            if (Files.exists(stagedFilePath)) {
+                return PictureResourceRange.of(new PathResource(stagedFilePath), range);
+            }
+        }
+
+        return remoteStorage.resolvePictureRange(picture, range);
+    }
+
+    /**
+     * Resolves URL of picture file in remote storage, if file has been uploaded. Staged file has no URL, it is
+     * served by application.
+     *
+     * @param picture contains information about a file, for searching.
+     * @return temporary URL of picture file, or {@code null} if file should be served by application
+     * @throws PictureFileProcessingException if an error occurs while URL resolving
+     */
+    @Nullable
+    @Override
+    public URL resolvePictureUrl(@NonNull Picture picture) throws PictureFileProcessingException {
+        if (stagedPictures.containsKey(picture.getChecksum()))
+            return null;
+
+        return remoteStorage.resolvePictureUrl(picture);
+    }
+
+    /**
+     * Writes picture file to staging directory, records it to journal and schedules upload to remote storage.
+     *
+     * @param fileItem {@link PictureFileItem} with metadata of file and it's content
+     * @throws PictureFileProcessingException if file can not be staged
+     */
+    @Override
+    public void savePictureFileItem(@NonNull PictureFileItem fileItem) throws PictureFileProcessingException {
+        final Picture picture = fileItem.getPictureItem();
+        if (stagedPictures.containsKey(picture.getChecksum())) {
+            LOGGER.debug("Picture '{}' is staged already", picture.getChecksum());
+            return;
+        }
+
+        final Path stagedFilePath = resolveStagedFilePath(picture.getChecksum());
+        Path temporaryFilePath = null;
+        final Lock lock = stagedFileLocks.get(picture.getChecksum());
+        try {
+            temporaryFilePath = Files.createTempFile(stagingPath, picture.getChecksum(), TEMPORARY_FILE_SUFFIX);
+            try (InputStream contentStream = fileItem.getFileContent().getInputStream();
+                 FileChannel channel = FileChannel.open(temporaryFilePath, StandardOpenOption.WRITE)) {
+
+                StreamUtils.copy(contentStream, Channels.newOutputStream(channel));
+                channel.force(false);
+            }
+
+            lock.lock();
+            try {
+                Files.move(temporaryFilePath, stagedFilePath, StandardCopyOption.ATOMIC_MOVE);
+                journal.recordStaged(picture);
+                stagedPictures.put(picture.getChecksum(), picture);
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException exc) {
+            LOGGER.warn("Staging of picture file failed", exc);
+            throw new PictureFileProcessingException("Staging of picture file failed", exc);
+        } finally {
+            deleteTemporaryFile(temporaryFilePath);
+        }
+
+        LOGGER.debug("Picture '{}' staged for upload", picture.getChecksum());
+        scheduleUpload(picture, 0);
+    }
+
+    /**
+     * Stops background uploads and closes remote storage, if it closeable. Pending uploads remain in journal and
+     * will be resumed by next instance.
+     */
+    @Override
+    public void close() throws IOException {
+        uploadExecutor.shutdownNow();
+        cleanupExecutor.shutdownNow();
+        try {
+            if (!uploadExecutor.awaitTermination(10, TimeUnit.SECONDS) ||
+                    !cleanupExecutor.awaitTermination(10, TimeUnit.SECONDS))
+                LOGGER.warn("Background uploads not stopped in time");
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        if (remoteStorage instanceof Closeable) {
+            ((Closeable) remoteStorage).close();
+        }
+    }
+
+    private void scheduleUpload(Picture picture, int attempt) {
+        final long delay = attempt == 0 ? 0 : Math.min(
+                retryDelay.toMillis() << Math.min(attempt - 1, 20), MAX_RETRY_DELAY.toMillis()
+        );
+        uploadExecutor.schedule(() -> upload(picture, attempt), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void upload(Picture picture, int attempt) {
+        if (stagedPictures.get(picture.getChecksum()) != picture)
+            return;
+
+        final Path stagedFilePath = resolveStagedFilePath(picture.getChecksum());
+        try {
+            remoteStorage.savePictureFileItem(
+                    new PictureFileItem(picture, new PathResource(stagedFilePath), Files.size(stagedFilePath))
+            );
+        } catch (IOException | RuntimeException exc) {
+            LOGGER.warn("Upload of staged picture '{}' failed, attempt {}", picture.getChecksum(), attempt + 1, exc);
+            if (attempt + 1 >= maxUploadAttempts) {
+                LOGGER.error(
+                        "Upload of staged picture '{}' failed {} times, it remains staged until restart",
+                        picture.getChecksum(), maxUploadAttempts
+                );
+            } else if (!uploadExecutor.isShutdown()) {
+                scheduleUpload(picture, attempt + 1);
+            }
+            return;
+        }
+
+        if (stagedPictures.remove(picture.getChecksum(), picture)) {
+            journal.recordUploaded(picture.getChecksum());
+            scheduleStagedFileDeletion(picture.getChecksum());
+            LOGGER.debug("Staged picture '{}' uploaded", picture.getChecksum());
+        } else {
+            LOGGER.debug("Picture '{}' deleted while uploading, removing uploaded file", picture.getChecksum());
+            try {
+                remoteStorage.deletePictureFile(picture);
+            } catch (RuntimeException exc) {
+                LOGGER.warn("Deleting of uploaded picture '{}' failed", picture.getChecksum(), exc);
+            }
+        }
+    }
+
+    private Path resolveStagedFilePath(String checksum) {
+        return stagingPath.resolve(checksum);
+    }
+
+    private void scheduleStagedFileDeletion(String checksum) {
+        try {
+            cleanupExecutor.schedule(() -> deleteStagedFile(checksum), fileRetention.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException exc) {
+            LOGGER.debug("Staged file '{}' left until restart", checksum);
+        }
+    }
+
+    /**
+     * Deletes staged file, unless picture has been staged again.
+     */
+    private void deleteStagedFile(String checksum) {
+        final Lock lock = stagedFileLocks.get(checksum);
+        lock.lock();
+        try {
+            if (!stagedPictures.containsKey(checksum))
+                Files.deleteIfExists(resolveStagedFilePath(checksum));
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of staged file failed", exc);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes files of uploaded and deleted pictures, which retention was interrupted by restart, and temporary files
+     * of interrupted staging.
+     */
+    private void deleteUnusedFiles() {
+        final Set<String> usedFileNames = Stream.concat(
+                Stream.of(JOURNAL_FILE_NAME), stagedPictures.keySet().stream()
+        ).collect(Collectors.toSet());
+        try (Stream<Path> paths = Files.list(stagingPath)) {
+            paths.filter(path -> !usedFileNames.contains(path.getFileName().toString()))
+                    .filter(Files::isRegularFile)
+                    .forEach(WriteBehindPictureStorageService::deleteTemporaryFile);
+        } catch (IOException exc) {
+            LOGGER.warn("Listing of staging directory failed", exc);
+        }
+    }
+
+    private static void deleteTemporaryFile(Path temporaryFilePath) {
+        if (temporaryFilePath == null)
+            return;
+
+        try {
+            Files.deleteIfExists(temporaryFilePath);
+        } catch (IOException exc) {
+            LOGGER.warn("Deleting of temporary file failed", exc);
+        }
+    }
+}
@@ -7,7 +7,11 @@ import io.orvisual.api.model.PictureFileItem;
 import lombok.NonNull;
 import org.mockito.ArgumentMatcher;
 import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.function.Supplier;
@@ -21,7 +25,10 @@ import java.util.function.Supplier;
  */
 public final class TestHelper {
 
-    private static final byte[] OKLAHOMA_BYTES = new byte[]{'O', 'K', 'L', 'A', 'H', 'O', 'M', 'A'};
+    // signature of JPEG file, so MIME type of uploaded content is detected
+    private static final byte[] JPEG_BYTES = new byte[]{
+            (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 'O', 'K', 'L', 'A', 'H', 'O', 'M', 'A'
+    };
 
     /**
      * Creates {@link ArgumentMatcher} implementation for test purpose, which check for equality
@@ -51,7 +58,22 @@ public final class TestHelper {
         return argument ->
                 expectedItem.getPictureItem().getChecksum().equals(argument.getPictureItem().getChecksum()) &&
                 expectedItem.getPictureItem().getMimeType().equals(argument.getPictureItem().getMimeType()) &&
-                        Arrays.equals(expectedItem.getFileContent(), argument.getFileContent());
+                        Arrays.equals(contentOf(expectedItem), contentOf(argument));
+    }
+
+    /**
+     * Reads whole content of {@link PictureFileItem} for test purposes.
+     *
+     * @param fileItem {@link PictureFileItem} instance, must be not {@code null}.
+     * @return content of file item
+     * @throws UncheckedIOException if content reading failed
+     */
+    public static byte[] contentOf(final @NonNull PictureFileItem fileItem) {
+        try (InputStream stream = fileItem.getFileContent().getInputStream()) {
+            return StreamUtils.copyToByteArray(stream);
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
     }
 
     /**
@@ -64,10 +86,10 @@ public final class TestHelper {
         final HashFunction sha256Function = Hashing.sha256();
         return () -> new PictureFileItem(
                 new Picture(
-                        sha256Function.hashBytes(OKLAHOMA_BYTES).toString(),
+                        sha256Function.hashBytes(JPEG_BYTES).toString(),
                         MediaType.IMAGE_JPEG_VALUE,
                         Instant.EPOCH
-                ), OKLAHOMA_BYTES
+                ), JPEG_BYTES
         );
     }
 
@@ -1,27 +1,46 @@
 package io.orvisual.api.controller;
 
+import com.google.common.io.BaseEncoding;
 import io.orvisual.api.TestHelper;
 import io.orvisual.api.model.PictureFileItem;
 import io.orvisual.api.repository.PictureRepository;
 import io.orvisual.api.service.PictureFileProcessingException;
+import io.orvisual.api.service.PictureMetadataCache;
+import io.orvisual.api.service.PictureResourceRange;
 import io.orvisual.api.service.PictureStorageService;
+import io.orvisual.api.service.PictureVariant;
+import io.orvisual.api.service.PictureVariantService;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.PathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static io.orvisual.api.TestHelper.contentOf;
 import static io.orvisual.api.TestHelper.ignoreUnPredictableAttributes;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.endsWith;
@@ -41,6 +60,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @RunWith(SpringRunner.class)
 public class FileControllerTest {
 
+    private static final byte[] JPEG_CONTENT = new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 42};
+    private static final byte[] PNG_CONTENT = new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 42};
+
     private final Supplier<PictureFileItem> fileItemSupplier = TestHelper.uniformPictureItemSupplier();
 
     @MockBean
@@ -49,14 +71,24 @@ public class FileControllerTest {
     @MockBean
     private PictureRepository pictureRepository;
 
+    @MockBean
+    private PictureVariantService variantService;
+
+    @Autowired
+    private PictureMetadataCache metadataCache;
+
     @Autowired
     private WebApplicationContext applicationContext;
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private MockMvc mockMvc;
 
     @Before
     public void setUp() {
         this.mockMvc = MockMvcBuilders.webAppContextSetup(applicationContext).alwaysDo(log()).build();
+        this.metadataCache.invalidateAll();
     }
 
     @Test
@@ -70,7 +102,7 @@ public class FileControllerTest {
                 "image",
                 "foo.jpg",
                 expectedFileItem.getPictureItem().getMimeType(),
-                expectedFileItem.getFileContent()
+                contentOf(expectedFileItem)
         );
 
         mockMvc.perform(multipart("/files").file(mockMultiPart))
@@ -92,15 +124,17 @@ public class FileControllerTest {
     @SuppressWarnings("ConstantConditions")
     public void shouldSaveNewPicture() throws Exception {
         final PictureFileItem expectedFileItem = fileItemSupplier.get();
-        when(pictureRepository.save(
-                argThat(ignoreUnPredictableAttributes(expectedFileItem.getPictureItem()))
-        )).thenReturn(expectedFileItem.getPictureItem());
+        when(pictureRepository.insertIfAbsent(
+                eq(expectedFileItem.getPictureItem().getChecksum()),
+                eq(expectedFileItem.getPictureItem().getMimeType()),
+                any()
+        )).thenReturn(1);
 
         MockMultipartFile mockMultiPart = new MockMultipartFile(
                 "image",
                 "foo.jpg",
                 expectedFileItem.getPictureItem().getMimeType(),
-                expectedFileItem.getFileContent()
+                contentOf(expectedFileItem)
         );
 
         mockMvc.perform(multipart("/files").file(mockMultiPart))
@@ -118,8 +152,12 @@ public class FileControllerTest {
 
         verify(pictureRepository).findById(eq(expectedFileItem.getPictureItem().getChecksum()));
         verify(storageService).savePictureFileItem(argThat(ignoreUnPredictableAttributes(expectedFileItem)));
-        verify(pictureRepository)
-                .save(argThat(ignoreUnPredictableAttributes(expectedFileItem.getPictureItem())));
+        verify(pictureRepository).insertIfAbsent(
+                eq(expectedFileItem.getPictureItem().getChecksum()),
+                eq(expectedFileItem.getPictureItem().getMimeType()),
+                any()
+        );
+        verify(pictureRepository, never()).save(any());
 
     }
 
@@ -131,7 +169,7 @@ public class FileControllerTest {
                 .when(storageService).savePictureFileItem(any());
 
         MockMultipartFile multipartFile = new MockMultipartFile(
-                "image", "foo.jpg", MediaType.IMAGE_JPEG_VALUE, new byte[]{2, 42});
+                "image", "foo.jpg", MediaType.IMAGE_JPEG_VALUE, JPEG_CONTENT);
 
         mockMvc.perform(multipart("/files").file(multipartFile))
                 .andDo(log())
@@ -139,7 +177,156 @@ public class FileControllerTest {
 
         verify(pictureRepository).findById(any());
         verify(storageService).savePictureFileItem(any());
-        verify(pictureRepository, never()).save(any());
+        verify(pictureRepository, never()).insertIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    public void shouldReturnPictureInsertedConcurrently() throws Exception {
+        PictureFileItem expectedFileItem = fileItemSupplier.get();
+
+        when(pictureRepository.findById(expectedFileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(expectedFileItem.getPictureItem()));
+
+        MockMultipartFile mockMultiPart = new MockMultipartFile(
+                "image",
+                "foo.jpg",
+                expectedFileItem.getPictureItem().getMimeType(),
+                contentOf(expectedFileItem)
+        );
+
+        mockMvc.perform(multipart("/files").file(mockMultiPart))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(
+                        "$._links.self.href", endsWith(expectedFileItem.getPictureItem().getChecksum())
+                ));
+
+        verify(storageService).savePictureFileItem(any());
+        verify(pictureRepository).insertIfAbsent(any(), any(), any());
+        verify(pictureRepository, times(2)).findById(expectedFileItem.getPictureItem().getChecksum());
+    }
+
+    @Test
+    public void shouldReturnExistedPictureByDigestWithoutUpload() throws Exception {
+        PictureFileItem expectedFileItem = fileItemSupplier.get();
+        when(pictureRepository.findById(expectedFileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(expectedFileItem.getPictureItem()));
+
+        mockMvc.perform(multipart("/files").header("Digest", digestOf(expectedFileItem)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(
+                        "$._links.self.href", endsWith(expectedFileItem.getPictureItem().getChecksum())
+                ));
+
+        verify(storageService, never()).savePictureFileItem(any());
+    }
+
+    @Test
+    public void shouldUploadPictureWithDigest() throws Exception {
+        PictureFileItem expectedFileItem = fileItemSupplier.get();
+        when(pictureRepository.insertIfAbsent(any(), any(), any())).thenReturn(1);
+
+        MockMultipartFile mockMultiPart = new MockMultipartFile(
+                "image",
+                "foo.jpg",
+                expectedFileItem.getPictureItem().getMimeType(),
+                contentOf(expectedFileItem)
+        );
+
+        mockMvc.perform(multipart("/files").file(mockMultiPart).header("Digest", digestOf(expectedFileItem)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath(
+                        "$._links.self.href", endsWith(expectedFileItem.getPictureItem().getChecksum())
+                ));
+
+        verify(storageService).savePictureFileItem(argThat(ignoreUnPredictableAttributes(expectedFileItem)));
+    }
+
+    @Test
+    public void shouldRejectUploadNotMatchingDigest() throws Exception {
+        PictureFileItem expectedFileItem = fileItemSupplier.get();
+        MockMultipartFile mockMultiPart = new MockMultipartFile(
+                "image", "foo.jpg", MediaType.IMAGE_JPEG_VALUE, JPEG_CONTENT
+        );
+
+        mockMvc.perform(multipart("/files").file(mockMultiPart).header("Digest", digestOf(expectedFileItem)))
+                .andExpect(status().isBadRequest());
+
+        verify(storageService, never()).savePictureFileItem(any());
+    }
+
+    @Test
+    public void shouldRejectUploadOfUnknownFormat() throws Exception {
+        MockMultipartFile mockMultiPart = new MockMultipartFile(
+                "image", "foo.jpg", MediaType.IMAGE_JPEG_VALUE, new byte[]{2, 42}
+        );
+
+        mockMvc.perform(multipart("/files").file(mockMultiPart))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(storageService, never()).savePictureFileItem(any());
+    }
+
+    @Test
+    public void shouldRejectMalformedDigest() throws Exception {
+        mockMvc.perform(multipart("/files").header("Digest", "sha-256=Zm9v"))
+                .andExpect(status().isBadRequest());
+
+        verify(pictureRepository, never()).findById(any());
+    }
+
+    @Test
+    public void shouldUploadBatchOfPictures() throws Exception {
+        PictureFileItem existedFileItem = fileItemSupplier.get();
+        when(pictureRepository.findById(existedFileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(existedFileItem.getPictureItem()));
+        when(pictureRepository.insertIfAbsent(any(), any(), any())).thenReturn(1);
+
+        mockMvc.perform(multipart("/files/batch")
+                .file(new MockMultipartFile(
+                        "images", "foo.jpg", MediaType.IMAGE_JPEG_VALUE, contentOf(existedFileItem)
+                ))
+                .file(new MockMultipartFile("images", "bar.png", MediaType.IMAGE_PNG_VALUE, PNG_CONTENT))
+                .file(new MockMultipartFile("images", "baz.txt", MediaType.TEXT_PLAIN_VALUE, new byte[]{2, 42})))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.pictureUploadItems.length()", equalTo(3)))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[0].fileName", equalTo("foo.jpg")))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[0].status", equalTo("EXISTING")))
+                .andExpect(jsonPath(
+                        "$._embedded.pictureUploadItems[0]._links.imageFile.href",
+                        endsWith(existedFileItem.getPictureItem().getChecksum())
+                ))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[1].fileName", equalTo("bar.png")))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[1].status", equalTo("CREATED")))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[1].mimeType", equalTo(MediaType.IMAGE_PNG_VALUE)))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[2].fileName", equalTo("baz.txt")))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[2].status", equalTo("FAILED")))
+                .andExpect(jsonPath("$._embedded.pictureUploadItems[2].error").isNotEmpty());
+
+        verify(storageService, times(1)).savePictureFileItem(any());
+    }
+
+    @Test
+    public void shouldCheckExistedPictureWithoutStorageAccess() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+
+        mockMvc.perform(head("/files/" + fileItem.getPictureItem().getChecksum()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", fileItem.getPictureItem().getMimeType()));
+
+        verify(storageService, never()).resolvePictureResource(any());
+    }
+
+    @Test
+    public void shouldCheckNotExistedPicture() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+
+        mockMvc.perform(head("/files/" + fileItem.getPictureItem().getChecksum()))
+                .andExpect(status().isNotFound());
+
+        verify(storageService, never()).resolvePictureResource(any());
     }
 
     @Test
@@ -149,19 +336,226 @@ public class FileControllerTest {
                 .thenReturn(Optional.of(fileItem.getPictureItem()));
 
         when(storageService.resolvePictureResource(fileItem.getPictureItem()))
-                .thenReturn(new ByteArrayResource(fileItem.getFileContent()));
+                .thenReturn(new ByteArrayResource(contentOf(fileItem)));
 
-        mockMvc.perform(get("/files/" + fileItem.getPictureItem().getChecksum()))
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum()))
                 .andDo(log())
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", fileItem.getPictureItem().getMimeType()))
-                .andExpect(content().bytes(fileItem.getFileContent()));
+                .andExpect(content().bytes(contentOf(fileItem)));
 
         verify(pictureRepository).findById(fileItem.getPictureItem().getChecksum());
         verify(storageService).resolvePictureResource(fileItem.getPictureItem());
         
     }
 
+    @Test
+    public void shouldReturnRangeOfPicture() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        byte[] content = contentOf(fileItem);
+        stubPictureRange(fileItem, new ByteArrayResource(content));
+
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "\"" + fileItem.getPictureItem().getChecksum() + "\""))
+                .andDo(log())
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/" + content.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 2, 6)));
+
+        verify(storageService, never()).resolvePictureResource(any());
+    }
+
+    @Test
+    public void shouldReturnWholePictureIfRangeValidatorNotMatches() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+        when(storageService.resolvePictureResource(fileItem.getPictureItem()))
+                .thenReturn(new ByteArrayResource(contentOf(fileItem)));
+
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "\"0123\""))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(contentOf(fileItem)));
+
+        verify(storageService, never()).resolvePictureRange(any(), any());
+    }
+
+    @Test
+    public void shouldReturnRangeIfRangeDateEqualsLastModified() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        byte[] content = contentOf(fileItem);
+        stubPictureRange(fileItem, new ByteArrayResource(content));
+
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "Thu, 01 Jan 1970 00:00:00 GMT"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 2, 6)));
+    }
+
+    @Test
+    public void shouldReturnWholePictureIfRangeDateNotEqualsLastModified() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+        when(storageService.resolvePictureResource(fileItem.getPictureItem()))
+                .thenReturn(new ByteArrayResource(contentOf(fileItem)));
+
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.RANGE, "bytes=2-5")
+                .header(HttpHeaders.IF_RANGE, "Fri, 02 Jan 1970 00:00:00 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(contentOf(fileItem)));
+
+        verify(storageService, never()).resolvePictureRange(any(), any());
+    }
+
+    @Test
+    public void shouldRejectRangeBeyondEndOfPicture() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        byte[] content = contentOf(fileItem);
+        stubPictureRange(fileItem, new ByteArrayResource(content));
+
+        mockMvc.perform(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.RANGE, "bytes=" + content.length + "-"))
+                .andDo(log())
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + content.length));
+    }
+
+    @Test
+    public void shouldReturnRangeOfPictureFile() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        byte[] content = contentOf(fileItem);
+        Path pictureFilePath = temporaryFolder.newFile().toPath();
+        Files.write(pictureFilePath, content);
+        stubPictureRange(fileItem, new PathResource(pictureFilePath));
+
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.RANGE, "bytes=-3"))
+                .andDo(log())
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(
+                        HttpHeaders.CONTENT_RANGE,
+                        "bytes " + (content.length - 3) + "-" + (content.length - 1) + "/" + content.length
+                ))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, content.length - 3, content.length)));
+    }
+
+    @Test
+    public void shouldSendPictureFileByContainerWithoutAsyncProcessing() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        Path pictureFilePath = temporaryFolder.newFile().toPath();
+        Files.write(pictureFilePath, contentOf(fileItem));
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+        when(storageService.resolvePictureResource(fileItem.getPictureItem()))
+                .thenReturn(new PathResource(pictureFilePath));
+
+        mockMvc.perform(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andDo(log())
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, contentOf(fileItem).length))
+                .andExpect(request().attribute(
+                        "org.apache.tomcat.sendfile.filename", pictureFilePath.toFile().getAbsolutePath()
+                ))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", (long) contentOf(fileItem).length));
+    }
+
+    @Test
+    public void shouldReturnPictureWithCachingHeaders() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        fileItem.getPictureItem().setLoadedAt(Instant.parse("2026-10-18T10:15:30.250Z"));
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+        when(storageService.resolvePictureResource(fileItem.getPictureItem()))
+                .thenReturn(new ByteArrayResource(contentOf(fileItem)));
+
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + fileItem.getPictureItem().getChecksum() + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().dateValue(
+                        HttpHeaders.LAST_MODIFIED, fileItem.getPictureItem().getLoadedAt().toEpochMilli() / 1000 * 1000
+                ));
+    }
+
+    @Test
+    public void shouldReturnNotModifiedPictureWithoutStorageAccess() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+
+        mockMvc.perform(get("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + fileItem.getPictureItem().getChecksum() + "\""))
+                .andDo(log())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + fileItem.getPictureItem().getChecksum() + "\""))
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(head("/files/" + fileItem.getPictureItem().getChecksum())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + fileItem.getPictureItem().getChecksum() + "\""))
+                .andDo(log())
+                .andExpect(status().isNotModified());
+
+        verify(storageService, never()).resolvePictureResource(any());
+        verify(storageService, never()).resolvePictureRange(any(), any());
+    }
+
+    @Test
+    public void shouldRedirectToPictureUrl() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        URL pictureUrl = new URL("http://localhost:9000/bucket/" + fileItem.getPictureItem().getChecksum() + "?sig=1");
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+        when(storageService.resolvePictureUrl(fileItem.getPictureItem())).thenReturn(pictureUrl);
+
+        mockMvc.perform(get("/files/" + fileItem.getPictureItem().getChecksum()).header(HttpHeaders.RANGE, "bytes=0-3"))
+                .andDo(log())
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.LOCATION, pictureUrl.toString()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+
+        verify(storageService, never()).resolvePictureResource(any());
+        verify(storageService, never()).resolvePictureRange(any(), any());
+    }
+
+    @Test
+    public void shouldServePictureVariant() throws Exception {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        byte[] variantContent = "RESIZED".getBytes();
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+        when(variantService.resolveVariant(fileItem.getPictureItem(), 256))
+                .thenReturn(new PictureVariant(new ByteArrayResource(variantContent), MediaType.IMAGE_PNG_VALUE));
+
+        performDownload(get("/files/" + fileItem.getPictureItem().getChecksum()).param("w", "256"))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().string(
+                        HttpHeaders.ETAG, "\"" + fileItem.getPictureItem().getChecksum() + "-w256\""
+                ))
+                .andExpect(content().bytes(variantContent));
+
+        mockMvc.perform(get("/files/" + fileItem.getPictureItem().getChecksum()).param("w", "256")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + fileItem.getPictureItem().getChecksum() + "-w256\""))
+                .andDo(log())
+                .andExpect(status().isNotModified());
+
+        verify(variantService, times(1)).resolveVariant(any(), anyInt());
+        verify(storageService, never()).resolvePictureResource(any());
+    }
+
     @Test
     public void shouldRejectRequestWithNotExistedPicture() throws Exception {
         PictureFileItem fileItem = fileItemSupplier.get();
@@ -185,4 +579,21 @@ public class FileControllerTest {
         verify(storageService, never()).resolvePictureResource(any());
     }
 
+    private ResultActions performDownload(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+
+    private void stubPictureRange(PictureFileItem fileItem, Resource resource) {
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+        when(storageService.resolvePictureRange(eq(fileItem.getPictureItem()), any()))
+                .thenAnswer(invocation -> PictureResourceRange.of(resource, invocation.getArgument(1)));
+    }
+
+    private static String digestOf(PictureFileItem fileItem) {
+        return "sha-256=" + BaseEncoding.base64().encode(
+                BaseEncoding.base16().lowerCase().decode(fileItem.getPictureItem().getChecksum())
+        );
+    }
 }
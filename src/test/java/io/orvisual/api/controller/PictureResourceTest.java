@@ -5,6 +5,7 @@ import io.orvisual.api.model.Picture;
 import io.orvisual.api.model.PictureFileItem;
 import io.orvisual.api.repository.PictureRepository;
 import io.orvisual.api.service.PictureFileProcessingException;
+import io.orvisual.api.service.PictureMetadataCache;
 import io.orvisual.api.service.PictureStorageService;
 import org.junit.After;
 import org.junit.Before;
@@ -13,11 +14,13 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.Instant;
 import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.*;
@@ -28,6 +31,8 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -50,6 +55,9 @@ public class PictureResourceTest {
     @Autowired
     private PictureRepository pictureRepository;
 
+    @Autowired
+    private PictureMetadataCache metadataCache;
+
     @Autowired
     private WebApplicationContext webApplicationContext;
 
@@ -64,6 +72,7 @@ public class PictureResourceTest {
     @After
     public void tearDownRepositories() {
         pictureRepository.deleteAll();
+        metadataCache.invalidateAll();
     }
 
     @Test
@@ -146,4 +155,37 @@ public class PictureResourceTest {
                         )
                 );
     }
+
+    @Test
+    public void shouldReturnPictureWithCachingHeaders() throws Exception {
+        Picture fixturePicture = itemSupplier.get().getPictureItem();
+        fixturePicture.setLoadedAt(Instant.parse("2026-10-18T10:15:30Z"));
+        fixturePicture = pictureRepository.save(fixturePicture);
+
+        mockMvc.perform(get("/pictures/{checksum}", fixturePicture.getChecksum()))
+                .andDo(log())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + fixturePicture.getChecksum() + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, fixturePicture.getLoadedAt().toEpochMilli()))
+                .andExpect(jsonPath("$.mimeType", equalTo(fixturePicture.getMimeType())));
+    }
+
+    @Test
+    public void shouldReturnNotModifiedPicture() throws Exception {
+        Picture fixturePicture = pictureRepository.save(itemSupplier.get().getPictureItem());
+
+        mockMvc.perform(get("/pictures/{checksum}", fixturePicture.getChecksum())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + fixturePicture.getChecksum() + "\""))
+                .andDo(log())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void shouldRejectRequestOfNotExistedPicture() throws Exception {
+        mockMvc.perform(get("/pictures/{checksum}", itemSupplier.get().getPictureItem().getChecksum()))
+                .andDo(log())
+                .andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,125 @@
+package io.orvisual.api.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link PictureResourceWriter}
+ *
+ * @author Artemis A. Sirosh
+ */
+public class PictureResourceWriterTest {
+
+    private static final byte[] CONTENT = new byte[]{1, 2, 3, 4, 5};
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private WebAsyncManager asyncManager;
+    private final List<Runnable> queuedTasks = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        this.request = new MockHttpServletRequest();
+        this.request.setAsyncSupported(true);
+        this.response = new MockHttpServletResponse();
+        this.asyncManager = WebAsyncUtils.getAsyncManager(request);
+        this.asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+    }
+
+    @Test
+    public void shouldCloseResourceWhenDownloadRejected() throws Exception {
+        ClosingResource resource = new ClosingResource();
+        asyncManager.setTaskExecutor(new TaskExecutorAdapter(task -> {
+            throw new RejectedExecutionException("queue is full");
+        }));
+
+        StreamingResponseBody body = PictureResourceWriter.writeResource(resource, request, response);
+        assertNotNull("Resource not written asynchronously", body);
+        try {
+            asyncManager.startCallableProcessing(() -> body);
+            fail("Rejected download started");
+        } catch (TaskRejectedException exc) {
+            completeAsyncProcessing(false);
+        }
+
+        assertEquals("Resource not closed once", 1, resource.closeCount);
+    }
+
+    @Test
+    public void shouldCloseResourceWhenDownloadTimedOutInQueue() throws Exception {
+        ClosingResource resource = new ClosingResource();
+        asyncManager.setTaskExecutor(new TaskExecutorAdapter(queuedTasks::add));
+
+        StreamingResponseBody body = PictureResourceWriter.writeResource(resource, request, response);
+        assertNotNull("Resource not written asynchronously", body);
+        asyncManager.startCallableProcessing(() -> body);
+        completeAsyncProcessing(true);
+        assertEquals("Resource not closed", 1, resource.closeCount);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        assertEquals("Closed resource written", 0, outputStream.size());
+        assertEquals("Resource closed twice", 1, resource.closeCount);
+    }
+
+    @Test
+    public void shouldCloseResourceOnceAfterWriting() throws Exception {
+        ClosingResource resource = new ClosingResource();
+        asyncManager.setTaskExecutor(new TaskExecutorAdapter(Runnable::run));
+
+        StreamingResponseBody body = PictureResourceWriter.writeResource(resource, request, response);
+        assertNotNull("Resource not written asynchronously", body);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        asyncManager.startCallableProcessing(() -> body);
+        completeAsyncProcessing(false);
+
+        assertArrayEquals(CONTENT, outputStream.toByteArray());
+        assertEquals("Resource not closed once", 1, resource.closeCount);
+    }
+
+    private void completeAsyncProcessing(boolean timedOut) throws Exception {
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            if (timedOut)
+                listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        asyncContext.complete();
+    }
+
+    private static class ClosingResource extends ByteArrayResource implements Closeable {
+
+        private int closeCount;
+
+        ClosingResource() {
+            super(CONTENT);
+        }
+
+        @Override
+        public void close() {
+            closeCount++;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.orvisual.api.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.orvisual.api.service.UploadBudget;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link UploadAdmissionInterceptor}.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class UploadAdmissionInterceptorTest {
+
+    private UploadBudget uploadBudget;
+
+    private UploadAdmissionInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        this.uploadBudget = new UploadBudget(10 * 1024, Duration.ofMillis(10), new SimpleMeterRegistry());
+        this.interceptor = new UploadAdmissionInterceptor(uploadBudget, 10 * 1024);
+    }
+
+    @Test
+    public void shouldReleaseBudgetAfterCompletion() throws Exception {
+        MockHttpServletRequest request = uploadRequest(6 * 1024);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        assertEquals(6 * 1024, uploadBudget.getInFlightBytes());
+
+        interceptor.afterCompletion(request, response, new Object(), null);
+        assertEquals(0, uploadBudget.getInFlightBytes());
+    }
+
+    @Test
+    public void shouldRejectUploadOverBudget() throws Exception {
+        assertTrue(interceptor.preHandle(uploadRequest(6 * 1024), new MockHttpServletResponse(), new Object()));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(uploadRequest(6 * 1024), response, new Object()));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(6 * 1024, uploadBudget.getInFlightBytes());
+    }
+
+    @Test
+    public void shouldPassRequestWithoutBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/files/sessions/id");
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+        assertEquals(0, uploadBudget.getInFlightBytes());
+    }
+
+    private static MockHttpServletRequest uploadRequest(int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/files");
+        request.setContent(new byte[contentLength]);
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package io.orvisual.api.controller;
+
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import io.orvisual.api.repository.PictureRepository;
+import io.orvisual.api.service.PictureStorageService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link UploadSessionController}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class UploadSessionControllerTest {
+
+    // signature of PNG file followed by text
+    private static final byte[] CONTENT = Bytes.concat(
+            new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'},
+            "OKLAHOMA, WHERE THE WIND COMES SWEEPING DOWN THE PLAIN".getBytes()
+    );
+
+    @MockBean
+    private PictureStorageService storageService;
+
+    @MockBean
+    private PictureRepository pictureRepository;
+
+    @Autowired
+    private WebApplicationContext applicationContext;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(applicationContext).alwaysDo(log()).build();
+    }
+
+    @Test
+    public void shouldUploadFileInChunks() throws Exception {
+        final String checksum = Hashing.sha256().hashBytes(CONTENT).toString();
+        when(pictureRepository.insertIfAbsent(eq(checksum), eq(MediaType.IMAGE_PNG_VALUE), any())).thenReturn(1);
+
+        String location = mockMvc.perform(post("/files/sessions").param("mimeType", MediaType.IMAGE_PNG_VALUE))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(UploadSessionController.UPLOAD_OFFSET_HEADER, "0"))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        mockMvc.perform(patch(location)
+                .header(UploadSessionController.UPLOAD_OFFSET_HEADER, 0)
+                .content(Arrays.copyOfRange(CONTENT, 0, 20)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(UploadSessionController.UPLOAD_OFFSET_HEADER, "20"));
+
+        mockMvc.perform(patch(location)
+                .header(UploadSessionController.UPLOAD_OFFSET_HEADER, 10)
+                .content(Arrays.copyOfRange(CONTENT, 10, 20)))
+                .andExpect(status().isConflict())
+                .andExpect(header().string(UploadSessionController.UPLOAD_OFFSET_HEADER, "20"));
+
+        mockMvc.perform(head(location))
+                .andExpect(status().isOk())
+                .andExpect(header().string(UploadSessionController.UPLOAD_OFFSET_HEADER, "20"));
+
+        mockMvc.perform(patch(location)
+                .header(UploadSessionController.UPLOAD_OFFSET_HEADER, 20)
+                .content(Arrays.copyOfRange(CONTENT, 20, CONTENT.length)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(
+                        UploadSessionController.UPLOAD_OFFSET_HEADER, String.valueOf(CONTENT.length)
+                ));
+
+        mockMvc.perform(post(location + "/complete"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$._links.self.href", endsWith(checksum)));
+
+        verify(storageService).savePictureFileItem(any());
+
+        mockMvc.perform(head(location))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void shouldNotFindUnknownSession() throws Exception {
+        mockMvc.perform(head("/files/sessions/00000000-0000-0000-0000-000000000000"))
+                .andExpect(status().isNotFound());
+    }
+}
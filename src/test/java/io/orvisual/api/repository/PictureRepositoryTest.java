@@ -0,0 +1,131 @@
+package io.orvisual.api.repository;
+
+import io.orvisual.api.TestHelper;
+import io.orvisual.api.model.Order;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.service.PictureStorageService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for custom queries of {@link PictureRepository}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class PictureRepositoryTest {
+
+    @MockBean
+    private PictureStorageService storageService;
+
+    @Autowired
+    private PictureRepository pictureRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @After
+    public void tearDownRepositories() {
+        orderRepository.deleteAll();
+        pictureRepository.deleteAll();
+    }
+
+    @Test
+    public void shouldInsertAbsentPicture() {
+        Picture picture = TestHelper.randomPictureSupplier().get();
+
+        int inserted = pictureRepository.insertIfAbsent(
+                picture.getChecksum(), picture.getMimeType(), picture.getLoadedAt()
+        );
+
+        assertEquals("Inserted records count", 1, inserted);
+
+        Optional<Picture> actualPicture = pictureRepository.findById(picture.getChecksum());
+        assertTrue("Picture not found", actualPicture.isPresent());
+        assertEquals("MIME type", picture.getMimeType(), actualPicture.get().getMimeType());
+        assertEquals("Loaded at", picture.getLoadedAt(), actualPicture.get().getLoadedAt());
+    }
+
+    @Test
+    public void shouldSkipExistedPicture() {
+        Picture picture = pictureRepository.save(TestHelper.randomPictureSupplier().get());
+
+        int inserted = pictureRepository.insertIfAbsent(
+                picture.getChecksum(), "image/png", picture.getLoadedAt()
+        );
+
+        assertEquals("Inserted records count", 0, inserted);
+        assertEquals(
+                "Existed picture changed",
+                picture.getMimeType(),
+                pictureRepository.findById(picture.getChecksum()).map(Picture::getMimeType).orElse(null)
+        );
+    }
+
+    @Test
+    public void shouldFindChecksumsByBatches() {
+        List<String> checksums = Stream.generate(TestHelper.randomPictureSupplier())
+                .limit(5)
+                .map(pictureRepository::save)
+                .map(Picture::getChecksum)
+                .sorted()
+                .collect(Collectors.toList());
+
+        List<String> firstBatch = pictureRepository.findChecksumsAfter("", PageRequest.of(0, 3));
+        List<String> secondBatch = pictureRepository.findChecksumsAfter(firstBatch.get(2), PageRequest.of(0, 3));
+
+        assertEquals("First batch", checksums.subList(0, 3), firstBatch);
+        assertEquals("Second batch", checksums.subList(3, 5), secondBatch);
+    }
+
+    @Test
+    public void shouldFindChecksumsOfOrdersCompletedAfter() {
+        Picture activePicture = pictureRepository.save(TestHelper.randomPictureSupplier().get());
+        Picture recentPicture = pictureRepository.save(TestHelper.randomPictureSupplier().get());
+        Picture completedPicture = pictureRepository.save(TestHelper.randomPictureSupplier().get());
+        Instant now = Instant.now();
+
+        orderRepository.save(orderOf(activePicture, null));
+        orderRepository.save(orderOf(recentPicture, now));
+        orderRepository.save(orderOf(completedPicture, now.minus(10, ChronoUnit.DAYS)));
+
+        List<String> checksums = pictureRepository.findChecksumsOfOrdersCompletedAfter(
+                Arrays.asList(activePicture.getChecksum(), recentPicture.getChecksum(), completedPicture.getChecksum()),
+                now.minus(1, ChronoUnit.DAYS)
+        );
+
+        assertEquals(
+                "Checksums of active orders",
+                Stream.of(activePicture, recentPicture).map(Picture::getChecksum).sorted().collect(Collectors.toList()),
+                checksums.stream().sorted().collect(Collectors.toList())
+        );
+    }
+
+    private static Order orderOf(Picture picture, Instant completedAt) {
+        Order order = new Order("Client", "+79000000000", "client@example.com", "Order", Collections.singletonList(picture));
+        order.setAcceptedAt(Instant.now());
+        order.setCompletedAt(completedAt);
+        return order;
+    }
+}
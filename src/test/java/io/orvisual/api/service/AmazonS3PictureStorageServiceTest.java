@@ -2,30 +2,71 @@ package io.orvisual.api.service;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.SdkClientException;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartListing;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.orvisual.api.TestHelper;
 import io.orvisual.api.model.Picture;
 import io.orvisual.api.model.PictureFileItem;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.PathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -50,11 +91,20 @@ public class AmazonS3PictureStorageServiceTest {
     @Captor
     private ArgumentCaptor<ObjectMetadata> objectMetadataCaptor;
 
-    private PictureStorageService storageService;
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AmazonS3PictureStorageService storageService;
 
     @Before
     public void setUp() {
-        this.storageService = new AmazonS3PictureStorageService(amazonS3Client, BUCKET_NAME);
+        this.storageService = new AmazonS3PictureStorageService(amazonS3Client, BUCKET_NAME, meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        this.storageService.close();
     }
 
     @Test
@@ -77,6 +127,59 @@ public class AmazonS3PictureStorageServiceTest {
         storageService.deletePictureFile(picture);
     }
 
+    @Test
+    public void shouldRetryFailedDownload() throws IOException {
+        Picture picture = pictureSupplier.get();
+        S3Object expectedS3Object = new S3Object();
+        expectedS3Object.setObjectContent(new ByteArrayInputStream("OKLAHOMA".getBytes()));
+        when(amazonS3Client.getObject(argThat(requestOf(picture))))
+                .thenThrow(new SdkClientException("test"))
+                .thenReturn(expectedS3Object);
+
+        Resource resource = storageService.resolvePictureResource(picture);
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            assertArrayEquals("File contents not equal", "OKLAHOMA".getBytes(), StreamUtils.copyToByteArray(inputStream));
+        }
+        verify(amazonS3Client, times(2)).getObject(argThat(requestOf(picture)));
+    }
+
+    @Test
+    public void shouldNotRetryDownloadOfMissedFile() {
+        Picture picture = pictureSupplier.get();
+        AmazonS3Exception notFoundException = new AmazonS3Exception("test");
+        notFoundException.setStatusCode(HttpStatus.NOT_FOUND.value());
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenThrow(notFoundException);
+
+        try {
+            storageService.resolvePictureResource(picture);
+            fail("Exception expected");
+        } catch (PictureFileProcessingException exc) {
+            verify(amazonS3Client, times(1)).getObject(argThat(requestOf(picture)));
+        }
+    }
+
+    @Test
+    public void shouldNotCountExhaustedConnectionPoolAsFailureOfS3() {
+        Picture picture = pictureSupplier.get();
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenThrow(new SdkClientException(
+                "Unable to execute HTTP request", new ConnectionPoolTimeoutException("Timeout waiting for connection")
+        ));
+        int downloads = RemoteReadExecutor.DEFAULT_CIRCUIT_FAILURE_THRESHOLD + 1;
+
+        for (int i = 0; i < downloads; i++) {
+            try {
+                storageService.resolvePictureResource(picture);
+                fail("Exception expected");
+            } catch (PictureFileProcessingException exc) {
+                assertThat(exc.getCause(), instanceOf(SdkClientException.class));
+            }
+        }
+
+        // downloads are neither retried, nor rejected by open circuit
+        verify(amazonS3Client, times(downloads)).getObject(argThat(requestOf(picture)));
+    }
+
     @Test
     public void shouldReturnResourceOfExistedPictureFile() throws IOException {
         Picture picture = pictureSupplier.get();
@@ -85,7 +188,7 @@ public class AmazonS3PictureStorageServiceTest {
 
         S3Object expectedS3Object = new S3Object();
         expectedS3Object.setObjectContent(expectedResource.getInputStream());
-        when(amazonS3Client.getObject(BUCKET_NAME, picture.getChecksum())).thenReturn(expectedS3Object);
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenReturn(expectedS3Object);
 
         Resource actualResource = storageService.resolvePictureResource(picture);
         byte[] actualContent = new byte[pictureFileContent.length];
@@ -102,11 +205,279 @@ public class AmazonS3PictureStorageServiceTest {
     public void shouldProcessErrorWhilePictureFileDownloading() {
         Picture picture = pictureSupplier.get();
 
-        doThrow(new SdkClientException("test")).when(amazonS3Client).getObject(BUCKET_NAME, picture.getChecksum());
+        doThrow(new SdkClientException("test")).when(amazonS3Client).getObject(argThat(requestOf(picture)));
 
         storageService.resolvePictureResource(picture);
     }
 
+    @Test
+    public void shouldDownloadLargePictureFileByRanges() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA, WHERE THE WIND COMES SWEEPING".getBytes();
+        AmazonS3PictureStorageService multipartStorageService = new AmazonS3PictureStorageService(
+                amazonS3Client, BUCKET_NAME, 10, 4, 2, meterRegistry
+        );
+
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            int start = (int) request.getRange()[0];
+            int end = (int) Math.min(request.getRange()[1], pictureFileContent.length - 1);
+
+            S3Object rangeObject = new S3Object();
+            rangeObject.getObjectMetadata().setHeader(
+                    Headers.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + pictureFileContent.length
+            );
+            rangeObject.setObjectContent(
+                    new ByteArrayInputStream(Arrays.copyOfRange(pictureFileContent, start, end + 1))
+            );
+            return rangeObject;
+        });
+
+        try {
+            Resource actualResource = multipartStorageService.resolvePictureResource(picture);
+            try (InputStream inputStream = actualResource.getInputStream()) {
+                assertArrayEquals("File contents not equal", pictureFileContent, StreamUtils.copyToByteArray(inputStream));
+            }
+        } finally {
+            multipartStorageService.close();
+        }
+
+        verify(amazonS3Client, times(9)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void shouldRetryFailedRequestOfLaterRange() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA, WHERE THE WIND COMES SWEEPING".getBytes();
+        AmazonS3PictureStorageService multipartStorageService = new AmazonS3PictureStorageService(
+                amazonS3Client, BUCKET_NAME, 10, 4, 2, meterRegistry
+        );
+
+        AtomicBoolean rangeFailed = new AtomicBoolean();
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            if (request.getRange()[0] == 14 && rangeFailed.compareAndSet(false, true))
+                throw new SdkClientException("test");
+
+            return rangeAnswer(pictureFileContent).answer(invocation);
+        });
+
+        try {
+            Resource actualResource = multipartStorageService.resolvePictureResource(picture);
+            try (InputStream inputStream = actualResource.getInputStream()) {
+                assertArrayEquals("File contents not equal", pictureFileContent, StreamUtils.copyToByteArray(inputStream));
+            }
+        } finally {
+            multipartStorageService.close();
+        }
+
+        verify(amazonS3Client, times(10)).getObject(any(GetObjectRequest.class));
+        assertEquals(1.0, meterRegistry.get("orvisual.storage.retries").counter().count(), 0.0);
+    }
+
+    @Test
+    public void shouldRequestRangesAhead() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA, WHERE THE WIND COMES SWEEPING".getBytes();
+        AmazonS3PictureStorageService multipartStorageService = createRangedStorageService(2, 3, 32);
+
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(rangeAnswer(pictureFileContent));
+
+        try {
+            Resource actualResource = multipartStorageService.resolvePictureResource(picture);
+            // first range and three ranges read ahead
+            verify(amazonS3Client, timeout(1000).times(4)).getObject(any(GetObjectRequest.class));
+            try (InputStream inputStream = actualResource.getInputStream()) {
+                assertArrayEquals("File contents not equal", pictureFileContent, StreamUtils.copyToByteArray(inputStream));
+            }
+        } finally {
+            multipartStorageService.close();
+        }
+
+        verify(amazonS3Client, times(9)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void shouldRejectDownloadWhenRangeQueueIsFull() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA, WHERE THE WIND COMES SWEEPING".getBytes();
+        AmazonS3PictureStorageService multipartStorageService = createRangedStorageService(1, 1, 1);
+        CountDownLatch rangeAllowed = new CountDownLatch(1);
+
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            // the only range thread is busy with range of the first download
+            if (request.getRange()[0] > 0)
+                assertTrue(rangeAllowed.await(5, TimeUnit.SECONDS));
+
+            return rangeAnswer(pictureFileContent).answer(invocation);
+        });
+
+        try {
+            Resource sentResource = multipartStorageService.resolvePictureResource(picture);
+            Resource queuedResource = multipartStorageService.resolvePictureResource(picture);
+            try {
+                multipartStorageService.resolvePictureResource(picture);
+                fail("Download beyond range queue must be rejected");
+            } catch (StorageUnavailableException exc) {
+                verify(amazonS3Client, times(3)).getObject(argThat(request -> request.getRange()[0] == 0));
+            }
+
+            sentResource.getInputStream().close();
+            queuedResource.getInputStream().close();
+        } finally {
+            rangeAllowed.countDown();
+            multipartStorageService.close();
+        }
+    }
+
+    @Test
+    public void shouldNotRequestRangesAfterStreamClosed() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA, WHERE THE WIND COMES SWEEPING".getBytes();
+        AmazonS3PictureStorageService multipartStorageService = new AmazonS3PictureStorageService(
+                amazonS3Client, BUCKET_NAME, 10, 4, 2, meterRegistry
+        );
+
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            int start = (int) request.getRange()[0];
+            int end = (int) Math.min(request.getRange()[1], pictureFileContent.length - 1);
+
+            S3Object rangeObject = new S3Object();
+            rangeObject.getObjectMetadata().setHeader(
+                    Headers.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + pictureFileContent.length
+            );
+            rangeObject.setObjectContent(
+                    new ByteArrayInputStream(Arrays.copyOfRange(pictureFileContent, start, end + 1))
+            );
+            return rangeObject;
+        });
+
+        try {
+            Resource actualResource = multipartStorageService.resolvePictureResource(picture);
+            try (InputStream inputStream = actualResource.getInputStream()) {
+                byte[] head = new byte[12];
+                assertEquals(10, inputStream.read(head));
+                assertEquals(2, inputStream.read(head, 10, 2));
+            }
+        } finally {
+            multipartStorageService.close();
+        }
+
+        // first range, second one being read, and third one, if it was requested in advance before closing
+        verify(amazonS3Client, after(100).atMost(3)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void shouldRequestRangeOfPictureFile() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA".getBytes();
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(rangeAnswer(pictureFileContent));
+
+        PictureResourceRange range = storageService.resolvePictureRange(picture, HttpRange.createByteRange(2, 5));
+
+        assertEquals(2, range.getStart());
+        assertEquals(5, range.getEnd());
+        assertEquals(pictureFileContent.length, range.getTotalLength());
+        assertEquals(0, range.getOffset());
+        try (InputStream inputStream = range.getResource().getInputStream()) {
+            assertArrayEquals("LAHO".getBytes(), StreamUtils.copyToByteArray(inputStream));
+        }
+        verify(amazonS3Client, never()).getObjectMetadata(any(), any());
+    }
+
+    @Test
+    public void shouldRequestOpenRangeOfPictureFile() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA".getBytes();
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(rangeAnswer(pictureFileContent));
+
+        PictureResourceRange range = storageService.resolvePictureRange(picture, HttpRange.createByteRange(6));
+
+        assertEquals(7, range.getEnd());
+        try (InputStream inputStream = range.getResource().getInputStream()) {
+            assertArrayEquals("MA".getBytes(), StreamUtils.copyToByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void shouldRequestSuffixRangeOfPictureFile() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] pictureFileContent = "OKLAHOMA".getBytes();
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(pictureFileContent.length);
+        when(amazonS3Client.getObjectMetadata(BUCKET_NAME, picture.getChecksum())).thenReturn(metadata);
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenAnswer(rangeAnswer(pictureFileContent));
+
+        PictureResourceRange range = storageService.resolvePictureRange(picture, HttpRange.createSuffixRange(3));
+
+        assertEquals(5, range.getStart());
+        try (InputStream inputStream = range.getResource().getInputStream()) {
+            assertArrayEquals("OMA".getBytes(), StreamUtils.copyToByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void shouldRejectRangeBeyondEndOfPictureFile() {
+        Picture picture = pictureSupplier.get();
+        AmazonS3Exception rangeException = new AmazonS3Exception("InvalidRange");
+        rangeException.setStatusCode(416);
+        when(amazonS3Client.getObject(argThat(requestOf(picture)))).thenThrow(rangeException);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(8);
+        when(amazonS3Client.getObjectMetadata(BUCKET_NAME, picture.getChecksum())).thenReturn(metadata);
+
+        try {
+            storageService.resolvePictureRange(picture, HttpRange.createByteRange(10, 20));
+            fail("Range beyond end of file resolved");
+        } catch (RangeNotSatisfiableException exc) {
+            assertEquals(8, exc.getContentLength());
+        }
+    }
+
+    @Test
+    public void shouldUploadLargePictureFileByParts() throws IOException {
+        Picture picture = pictureSupplier.get();
+        Path pictureFilePath = temporaryFolder.newFile().toPath();
+        Files.write(pictureFilePath, "OKLAHOMA, WHERE THE WIND COMES SWEEPING".getBytes());
+        PictureFileItem fileItem = new PictureFileItem(
+                picture, new PathResource(pictureFilePath), Files.size(pictureFilePath)
+        );
+        AmazonS3PictureStorageService multipartStorageService = new AmazonS3PictureStorageService(
+                amazonS3Client, BUCKET_NAME, 10, 4, 2, meterRegistry
+        );
+
+        InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload");
+        when(amazonS3Client.initiateMultipartUpload(any())).thenReturn(initiateResult);
+        when(amazonS3Client.uploadPart(any())).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        });
+        when(amazonS3Client.listParts(any())).thenReturn(new PartListing());
+        when(amazonS3Client.completeMultipartUpload(any())).thenReturn(new CompleteMultipartUploadResult());
+
+        try {
+            multipartStorageService.savePictureFileItem(fileItem);
+        } finally {
+            multipartStorageService.close();
+        }
+
+        ArgumentCaptor<UploadPartRequest> partCaptor = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(amazonS3Client, times(10)).uploadPart(partCaptor.capture());
+        assertEquals(
+                "Size of uploaded parts",
+                Files.size(pictureFilePath),
+                partCaptor.getAllValues().stream().mapToLong(UploadPartRequest::getPartSize).sum()
+        );
+        verify(amazonS3Client).completeMultipartUpload(any());
+        verify(amazonS3Client, never()).putObject(any(), any(), any(InputStream.class), any());
+    }
+
     @Test
     public void shouldUploadPictureFile() throws IOException {
         Picture picture = pictureSupplier.get();
@@ -146,4 +517,84 @@ public class AmazonS3PictureStorageServiceTest {
 
         storageService.savePictureFileItem(fileItem);
     }
+
+    @Test
+    public void shouldNotResolvePictureUrlByDefault() {
+        assertNull(storageService.resolvePictureUrl(pictureSupplier.get()));
+        verifyZeroInteractions(amazonS3Client);
+    }
+
+    @Test
+    public void shouldReusePresignedPictureUrl() {
+        // URL signed locally, so client of local S3 stand-in needs no running server
+        AmazonS3 localS3Client = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("id", "key")))
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                        "http://localhost:9000", "us-east-1"
+                ))
+                .withPathStyleAccessEnabled(true)
+                .build();
+        AmazonS3PictureStorageService presigningStorageService = new AmazonS3PictureStorageService(
+                localS3Client, BUCKET_NAME, 1024, 1024, 1, Duration.ofMinutes(10), meterRegistry
+        );
+        Picture picture = pictureSupplier.get();
+
+        try {
+            URL pictureUrl = presigningStorageService.resolvePictureUrl(picture);
+
+            assertNotNull(pictureUrl);
+            assertEquals("localhost", pictureUrl.getHost());
+            assertEquals("/" + BUCKET_NAME + "/" + picture.getChecksum(), pictureUrl.getPath());
+            assertThat(pictureUrl.getQuery(), containsString("Signature="));
+            assertThat(pictureUrl.getQuery(), containsString("response-content-type=image%2Fjpeg"));
+            assertSame(pictureUrl, presigningStorageService.resolvePictureUrl(picture));
+            assertNotEquals(pictureUrl, presigningStorageService.resolvePictureUrl(pictureSupplier.get()));
+        } finally {
+            presigningStorageService.close();
+        }
+    }
+
+    private AmazonS3PictureStorageService createRangedStorageService(
+            int transferThreads, int readAheadRanges, int rangeQueueSize
+    ) {
+        return new AmazonS3PictureStorageService(
+                amazonS3Client,
+                BUCKET_NAME,
+                10,
+                4,
+                transferThreads,
+                readAheadRanges,
+                rangeQueueSize,
+                null,
+                new RemoteReadExecutor(
+                        BUCKET_NAME,
+                        false,
+                        RemoteReadExecutor.DEFAULT_MAX_CONCURRENT_REQUESTS,
+                        RemoteReadExecutor.DEFAULT_MAX_RETRIES,
+                        RemoteReadExecutor.DEFAULT_CIRCUIT_FAILURE_THRESHOLD,
+                        RemoteReadExecutor.DEFAULT_CIRCUIT_OPEN_TIME,
+                        meterRegistry
+                )
+        );
+    }
+
+    private static Answer<S3Object> rangeAnswer(byte[] content) {
+        return invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            int start = (int) request.getRange()[0];
+            int end = (int) Math.min(request.getRange()[1], content.length - 1);
+
+            S3Object rangeObject = new S3Object();
+            rangeObject.getObjectMetadata().setHeader(
+                    Headers.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + content.length
+            );
+            rangeObject.setObjectContent(new ByteArrayInputStream(Arrays.copyOfRange(content, start, end + 1)));
+            return rangeObject;
+        };
+    }
+
+    private static ArgumentMatcher<GetObjectRequest> requestOf(Picture picture) {
+        return request -> BUCKET_NAME.equals(request.getBucketName())
+                && picture.getChecksum().equals(request.getKey());
+    }
 }
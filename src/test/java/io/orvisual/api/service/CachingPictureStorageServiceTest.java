@@ -0,0 +1,231 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.orvisual.api.TestHelper;
+import io.orvisual.api.model.Picture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link CachingPictureStorageService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingPictureStorageServiceTest {
+
+    private static final byte[] CONTENT = "OKLAHOMA".getBytes();
+
+    private final Supplier<Picture> pictureSupplier = TestHelper.randomPictureSupplier();
+
+    @Mock
+    private PictureStorageService storageService;
+
+    private MeterRegistry meterRegistry;
+
+    private CachingPictureStorageService cachingService;
+
+    @Before
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cachingService = new CachingPictureStorageService(storageService, 20, 10, meterRegistry);
+    }
+
+    @Test
+    public void shouldServeCachedPictureFile() throws IOException {
+        Picture picture = pictureSupplier.get();
+        when(storageService.resolvePictureResource(picture))
+                .thenReturn(new InputStreamResource(new ByteArrayInputStream(CONTENT)));
+
+        assertArrayEquals(CONTENT, read(cachingService.resolvePictureResource(picture)));
+        assertArrayEquals(CONTENT, read(cachingService.resolvePictureResource(picture)));
+
+        verify(storageService, times(1)).resolvePictureResource(picture);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(), 0.0);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count(), 0.0);
+    }
+
+    @Test
+    public void shouldServeRangeOfCachedPictureFile() throws IOException {
+        Picture picture = pictureSupplier.get();
+        when(storageService.resolvePictureResource(picture)).thenReturn(new ByteArrayResource(CONTENT));
+        cachingService.resolvePictureResource(picture);
+
+        PictureResourceRange range = cachingService.resolvePictureRange(picture, HttpRange.createByteRange(2, 5));
+
+        assertEquals(CONTENT.length, range.getTotalLength());
+        try (InputStream stream = range.getResource().getInputStream()) {
+            stream.skip(range.getOffset());
+            byte[] rangeContent = new byte[(int) range.getLength()];
+            assertEquals(rangeContent.length, stream.read(rangeContent));
+            assertArrayEquals("LAHO".getBytes(), rangeContent);
+        }
+        verify(storageService, never()).resolvePictureRange(any(), any());
+    }
+
+    @Test
+    public void shouldNotCacheLargePictureFile() throws IOException {
+        Picture picture = pictureSupplier.get();
+        byte[] largeContent = "OKLAHOMA, WHERE THE WIND COMES SWEEPING".getBytes();
+        ByteArrayResource knownLengthResource = new ByteArrayResource(largeContent);
+        when(storageService.resolvePictureResource(picture))
+                .thenReturn(new InputStreamResource(new ByteArrayInputStream(largeContent)))
+                .thenReturn(knownLengthResource);
+
+        assertArrayEquals(largeContent, read(cachingService.resolvePictureResource(picture)));
+        assertSame(knownLengthResource, cachingService.resolvePictureResource(picture));
+
+        verify(storageService, times(2)).resolvePictureResource(picture);
+    }
+
+    @Test
+    public void shouldEvictPictureFilesOverMaxSize() {
+        List<Picture> pictures = Stream.generate(pictureSupplier).limit(10).collect(Collectors.toList());
+        when(storageService.resolvePictureResource(any())).thenAnswer(invocation -> new ByteArrayResource(CONTENT));
+
+        pictures.forEach(cachingService::resolvePictureResource);
+        pictures.forEach(cachingService::resolvePictureResource);
+
+        // no more than two files of 8 bytes fit into 20 bytes
+        verify(storageService, atLeast(18)).resolvePictureResource(any());
+        assertTrue(meterRegistry.get("cache.evictions").functionCounter().count() >= 16);
+    }
+
+    @Test
+    public void shouldInvalidateDeletedPictureFile() {
+        Picture picture = pictureSupplier.get();
+        when(storageService.resolvePictureResource(picture)).thenAnswer(invocation -> new ByteArrayResource(CONTENT));
+
+        cachingService.resolvePictureResource(picture);
+        cachingService.deletePictureFile(picture);
+        cachingService.resolvePictureResource(picture);
+
+        verify(storageService).deletePictureFile(picture);
+        verify(storageService, times(2)).resolvePictureResource(picture);
+    }
+
+    @Test
+    public void shouldServeOffHeapCachedPictureFile() throws IOException {
+        OffHeapMemory memory = new OffHeapMemory(64, 4);
+        cachingService = new CachingPictureStorageService(storageService, 0, 10, memory, meterRegistry);
+        Picture picture = pictureSupplier.get();
+        when(storageService.resolvePictureResource(picture)).thenReturn(new ByteArrayResource(CONTENT));
+
+        cachingService.resolvePictureResource(picture);
+        Resource cachedResource = cachingService.resolvePictureResource(picture);
+
+        assertTrue(cachedResource instanceof OffHeapPictureResource);
+        assertEquals(CONTENT.length, cachedResource.contentLength());
+        ByteBuffer[] buffers = ((OffHeapPictureResource) cachedResource).getBuffers(3, 4);
+        assertEquals(2, buffers.length);
+        assertTrue(buffers[0].isDirect());
+        assertEquals(1, buffers[0].remaining());
+        assertEquals(3, buffers[1].remaining());
+        assertArrayEquals(CONTENT, read(cachedResource));
+        assertEquals(8.0, meterRegistry.get("orvisual.cache.offheap.used").gauge().value(), 0.0);
+        verify(storageService, times(1)).resolvePictureResource(picture);
+    }
+
+    @Test
+    public void shouldKeepOffHeapContentUntilResourceClosed() throws IOException {
+        OffHeapMemory memory = new OffHeapMemory(64, 4);
+        cachingService = new CachingPictureStorageService(storageService, 0, 10, memory, meterRegistry);
+        Picture picture = pictureSupplier.get();
+        when(storageService.resolvePictureResource(picture)).thenReturn(new ByteArrayResource(CONTENT));
+        cachingService.resolvePictureResource(picture);
+
+        OffHeapPictureResource cachedResource = (OffHeapPictureResource) cachingService.resolvePictureResource(picture);
+        cachingService.deletePictureFile(picture);
+        assertEquals(8, memory.getUsedBytes());
+
+        assertArrayEquals(CONTENT, read(cachedResource));
+        assertEquals(0, memory.getUsedBytes());
+    }
+
+    @Test
+    public void shouldNotCacheWhenOffHeapMemoryExhausted() {
+        OffHeapMemory memory = new OffHeapMemory(40, 4);
+        cachingService = new CachingPictureStorageService(storageService, 0, 10, memory, meterRegistry);
+        Picture second = pictureSupplier.get();
+        when(storageService.resolvePictureResource(any())).thenAnswer(invocation -> new ByteArrayResource(CONTENT));
+
+        // cached files are open, so their pages can not be reused for another file
+        List<Resource> openResources = Stream.generate(pictureSupplier).limit(5)
+                .map(picture -> {
+                    cachingService.resolvePictureResource(picture);
+                    Resource resource = cachingService.resolvePictureResource(picture);
+                    cachingService.deletePictureFile(picture);
+                    return resource;
+                })
+                .collect(Collectors.toList());
+        cachingService.resolvePictureResource(second);
+        cachingService.resolvePictureResource(second);
+
+        verify(storageService, times(2)).resolvePictureResource(second);
+        openResources.forEach(resource -> ((OffHeapPictureResource) resource).close());
+        assertEquals(0, memory.getUsedBytes());
+    }
+
+    @Test
+    public void shouldEvictCachedFileWhenOffHeapMemoryExhausted() throws IOException {
+        OffHeapMemory memory = new OffHeapMemory(64, 4);
+        cachingService = new CachingPictureStorageService(storageService, 0, 10, memory, meterRegistry);
+        when(storageService.resolvePictureResource(any())).thenAnswer(invocation -> new ByteArrayResource(CONTENT));
+
+        // deleted files, which are still read, occupy 14 of 16 pages
+        List<OffHeapPictureResource> openResources = Stream.generate(pictureSupplier).limit(7)
+                .map(picture -> {
+                    cachingService.resolvePictureResource(picture);
+                    Resource resource = cachingService.resolvePictureResource(picture);
+                    cachingService.deletePictureFile(picture);
+                    return (OffHeapPictureResource) resource;
+                })
+                .collect(Collectors.toList());
+        Picture cached = pictureSupplier.get();
+        Picture next = pictureSupplier.get();
+        cachingService.resolvePictureResource(cached);
+
+        cachingService.resolvePictureResource(next);
+        Resource nextResource = cachingService.resolvePictureResource(next);
+
+        assertTrue("File not cached", nextResource instanceof OffHeapPictureResource);
+        verify(storageService, times(1)).resolvePictureResource(next);
+        ((OffHeapPictureResource) nextResource).close();
+        for (OffHeapPictureResource openResource : openResources) {
+            openResource.close();
+        }
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        try (InputStream stream = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+}
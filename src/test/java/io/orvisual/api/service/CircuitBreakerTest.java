@@ -0,0 +1,85 @@
+package io.orvisual.api.service;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link CircuitBreaker}
+ *
+ * @author Artemis A. Sirosh
+ */
+public class CircuitBreakerTest {
+
+    private final ManualTicker ticker = new ManualTicker();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 3, Duration.ofSeconds(30), ticker);
+
+    @Test
+    public void shouldOpenAfterConsecutiveFailures() {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        assertTrue("Circuit opened by interrupted failures", circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse("Request permitted by open circuit", circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void shouldPermitSingleTrialAfterOpenTime() {
+        openCircuit();
+        ticker.advance(Duration.ofSeconds(30));
+
+        assertTrue("Trial not permitted", circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertFalse("Second trial permitted", circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue("Request not permitted by closed circuit", circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void shouldOpenAgainAfterFailedTrial() {
+        openCircuit();
+        ticker.advance(Duration.ofSeconds(30));
+        assertTrue("Trial not permitted", circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        ticker.advance(Duration.ofSeconds(29));
+        assertFalse("Request permitted by reopened circuit", circuitBreaker.tryAcquire());
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private static class ManualTicker extends Ticker {
+
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.orvisual.api.TestHelper;
+import io.orvisual.api.model.Picture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpRange;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link DiskCachingPictureStorageService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DiskCachingPictureStorageServiceTest {
+
+    private static final byte[] CONTENT = "OKLAHOMA".getBytes();
+
+    private final Supplier<Picture> pictureSupplier = TestHelper.randomPictureSupplier();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PictureStorageService remoteStorage;
+
+    private MeterRegistry meterRegistry;
+    private Path cachePath;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cachePath = temporaryFolder.newFolder().toPath().resolve("cache");
+        this.executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldServeCachedPictureFileFromDisk() throws IOException {
+        DiskCachingPictureStorageService cachingService = createCachingService(1024);
+        Picture picture = pictureSupplier.get();
+        when(remoteStorage.resolvePictureResource(picture)).thenReturn(new ByteArrayResource(CONTENT));
+
+        Resource resource = cachingService.resolvePictureResource(picture);
+        assertArrayEquals(CONTENT, read(resource));
+        assertArrayEquals(CONTENT, read(cachingService.resolvePictureResource(picture)));
+
+        assertTrue(resource.isFile());
+        assertEquals(picture.getChecksum().substring(0, 4), resource.getFile().getParentFile().getName());
+        verify(remoteStorage, times(1)).resolvePictureResource(picture);
+        assertEquals(1.0, meterRegistry.get("orvisual.cache.disk.gets").tag("result", "hit").counter().count(), 0.0);
+        assertEquals(CONTENT.length, cachingService.getCachedSize());
+    }
+
+    @Test
+    public void shouldDownloadConcurrentlyMissedFileOnce() throws Exception {
+        DiskCachingPictureStorageService cachingService = createCachingService(1024);
+        Picture picture = pictureSupplier.get();
+        CountDownLatch downloadStarted = new CountDownLatch(1);
+        CountDownLatch remoteReleased = new CountDownLatch(1);
+        when(remoteStorage.resolvePictureResource(picture)).thenAnswer(invocation -> {
+            downloadStarted.countDown();
+            remoteReleased.await();
+            return new ByteArrayResource(CONTENT);
+        });
+
+        List<Future<Resource>> results = new ArrayList<>();
+        results.add(executor.submit(() -> cachingService.resolvePictureResource(picture)));
+        assertTrue(downloadStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(() -> cachingService.resolvePictureResource(picture)));
+        }
+        Thread.sleep(100);
+        remoteReleased.countDown();
+
+        for (Future<Resource> result : results) {
+            assertArrayEquals(CONTENT, read(result.get(5, TimeUnit.SECONDS)));
+        }
+        verify(remoteStorage, times(1)).resolvePictureResource(picture);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedFile() {
+        DiskCachingPictureStorageService cachingService = createCachingService(20);
+        Picture first = pictureSupplier.get();
+        Picture second = pictureSupplier.get();
+        Picture third = pictureSupplier.get();
+        when(remoteStorage.resolvePictureResource(any())).thenAnswer(invocation -> new ByteArrayResource(CONTENT));
+
+        cachingService.resolvePictureResource(first);
+        cachingService.resolvePictureResource(second);
+        cachingService.resolvePictureResource(first);
+        cachingService.resolvePictureResource(third);
+        cachingService.resolvePictureResource(first);
+        cachingService.resolvePictureResource(second);
+
+        verify(remoteStorage, times(1)).resolvePictureResource(first);
+        verify(remoteStorage, times(2)).resolvePictureResource(second);
+        assertEquals(2 * CONTENT.length, cachingService.getCachedSize());
+    }
+
+    @Test
+    public void shouldLoadCachedFilesAfterRestart() {
+        Picture picture = pictureSupplier.get();
+        when(remoteStorage.resolvePictureResource(picture)).thenReturn(new ByteArrayResource(CONTENT));
+        createCachingService(1024).resolvePictureResource(picture);
+
+        DiskCachingPictureStorageService cachingService = createCachingService(1024);
+        cachingService.resolvePictureResource(picture);
+
+        assertEquals(CONTENT.length, cachingService.getCachedSize());
+        verify(remoteStorage, times(1)).resolvePictureResource(picture);
+    }
+
+    @Test
+    public void shouldRequestRangeOfMissedFileFromRemoteStorage() {
+        DiskCachingPictureStorageService cachingService = createCachingService(1024);
+        Picture picture = pictureSupplier.get();
+        HttpRange range = HttpRange.createByteRange(2, 5);
+        PictureResourceRange remoteRange = PictureResourceRange.of(new ByteArrayResource(CONTENT), range);
+        when(remoteStorage.resolvePictureRange(picture, range)).thenReturn(remoteRange);
+
+        assertSame(remoteRange, cachingService.resolvePictureRange(picture, range));
+        assertEquals(0, cachingService.getCachedSize());
+    }
+
+    @Test
+    public void shouldDeleteCachedFile() throws Exception {
+        DiskCachingPictureStorageService cachingService = createCachingService(1024);
+        Picture picture = pictureSupplier.get();
+        when(remoteStorage.resolvePictureResource(picture)).thenAnswer(invocation -> new ByteArrayResource(CONTENT));
+        Path cachedFilePath = cachingService.resolvePictureResource(picture).getFile().toPath();
+
+        cachingService.deletePictureFile(picture);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.exists(cachedFilePath)) {
+            assertTrue("Cached file not deleted", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals(0, cachingService.getCachedSize());
+        verify(remoteStorage).deletePictureFile(picture);
+    }
+
+    @Test
+    public void shouldKeepEvictedFileForResolvedResource() throws IOException {
+        DiskCachingPictureStorageService cachingService = new DiskCachingPictureStorageService(
+                remoteStorage, cachePath, 10, Duration.ofMinutes(1), meterRegistry
+        );
+        Picture first = pictureSupplier.get();
+        Picture second = pictureSupplier.get();
+        when(remoteStorage.resolvePictureResource(any())).thenAnswer(invocation -> new ByteArrayResource(CONTENT));
+
+        Resource firstResource = cachingService.resolvePictureResource(first);
+        cachingService.resolvePictureResource(second);
+
+        assertEquals(CONTENT.length, cachingService.getCachedSize());
+        assertArrayEquals(CONTENT, read(firstResource));
+    }
+
+    private DiskCachingPictureStorageService createCachingService(long maxSize) {
+        return new DiskCachingPictureStorageService(remoteStorage, cachePath, maxSize, Duration.ZERO, meterRegistry);
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        try (InputStream stream = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+}
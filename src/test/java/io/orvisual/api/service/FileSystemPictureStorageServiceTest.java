@@ -14,14 +14,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static io.orvisual.api.TestHelper.contentOf;
 import static org.junit.Assert.*;
 
 /**
@@ -138,6 +145,25 @@ public class FileSystemPictureStorageServiceTest {
         assertArrayEquals("File content not match", OKLAHOMA_BYTES, Files.readAllBytes(pathOfFileExpected));
     }
 
+    @Test
+    public void shouldNotLeaveTemporaryFiles() throws IOException {
+        PictureFileItem item = fileItemSupplier.get();
+        Path directory = this.rootPath.resolve(item.getPictureItem().getChecksum().substring(0, 4));
+
+        storageService.savePictureFileItem(item);
+        storageService.savePictureFileItem(item);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(
+                    "Only picture file expected",
+                    Collections.singletonList(item.getPictureItem().getChecksum() + ".jpg"),
+                    files.map(file -> file.getFileName().toString()).collect(Collectors.toList())
+            );
+        }
+        assertArrayEquals("File content not match", contentOf(item),
+                Files.readAllBytes(directory.resolve(item.getPictureItem().getChecksum() + ".jpg")));
+    }
+
     @Test(expected = PictureFileProcessingException.class)
     public void shouldProcessExceptionWhileWritingFile() throws IOException {
         PictureFileItem item = fileItemSupplier.get();
@@ -189,7 +215,7 @@ public class FileSystemPictureStorageServiceTest {
         LOGGER.info("Picture file: {}", file);
 
         Files.createDirectories(directory);
-        Files.write(file, item.getFileContent());
+        Files.write(file, contentOf(item));
 
         storageService.deletePictureFile(item.getPictureItem());
 
@@ -210,4 +236,111 @@ public class FileSystemPictureStorageServiceTest {
         storageService.deletePictureFile(item.getPictureItem());
     }
 
+    @Test
+    public void shouldSavePictureFileWithNestedLayout() throws IOException {
+        final FileSystemPictureStorageService nestedStorageService = new FileSystemPictureStorageService(
+                this.rootPath, ShardLayout.parse("2/2/2"), null, 1
+        );
+        PictureFileItem item = fileItemSupplier.get();
+        String checksum = item.getPictureItem().getChecksum();
+
+        nestedStorageService.savePictureFileItem(item);
+
+        Path file = this.rootPath.resolve(checksum.substring(0, 2)).resolve(checksum.substring(2, 4))
+                .resolve(checksum.substring(4, 6)).resolve(checksum + ".jpg");
+        assertArrayEquals("File content not match", contentOf(item), Files.readAllBytes(file));
+        assertEquals(file, nestedStorageService.resolvePictureResource(item.getPictureItem()).getFile().toPath());
+    }
+
+    @Test
+    public void shouldReshardFilesOfPreviousLayout() throws Exception {
+        PictureFileItem item = fileItemSupplier.get();
+        String checksum = item.getPictureItem().getChecksum();
+        storageService.savePictureFileItem(item);
+
+        final FileSystemPictureStorageService reshardingStorageService = new FileSystemPictureStorageService(
+                this.rootPath, ShardLayout.parse("2/2/2"), ShardLayout.DEFAULT, 1000
+        );
+        try {
+            Resource resource = reshardingStorageService.resolvePictureResource(item.getPictureItem());
+            assertArrayEquals("File content not match", contentOf(item), bytesOf(resource));
+
+            Path file = ShardLayout.parse("2/2/2").resolveDirectory(this.rootPath, checksum).resolve(checksum + ".jpg");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (Files.exists(this.rootPath.resolve(checksum.substring(0, 4))) && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            assertTrue("File not moved", Files.exists(file));
+            assertFalse("Directory of previous layout yet exists", Files.exists(this.rootPath.resolve(checksum.substring(0, 4))));
+            assertEquals(file, reshardingStorageService.resolvePictureResource(item.getPictureItem()).getFile().toPath());
+        } finally {
+            reshardingStorageService.close();
+        }
+    }
+
+    @Test
+    public void shouldReadPictureFileMovedAfterResolving() throws IOException {
+        final FileSystemPictureStorageService reshardingStorageService = new FileSystemPictureStorageService(
+                this.rootPath, ShardLayout.parse("2/2/2"), ShardLayout.DEFAULT, 1000
+        );
+        reshardingStorageService.close();
+        PictureFileItem item = fileItemSupplier.get();
+        String checksum = item.getPictureItem().getChecksum();
+        storageService.savePictureFileItem(item);
+
+        Resource resource = reshardingStorageService.resolvePictureResource(item.getPictureItem());
+        Path file = ShardLayout.parse("2/2/2").resolveDirectory(this.rootPath, checksum).resolve(checksum + ".jpg");
+        Files.createDirectories(file.getParent());
+        Files.move(ShardLayout.DEFAULT.resolveDirectory(this.rootPath, checksum).resolve(checksum + ".jpg"), file);
+
+        assertTrue("Moved file not exists", resource.exists());
+        assertFalse("File of previous layout sent by path", resource.isFile());
+        assertEquals(contentOf(item).length, resource.contentLength());
+        assertArrayEquals("File content not match", contentOf(item), bytesOf(resource));
+    }
+
+    @Test
+    public void shouldDeleteOnlyEmptyDirectoriesOfPreviousLayout() throws Exception {
+        Path previousDirectory = Files.createDirectory(this.rootPath.resolve("abcd"));
+        Path otherDirectory = Files.createDirectory(this.rootPath.resolve("uploads"));
+
+        final FileSystemPictureStorageService reshardingStorageService = new FileSystemPictureStorageService(
+                this.rootPath, ShardLayout.parse("2/2/2"), ShardLayout.DEFAULT, 1000
+        );
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (Files.exists(previousDirectory) && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            assertFalse("Directory of previous layout yet exists", Files.exists(previousDirectory));
+            assertTrue("Other directory deleted", Files.exists(otherDirectory));
+        } finally {
+            reshardingStorageService.close();
+        }
+    }
+
+    @Test
+    public void shouldDeletePictureFileOfPreviousLayout() throws IOException {
+        PictureFileItem item = fileItemSupplier.get();
+        Path directory = this.rootPath.resolve(item.getPictureItem().getChecksum().substring(0, 4));
+        storageService.savePictureFileItem(item);
+
+        final FileSystemPictureStorageService reshardingStorageService = new FileSystemPictureStorageService(
+                this.rootPath, ShardLayout.parse("2/2/2"), ShardLayout.DEFAULT, 0.001
+        );
+        try {
+            reshardingStorageService.deletePictureFile(item.getPictureItem());
+            assertFalse("File yet exists", Files.exists(directory.resolve(item.getPictureItem().getChecksum() + ".jpg")));
+        } finally {
+            reshardingStorageService.close();
+        }
+    }
+
+    private static byte[] bytesOf(Resource resource) throws IOException {
+        try (InputStream stream = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package io.orvisual.api.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link ImageFormat}.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class ImageFormatTest {
+
+    @Test
+    public void shouldDetectFormatsBySignature() {
+        assertEquals(ImageFormat.JPEG, detect((byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0));
+        assertEquals(ImageFormat.PNG, detect((byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'));
+        assertEquals(ImageFormat.GIF, detect('G', 'I', 'F', '8', '7', 'a'));
+        assertEquals(ImageFormat.GIF, detect('G', 'I', 'F', '8', '9', 'a', 1, 0));
+        assertEquals(ImageFormat.BMP, detect('B', 'M'));
+    }
+
+    @Test
+    public void shouldNotDetectUnknownOrTruncatedSignature() {
+        assertNull(detect('O', 'K', 'L', 'A', 'H', 'O', 'M', 'A'));
+        assertNull(detect('G', 'I', 'F', '8', '8', 'a'));
+        assertNull(detect((byte) 0x89, 'P', 'N', 'G'));
+        assertNull(detect('B'));
+        assertNull(detect());
+    }
+
+    @Test
+    public void shouldIgnoreBytesBeyondLength() {
+        byte[] header = new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0, 0, 0, 0, 0};
+        assertNull(ImageFormat.detect(header, 2));
+    }
+
+    @Test
+    public void shouldFindFormatByMimeType() {
+        assertEquals(ImageFormat.JPEG, ImageFormat.forMimeType("IMAGE/JPEG"));
+        assertEquals("bmp", ImageFormat.forMimeType("image/bmp").getFileExtension());
+        assertNull(ImageFormat.forMimeType("text/plain"));
+        assertNull(ImageFormat.forMimeType(null));
+    }
+
+    private static ImageFormat detect(int... bytes) {
+        byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+        for (int i = 0; i < bytes.length; i++) {
+            header[i] = (byte) bytes[i];
+        }
+        return ImageFormat.detect(header, bytes.length);
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.Instant;
 
+import static io.orvisual.api.TestHelper.contentOf;
 import static org.junit.Assert.*;
 
 /**
@@ -25,9 +26,13 @@ import static org.junit.Assert.*;
 @RunWith(JUnit4.class)
 public class MultiPartFileToPictureFileItemConverterTest {
 
+    private static final byte[] JPEG_CONTENT = new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 'O', 'K', 'L', 'A'};
+
     private static final Logger LOGGER = LoggerFactory.getLogger(MultiPartFileToPictureFileItemConverterTest.class);
 
-    private final MultiPartFileToPictureFileItemConverter converter = new MultiPartFileToPictureFileItemConverter();
+    private final MultiPartFileToPictureFileItemConverter converter = new MultiPartFileToPictureFileItemConverter(
+            new Sha256ChecksumCalculator()
+    );
 
     @Test
     public void shouldConvertMultiPartCorrectly() throws Exception {
@@ -35,7 +40,7 @@ public class MultiPartFileToPictureFileItemConverterTest {
                 "image",
                 "foo.jpg",
                 "image/jpeg",
-                new byte[]{'O', 'K', 'L', 'A', 'H', 'O', 'M', 'A'}
+                JPEG_CONTENT
         );
 
         String expectedHash = Hashing.sha256().hashBytes(multipartFile.getBytes()).toString();
@@ -47,7 +52,7 @@ public class MultiPartFileToPictureFileItemConverterTest {
         LOGGER.info("Expected picture: {}", expectedPicture);
 
         PictureFileItem expectedFileItem =
-                new PictureFileItem(expectedPicture, new byte[]{'O', 'K', 'L', 'A', 'H', 'O', 'M', 'A'});
+                new PictureFileItem(expectedPicture, JPEG_CONTENT);
 
         LOGGER.info("Expected file item: {}", expectedFileItem);
 
@@ -56,7 +61,7 @@ public class MultiPartFileToPictureFileItemConverterTest {
 
         assertNotNull(actualFileItem);
         assertArrayEquals(
-                "Content not equal", expectedFileItem.getFileContent(), actualFileItem.getFileContent()
+                "Content not equal", contentOf(expectedFileItem), contentOf(actualFileItem)
         );
 
         assertEquals(
@@ -71,6 +76,12 @@ public class MultiPartFileToPictureFileItemConverterTest {
                 actualFileItem.getPictureItem().getMimeType()
         );
 
+        assertEquals(
+                "Content length not equal",
+                multipartFile.getSize(),
+                actualFileItem.getContentLength()
+        );
+
     }
 
 
@@ -93,4 +104,39 @@ public class MultiPartFileToPictureFileItemConverterTest {
                 new MockMultipartFile("image", "foo.txt", "text/plain", new byte[]{12});
         converter.convert(multipartFile);
     }
+
+    @Test(expected = UnsupportedMediaTypeException.class)
+    public void shouldRejectContentOfUnknownFormat() {
+        final MultipartFile multipartFile = new MockMultipartFile(
+                "image", "foo.jpg", "image/jpeg", new byte[]{'O', 'K', 'L', 'A', 'H', 'O', 'M', 'A'}
+        );
+        converter.convert(multipartFile);
+    }
+
+    @Test
+    public void shouldCorrectMislabeledMimeType() {
+        final byte[] pngContent = new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+        final MultipartFile multipartFile = new MockMultipartFile("image", "foo.jpg", "text/plain", pngContent);
+
+        PictureFileItem actualFileItem = converter.convert(multipartFile);
+
+        assertEquals("MIME type not detected", "image/png", actualFileItem.getPictureItem().getMimeType());
+        assertEquals("Content length not equal", pngContent.length, actualFileItem.getContentLength());
+        assertEquals(
+                "Checksum not equal",
+                Hashing.sha256().hashBytes(pngContent).toString(),
+                actualFileItem.getPictureItem().getChecksum()
+        );
+    }
+
+    @Test
+    public void shouldDetectMimeTypeOfShortFile() {
+        final MultipartFile multipartFile =
+                new MockMultipartFile("image", "foo.bmp", "image/jpeg", new byte[]{'B', 'M', 0});
+
+        PictureFileItem actualFileItem = converter.convert(multipartFile);
+
+        assertEquals("MIME type not detected", "image/bmp", actualFileItem.getPictureItem().getMimeType());
+        assertEquals("Content length not equal", 3, actualFileItem.getContentLength());
+    }
 }
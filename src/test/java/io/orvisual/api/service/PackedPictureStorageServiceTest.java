@@ -0,0 +1,279 @@
+package io.orvisual.api.service;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link PackedPictureStorageService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class PackedPictureStorageServiceTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path rootPath;
+    private PackedPictureStorageService storageService;
+
+    @Before
+    public void setUp() throws IOException {
+        this.rootPath = temporaryFolder.newFolder().toPath();
+        this.storageService = openStorage();
+    }
+
+    @After
+    public void tearDown() {
+        storageService.close();
+    }
+
+    @Test
+    public void shouldReadSavedPicture() throws IOException {
+        PictureFileItem fileItem = fileItemOf("OKLAHOMA".getBytes());
+
+        storageService.savePictureFileItem(fileItem);
+
+        assertArrayEquals("OKLAHOMA".getBytes(), contentOf(storageService.resolvePictureResource(fileItem.getPictureItem())));
+        assertArrayEquals("OKLAHOMA".getBytes(), transferredContentOf(fileItem.getPictureItem()));
+    }
+
+    @Test
+    public void shouldAppendPictureOnce() throws IOException {
+        PictureFileItem fileItem = fileItemOf("OKLAHOMA".getBytes());
+
+        storageService.savePictureFileItem(fileItem);
+        long segmentSize = totalSegmentsSize();
+        storageService.savePictureFileItem(fileItem);
+
+        assertEquals(segmentSize, totalSegmentsSize());
+    }
+
+    @Test(expected = PictureFileProcessingException.class)
+    public void shouldNotResolveDeletedPicture() {
+        PictureFileItem fileItem = fileItemOf("OKLAHOMA".getBytes());
+        storageService.savePictureFileItem(fileItem);
+
+        storageService.deletePictureFile(fileItem.getPictureItem());
+
+        storageService.resolvePictureResource(fileItem.getPictureItem());
+    }
+
+    @Test
+    public void shouldRestoreIndexAfterReopening() throws IOException {
+        PictureFileItem savedItem = fileItemOf("WHERE THE WIND".getBytes());
+        PictureFileItem deletedItem = fileItemOf("COMES SWEEPING".getBytes());
+        storageService.savePictureFileItem(savedItem);
+        storageService.savePictureFileItem(deletedItem);
+        storageService.deletePictureFile(deletedItem.getPictureItem());
+
+        storageService.close();
+        storageService = openStorage();
+
+        assertArrayEquals("WHERE THE WIND".getBytes(), contentOf(storageService.resolvePictureResource(savedItem.getPictureItem())));
+        assertNotFound(deletedItem.getPictureItem());
+    }
+
+    @Test
+    public void shouldReplaySegmentsWithoutIndexAndSkipTornRecord() throws IOException {
+        PictureFileItem savedItem = fileItemOf("DOWN THE PLAIN".getBytes());
+        storageService.savePictureFileItem(savedItem);
+        storageService.close();
+
+        Files.delete(rootPath.resolve("index.dat"));
+        Path segmentPath = segmentPaths()[0];
+        long validSize = Files.size(segmentPath);
+        // record of other picture, which content has not been written completely
+        PictureFileItem tornItem = fileItemOf("AND THE WAVING WHEAT".getBytes());
+        byte[] tornRecord = recordOf(tornItem.getPictureItem().getChecksum(), "AND THE".getBytes(), 20);
+        Files.write(segmentPath, tornRecord, StandardOpenOption.APPEND);
+
+        storageService = openStorage();
+
+        assertEquals(validSize, Files.size(segmentPath));
+        assertArrayEquals("DOWN THE PLAIN".getBytes(), contentOf(storageService.resolvePictureResource(savedItem.getPictureItem())));
+        assertNotFound(tornItem.getPictureItem());
+    }
+
+    @Test
+    public void shouldCompactSegmentWithDeletedPictures() throws IOException {
+        PictureFileItem keptItem = fileItemOf(new byte[500]);
+        storageService.savePictureFileItem(keptItem);
+        for (int i = 1; i <= 3; i++) {
+            PictureFileItem deletedItem = fileItemOf(new byte[600 + i]);
+            storageService.savePictureFileItem(deletedItem);
+            storageService.deletePictureFile(deletedItem.getPictureItem());
+        }
+        Path firstSegmentPath = segmentPaths()[0];
+        storageService.savePictureFileItem(fileItemOf(new byte[SEGMENT_SIZE]));
+
+        Resource openedResource = storageService.resolvePictureResource(keptItem.getPictureItem());
+        storageService.compact();
+
+        assertTrue("Segment deleted while resource is open", Files.exists(firstSegmentPath));
+        assertArrayEquals(new byte[500], contentOf(openedResource));
+        assertFalse("Compacted segment not deleted", Files.exists(firstSegmentPath));
+        assertArrayEquals(new byte[500], contentOf(storageService.resolvePictureResource(keptItem.getPictureItem())));
+
+        storageService.close();
+        storageService = openStorage();
+        assertArrayEquals(new byte[500], contentOf(storageService.resolvePictureResource(keptItem.getPictureItem())));
+    }
+
+    @Test
+    public void shouldReplayRecordsAfterRecordWithUnwrittenContent() throws IOException {
+        PictureFileItem savedItem = fileItemOf("OKLAHOMA".getBytes());
+        storageService.savePictureFileItem(savedItem);
+        storageService.close();
+
+        Files.delete(rootPath.resolve("index.dat"));
+        Path segmentPath = segmentPaths()[0];
+        // record reserved before crash, which header is written, but content is not
+        PictureFileItem unwrittenItem = fileItemOf("AND THE WAVING WHEAT".getBytes());
+        byte[] unwrittenRecord = recordOf(unwrittenItem.getPictureItem().getChecksum(), new byte[20], 20);
+        PictureFileItem laterItem = fileItemOf("CAN SURE SMELL SWEET".getBytes());
+        byte[] laterRecord = recordOf(
+                laterItem.getPictureItem().getChecksum(), "CAN SURE SMELL SWEET".getBytes(), 20
+        );
+        Files.write(segmentPath, unwrittenRecord, StandardOpenOption.APPEND);
+        Files.write(segmentPath, laterRecord, StandardOpenOption.APPEND);
+        long segmentSize = Files.size(segmentPath);
+
+        storageService = openStorage();
+
+        assertEquals(segmentSize, Files.size(segmentPath));
+        assertNotFound(unwrittenItem.getPictureItem());
+        assertArrayEquals(
+                "CAN SURE SMELL SWEET".getBytes(),
+                contentOf(storageService.resolvePictureResource(laterItem.getPictureItem()))
+        );
+    }
+
+    @Test
+    public void shouldNotRestoreDeletedPictureAfterCompactionAndReplay() throws IOException {
+        PictureFileItem deletedItem = fileItemOf(new byte[100]);
+        PictureFileItem keptItem = fileItemOf(new byte[3000]);
+        PictureFileItem otherDeletedItem = fileItemOf(new byte[1500]);
+        storageService.savePictureFileItem(deletedItem);
+        storageService.savePictureFileItem(keptItem);
+        storageService.savePictureFileItem(otherDeletedItem);
+        // tombstones are appended to the second segment, first one still contains deleted picture
+        storageService.deletePictureFile(deletedItem.getPictureItem());
+        storageService.deletePictureFile(otherDeletedItem.getPictureItem());
+        Path[] pathsBeforeCompaction = segmentPaths();
+        assertEquals(2, pathsBeforeCompaction.length);
+        storageService.savePictureFileItem(fileItemOf(new byte[SEGMENT_SIZE]));
+
+        storageService.compact();
+        assertFalse("Compacted segment not deleted", Files.exists(pathsBeforeCompaction[1]));
+        assertTrue("Segment with live picture deleted", Files.exists(pathsBeforeCompaction[0]));
+
+        storageService.close();
+        Files.delete(rootPath.resolve("index.dat"));
+        storageService = openStorage();
+
+        assertNotFound(deletedItem.getPictureItem());
+        assertNotFound(otherDeletedItem.getPictureItem());
+        assertArrayEquals(new byte[3000], contentOf(storageService.resolvePictureResource(keptItem.getPictureItem())));
+    }
+
+    @Test(expected = PictureFileProcessingException.class)
+    public void shouldNotResolvePictureAfterClose() {
+        PictureFileItem fileItem = fileItemOf("OKLAHOMA".getBytes());
+        storageService.savePictureFileItem(fileItem);
+        storageService.close();
+
+        try {
+            storageService.resolvePictureResource(fileItem.getPictureItem());
+        } finally {
+            storageService = openStorage();
+        }
+    }
+
+    private PackedPictureStorageService openStorage() {
+        return new PackedPictureStorageService(rootPath, SEGMENT_SIZE, 0.5, Duration.ofHours(1));
+    }
+
+    private void assertNotFound(Picture picture) {
+        try {
+            storageService.resolvePictureResource(picture);
+            fail("Picture must not be found");
+        } catch (PictureFileProcessingException exc) {
+            // expected
+        }
+    }
+
+    private byte[] transferredContentOf(Picture picture) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (PackedPictureResource resource = (PackedPictureResource) storageService.resolvePictureResource(picture)) {
+            resource.transferTo(0, resource.contentLength(), Channels.newChannel(outputStream));
+        }
+        return outputStream.toByteArray();
+    }
+
+    private Path[] segmentPaths() throws IOException {
+        try (Stream<Path> paths = Files.list(rootPath)) {
+            return paths.filter(path -> path.getFileName().toString().startsWith("segment-"))
+                    .sorted()
+                    .toArray(Path[]::new);
+        }
+    }
+
+    private long totalSegmentsSize() throws IOException {
+        long size = 0;
+        for (Path path : segmentPaths()) {
+            size += Files.size(path);
+        }
+        return size;
+    }
+
+    private static byte[] recordOf(String checksum, byte[] content, long declaredLength) {
+        return ByteBuffer.allocate(4 + 1 + 2 + checksum.length() + 8 + content.length)
+                .putInt(0x4F525650)
+                .put((byte) 1)
+                .putShort((short) checksum.length())
+                .put(checksum.getBytes())
+                .putLong(declaredLength)
+                .put(content)
+                .array();
+    }
+
+    private static byte[] contentOf(Resource resource) throws IOException {
+        try (InputStream stream = resource.getInputStream()) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+
+    private static PictureFileItem fileItemOf(byte[] content) {
+        return new PictureFileItem(
+                new Picture(Hashing.sha256().hashBytes(content).toString(), MediaType.IMAGE_JPEG_VALUE, Instant.now()),
+                content
+        );
+    }
+}
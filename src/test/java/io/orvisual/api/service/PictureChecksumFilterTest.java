@@ -0,0 +1,142 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.orvisual.api.repository.PictureRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link PictureChecksumFilter}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PictureChecksumFilterTest {
+
+    private static final String UNKNOWN_CHECKSUM = "ffff";
+
+    @Mock
+    private PictureRepository pictureRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PictureChecksumFilter checksumFilter;
+
+    @Before
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @After
+    public void tearDown() {
+        if (checksumFilter != null)
+            checksumFilter.close();
+    }
+
+    @Test
+    public void shouldRejectChecksumsNotScanned() throws InterruptedException {
+        when(pictureRepository.findChecksumsAfter(eq(""), any())).thenReturn(Arrays.asList("0a0a", "0b0b"));
+
+        createFilter();
+        awaitBuild();
+
+        assertTrue(checksumFilter.mightContain("0a0a"));
+        assertTrue(checksumFilter.mightContain("0b0b"));
+        assertFalse(checksumFilter.mightContain("0c0c"));
+        assertEquals(1.0, meterRegistry.get("orvisual.checksum.filter.misses").counter().count(), 0.0);
+    }
+
+    @Test
+    public void shouldAllowEveryChecksumUntilBuilt() throws InterruptedException {
+        final CountDownLatch scanStarted = new CountDownLatch(1);
+        final CountDownLatch scanAllowed = new CountDownLatch(1);
+        when(pictureRepository.count()).thenAnswer(invocation -> {
+            scanStarted.countDown();
+            assertTrue(scanAllowed.await(5, TimeUnit.SECONDS));
+            return 0L;
+        });
+
+        createFilter();
+
+        assertTrue("Scan not started", scanStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(checksumFilter.mightContain(UNKNOWN_CHECKSUM));
+        scanAllowed.countDown();
+    }
+
+    @Test
+    public void shouldKeepChecksumPutWhileRebuild() throws InterruptedException {
+        final CountDownLatch filterCreated = new CountDownLatch(1);
+        when(pictureRepository.findChecksumsAfter(eq(""), any())).thenAnswer(invocation -> {
+            // picture inserted after scan passed it's checksum
+            assertTrue(filterCreated.await(5, TimeUnit.SECONDS));
+            checksumFilter.put("0000");
+            return Collections.singletonList("0a0a");
+        });
+
+        createFilter();
+        filterCreated.countDown();
+        awaitBuild();
+
+        assertTrue(checksumFilter.mightContain("0000"));
+        assertTrue(checksumFilter.mightContain("0a0a"));
+    }
+
+    @Test
+    public void shouldPutInsertedChecksum() throws InterruptedException {
+        createFilter();
+        awaitBuild();
+
+        checksumFilter.put("0a0a");
+
+        assertTrue(checksumFilter.mightContain("0a0a"));
+    }
+
+    @Test
+    public void shouldPutChecksumsUploadedSinceBuildWhenRefreshed() throws InterruptedException {
+        final Instant beforeBuild = Instant.now();
+        createFilter();
+        awaitBuild();
+        // picture uploaded by another node
+        when(pictureRepository.findChecksumsLoadedAfter(any())).thenReturn(Collections.singletonList("0c0c"));
+        assertFalse(checksumFilter.mightContain("0c0c"));
+
+        checksumFilter.refresh();
+
+        assertTrue(checksumFilter.mightContain("0c0c"));
+        final ArgumentCaptor<Instant> loadedAfter = ArgumentCaptor.forClass(Instant.class);
+        verify(pictureRepository).findChecksumsLoadedAfter(loadedAfter.capture());
+        assertFalse(loadedAfter.getValue().isAfter(beforeBuild));
+    }
+
+    private void createFilter() {
+        this.checksumFilter = new PictureChecksumFilter(
+                pictureRepository, 1000, 0.001, Duration.ofHours(1), Duration.ofHours(1), meterRegistry
+        );
+    }
+
+    private void awaitBuild() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("orvisual.checksum.filter.fpp").gauge().value() >= 1.0) {
+            assertTrue("Filter not built", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
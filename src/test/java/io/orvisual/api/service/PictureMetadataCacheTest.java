@@ -0,0 +1,173 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.orvisual.api.TestHelper;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.repository.PictureRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link PictureMetadataCache}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PictureMetadataCacheTest {
+
+    private final Supplier<Picture> pictureSupplier = TestHelper.randomPictureSupplier();
+
+    @Mock
+    private PictureRepository pictureRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PictureMetadataCache metadataCache;
+
+    @Before
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.metadataCache = new PictureMetadataCache(
+                pictureRepository, 100, Duration.ofHours(1), Duration.ofMillis(200), meterRegistry
+        );
+    }
+
+    @Test
+    public void shouldQueryRepositoryOnceForFoundPicture() {
+        Picture picture = pictureSupplier.get();
+        when(pictureRepository.findById(picture.getChecksum())).thenReturn(Optional.of(picture));
+
+        assertEquals(Optional.of(picture), metadataCache.findPicture(picture.getChecksum()));
+        assertEquals(Optional.of(picture), metadataCache.findPicture(picture.getChecksum()));
+
+        verify(pictureRepository, times(1)).findById(picture.getChecksum());
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tags("cache", PictureMetadataCache.CACHE_NAME, "result", "hit").functionCounter().count(), 0.0);
+    }
+
+    @Test
+    public void shouldCacheAbsenceForShortTime() throws InterruptedException {
+        Picture picture = pictureSupplier.get();
+        when(pictureRepository.findById(picture.getChecksum()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(picture));
+
+        assertFalse(metadataCache.findPicture(picture.getChecksum()).isPresent());
+        assertFalse(metadataCache.findPicture(picture.getChecksum()).isPresent());
+        verify(pictureRepository, times(1)).findById(picture.getChecksum());
+
+        Thread.sleep(300);
+
+        assertEquals(Optional.of(picture), metadataCache.findPicture(picture.getChecksum()));
+        verify(pictureRepository, times(2)).findById(picture.getChecksum());
+    }
+
+    @Test
+    public void shouldExpireFoundPicture() throws InterruptedException {
+        PictureMetadataCache expiringCache = new PictureMetadataCache(
+                pictureRepository, 100, Duration.ofMillis(200), Duration.ofMillis(200), meterRegistry
+        );
+        Picture picture = pictureSupplier.get();
+        when(pictureRepository.findById(picture.getChecksum()))
+                .thenReturn(Optional.of(picture))
+                .thenReturn(Optional.empty());
+
+        assertTrue(expiringCache.findPicture(picture.getChecksum()).isPresent());
+
+        Thread.sleep(300);
+
+        // picture deleted by another node
+        assertFalse(expiringCache.findPicture(picture.getChecksum()).isPresent());
+        verify(pictureRepository, times(2)).findById(picture.getChecksum());
+    }
+
+    @Test
+    public void shouldQueryRepositoryAfterInvalidation() {
+        Picture picture = pictureSupplier.get();
+        when(pictureRepository.findById(picture.getChecksum()))
+                .thenReturn(Optional.of(picture))
+                .thenReturn(Optional.empty());
+
+        assertTrue(metadataCache.findPicture(picture.getChecksum()).isPresent());
+        metadataCache.invalidate(picture.getChecksum());
+
+        assertFalse(metadataCache.findPicture(picture.getChecksum()).isPresent());
+        verify(pictureRepository, times(2)).findById(picture.getChecksum());
+    }
+
+    @Test
+    public void shouldNotCachePictureFoundBeforeInvalidation() {
+        Picture picture = pictureSupplier.get();
+        when(pictureRepository.findById(picture.getChecksum()))
+                .thenAnswer(invocation -> {
+                    // picture deleted concurrently, while it is being found
+                    metadataCache.invalidate(picture.getChecksum());
+                    return Optional.of(picture);
+                })
+                .thenReturn(Optional.empty());
+
+        assertTrue(metadataCache.findPicture(picture.getChecksum()).isPresent());
+
+        assertFalse(metadataCache.findPicture(picture.getChecksum()).isPresent());
+        verify(pictureRepository, times(2)).findById(picture.getChecksum());
+    }
+
+    @Test
+    public void shouldCachePictureFoundWhileOtherChecksumInvalidated() {
+        Picture picture = pictureSupplier.get();
+        Picture otherPicture = pictureSupplier.get();
+        when(pictureRepository.findById(picture.getChecksum()))
+                .thenAnswer(invocation -> {
+                    // other picture uploaded concurrently
+                    metadataCache.invalidate(otherPicture.getChecksum());
+                    return Optional.of(picture);
+                });
+
+        assertTrue(metadataCache.findPicture(picture.getChecksum()).isPresent());
+        assertTrue(metadataCache.findPicture(picture.getChecksum()).isPresent());
+
+        verify(pictureRepository, times(1)).findById(picture.getChecksum());
+    }
+
+    @Test
+    public void shouldNotLookupFilteredChecksum() {
+        PictureChecksumFilter checksumFilter = mock(PictureChecksumFilter.class);
+        PictureMetadataCache filteredCache = new PictureMetadataCache(
+                pictureRepository, checksumFilter, 100, Duration.ofHours(1), Duration.ofMillis(200), meterRegistry
+        );
+        Picture picture = pictureSupplier.get();
+
+        assertFalse(filteredCache.findPicture(picture.getChecksum()).isPresent());
+        verify(pictureRepository, never()).findById(any());
+
+        filteredCache.invalidate(picture.getChecksum());
+        verify(checksumFilter).put(picture.getChecksum());
+    }
+
+    @Test
+    public void shouldLookupChecksumPassedFilter() {
+        PictureChecksumFilter checksumFilter = mock(PictureChecksumFilter.class);
+        PictureMetadataCache filteredCache = new PictureMetadataCache(
+                pictureRepository, checksumFilter, 100, Duration.ofHours(1), Duration.ofMillis(200), meterRegistry
+        );
+        Picture picture = pictureSupplier.get();
+        when(checksumFilter.mightContain(picture.getChecksum())).thenReturn(true);
+        when(pictureRepository.findById(picture.getChecksum())).thenReturn(Optional.of(picture));
+
+        assertEquals(Optional.of(picture), filteredCache.findPicture(picture.getChecksum()));
+        assertEquals(Optional.of(picture), filteredCache.findPicture(picture.getChecksum()));
+        verify(pictureRepository, times(1)).findById(picture.getChecksum());
+    }
+}
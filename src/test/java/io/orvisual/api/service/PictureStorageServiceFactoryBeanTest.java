@@ -15,7 +15,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
 
 /**
  * <p>
@@ -57,6 +59,52 @@ public class PictureStorageServiceFactoryBeanTest {
         assertNotNull(applicationContext.getBean(PictureStorageService.class));
     }
 
+    @Test
+    public void shouldCreateWriteBehindPictureStorageService() throws IOException {
+        this.environmentVariables.set("GALLERY_DIR", this.galleryPath.toString());
+        this.environmentVariables.set("STAGING_DIR", temporaryFolder.newFolder().toPath().resolve("staging").toString());
+        Files.createDirectory(galleryPath);
+
+        registerFactoryBeanAndRefresh();
+        assertThat(
+                applicationContext.getBean(PictureStorageService.class),
+                instanceOf(WriteBehindPictureStorageService.class)
+        );
+    }
+
+    @Test
+    public void shouldCreateCachingPictureStorageService() throws IOException {
+        this.environmentVariables.set("GALLERY_DIR", this.galleryPath.toString());
+        this.environmentVariables.set("PICTURE_CACHE_SIZE", "1048576");
+        Files.createDirectory(galleryPath);
+
+        registerFactoryBeanAndRefresh();
+        assertThat(
+                applicationContext.getBean(PictureStorageService.class),
+                instanceOf(CachingPictureStorageService.class)
+        );
+    }
+
+    @Test
+    public void shouldCreatePackedPictureStorageService() throws IOException {
+        this.environmentVariables.set("PACKED_GALLERY_DIR", temporaryFolder.newFolder().toPath().toString());
+
+        registerFactoryBeanAndRefresh();
+        assertThat(
+                applicationContext.getBean(PictureStorageService.class),
+                instanceOf(PackedPictureStorageService.class)
+        );
+    }
+
+    @Test(expected = BeanCreationException.class)
+    public void shouldRequirePictureRepositoryForTieredStorage() throws IOException {
+        this.environmentVariables.set("GALLERY_DIR", this.galleryPath.toString());
+        this.environmentVariables.set("HOT_GALLERY_DIR", temporaryFolder.newFolder().toPath().toString());
+        Files.createDirectory(galleryPath);
+
+        registerFactoryBeanAndRefresh();
+    }
+
     @Test(expected = BeanCreationException.class)
     public void shouldRejectFileAsGallery() throws IOException {
         
@@ -65,6 +113,15 @@ public class PictureStorageServiceFactoryBeanTest {
         registerFactoryBeanAndRefresh();
     }
 
+    @Test(expected = BeanCreationException.class)
+    public void shouldRejectMalformedGallerySharding() throws IOException {
+        this.environmentVariables.set("GALLERY_DIR", this.galleryPath.toString());
+        this.environmentVariables.set("GALLERY_SHARDING", "2/x");
+        Files.createDirectory(galleryPath);
+
+        registerFactoryBeanAndRefresh();
+    }
+
     @Test(expected = BeanCreationException.class)
     public void shouldDetectNotExistentGalleryDirectory() {
 
@@ -83,6 +140,21 @@ public class PictureStorageServiceFactoryBeanTest {
         assertNotNull(applicationContext.getBean(PictureStorageService.class));
     }
 
+    @Test
+    public void shouldCreateDiskCachingPictureStorageService() throws IOException {
+        environmentVariables.set("AWS_ACCESS_KEY_ID", "id");
+        environmentVariables.set("AWS_SECRET_ACCESS_KEY", "key");
+        environmentVariables.set("AWS_REGION", Regions.US_EAST_1.getName());
+        environmentVariables.set("AWS_BUCKET_NAME", "test");
+        environmentVariables.set("PICTURE_DISK_CACHE_DIR", temporaryFolder.newFolder().toPath().resolve("cache").toString());
+
+        registerFactoryBeanAndRefresh();
+        assertThat(
+                applicationContext.getBean(PictureStorageService.class),
+                instanceOf(DiskCachingPictureStorageService.class)
+        );
+    }
+
     @Test(expected = BeanCreationException.class)
     public void shouldDetectAbsenceOfAWSKey() {
         environmentVariables.set("AWS_SECRET_ACCESS_KEY", "key");
@@ -0,0 +1,218 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.orvisual.api.TestHelper;
+import io.orvisual.api.model.PictureFileItem;
+import io.orvisual.api.repository.PictureRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link PictureUploadService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PictureUploadServiceTest {
+
+    private final Supplier<PictureFileItem> fileItemSupplier = TestHelper.uniformPictureItemSupplier();
+
+    @Mock
+    private PictureStorageService storageService;
+
+    @Mock
+    private PictureRepository pictureRepository;
+
+    private PictureUploadService uploadService;
+
+    @Before
+    public void setUp() {
+        // absence of picture is not cached, so every concurrent upload queries repository
+        this.uploadService = new PictureUploadService(
+                storageService,
+                pictureRepository,
+                new PictureMetadataCache(
+                        pictureRepository, 100, Duration.ofHours(1), Duration.ZERO, new SimpleMeterRegistry()
+                )
+        );
+    }
+
+    @Test
+    public void shouldNotSaveExistedPicture() {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        when(pictureRepository.findById(fileItem.getPictureItem().getChecksum()))
+                .thenReturn(Optional.of(fileItem.getPictureItem()));
+
+        PictureUploadResult result = uploadService.savePictureFileItem(fileItem);
+
+        assertFalse("Picture must not be created", result.isCreated());
+        assertEquals(fileItem.getPictureItem(), result.getPicture());
+        verify(storageService, never()).savePictureFileItem(any());
+        verify(pictureRepository, never()).insertIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    public void shouldSaveNewPicture() {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        when(pictureRepository.insertIfAbsent(any(), any(), any())).thenReturn(1);
+
+        PictureUploadResult result = uploadService.savePictureFileItem(fileItem);
+
+        assertTrue("Picture must be created", result.isCreated());
+        verify(storageService).savePictureFileItem(fileItem);
+        verify(pictureRepository).insertIfAbsent(
+                fileItem.getPictureItem().getChecksum(),
+                fileItem.getPictureItem().getMimeType(),
+                fileItem.getPictureItem().getLoadedAt()
+        );
+    }
+
+    @Test
+    public void shouldTreatKeyViolationAsExistedPicture() {
+        PictureFileItem fileItem = fileItemSupplier.get();
+        when(pictureRepository.insertIfAbsent(any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("test"));
+
+        PictureUploadResult result = uploadService.savePictureFileItem(fileItem);
+
+        assertFalse("Picture must not be created", result.isCreated());
+        verify(pictureRepository, times(2)).findById(fileItem.getPictureItem().getChecksum());
+    }
+
+    @Test
+    public void shouldWriteFileOnceForConcurrentUploads() throws Exception {
+        final int uploadsCount = 4;
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        final CyclicBarrier uploadsStart = new CyclicBarrier(uploadsCount);
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch writeAllowed = new CountDownLatch(1);
+        final AtomicInteger writesCount = new AtomicInteger();
+        final AtomicReference<Thread> writerThread = new AtomicReference<>();
+
+        when(pictureRepository.insertIfAbsent(any(), any(), any())).thenReturn(1);
+        doAnswer(invocation -> {
+            writesCount.incrementAndGet();
+            writerThread.compareAndSet(null, Thread.currentThread());
+            writeStarted.countDown();
+            assertTrue("Write not allowed", writeAllowed.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(storageService).savePictureFileItem(any());
+
+        List<FutureTask<PictureUploadResult>> uploads = new ArrayList<>();
+        List<Thread> uploadThreads = new ArrayList<>();
+        for (int i = 0; i < uploadsCount; i++) {
+            FutureTask<PictureUploadResult> upload = new FutureTask<>(() -> {
+                uploadsStart.await(5, TimeUnit.SECONDS);
+                return uploadService.savePictureFileItem(fileItem);
+            });
+            Thread uploadThread = new Thread(upload);
+            uploadThread.start();
+            uploads.add(upload);
+            uploadThreads.add(uploadThread);
+        }
+
+        try {
+            assertTrue("Write not started", writeStarted.await(5, TimeUnit.SECONDS));
+
+            // all uploads have passed the barrier, every other upload parks, when it joins to in-flight upload
+            long deadline = System.currentTimeMillis() + 5000;
+            for (Thread uploadThread : uploadThreads) {
+                if (uploadThread == writerThread.get())
+                    continue;
+                while (uploadThread.getState() != Thread.State.WAITING) {
+                    assertTrue("Upload not joined", System.currentTimeMillis() < deadline);
+                    Thread.sleep(10);
+                }
+            }
+            writeAllowed.countDown();
+
+            int createdCount = 0;
+            for (FutureTask<PictureUploadResult> upload : uploads) {
+                if (upload.get(5, TimeUnit.SECONDS).isCreated())
+                    createdCount++;
+            }
+            assertEquals("Count of created pictures", 1, createdCount);
+        } finally {
+            writeAllowed.countDown();
+            uploadThreads.forEach(Thread::interrupt);
+        }
+
+        assertEquals("Count of file writes", 1, writesCount.get());
+        verify(pictureRepository, times(1)).insertIfAbsent(
+                eq(fileItem.getPictureItem().getChecksum()), any(), any()
+        );
+    }
+
+    @Test
+    public void shouldPropagateErrorToConcurrentUploads() throws Exception {
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch writeAllowed = new CountDownLatch(1);
+
+        doAnswer(invocation -> {
+            writeStarted.countDown();
+            assertTrue("Write not allowed", writeAllowed.await(5, TimeUnit.SECONDS));
+            throw new PictureFileProcessingException("test");
+        }).when(storageService).savePictureFileItem(any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<PictureUploadResult> first = executor.submit(() -> uploadService.savePictureFileItem(fileItem));
+            assertTrue("Write not started", writeStarted.await(5, TimeUnit.SECONDS));
+            FutureTask<PictureUploadResult> second = new FutureTask<>(() -> uploadService.savePictureFileItem(fileItem));
+            Thread secondThread = new Thread(second);
+            secondThread.start();
+
+            // second upload parks, when it joins to in-flight upload
+            long deadline = System.currentTimeMillis() + 5000;
+            while (secondThread.getState() != Thread.State.WAITING) {
+                assertTrue("Second upload not joined", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            writeAllowed.countDown();
+
+            assertUploadFailed(first);
+            assertUploadFailed(second);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(storageService, times(1)).savePictureFileItem(any());
+    }
+
+    private static void assertUploadFailed(Future<PictureUploadResult> upload) throws Exception {
+        try {
+            upload.get(5, TimeUnit.SECONDS);
+            fail("Upload must fail");
+        } catch (ExecutionException exc) {
+            assertTrue(exc.getCause() instanceof PictureFileProcessingException);
+        }
+    }
+}
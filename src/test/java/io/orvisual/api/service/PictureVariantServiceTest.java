@@ -0,0 +1,163 @@
+package io.orvisual.api.service;
+
+import io.orvisual.api.model.Picture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link PictureVariantService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PictureVariantServiceTest {
+
+    private static final String CHECKSUM = "0a1b2c3d4e5f60718293a4b5c6d7e8f90a1b2c3d4e5f60718293a4b5c6d7e8f9";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PictureStorageService storageService;
+
+    private Path variantsPath;
+    private PictureVariantService variantService;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        this.variantsPath = temporaryFolder.newFolder().toPath().resolve("variants");
+        this.variantService = new PictureVariantService(
+                storageService, variantsPath, new HashSet<>(Arrays.asList(64, 256)), 1_000_000, 2, Duration.ofSeconds(5)
+        );
+        this.executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldResizePictureOnce() throws IOException {
+        Picture picture = new Picture(CHECKSUM, MediaType.IMAGE_JPEG_VALUE, Instant.now());
+        when(storageService.resolvePictureResource(picture)).thenReturn(imageResource(640, 480, "jpg"));
+
+        PictureVariant variant = variantService.resolveVariant(picture, 64);
+        BufferedImage image = readImage(variant);
+        assertEquals(64, image.getWidth());
+        assertEquals(48, image.getHeight());
+        assertEquals(MediaType.IMAGE_JPEG_VALUE, variant.getMimeType());
+
+        PictureVariant storedVariant = variantService.resolveVariant(picture, 64);
+        assertEquals(variant.getResource().getFile(), storedVariant.getResource().getFile());
+        verify(storageService, times(1)).resolvePictureResource(picture);
+    }
+
+    @Test
+    public void shouldNotEnlargeNarrowPicture() throws IOException {
+        Picture picture = new Picture(CHECKSUM, "image/bmp", Instant.now());
+        when(storageService.resolvePictureResource(picture)).thenReturn(imageResource(100, 50, "bmp"));
+
+        PictureVariant variant = variantService.resolveVariant(picture, 256);
+
+        BufferedImage image = readImage(variant);
+        assertEquals(100, image.getWidth());
+        assertEquals(50, image.getHeight());
+        assertEquals(MediaType.IMAGE_PNG_VALUE, variant.getMimeType());
+    }
+
+    @Test
+    public void shouldResizeConcurrentlyRequestedVariantOnce() throws Exception {
+        Picture picture = new Picture(CHECKSUM, MediaType.IMAGE_PNG_VALUE, Instant.now());
+        ByteArrayResource imageResource = imageResource(320, 320, "png");
+        CountDownLatch resizeStarted = new CountDownLatch(1);
+        CountDownLatch storageReleased = new CountDownLatch(1);
+        when(storageService.resolvePictureResource(picture)).thenAnswer(invocation -> {
+            resizeStarted.countDown();
+            storageReleased.await();
+            return imageResource;
+        });
+
+        Future<PictureVariant> first = executor.submit(() -> variantService.resolveVariant(picture, 64));
+        assertTrue(resizeStarted.await(5, TimeUnit.SECONDS));
+        Future<PictureVariant> second = executor.submit(() -> variantService.resolveVariant(picture, 64));
+        Thread.sleep(100);
+        storageReleased.countDown();
+
+        assertEquals(
+                first.get(5, TimeUnit.SECONDS).getResource().getFile(),
+                second.get(5, TimeUnit.SECONDS).getResource().getFile()
+        );
+        verify(storageService, times(1)).resolvePictureResource(picture);
+    }
+
+    @Test(expected = UnprocessableImageException.class)
+    public void shouldRejectImageWithTooManyPixels() throws IOException {
+        Picture picture = new Picture(CHECKSUM, MediaType.IMAGE_PNG_VALUE, Instant.now());
+        when(storageService.resolvePictureResource(picture)).thenReturn(imageResource(2000, 1000, "png"));
+
+        variantService.resolveVariant(picture, 64);
+    }
+
+    @Test(expected = UnsupportedVariantException.class)
+    public void shouldRejectNotAllowedWidth() {
+        variantService.resolveVariant(new Picture(CHECKSUM, MediaType.IMAGE_PNG_VALUE, Instant.now()), 100);
+    }
+
+    @Test
+    public void shouldDeleteVariants() throws IOException {
+        Picture picture = new Picture(CHECKSUM, MediaType.IMAGE_PNG_VALUE, Instant.now());
+        when(storageService.resolvePictureResource(picture)).thenAnswer(invocation -> imageResource(320, 320, "png"));
+        Path firstVariantPath = variantService.resolveVariant(picture, 64).getResource().getFile().toPath();
+        Path secondVariantPath = variantService.resolveVariant(picture, 256).getResource().getFile().toPath();
+
+        variantService.deleteVariants(picture);
+
+        assertFalse(Files.exists(firstVariantPath));
+        assertFalse(Files.exists(secondVariantPath));
+    }
+
+    private static ByteArrayResource imageResource(int width, int height, String formatName) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, formatName, outputStream));
+        return new ByteArrayResource(outputStream.toByteArray());
+    }
+
+    private static BufferedImage readImage(PictureVariant variant) throws IOException {
+        try (InputStream stream = variant.getResource().getInputStream()) {
+            return ImageIO.read(stream);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link RemoteReadExecutor}
+ *
+ * @author Artemis A. Sirosh
+ */
+public class RemoteReadExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RemoteReadExecutor readExecutor;
+
+    @After
+    public void tearDown() {
+        readExecutor.close();
+    }
+
+    @Test
+    public void shouldRetryBackendFailures() {
+        readExecutor = new RemoteReadExecutor("test", false, 4, 2, 5, Duration.ofSeconds(30), meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+        Content expectedContent = new Content();
+
+        Content content = readExecutor.execute(() -> {
+            if (calls.incrementAndGet() < 3)
+                throw new IllegalStateException("test");
+            return expectedContent;
+        }, exc -> true);
+
+        assertSame(expectedContent, content);
+        assertEquals("Calls", 3, calls.get());
+        assertEquals("Retries", 2, meterRegistry.get("orvisual.storage.retries").counter().count(), 0);
+    }
+
+    @Test
+    public void shouldNotRetryOtherFailures() {
+        readExecutor = new RemoteReadExecutor("test", false, 4, 2, 1, Duration.ofSeconds(30), meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        try {
+            readExecutor.execute(() -> {
+                calls.incrementAndGet();
+                throw new IllegalArgumentException("test");
+            }, exc -> false);
+            fail("Failure expected");
+        } catch (IllegalArgumentException exc) {
+            assertEquals("Calls", 1, calls.get());
+            assertEquals(CircuitBreaker.State.CLOSED, readExecutor.getCircuitState());
+        }
+    }
+
+    @Test
+    public void shouldRejectRequestsWhenCircuitOpen() {
+        readExecutor = new RemoteReadExecutor("test", false, 4, 1, 2, Duration.ofSeconds(30), meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        try {
+            readExecutor.execute(() -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("test");
+            }, exc -> true);
+            fail("Failure expected");
+        } catch (IllegalStateException exc) {
+            assertEquals(CircuitBreaker.State.OPEN, readExecutor.getCircuitState());
+        }
+
+        try {
+            readExecutor.execute(() -> {
+                calls.incrementAndGet();
+                return new Content();
+            }, exc -> true);
+            fail("Rejection expected");
+        } catch (StorageUnavailableException exc) {
+            assertEquals("Calls", 2, calls.get());
+            assertEquals(
+                    "Rejections", 1, meterRegistry.get("orvisual.storage.circuit.rejections").counter().count(), 0
+            );
+        }
+    }
+
+    @Test
+    public void shouldHedgeSlowRequest() throws InterruptedException {
+        readExecutor = new RemoteReadExecutor("test", true, 4, 0, 5, Duration.ofSeconds(30), meterRegistry);
+        // latencies of fast requests define delay of hedging
+        for (int i = 0; i < 64; i++) {
+            readExecutor.execute(Content::new, exc -> true).close();
+        }
+
+        CountDownLatch slowRequestLatch = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Content slowContent = new Content();
+        Content hedgedContent = new Content();
+
+        Content content = readExecutor.execute(() -> {
+            if (calls.incrementAndGet() > 1)
+                return hedgedContent;
+
+            try {
+                slowRequestLatch.await();
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            return slowContent;
+        }, exc -> true);
+        slowRequestLatch.countDown();
+
+        assertSame(hedgedContent, content);
+        assertEquals(
+                "Won hedges", 1, meterRegistry.get("orvisual.storage.hedges").tag("winner", "hedge").counter().count(), 0
+        );
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!slowContent.closed.get() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue("Result of slow request not closed", slowContent.closed.get());
+        assertFalse("Taken result closed", hedgedContent.closed.get());
+    }
+
+    @Test
+    public void shouldCancelLosingRequest() throws InterruptedException {
+        readExecutor = new RemoteReadExecutor("test", true, 4, 0, 5, Duration.ofSeconds(30), meterRegistry);
+        learnHedgeDelay();
+
+        CountDownLatch slowRequestInterrupted = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Content hedgedContent = new Content();
+
+        Content content = readExecutor.execute(() -> {
+            if (calls.incrementAndGet() > 1)
+                return hedgedContent;
+
+            try {
+                TimeUnit.SECONDS.sleep(10);
+            } catch (InterruptedException exc) {
+                slowRequestInterrupted.countDown();
+            }
+            return new Content();
+        }, exc -> true);
+
+        assertSame(hedgedContent, content);
+        assertTrue("Slow request not cancelled", slowRequestInterrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldNotHedgeWhenRequestThreadsBusy() {
+        readExecutor = new RemoteReadExecutor("test", true, 1, 0, 5, Duration.ofSeconds(30), meterRegistry);
+        learnHedgeDelay();
+
+        AtomicInteger calls = new AtomicInteger();
+        Content slowContent = new Content();
+
+        Content content = readExecutor.execute(() -> {
+            calls.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(200);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            return slowContent;
+        }, exc -> true);
+
+        assertSame(slowContent, content);
+        assertEquals("Request hedged", 1, calls.get());
+        assertEquals(
+                "Lost hedges",
+                0,
+                meterRegistry.get("orvisual.storage.hedges").tag("winner", "primary").counter().count(),
+                0
+        );
+    }
+
+    private void learnHedgeDelay() {
+        // latencies of fast requests define delay of hedging
+        for (int i = 0; i < 64; i++) {
+            readExecutor.execute(Content::new, exc -> true).close();
+        }
+    }
+
+    private static class Content implements Closeable {
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.orvisual.api.service;
+
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link Sha256ChecksumCalculator}, results compared with {@link Hashing#sha256()}.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class Sha256ChecksumCalculatorTest {
+
+    private final ChecksumCalculator calculator = new Sha256ChecksumCalculator();
+
+    @Test
+    public void shouldCalculateChecksumOfStream() throws IOException {
+        for (int length : new int[]{0, 1, 32 * 1024, 100_000}) {
+            final byte[] content = randomContent(length);
+
+            assertEquals(
+                    Hashing.sha256().hashBytes(content).toString(),
+                    calculator.calculate(new ByteArrayInputStream(content))
+            );
+        }
+    }
+
+    @Test
+    public void shouldCalculateChecksumOfBuffers() {
+        final byte[] content = randomContent(10_000);
+        final String expected = Hashing.sha256().hashBytes(content, 100, 9_000).toString();
+
+        final ByteBuffer heapBuffer = ByteBuffer.wrap(content, 100, 9_000);
+        assertEquals(expected, calculator.calculate(heapBuffer));
+        assertEquals(100, heapBuffer.position());
+
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(content.length);
+        directBuffer.put(content).position(100).limit(9_100);
+        assertEquals(expected, calculator.calculate(directBuffer));
+        assertEquals(100, directBuffer.position());
+    }
+
+    @Test
+    public void shouldReuseDigestForSequentialCalculations() throws IOException {
+        final byte[] content = randomContent(1_000);
+        final String expected = Hashing.sha256().hashBytes(content).toString();
+
+        assertEquals(expected, calculator.calculate(new ByteArrayInputStream(content)));
+        assertEquals(expected, calculator.calculate(ByteBuffer.wrap(content)));
+        assertEquals(expected, calculator.calculate(new ByteArrayInputStream(content)));
+    }
+
+    @Test
+    public void shouldEncodeDigestAsLowercaseHex() {
+        assertEquals("00ff7f80", calculator.encode(new byte[]{0, (byte) 0xFF, 0x7F, (byte) 0x80}));
+    }
+
+    private static byte[] randomContent(int length) {
+        final byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,283 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.orvisual.api.TestHelper;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import io.orvisual.api.repository.PictureRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link TieredPictureStorageService}
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TieredPictureStorageServiceTest {
+
+    private static final int PICTURE_SIZE = 64;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PictureRepository pictureRepository;
+
+    private FileSystemPictureStorageService hotStorage;
+    private FileSystemPictureStorageService coldStorage;
+    private TieredPictureStorageService storageService;
+    private final Supplier<Picture> pictureSupplier = TestHelper.randomPictureSupplier();
+
+    @Before
+    public void setUp() throws IOException {
+        this.hotStorage = new FileSystemPictureStorageService(temporaryFolder.newFolder().toPath());
+        this.coldStorage = new FileSystemPictureStorageService(temporaryFolder.newFolder().toPath());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (storageService != null)
+            storageService.close();
+    }
+
+    @Test
+    public void shouldSavePictureToHotTier() throws IOException {
+        storageService = createStorageService(10 * PICTURE_SIZE, 3);
+        PictureFileItem item = fileItemOf(pictureSupplier.get());
+
+        storageService.savePictureFileItem(item);
+
+        assertTrue("Picture not hot", storageService.isHot(item.getPictureItem().getChecksum()));
+        assertEquals("Hot tier size", PICTURE_SIZE, storageService.getHotSize());
+        assertTrue("Picture not on hot tier", hotStorage.resolvePictureResource(item.getPictureItem()).exists());
+        assertFalse("Picture on cold tier", coldStorage.resolvePictureResource(item.getPictureItem()).exists());
+        assertArrayEquals(TestHelper.contentOf(item), contentOf(item.getPictureItem()));
+    }
+
+    @Test
+    public void shouldSavePictureToColdTierWhenHotTierFull() throws IOException {
+        storageService = createStorageService(PICTURE_SIZE - 1, 3);
+        PictureFileItem item = fileItemOf(pictureSupplier.get());
+
+        storageService.savePictureFileItem(item);
+
+        assertFalse("Picture hot", storageService.isHot(item.getPictureItem().getChecksum()));
+        assertEquals("Hot tier size", 0, storageService.getHotSize());
+        assertTrue("Picture not on cold tier", coldStorage.resolvePictureResource(item.getPictureItem()).exists());
+        assertArrayEquals(TestHelper.contentOf(item), contentOf(item.getPictureItem()));
+    }
+
+    @Test
+    public void shouldDemoteColdPictures() throws Exception {
+        Picture picture = new Picture(pictureSupplier.get().getChecksum(), "image/jpeg", Instant.EPOCH);
+        PictureFileItem item = fileItemOf(picture);
+        // picture taken from hot tier on creation was not read since it's file was written
+        hotStorage.savePictureFileItem(item);
+        setFileTimes(hotStorage.resolvePictureResource(picture), Instant.EPOCH);
+        storageService = createStorageService(10 * PICTURE_SIZE, 3);
+        mockColdPictures(picture);
+
+        storageService.migrate();
+
+        assertFalse("Picture hot", storageService.isHot(picture.getChecksum()));
+        assertEquals("Hot tier size", 0, storageService.getHotSize());
+        awaitDeletion(hotStorage.resolvePictureResource(picture));
+        assertArrayEquals(TestHelper.contentOf(item), contentOf(picture));
+    }
+
+    @Test
+    public void shouldKeepRecentlyWrittenPicturesHotAfterRestart() throws IOException {
+        Picture picture = new Picture(pictureSupplier.get().getChecksum(), "image/jpeg", Instant.EPOCH);
+        hotStorage.savePictureFileItem(fileItemOf(picture));
+        storageService = createStorageService(10 * PICTURE_SIZE, 3);
+        when(pictureRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(picture));
+
+        storageService.migrate();
+
+        assertTrue("Picture not hot", storageService.isHot(picture.getChecksum()));
+        assertFalse("Picture on cold tier", coldStorage.resolvePictureResource(picture).exists());
+    }
+
+    @Test
+    public void shouldNotUploadPictureFoundOnColdTierAfterRestart() throws Exception {
+        Picture picture = new Picture(pictureSupplier.get().getChecksum(), "image/jpeg", Instant.EPOCH);
+        PictureFileItem item = fileItemOf(picture);
+        hotStorage.savePictureFileItem(item);
+        coldStorage.savePictureFileItem(item);
+        setFileTimes(hotStorage.resolvePictureResource(picture), Instant.EPOCH);
+        setFileTimes(coldStorage.resolvePictureResource(picture), Instant.EPOCH);
+        storageService = createStorageService(10 * PICTURE_SIZE, 3);
+        mockColdPictures(picture);
+
+        storageService.migrate();
+
+        assertFalse("Picture hot", storageService.isHot(picture.getChecksum()));
+        assertEquals(
+                "Picture uploaded again",
+                Instant.EPOCH.toEpochMilli(),
+                coldStorage.resolvePictureResource(picture).lastModified()
+        );
+        assertArrayEquals(TestHelper.contentOf(item), contentOf(picture));
+    }
+
+    @Test
+    public void shouldKeepHotFileOfDemotedPictureForResolvedReads() throws Exception {
+        storageService = createStorageService(PICTURE_SIZE, 3, Duration.ofHours(1));
+        Picture picture = pictureSupplier.get();
+        PictureFileItem item = fileItemOf(picture);
+        storageService.savePictureFileItem(item);
+        mockColdPictures(picture);
+        Resource resolvedResource = storageService.resolvePictureResource(picture);
+
+        // read picture is demoted, as hot tier is full
+        storageService.migrate();
+
+        assertFalse("Picture hot", storageService.isHot(picture.getChecksum()));
+        assertTrue("Picture not on cold tier", coldStorage.resolvePictureResource(picture).exists());
+        try (InputStream stream = resolvedResource.getInputStream()) {
+            assertArrayEquals(TestHelper.contentOf(item), StreamUtils.copyToByteArray(stream));
+        }
+    }
+
+    @Test
+    public void shouldKeepPicturesOfActiveOrdersHot() throws IOException {
+        Picture picture = new Picture(pictureSupplier.get().getChecksum(), "image/jpeg", Instant.EPOCH);
+        hotStorage.savePictureFileItem(fileItemOf(picture));
+        storageService = createStorageService(10 * PICTURE_SIZE, 3);
+        when(pictureRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(picture));
+        when(pictureRepository.findChecksumsOfOrdersCompletedAfter(anyCollection(), any()))
+                .thenReturn(Collections.singletonList(picture.getChecksum()));
+
+        storageService.migrate();
+
+        assertTrue("Picture not hot", storageService.isHot(picture.getChecksum()));
+        assertFalse("Picture on cold tier", coldStorage.resolvePictureResource(picture).exists());
+    }
+
+    @Test
+    public void shouldDemoteLeastReadPicturesWhenHotTierFull() throws IOException {
+        storageService = createStorageService(2 * PICTURE_SIZE, 3);
+        Picture unreadPicture = pictureSupplier.get();
+        Picture readPicture = pictureSupplier.get();
+        storageService.savePictureFileItem(fileItemOf(unreadPicture));
+        storageService.savePictureFileItem(fileItemOf(readPicture));
+        contentOf(readPicture);
+        when(pictureRepository.findAllById(anyCollection())).thenReturn(Arrays.asList(unreadPicture, readPicture));
+        when(pictureRepository.findChecksumsOfOrdersCompletedAfter(anyCollection(), any()))
+                .thenReturn(Collections.emptyList());
+
+        storageService.migrate();
+
+        assertFalse("Unread picture hot", storageService.isHot(unreadPicture.getChecksum()));
+        assertTrue("Read picture not hot", storageService.isHot(readPicture.getChecksum()));
+        assertTrue("Unread picture not on cold tier", coldStorage.resolvePictureResource(unreadPicture).exists());
+        assertEquals("Hot tier size", PICTURE_SIZE, storageService.getHotSize());
+    }
+
+    @Test
+    public void shouldPromoteFrequentlyReadPicture() throws Exception {
+        storageService = createStorageService(10 * PICTURE_SIZE, 2);
+        Picture picture = pictureSupplier.get();
+        PictureFileItem item = fileItemOf(picture);
+        coldStorage.savePictureFileItem(item);
+
+        contentOf(picture);
+        assertFalse("Picture promoted after single read", storageService.isHot(picture.getChecksum()));
+        contentOf(picture);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!storageService.isHot(picture.getChecksum()) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        assertTrue("Picture not promoted", storageService.isHot(picture.getChecksum()));
+        assertEquals("Hot tier size", PICTURE_SIZE, storageService.getHotSize());
+        assertTrue("Picture not on hot tier", hotStorage.resolvePictureResource(picture).exists());
+        assertTrue("Picture not kept on cold tier", coldStorage.resolvePictureResource(picture).exists());
+
+        storageService.deletePictureFile(picture);
+
+        awaitDeletion(hotStorage.resolvePictureResource(picture));
+        assertFalse("Picture on cold tier", coldStorage.resolvePictureResource(picture).exists());
+        assertEquals("Hot tier size", 0, storageService.getHotSize());
+    }
+
+    private TieredPictureStorageService createStorageService(long maxHotSize, int promotionAccesses) {
+        return createStorageService(maxHotSize, promotionAccesses, Duration.ZERO);
+    }
+
+    private TieredPictureStorageService createStorageService(
+            long maxHotSize, int promotionAccesses, Duration hotFileRetention
+    ) {
+        return new TieredPictureStorageService(
+                hotStorage,
+                coldStorage,
+                new PictureTieringPolicy(pictureRepository, Duration.ofDays(1), promotionAccesses),
+                maxHotSize,
+                1024 * 1024,
+                Duration.ofHours(1),
+                hotFileRetention,
+                new SimpleMeterRegistry()
+        );
+    }
+
+    private void mockColdPictures(Picture picture) {
+        when(pictureRepository.findAllById(anyCollection())).thenReturn(Collections.singletonList(picture));
+        when(pictureRepository.findChecksumsOfOrdersCompletedAfter(anyCollection(), any()))
+                .thenReturn(Collections.emptyList());
+    }
+
+    private byte[] contentOf(Picture picture) throws IOException {
+        try (InputStream stream = storageService.resolvePictureResource(picture).getInputStream()) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+
+    private static void setFileTimes(Resource resource, Instant instant) throws IOException {
+        FileTime time = FileTime.from(instant);
+        Files.getFileAttributeView(resource.getFile().toPath(), BasicFileAttributeView.class)
+                .setTimes(time, time, null);
+    }
+
+    private static void awaitDeletion(Resource resource) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (resource.exists() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertFalse("File not deleted", resource.exists());
+    }
+
+    private static PictureFileItem fileItemOf(Picture picture) {
+        byte[] content = Arrays.copyOf(picture.getChecksum().getBytes(StandardCharsets.US_ASCII), PICTURE_SIZE);
+        return new PictureFileItem(picture, content);
+    }
+}
@@ -0,0 +1,96 @@
+package io.orvisual.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link UploadBudget}.
+ *
+ * @author Artemis A. Sirosh
+ */
+public class UploadBudgetTest {
+
+    private static final long BUDGET_SIZE = 10 * 1024;
+
+    private MeterRegistry meterRegistry;
+
+    private UploadBudget uploadBudget;
+
+    @Before
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.uploadBudget = new UploadBudget(BUDGET_SIZE, Duration.ofMillis(100), meterRegistry);
+    }
+
+    @Test
+    public void shouldAccountAcquiredBudget() throws InterruptedException {
+        UploadBudget.Permit first = uploadBudget.tryAcquire(4 * 1024);
+        UploadBudget.Permit second = uploadBudget.tryAcquire(100);
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(5 * 1024, uploadBudget.getInFlightBytes());
+        assertEquals(5 * 1024, meterRegistry.get("orvisual.upload.inflight").gauge().value(), 0.0);
+
+        first.close();
+        first.close();
+        assertEquals(1024, uploadBudget.getInFlightBytes());
+
+        second.close();
+        assertEquals(0, uploadBudget.getInFlightBytes());
+    }
+
+    @Test
+    public void shouldRejectUploadWhenBudgetExhausted() throws InterruptedException {
+        UploadBudget.Permit permit = uploadBudget.tryAcquire(8 * 1024);
+        assertNotNull(permit);
+
+        assertNull("Upload over budget must be rejected", uploadBudget.tryAcquire(4 * 1024));
+        assertEquals(1.0, meterRegistry.get("orvisual.upload.rejected").counter().count(), 0.0);
+        assertEquals(0, uploadBudget.getQueueDepth());
+    }
+
+    @Test
+    public void shouldAdmitQueuedUploadWhenBudgetReleased() throws Exception {
+        final UploadBudget waitingBudget = new UploadBudget(BUDGET_SIZE, Duration.ofSeconds(5), meterRegistry);
+        final UploadBudget.Permit permit = waitingBudget.tryAcquire(8 * 1024);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<UploadBudget.Permit> queued = executor.submit(() -> waitingBudget.tryAcquire(4 * 1024));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (waitingBudget.getQueueDepth() == 0) {
+                assertTrue("Upload not queued", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            permit.close();
+
+            assertNotNull("Queued upload must be admitted", queued.get(5, TimeUnit.SECONDS));
+            assertEquals(0, waitingBudget.getQueueDepth());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldAdmitUploadLargerThanBudgetAlone() throws InterruptedException {
+        UploadBudget.Permit permit = uploadBudget.tryAcquire(100 * 1024);
+
+        assertNotNull(permit);
+        assertEquals(BUDGET_SIZE, uploadBudget.getInFlightBytes());
+        assertNull(uploadBudget.tryAcquire(1));
+    }
+}
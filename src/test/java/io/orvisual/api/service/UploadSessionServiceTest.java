@@ -0,0 +1,237 @@
+package io.orvisual.api.service;
+
+import com.google.common.hash.Hashing;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.orvisual.api.TestHelper.contentOf;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link UploadSessionService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class UploadSessionServiceTest {
+
+    private static final long MAX_FILE_SIZE = 1024 * 1024;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PictureUploadService uploadService;
+
+    private final ChecksumCalculator checksumCalculator = new Sha256ChecksumCalculator();
+
+    private Path sessionsPath;
+
+    private UploadSessionService sessionService;
+
+    private byte[] content;
+
+    @Before
+    public void setUp() throws IOException {
+        this.sessionsPath = temporaryFolder.newFolder("sessions").toPath();
+        this.sessionService = new UploadSessionService(
+                sessionsPath, MAX_FILE_SIZE, Duration.ofHours(1), uploadService, checksumCalculator
+        );
+        this.content = new byte[200_000];
+        new Random(42L).nextBytes(content);
+        // MIME type of completed upload is detected by signature of PNG file
+        System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 0, content, 0, 8);
+    }
+
+    @Test
+    public void shouldAppendChunksAndCompleteSession() {
+        final AtomicReference<byte[]> savedContent = new AtomicReference<>();
+        final AtomicReference<Picture> savedPicture = new AtomicReference<>();
+        when(uploadService.savePictureFileItem(any())).thenAnswer(invocation -> {
+            PictureFileItem fileItem = invocation.getArgument(0);
+            savedContent.set(contentOf(fileItem));
+            savedPicture.set(fileItem.getPictureItem());
+            assertEquals(content.length, fileItem.getContentLength());
+            return new PictureUploadResult(fileItem.getPictureItem(), true);
+        });
+
+        UploadSession session = sessionService.openSession(MediaType.IMAGE_PNG_VALUE);
+        assertEquals(0L, session.getOffset());
+
+        session = sessionService.appendChunk(session.getId(), 0L, chunk(0, 70_000));
+        assertEquals(70_000L, session.getOffset());
+        session = sessionService.appendChunk(session.getId(), 70_000L, chunk(70_000, content.length));
+        assertEquals(content.length, session.getOffset());
+
+        PictureUploadResult result = sessionService.completeSession(session.getId());
+
+        assertTrue(result.isCreated());
+        assertArrayEquals(content, savedContent.get());
+        assertEquals(Hashing.sha256().hashBytes(content).toString(), savedPicture.get().getChecksum());
+        assertEquals(MediaType.IMAGE_PNG_VALUE, savedPicture.get().getMimeType());
+        assertFalse("Session must be removed", Files.exists(sessionsPath.resolve(session.getId())));
+    }
+
+    @Test
+    public void shouldRejectChunkWithWrongOffset() {
+        UploadSession session = sessionService.openSession(MediaType.IMAGE_PNG_VALUE);
+        sessionService.appendChunk(session.getId(), 0L, chunk(0, 100));
+
+        try {
+            sessionService.appendChunk(session.getId(), 50L, chunk(50, 150));
+            fail("Chunk with wrong offset must be rejected");
+        } catch (UploadOffsetConflictException exc) {
+            assertEquals(100L, exc.getSessionOffset());
+        }
+
+        assertEquals(100L, sessionService.findSession(session.getId()).getOffset());
+    }
+
+    @Test
+    public void shouldResumeSessionAfterRestart() {
+        when(uploadService.savePictureFileItem(any())).thenAnswer(invocation -> {
+            PictureFileItem fileItem = invocation.getArgument(0);
+            assertArrayEquals(content, contentOf(fileItem));
+            return new PictureUploadResult(fileItem.getPictureItem(), true);
+        });
+
+        UploadSession session = sessionService.openSession(MediaType.IMAGE_JPEG_VALUE);
+        sessionService.appendChunk(session.getId(), 0L, chunk(0, 100_000));
+
+        UploadSessionService restartedService = new UploadSessionService(
+                sessionsPath, MAX_FILE_SIZE, Duration.ofHours(1), uploadService, checksumCalculator
+        );
+        UploadSession resumedSession = restartedService.findSession(session.getId());
+        assertEquals(100_000L, resumedSession.getOffset());
+        assertEquals(MediaType.IMAGE_JPEG_VALUE, resumedSession.getMimeType());
+
+        restartedService.appendChunk(session.getId(), 100_000L, chunk(100_000, content.length));
+        PictureUploadResult result = restartedService.completeSession(session.getId());
+
+        assertEquals(Hashing.sha256().hashBytes(content).toString(), result.getPicture().getChecksum());
+    }
+
+    @Test
+    public void shouldKeepReceivedPartOfInterruptedChunk() {
+        UploadSession session = sessionService.openSession(MediaType.IMAGE_PNG_VALUE);
+
+        InputStream interruptedChunk = new FilterInputStream(chunk(0, 100_000)) {
+            private int received;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (received >= 30_000)
+                    throw new IOException("Connection reset");
+
+                int count = super.read(b, off, Math.min(len, 30_000 - received));
+                received += count;
+                return count;
+            }
+        };
+
+        try {
+            sessionService.appendChunk(session.getId(), 0L, interruptedChunk);
+            fail("Interrupted chunk must fail");
+        } catch (PictureFileProcessingException exc) {
+            assertEquals(30_000L, sessionService.findSession(session.getId()).getOffset());
+        }
+
+        when(uploadService.savePictureFileItem(any())).thenAnswer(invocation -> {
+            PictureFileItem fileItem = invocation.getArgument(0);
+            return new PictureUploadResult(fileItem.getPictureItem(), true);
+        });
+        sessionService.appendChunk(session.getId(), 30_000L, chunk(30_000, content.length));
+        PictureUploadResult result = sessionService.completeSession(session.getId());
+
+        assertEquals(Hashing.sha256().hashBytes(content).toString(), result.getPicture().getChecksum());
+    }
+
+    @Test
+    public void shouldCalculateChecksumWhenCompletionRetried() {
+        when(uploadService.savePictureFileItem(any()))
+                .thenThrow(new PictureFileProcessingException("Storage not available"))
+                .thenAnswer(invocation -> {
+                    PictureFileItem fileItem = invocation.getArgument(0);
+                    return new PictureUploadResult(fileItem.getPictureItem(), true);
+                });
+
+        UploadSession session = sessionService.openSession(MediaType.IMAGE_PNG_VALUE);
+        sessionService.appendChunk(session.getId(), 0L, chunk(0, content.length));
+        try {
+            sessionService.completeSession(session.getId());
+            fail("Completion must fail");
+        } catch (PictureFileProcessingException exc) {
+            assertEquals(content.length, sessionService.findSession(session.getId()).getOffset());
+        }
+
+        PictureUploadResult result = sessionService.completeSession(session.getId());
+
+        assertEquals(Hashing.sha256().hashBytes(content).toString(), result.getPicture().getChecksum());
+    }
+
+    @Test(expected = UploadSizeExceededException.class)
+    public void shouldRejectTooLargeFile() {
+        UploadSessionService limitedService = new UploadSessionService(
+                sessionsPath, 1000L, Duration.ofHours(1), uploadService, checksumCalculator
+        );
+        UploadSession session = limitedService.openSession(MediaType.IMAGE_PNG_VALUE);
+        limitedService.appendChunk(session.getId(), 0L, chunk(0, 1001));
+    }
+
+    @Test(expected = UploadSessionNotFoundException.class)
+    public void shouldNotResolveInvalidSessionId() {
+        sessionService.findSession("../sessions");
+    }
+
+    @Test
+    public void shouldDeleteSession() {
+        UploadSession session = sessionService.openSession(MediaType.IMAGE_PNG_VALUE);
+        sessionService.deleteSession(session.getId());
+
+        try {
+            sessionService.findSession(session.getId());
+            fail("Deleted session must not be found");
+        } catch (UploadSessionNotFoundException exc) {
+            verify(uploadService, never()).savePictureFileItem(any());
+        }
+    }
+
+    @Test
+    public void shouldRemoveExpiredSessions() {
+        UploadSessionService expiringService = new UploadSessionService(
+                sessionsPath, MAX_FILE_SIZE, Duration.ofMillis(-1), uploadService, checksumCalculator
+        );
+        UploadSession session = expiringService.openSession(MediaType.IMAGE_PNG_VALUE);
+
+        expiringService.removeExpiredSessions();
+
+        assertFalse("Session must be removed", Files.exists(sessionsPath.resolve(session.getId())));
+    }
+
+    private InputStream chunk(int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, from, to));
+    }
+}
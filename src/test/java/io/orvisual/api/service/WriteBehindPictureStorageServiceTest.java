@@ -0,0 +1,247 @@
+package io.orvisual.api.service;
+
+import io.orvisual.api.TestHelper;
+import io.orvisual.api.model.Picture;
+import io.orvisual.api.model.PictureFileItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static io.orvisual.api.TestHelper.contentOf;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Created on 18 Oct, 2026.
+ *
+ * Test for {@link WriteBehindPictureStorageService}.
+ *
+ * @author Artemis A. Sirosh
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class WriteBehindPictureStorageServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 5000L;
+
+    private final Supplier<PictureFileItem> fileItemSupplier = TestHelper.uniformPictureItemSupplier();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PictureStorageService remoteStorage;
+
+    private Path stagingPath;
+
+    private WriteBehindPictureStorageService storageService;
+
+    @Before
+    public void setUp() throws IOException {
+        this.stagingPath = temporaryFolder.newFolder("staging").toPath();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (storageService != null)
+            storageService.close();
+    }
+
+    @Test
+    public void shouldServeStagedFileUntilUploadCompletes() throws Exception {
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        final CountDownLatch uploadStarted = new CountDownLatch(1);
+        final CountDownLatch remoteReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            uploadStarted.countDown();
+            remoteReleased.await();
+            return null;
+        }).when(remoteStorage).savePictureFileItem(any());
+
+        storageService = new WriteBehindPictureStorageService(remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ZERO);
+        storageService.savePictureFileItem(fileItem);
+
+        assertTrue(uploadStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        Resource resource = storageService.resolvePictureResource(fileItem.getPictureItem());
+        assertArrayEquals(contentOf(fileItem), readResource(resource));
+        verify(remoteStorage, never()).resolvePictureResource(any());
+
+        remoteReleased.countDown();
+        verify(remoteStorage, timeout(TIMEOUT_MILLIS)).savePictureFileItem(
+                argThat(item -> fileItem.getPictureItem().equals(item.getPictureItem()))
+        );
+        awaitStagingCleared();
+
+        storageService.resolvePictureResource(fileItem.getPictureItem());
+        verify(remoteStorage).resolvePictureResource(fileItem.getPictureItem());
+    }
+
+    @Test
+    public void shouldRetryFailedUpload() throws Exception {
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        doThrow(new PictureFileProcessingException("S3 is down"))
+                .doThrow(new PictureFileProcessingException("S3 is down"))
+                .doNothing()
+                .when(remoteStorage).savePictureFileItem(any());
+
+        storageService = new WriteBehindPictureStorageService(remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ZERO);
+        storageService.savePictureFileItem(fileItem);
+
+        verify(remoteStorage, timeout(TIMEOUT_MILLIS).times(3)).savePictureFileItem(any());
+        awaitStagingCleared();
+    }
+
+    @Test
+    public void shouldReplayJournalAfterRestart() throws Exception {
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        final PictureStorageService unavailableStorage = mock(PictureStorageService.class);
+        doThrow(new PictureFileProcessingException("S3 is down")).when(unavailableStorage).savePictureFileItem(any());
+
+        storageService = new WriteBehindPictureStorageService(
+                unavailableStorage, stagingPath, 1, Duration.ofMinutes(1), 10, Duration.ZERO
+        );
+        storageService.savePictureFileItem(fileItem);
+        verify(unavailableStorage, timeout(TIMEOUT_MILLIS)).savePictureFileItem(any());
+        storageService.close();
+
+        storageService = new WriteBehindPictureStorageService(remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ZERO);
+
+        verify(remoteStorage, timeout(TIMEOUT_MILLIS)).savePictureFileItem(
+                argThat(item -> fileItem.getPictureItem().equals(item.getPictureItem()))
+        );
+        awaitStagingCleared();
+    }
+
+    @Test
+    public void shouldIgnoreIncompleteJournalRecord() throws Exception {
+        final Picture picture = fileItemSupplier.get().getPictureItem();
+        Files.write(stagingPath.resolve(picture.getChecksum()), new byte[]{'O', 'K'});
+        Files.write(
+                stagingPath.resolve("journal"),
+                ("STAGED " + picture.getChecksum() + " image/jpeg 1000\nSTAGED 0123 image/jp")
+                        .getBytes(StandardCharsets.UTF_8)
+        );
+
+        storageService = new WriteBehindPictureStorageService(remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ZERO);
+
+        verify(remoteStorage, timeout(TIMEOUT_MILLIS)).savePictureFileItem(
+                argThat(item -> picture.getChecksum().equals(item.getPictureItem().getChecksum()))
+        );
+        awaitStagingCleared();
+        verifyNoMoreInteractions(remoteStorage);
+    }
+
+    @Test
+    public void shouldDeleteStagedFileWhileUploading() throws Exception {
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        final CountDownLatch uploadStarted = new CountDownLatch(1);
+        final CountDownLatch remoteReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            uploadStarted.countDown();
+            remoteReleased.await();
+            return null;
+        }).when(remoteStorage).savePictureFileItem(any());
+
+        storageService = new WriteBehindPictureStorageService(remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ZERO);
+        storageService.savePictureFileItem(fileItem);
+        assertTrue(uploadStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        storageService.deletePictureFile(fileItem.getPictureItem());
+        awaitStagingCleared();
+        verify(remoteStorage, never()).deletePictureFile(any());
+
+        remoteReleased.countDown();
+        verify(remoteStorage, timeout(TIMEOUT_MILLIS)).deletePictureFile(fileItem.getPictureItem());
+        storageService.close();
+
+        storageService = new WriteBehindPictureStorageService(remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ZERO);
+        verify(remoteStorage, after(200).times(1)).savePictureFileItem(any());
+    }
+
+    @Test
+    public void shouldKeepUploadedFileForResolvedResource() throws Exception {
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        final CountDownLatch remoteReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            remoteReleased.await();
+            return null;
+        }).when(remoteStorage).savePictureFileItem(any());
+
+        storageService = new WriteBehindPictureStorageService(
+                remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ofMinutes(1)
+        );
+        storageService.savePictureFileItem(fileItem);
+        Resource resource = storageService.resolvePictureResource(fileItem.getPictureItem());
+
+        remoteReleased.countDown();
+        verify(remoteStorage, timeout(TIMEOUT_MILLIS)).savePictureFileItem(any());
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (Files.size(stagingPath.resolve("journal")) > 0) {
+            assertTrue("Upload not recorded", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        assertArrayEquals(contentOf(fileItem), readResource(resource));
+        storageService.close();
+
+        storageService = new WriteBehindPictureStorageService(
+                remoteStorage, stagingPath, 1, Duration.ofMillis(10), 10, Duration.ofMinutes(1)
+        );
+        assertEquals("Uploaded file left after restart", 0, countStagedFiles());
+    }
+
+    @Test
+    public void shouldStopRetryingAfterMaxAttempts() throws Exception {
+        final PictureFileItem fileItem = fileItemSupplier.get();
+        doThrow(new PictureFileProcessingException("S3 is down")).when(remoteStorage).savePictureFileItem(any());
+
+        storageService = new WriteBehindPictureStorageService(
+                remoteStorage, stagingPath, 1, Duration.ofMillis(10), 2, Duration.ZERO
+        );
+        storageService.savePictureFileItem(fileItem);
+
+        verify(remoteStorage, after(300).times(2)).savePictureFileItem(any());
+        Resource resource = storageService.resolvePictureResource(fileItem.getPictureItem());
+        assertArrayEquals(contentOf(fileItem), readResource(resource));
+        assertTrue("Staged picture not journaled", Files.size(stagingPath.resolve("journal")) > 0);
+    }
+
+    private void awaitStagingCleared() throws InterruptedException, IOException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (Files.size(stagingPath.resolve("journal")) > 0 || countStagedFiles() > 0) {
+            assertTrue("Staging directory not cleared", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private long countStagedFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(stagingPath)) {
+            return paths.filter(path -> !path.getFileName().toString().equals("journal")).count();
+        }
+    }
+
+    private static byte[] readResource(Resource resource) throws IOException {
+        try (InputStream stream = resource.getInputStream()) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+}